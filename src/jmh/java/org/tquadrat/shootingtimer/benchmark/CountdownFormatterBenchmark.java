@@ -0,0 +1,135 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer.benchmark;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.shootingtimer.CountdownFormatter;
+
+/**
+ *  <p>{@summary The benchmarks for the formatting of the remaining time.}</p>
+ *  <p>The {@code formatted…()} benchmarks measure the formatting with
+ *  {@link String#formatted(Object...)}
+ *  as it was used before the introduction of
+ *  {@link CountdownFormatter};
+ *  they serve as the baseline.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@State( Scope.Thread )
+@OutputTimeUnit( NANOSECONDS )
+public class CountdownFormatterBenchmark
+{
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The remaining time in milliseconds; it is decremented with each
+     *  invocation, like it would be for a running countdown.
+     */
+    private long m_RemainingTime;
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Formats the remaining time with hundredths of a second.
+     *
+     *  @return The text.
+     */
+    @Benchmark
+    public String formatHundredths() { return CountdownFormatter.formatHundredths( nextValue( 60_000L ) ); }
+
+    /**
+     *  Formats the remaining time in minutes and seconds.
+     *
+     *  @return The text.
+     */
+    @Benchmark
+    public String formatMinutes() { return CountdownFormatter.formatMinutes( nextValue( 5_400_000L ) ); }
+
+    /**
+     *  Formats the remaining time with tenths of a second.
+     *
+     *  @return The text.
+     */
+    @Benchmark
+    public String formatTenths() { return CountdownFormatter.formatTenths( nextValue( 350_000L ) ); }
+
+    /**
+     *  Formats the remaining time in minutes and seconds with
+     *  {@link String#formatted(Object...)}.
+     *
+     *  @return The text.
+     */
+    @Benchmark
+    public String formattedMinutes()
+    {
+        final var remainingTime = nextValue( 5_400_000L );
+        return "%d:%02d".formatted( remainingTime / 60_000, (remainingTime / 1000) % 60 );
+    }   //  formattedMinutes()
+
+    /**
+     *  Formats the remaining time with tenths of a second with
+     *  {@link String#formatted(Object...)}.
+     *
+     *  @return The text.
+     */
+    @Benchmark
+    public String formattedTenths() { return "%3.1f".formatted( nextValue( 350_000L ) / 1000.0 ); }
+
+    /**
+     *  Returns the next value for the remaining time.
+     *
+     *  @param  limit   The upper limit for the remaining time.
+     *  @return The remaining time in milliseconds.
+     */
+    private final long nextValue( final long limit )
+    {
+        m_RemainingTime -= 7L;
+        if( m_RemainingTime < 0L || m_RemainingTime > limit ) m_RemainingTime = limit;
+
+        //---* Done *----------------------------------------------------------
+        return m_RemainingTime;
+    }   //  nextValue()
+
+    /**
+     *  Prepares the tables of the formatter.
+     */
+    @Setup
+    public void setup()
+    {
+        CountdownFormatter.prepare( 5_400_000L );
+        m_RemainingTime = 0L;
+    }   //  setup()
+}
+//  class CountdownFormatterBenchmark
+
+/*
+ *  End of File
+ */
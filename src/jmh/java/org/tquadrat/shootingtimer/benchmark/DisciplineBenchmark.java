@@ -0,0 +1,78 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer.benchmark;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.shootingtimer.Discipline;
+
+/**
+ *  The benchmarks for the lookup of a
+ *  {@link Discipline}
+ *  and the retrieval of its localised name.
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@State( Scope.Thread )
+@OutputTimeUnit( NANOSECONDS )
+public class DisciplineBenchmark
+{
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The DSB code for the lookup; the first, a middle and the last entry.
+     */
+    @Param( { "1.10", "2.45", "Tiebreak" } )
+    public String m_DSBCode;
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Looks up the discipline for the DSB code.
+     *
+     *  @return The discipline.
+     */
+    @Benchmark
+    public Discipline fromDSBCode() { return Discipline.fromDSBCode( m_DSBCode ); }
+
+    /**
+     *  Looks up the discipline for the DSB code and retrieves its localised
+     *  name.
+     *
+     *  @return The name.
+     */
+    @Benchmark
+    public String disciplineToString() { return Discipline.fromDSBCode( m_DSBCode ).toString(); }
+}
+//  class DisciplineBenchmark
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,86 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer.benchmark;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.shootingtimer.Discipline;
+import org.tquadrat.shootingtimer.Heat;
+import org.tquadrat.shootingtimer.HeatSchedule;
+
+/**
+ *  The benchmark for the computation of a
+ *  {@link HeatSchedule}.
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@State( Scope.Thread )
+@OutputTimeUnit( NANOSECONDS )
+public class HeatScheduleBenchmark
+{
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The discipline.
+     */
+    @Param( { "DISCIPLINE_1_10", "DISCIPLINE_2_17" } )
+    public String m_DisciplineName;
+
+    /**
+     *  The heat; it is the last one in the program of the discipline.
+     */
+    private Heat m_Heat;
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Computes the schedule for the heat.
+     *
+     *  @return The schedule.
+     */
+    @Benchmark
+    public HeatSchedule computeSchedule() { return new HeatSchedule( m_Heat, 5_000L, 10_000L ); }
+
+    /**
+     *  Selects the heat.
+     */
+    @Setup
+    public void setup()
+    {
+        final var program = Discipline.valueOf( m_DisciplineName ).getProgram();
+        m_Heat = program [program.length - 1];
+    }   //  setup()
+}
+//  class HeatScheduleBenchmark
+
+/*
+ *  End of File
+ */
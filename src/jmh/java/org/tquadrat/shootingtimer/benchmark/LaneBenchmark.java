@@ -0,0 +1,170 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer.benchmark;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.shootingtimer.Discipline;
+import org.tquadrat.shootingtimer.Heat;
+import org.tquadrat.shootingtimer.LaneManager;
+import org.tquadrat.shootingtimer.SimulatedHeatClock;
+
+/**
+ *  <p>{@summary The benchmarks for many lanes that are driven by a single
+ *  {@link LaneManager}.}</p>
+ *  <p>{@link #simulateLanes()}
+ *  executes a heat on each lane with a
+ *  {@link SimulatedHeatClock},
+ *  so it measures the processing costs for the lanes.
+ *  {@link #runLanes()}
+ *  starts a short heat on all lanes at the same time, on the shared
+ *  scheduler and in real time; the lateness of the transitions is printed
+ *  when the benchmark is finished. The target is a p99 lateness below one
+ *  millisecond with 100 lanes on a Raspberry Pi 4.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@State( Scope.Thread )
+@OutputTimeUnit( MILLISECONDS )
+public class LaneBenchmark
+{
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The heat for the real time benchmark; it lasts two and a half
+     *  seconds, including the times before and after.
+     */
+    private static final Heat SHORT_HEAT = new Heat( "Lane Benchmark", 500L, 250L, 2 );
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The number of lanes.
+     */
+    @Param( { "20", "60", "100" } )
+    public int m_LaneCount;
+
+    /**
+     *  The lanes that are driven by the shared scheduler.
+     */
+    private LaneManager m_Lanes;
+
+    /**
+     *  The clock for the simulated lanes.
+     */
+    private SimulatedHeatClock m_SimulatedClock;
+
+    /**
+     *  The lanes that are driven by a simulated clock.
+     */
+    private LaneManager m_SimulatedLanes;
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Prints the lateness of the transitions for the real time benchmark.
+     */
+    @TearDown( Level.Trial )
+    public void report()
+    {
+        System.out.printf( "%n%d lanes:%n%s%n", m_LaneCount, m_Lanes.getLatencies().report() );
+    }   //  report()
+
+    /**
+     *  Starts a short heat on all lanes at the same time, on the shared
+     *  scheduler, and waits until they have ended.
+     *
+     *  @return The number of heats that were executed completely.
+     *  @throws Exception   A heat could not be executed.
+     */
+    @Benchmark
+    @BenchmarkMode( Mode.SingleShotTime )
+    public int runLanes() throws Exception
+    {
+        final var results = new CompletableFuture<?> [m_LaneCount];
+        for( final var lane : m_Lanes.getLanes() )
+        {
+            results [lane.getNumber() - 1] = lane.start( Discipline.TIEBREAK, SHORT_HEAT, 500L, 500L );
+        }
+        var retValue = 0;
+        for( final var result : results ) if( Boolean.TRUE.equals( result.get() ) ) ++retValue;
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  runLanes()
+
+    /**
+     *  Creates the lanes.
+     */
+    @Setup( Level.Trial )
+    public void setup()
+    {
+        m_Lanes = new LaneManager( m_LaneCount );
+        m_SimulatedClock = new SimulatedHeatClock();
+        m_SimulatedLanes = new LaneManager( m_SimulatedClock, m_LaneCount );
+    }   //  setup()
+
+    /**
+     *  Executes the first heat of a discipline on each lane, with a
+     *  simulated clock; the disciplines are assigned to the lanes in turn.
+     *
+     *  @return The number of executed phases and heat ends.
+     *  @throws Exception   A heat could not be executed.
+     */
+    @Benchmark
+    public int simulateLanes() throws Exception
+    {
+        final var disciplines = Discipline.values();
+        final var results = new CompletableFuture<?> [m_LaneCount];
+        for( final var lane : m_SimulatedLanes.getLanes() )
+        {
+            final var discipline = disciplines [(lane.getNumber() - 1) % disciplines.length];
+            results [lane.getNumber() - 1] = lane.start( discipline, discipline.getProgram() [0], 5_000L, 10_000L );
+        }
+        final var retValue = m_SimulatedClock.runUntilIdle();
+        for( final var result : results ) if( !Boolean.TRUE.equals( result.get() ) ) throw new IllegalStateException( "Heat was aborted" );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  simulateLanes()
+}
+//  class LaneBenchmark
+
+/*
+ *  End of File
+ */
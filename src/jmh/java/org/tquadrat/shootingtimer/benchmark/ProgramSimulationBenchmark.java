@@ -0,0 +1,90 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer.benchmark;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.shootingtimer.Discipline;
+import org.tquadrat.shootingtimer.HeatEngine;
+import org.tquadrat.shootingtimer.HeatSchedule;
+import org.tquadrat.shootingtimer.SimulatedHeatClock;
+import org.tquadrat.shootingtimer.TransitionLatencies;
+
+/**
+ *  The benchmark for the headless execution of the whole program of a
+ *  discipline with a
+ *  {@link SimulatedHeatClock}.
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@State( Scope.Thread )
+@OutputTimeUnit( MILLISECONDS )
+public class ProgramSimulationBenchmark
+{
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The discipline.
+     */
+    @Param( { "DISCIPLINE_1_10", "DISCIPLINE_2_17" } )
+    public String m_DisciplineName;
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Executes all heats of the program of the discipline, one after the
+     *  other.
+     *
+     *  @return The number of executed phases and heat ends.
+     *  @throws Exception   A heat could not be executed.
+     */
+    @Benchmark
+    public int simulateProgram() throws Exception
+    {
+        final var clock = new SimulatedHeatClock();
+        final var latencies = new TransitionLatencies();
+        var retValue = 0;
+        for( final var heat : Discipline.valueOf( m_DisciplineName ).getProgram() )
+        {
+            final var engine = new HeatEngine( new HeatSchedule( heat, 5_000L, 10_000L ), clock, (phase,deadline,scope) -> {}, latencies );
+            final var result = engine.start();
+            retValue += clock.runUntilIdle();
+            if( !result.get().booleanValue() ) throw new IllegalStateException( "Heat was aborted" );
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  simulateProgram()
+}
+//  class ProgramSimulationBenchmark
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,260 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer.benchmark;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.shootingtimer.Discipline;
+import org.tquadrat.shootingtimer.HeatEngine;
+import org.tquadrat.shootingtimer.HeatSession;
+import org.tquadrat.shootingtimer.RemoteControl;
+import org.tquadrat.shootingtimer.SharedClock;
+import org.tquadrat.shootingtimer.StatusMachine;
+import org.tquadrat.shootingtimer.SystemHeatClock;
+import org.tquadrat.shootingtimer.TimerScheduler;
+import org.tquadrat.shootingtimer.TransitionLatencies;
+
+/**
+ *  <p>{@summary The benchmarks for the
+ *  {@link RemoteControl}.}</p>
+ *  <p>A local HTTP client stands in for the tablet of the range officer,
+ *  and a single thread stands in for the JavaFX Application Thread; the
+ *  commands start and abort real heats through a
+ *  {@link HeatSession}.
+ *  The benchmarks measure the
+ *  round trip on the client side; the remote control measures the latency
+ *  from the arrival of a command until the resulting status was reached.
+ *  When the benchmark is finished, the latencies are printed, and the
+ *  benchmark fails if their 99th percentile exceeds
+ *  {@value RemoteControl#LATENCY_BUDGET}&nbsp;ms.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@State( Scope.Thread )
+@OutputTimeUnit( MICROSECONDS )
+public class RemoteControlBenchmark
+{
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The id of the client: {@value}.
+     */
+    private static final String CLIENT_ID = "benchmark";
+
+    /**
+     *  The token for the remote control: {@value}.
+     */
+    private static final String TOKEN = "benchmark-token";
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The stand-in for the JavaFX Application Thread.
+     */
+    private ExecutorService m_ApplicationThread;
+
+    /**
+     *  The remote control.
+     */
+    private RemoteControl m_RemoteControl;
+
+    /**
+     *  The sequence number for the next command.
+     */
+    private long m_Sequence;
+
+    /**
+     *  The session that executes the heats.
+     */
+    private HeatSession m_Session;
+
+    /**
+     *  The status machine.
+     */
+    private StatusMachine m_StatusMachine;
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Prints the latencies, and checks them against the budget.
+     *
+     *  @throws IllegalStateException   The 99th percentile of the latency
+     *      for {@code start} or {@code abort} exceeds the budget.
+     */
+    @TearDown( Level.Trial )
+    public void report() throws IllegalStateException
+    {
+        System.out.printf( "%nRemote control: %s%n", m_RemoteControl.report() );
+        m_RemoteControl.close();
+        m_ApplicationThread.shutdownNow();
+
+        for( final var command : new RemoteControl.Command [] {RemoteControl.Command.START, RemoteControl.Command.ABORT} )
+        {
+            final var p99 = m_RemoteControl.getLatencies( command ).getValueAtPercentile( 99.0 );
+            if( p99 > MILLISECONDS.toNanos( RemoteControl.LATENCY_BUDGET ) )
+            {
+                throw new IllegalStateException( "p99 latency for '%s' is %d µs, the budget is %d ms".formatted( command.getName(), p99 / 1_000L, RemoteControl.LATENCY_BUDGET ) );
+            }
+        }
+    }   //  report()
+
+    /**
+     *  Executes the given command on the stand-in for the JavaFX Application
+     *  Thread.
+     *
+     *  @param  command The command.
+     *  @return The result of the command.
+     */
+    private final CompletableFuture<Boolean> runOnApplicationThread( final BooleanSupplier command )
+    {
+        final var retValue = CompletableFuture.supplyAsync( command::getAsBoolean, m_ApplicationThread );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  runOnApplicationThread()
+
+    /**
+     *  Sends a command to the remote control and reads the reply.
+     *
+     *  @param  command The command.
+     *  @param  sequence    The sequence number.
+     *  @param  value   The value; may be {@code null}.
+     *  @return The HTTP status code of the reply.
+     *  @throws IOException The command could not be sent.
+     */
+    private final int send( final RemoteControl.Command command, final long sequence, final String value ) throws IOException
+    {
+        final var url = new URL( "http://127.0.0.1:%d%s%s?client=%s&seq=%d%s".formatted( m_RemoteControl.getPort(), RemoteControl.CONTEXT_PATH, command.getName(), CLIENT_ID, sequence, value == null ? "" : "&value=" + value ) );
+        final var connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod( "POST" );
+        connection.setRequestProperty( "Authorization", RemoteControl.AUTHORIZATION_SCHEME + TOKEN );
+        final var retValue = connection.getResponseCode();
+        try( final var body = retValue < 400 ? connection.getInputStream() : connection.getErrorStream() )
+        {
+            body.readAllBytes();
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  send()
+
+    /**
+     *  Sends the same command twice; the second one is answered from the
+     *  cache of the remote control.
+     *
+     *  @return The HTTP status code of the second reply.
+     *  @throws IOException The command could not be sent.
+     */
+    @Benchmark
+    @BenchmarkMode( Mode.SampleTime )
+    public int retransmitSelectHeat() throws IOException
+    {
+        final var sequence = ++m_Sequence;
+        send( RemoteControl.Command.HEAT, sequence, "0" );
+        final var retValue = send( RemoteControl.Command.HEAT, sequence, "0" );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  retransmitSelectHeat()
+
+    /**
+     *  Creates the remote control with a stand-in for the application.
+     *
+     *  @throws IOException The remote control could not be started.
+     */
+    @Setup( Level.Trial )
+    public void setup() throws IOException
+    {
+        System.setProperty( RemoteControl.PROPERTY_HTTP_NODELAY, "true" );
+        m_ApplicationThread = Executors.newSingleThreadExecutor();
+        m_StatusMachine = new StatusMachine();
+        m_Sequence = 0L;
+        final var program = Discipline.TIEBREAK.getProgram();
+        m_Session = new HeatSession( m_StatusMachine, new SharedClock( new SystemHeatClock( TimerScheduler.getScheduler() ) ), null, new TransitionLatencies(), new HeatSession.HeatSetup()
+        {
+            @Override
+            public final void addCues( final HeatEngine engine ) { /* No signals */ }
+
+            @Override
+            public final HeatEngine.PhaseListener createPhaseListener() { return (phase,deadline,scope) -> m_StatusMachine.transitionTo( phase.getStatus() ); }
+        } );
+        m_RemoteControl = new RemoteControl( new InetSocketAddress( "127.0.0.1", 0 ), TOKEN, new RemoteControl.CommandHandler()
+        {
+            @Override
+            public final CompletableFuture<Boolean> abortHeat() { return runOnApplicationThread( () -> m_Session.isRunning() && m_Session.abort() ); }
+
+            @Override
+            public final CompletableFuture<Boolean> selectDiscipline( final Discipline discipline ) { return runOnApplicationThread( () -> !m_Session.isRunning() ); }
+
+            @Override
+            public final CompletableFuture<Boolean> selectHeat( final int index ) { return runOnApplicationThread( () -> !m_Session.isRunning() && index >= 0 && index < program.length ); }
+
+            @Override
+            public final CompletableFuture<Boolean> startHeat() { return runOnApplicationThread( () -> m_Session.start( Discipline.TIEBREAK, program [0], 10_000L, 1_000L ) ); }
+        } );
+        m_StatusMachine.addListener( m_RemoteControl );
+    }   //  setup()
+
+    /**
+     *  Starts a heat and aborts it again.
+     *
+     *  @return The sum of the HTTP status codes of both replies.
+     *  @throws IOException A command could not be sent.
+     */
+    @Benchmark
+    @BenchmarkMode( Mode.SampleTime )
+    public int startAndAbort() throws IOException
+    {
+        final var retValue = send( RemoteControl.Command.START, ++m_Sequence, null ) + send( RemoteControl.Command.ABORT, ++m_Sequence, null );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  startAndAbort()
+}
+//  class RemoteControlBenchmark
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,101 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer.benchmark;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.shootingtimer.spi.Status;
+import org.tquadrat.shootingtimer.StatusMachine;
+
+/**
+ *  The benchmarks for the
+ *  {@link Status}
+ *  transitions, with and without the
+ *  {@link StatusMachine},
+ *  and the retrieval of the localised status names.
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@State( Scope.Thread )
+@OutputTimeUnit( NANOSECONDS )
+public class StatusBenchmark
+{
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The current status.
+     */
+    private Status m_Status = Status.STATUS_OFF;
+
+    /**
+     *  The state machine.
+     */
+    private final StatusMachine m_StatusMachine = new StatusMachine();
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Proceeds to the next status with the state machine; there is no
+     *  listener.
+     *
+     *  @return The new status.
+     */
+    @Benchmark
+    public Status machineProceed() { return m_StatusMachine.proceed(); }
+
+    /**
+     *  Proceeds to the next status with
+     *  {@link Status#nextStatus(Status)}.
+     *
+     *  @return The new status.
+     */
+    @Benchmark
+    public Status nextStatus()
+    {
+        m_Status = Status.nextStatus( m_Status );
+        return m_Status;
+    }   //  nextStatus()
+
+    /**
+     *  Retrieves the localised name of the current status.
+     *
+     *  @return The name.
+     */
+    @Benchmark
+    public String statusToString()
+    {
+        m_Status = Status.nextStatus( m_Status );
+        return m_Status.toString();
+    }   //  statusToString()
+}
+//  class StatusBenchmark
+
+/*
+ *  End of File
+ */
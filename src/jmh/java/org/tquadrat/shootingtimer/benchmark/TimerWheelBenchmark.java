@@ -0,0 +1,221 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer.benchmark;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.tquadrat.foundation.lang.Objects.nonNull;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.shootingtimer.HeatClock;
+import org.tquadrat.shootingtimer.LatencyHistogram;
+import org.tquadrat.shootingtimer.SystemHeatClock;
+import org.tquadrat.shootingtimer.TimerScheduler;
+import org.tquadrat.shootingtimer.TimerWheel;
+
+/**
+ *  <p>{@summary The benchmarks for the
+ *  {@link TimerWheel}
+ *  against a
+ *  {@link ScheduledThreadPoolExecutor},
+ *  with a large number of pending deadlines.}</p>
+ *  <p>During the whole trial, the clock holds the given number of
+ *  deadlines, spread over the next
+ *  {@value #LOAD_PERIOD}
+ *  seconds; each of them schedules itself again for one period later when
+ *  it was executed, like the phases and display ticks of many lanes.
+ *  {@link #scheduleAndCancel()}
+ *  measures the costs for inserting and cancelling a deadline, and
+ *  {@link #lateness()}
+ *  the time from a short deadline until its task was executed; the
+ *  lateness of the tasks is printed when the trial is finished.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@State( Scope.Thread )
+@OutputTimeUnit( NANOSECONDS )
+public class TimerWheelBenchmark
+{
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The period of the background deadlines, in seconds: {@value}.
+     */
+    public static final long LOAD_PERIOD = 10L;
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The clock under test.
+     */
+    private HeatClock m_Clock;
+
+    /**
+     *  The implementation of the clock.
+     */
+    @Param( { "wheel", "stpe" } )
+    public String m_Implementation;
+
+    /**
+     *  The lateness of the tasks from
+     *  {@link #lateness()}.
+     */
+    private LatencyHistogram m_Lateness;
+
+    /**
+     *  The number of pending background deadlines.
+     */
+    @Param( { "10000" } )
+    public int m_PendingCount;
+
+    /**
+     *  The random numbers for the delays in
+     *  {@link #lateness()}.
+     */
+    private final SplittableRandom m_Random = new SplittableRandom( 4711L );
+
+    /**
+     *  The executor behind the clock, if it is not the timer wheel.
+     */
+    private ScheduledThreadPoolExecutor m_Scheduler;
+
+    /**
+     *  The flag that stops the background deadlines.
+     */
+    private volatile boolean m_Stop;
+
+    /**
+     *  The timer wheel, if it is the clock under test.
+     */
+    private TimerWheel m_Wheel;
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Schedules a task for two to three milliseconds from now and waits
+     *  until it was executed; the random part of the delay keeps the
+     *  deadlines from being aligned to the ticks of the wheel.
+     *
+     *  @return The lateness of the task in nanoseconds.
+     *  @throws Exception   The task failed.
+     */
+    @Benchmark
+    @OutputTimeUnit( MILLISECONDS )
+    public long lateness() throws Exception
+    {
+        final var result = new CompletableFuture<Long>();
+        final var deadline = m_Clock.nanoTime() + MILLISECONDS.toNanos( 2L ) + m_Random.nextLong( MILLISECONDS.toNanos( 1L ) );
+        m_Clock.schedule( () -> result.complete( Long.valueOf( m_Clock.nanoTime() - deadline ) ), deadline );
+        final var retValue = result.get().longValue();
+        m_Lateness.record( retValue );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  lateness()
+
+    /**
+     *  Schedules a task for five seconds from now, and cancels it
+     *  immediately.
+     *
+     *  @return {@code true} if the task was cancelled.
+     */
+    @Benchmark
+    public boolean scheduleAndCancel()
+    {
+        final var retValue = m_Clock.schedule( () -> {}, m_Clock.nanoTime() + SECONDS.toNanos( 5L ) ).cancel( false );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  scheduleAndCancel()
+
+    /**
+     *  Schedules a background deadline that schedules itself again when it
+     *  was executed.
+     *
+     *  @param  deadline    The deadline.
+     */
+    private void scheduleLoad( final long deadline )
+    {
+        if( !m_Stop ) m_Clock.schedule( () -> scheduleLoad( deadline + SECONDS.toNanos( LOAD_PERIOD ) ), deadline );
+    }   //  scheduleLoad()
+
+    /**
+     *  Creates the clock and the background deadlines.
+     */
+    @Setup( Level.Trial )
+    public void setup()
+    {
+        if( "wheel".equals( m_Implementation ) )
+        {
+            m_Wheel = new TimerWheel( TimerScheduler.WHEEL_TICK, TimerScheduler.WHEEL_BUCKETS );
+            m_Clock = m_Wheel;
+        }
+        else
+        {
+            m_Scheduler = new ScheduledThreadPoolExecutor( 1 );
+            m_Scheduler.setRemoveOnCancelPolicy( true );
+            m_Clock = new SystemHeatClock( m_Scheduler );
+        }
+        m_Lateness = new LatencyHistogram();
+        m_Stop = false;
+
+        final var random = new SplittableRandom( 42L );
+        final var now = m_Clock.nanoTime();
+        for( var i = 0; i < m_PendingCount; ++i )
+        {
+            scheduleLoad( now + random.nextLong( SECONDS.toNanos( LOAD_PERIOD ) ) );
+        }
+    }   //  setup()
+
+    /**
+     *  Prints the lateness of the tasks, and stops the clock.
+     */
+    @TearDown( Level.Trial )
+    public void tearDown()
+    {
+        m_Stop = true;
+        if( m_Lateness.getCount() > 0L ) System.out.printf( "%n%s, lateness: %s%n", m_Implementation, m_Lateness.summary() );
+        if( nonNull( m_Wheel ) ) m_Wheel.close();
+        if( nonNull( m_Scheduler ) ) m_Scheduler.shutdownNow();
+    }   //  tearDown()
+}
+//  class TimerWheelBenchmark
+
+/*
+ *  End of File
+ */
@@ -21,7 +21,10 @@
 
 module org.tquadrat.shootingtimer
 {
+    requires java.desktop;
     requires java.prefs;
+    requires jdk.httpserver;
+    requires jdk.jfr;
 
     //---* The Foundation stuff *----------------------------------------------
     requires org.tquadrat.foundation.base;
@@ -38,6 +41,15 @@ module org.tquadrat.shootingtimer
     requires javafx.media;
 
     opens org.tquadrat.shootingtimer to javafx.fxml, javafx.graphics;
+
+    //---* The service provider interface for the signal outputs *-------------
+    exports org.tquadrat.shootingtimer.spi;
+
+    //---* The preferences backend *-------------------------------------------
+    provides java.util.prefs.PreferencesFactory with org.tquadrat.shootingtimer.MappedPreferencesFactory;
+
+    //---* The signal outputs *------------------------------------------------
+    uses org.tquadrat.shootingtimer.spi.SignalSink;
 }
 
 /*
@@ -0,0 +1,229 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static java.lang.System.Logger.Level.ERROR;
+import static java.lang.System.Logger.Level.WARNING;
+import static java.lang.System.getLogger;
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary Answers the clock synchronisation requests from other
+ *  instances of the Shooting Timer.}</p>
+ *  <p>The instance that runs the responder is the reference for the other
+ *  instances; they use a
+ *  {@link SharedClock}
+ *  that tracks the offset between their own clock and the one of the
+ *  responder. The protocol follows NTP: a request carries the time when it
+ *  was sent, and the answer adds the times when the request was received
+ *  and when the answer was sent, both taken from the clock of the
+ *  responder. All messages are UDP datagrams of
+ *  {@value #PACKET_SIZE}
+ *  bytes:</p>
+ *  <table>
+ *      <caption>The layout of a message</caption>
+ *      <tr><th>Offset</th><th>Type</th><th>Content</th></tr>
+ *      <tr><td>0</td><td>int</td><td>{@value #MAGIC}</td></tr>
+ *      <tr><td>4</td><td>long</td><td>The time when the request was sent,
+ *          from the clock of the requester</td></tr>
+ *      <tr><td>12</td><td>long</td><td>The time when the request was
+ *          received, from the clock of the responder</td></tr>
+ *      <tr><td>20</td><td>long</td><td>The time when the answer was sent,
+ *          from the clock of the responder</td></tr>
+ *  </table>
+ *  <p>The responder has a single thread with the highest priority that
+ *  receives the requests and sends the answers.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.3.0" )
+public final class ClockSyncResponder implements AutoCloseable
+{
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The magic number that starts each message: {@value}.
+     */
+    public static final int MAGIC = 0x53544353;
+
+    /**
+     *  The position of the time when the request was received.
+     */
+    static final int OFFSET_RECEIVE_TIME = 12;
+
+    /**
+     *  The position of the time when the request was sent.
+     */
+    static final int OFFSET_REQUEST_TIME = 4;
+
+    /**
+     *  The position of the time when the answer was sent.
+     */
+    static final int OFFSET_RESPONSE_TIME = 20;
+
+    /**
+     *  The size of a message in bytes: {@value}.
+     */
+    public static final int PACKET_SIZE = 28;
+
+    /**
+     *  The name of the system property for the UDP port of the responder:
+     *  {@value}. If it is set, the application answers the clock
+     *  synchronisation requests on that port.
+     */
+    public static final String PROPERTY_PORT = "org.tquadrat.shootingtimer.clockSyncPort";
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The clock that provides the reference time.
+     */
+    private final HeatClock m_Clock;
+
+    /**
+     *  The flag that indicates that the responder was closed.
+     */
+    private volatile boolean m_Closed = false;
+
+    /**
+     *  The number of answered requests.
+     */
+    private final AtomicLong m_RequestCount = new AtomicLong();
+
+    /**
+     *  The socket.
+     */
+    private final DatagramSocket m_Socket;
+
+    /**
+     *  The thread that answers the requests.
+     */
+    private final Thread m_Thread;
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new {@code ClockSyncResponder} instance and starts its
+     *  thread.
+     *
+     *  @param  clock   The clock that provides the reference time.
+     *  @param  address The address to listen on; a port number of 0 selects
+     *      a free port.
+     *  @throws IOException The socket could not be opened.
+     */
+    public ClockSyncResponder( final HeatClock clock, final InetSocketAddress address ) throws IOException
+    {
+        m_Clock = requireNonNullArgument( clock, "clock" );
+        m_Socket = new DatagramSocket( requireNonNullArgument( address, "address" ) );
+        m_Thread = new Thread( this::respond, "ShootingTimer-ClockSyncResponder" );
+        m_Thread.setDaemon( true );
+        m_Thread.setPriority( Thread.MAX_PRIORITY );
+        m_Thread.start();
+    }   //  ClockSyncResponder()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Stops the responder and closes its socket.
+     */
+    @Override
+    public final void close()
+    {
+        m_Closed = true;
+        m_Socket.close();
+    }   //  close()
+
+    /**
+     *  Returns the port the responder listens on.
+     *
+     *  @return The port number.
+     */
+    public final int getPort() { return m_Socket.getLocalPort(); }
+
+    /**
+     *  Returns the number of answered requests.
+     *
+     *  @return The number of requests.
+     */
+    public final long getRequestCount() { return m_RequestCount.get(); }
+
+    /**
+     *  The loop that answers the requests; it is executed by the thread of
+     *  the responder until the responder is closed. A request that cannot be
+     *  received or answered is dropped; the requester will repeat it.
+     */
+    private final void respond()
+    {
+        final var buffer = ByteBuffer.allocate( PACKET_SIZE );
+        final var packet = new DatagramPacket( buffer.array(), PACKET_SIZE );
+        final var logger = getLogger( ClockSyncResponder.class.getName() );
+        RespondLoop: while( !m_Closed )
+        {
+            try
+            {
+                packet.setLength( PACKET_SIZE );
+                m_Socket.receive( packet );
+                final var receiveTime = m_Clock.nanoTime();
+                if( (packet.getLength() == PACKET_SIZE) && (buffer.getInt( 0 ) == MAGIC) )
+                {
+                    buffer.putLong( OFFSET_RECEIVE_TIME, receiveTime );
+                    buffer.putLong( OFFSET_RESPONSE_TIME, m_Clock.nanoTime() );
+                    m_Socket.send( packet );
+                    m_RequestCount.incrementAndGet();
+                }
+            }
+            catch( final IOException e )
+            {
+                //---* Closing the socket causes a SocketException *-----------
+                if( m_Closed ) break RespondLoop;
+                if( m_Socket.isClosed() )
+                {
+                    logger.log( ERROR, "Clock synchronisation responder failed", e );
+                    break RespondLoop;
+                }
+
+                //---* Only this request is lost *-----------------------------
+                logger.log( WARNING, "Clock synchronisation request could not be answered", e );
+            }
+        }   //  RespondLoop:
+    }   //  respond()
+}
+//  class ClockSyncResponder
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,176 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static org.apiguardian.api.API.Status.INTERNAL;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.foundation.annotation.UtilityClass;
+import org.tquadrat.foundation.exception.PrivateConstructorForStaticClassCalledError;
+
+/**
+ *  <p>{@summary Formats the remaining time for the time display.}</p>
+ *  <p>All texts are taken from tables that are filled in advance, so that
+ *  the formatting itself does not allocate any memory; this means also that
+ *  two calls for the same value will return the identical
+ *  {@link String}
+ *  instance, and a change can be detected by comparing the references.</p>
+ *  <p>The tables for tenths and hundredths of a second are filled when the
+ *  class is loaded; the table for minutes and seconds grows on request,
+ *  through a call to
+ *  {@link #prepare(long)}
+ *  before the countdown for a phase starts.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@UtilityClass
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = INTERNAL, since = "0.3.0" )
+public final class CountdownFormatter
+{
+        /*------------------------*\
+    ====** Static Initialisations **===========================================
+        \*------------------------*/
+    /**
+     *  The texts for the remaining time with hundredths of a second, up to
+     *  {@link CountdownRenderer#HUNDREDTHS_LIMIT}.
+     */
+    private static final String [] m_Hundredths;
+
+    /**
+     *  The texts for the remaining time in minutes and seconds; the index is
+     *  the number of seconds.
+     */
+    private static volatile String [] m_Minutes = new String [0];
+
+    /**
+     *  The texts for the remaining time with tenths of a second, up to
+     *  {@link CountdownRenderer#MINUTES_LIMIT}.
+     */
+    private static final String [] m_Tenths;
+
+    static
+    {
+        m_Hundredths = new String [(int) (CountdownRenderer.HUNDREDTHS_LIMIT / 10) + 1];
+        for( var i = 0; i < m_Hundredths.length; ++i ) m_Hundredths [i] = "%4.2f".formatted( i / 100.0 );
+
+        m_Tenths = new String [(int) (CountdownRenderer.MINUTES_LIMIT / 100) + 1];
+        for( var i = 0; i < m_Tenths.length; ++i ) m_Tenths [i] = "%3.1f".formatted( i / 10.0 );
+    }
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  No instance allowed for this class.
+     */
+    private CountdownFormatter() { throw new PrivateConstructorForStaticClassCalledError( CountdownFormatter.class ); }
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Returns the text for the given remaining time, with hundredths of a
+     *  second.
+     *
+     *  @param  remainingTime   The remaining time in milliseconds.
+     *  @return The text.
+     */
+    public static final String formatHundredths( final long remainingTime )
+    {
+        final var index = (remainingTime + 5L) / 10L;
+        final var retValue = index < m_Hundredths.length ? m_Hundredths [(int) index] : "%4.2f".formatted( remainingTime / 1000.0 );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  formatHundredths()
+
+    /**
+     *  Returns the text for the given remaining time, in minutes and
+     *  seconds.
+     *
+     *  @param  remainingTime   The remaining time in milliseconds.
+     *  @return The text.
+     */
+    public static final String formatMinutes( final long remainingTime )
+    {
+        final var index = remainingTime / 1000L;
+        final var minutes = m_Minutes;
+        final var retValue = index < minutes.length ? minutes [(int) index] : formatMinutes( index / 60L, index % 60L );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  formatMinutes()
+
+    /**
+     *  Formats the given minutes and seconds.
+     *
+     *  @param  minutes The minutes.
+     *  @param  seconds The seconds.
+     *  @return The text.
+     */
+    private static final String formatMinutes( final long minutes, final long seconds )
+    {
+        return "%d:%02d".formatted( minutes, seconds );
+    }   //  formatMinutes()
+
+    /**
+     *  Returns the text for the given remaining time, with tenths of a
+     *  second.
+     *
+     *  @param  remainingTime   The remaining time in milliseconds.
+     *  @return The text.
+     */
+    public static final String formatTenths( final long remainingTime )
+    {
+        final var index = (remainingTime + 50L) / 100L;
+        final var retValue = index < m_Tenths.length ? m_Tenths [(int) index] : "%3.1f".formatted( remainingTime / 1000.0 );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  formatTenths()
+
+    /**
+     *  Makes sure that the table for the minutes and seconds covers the given
+     *  duration. This method should be called before the countdown for a
+     *  phase starts, as it may allocate memory.
+     *
+     *  @param  duration    The duration in milliseconds.
+     */
+    public static final synchronized void prepare( final long duration )
+    {
+        final var length = (int) (duration / 1000L) + 1;
+        final var minutes = m_Minutes;
+        if( length > minutes.length )
+        {
+            final var newMinutes = new String [length];
+            System.arraycopy( minutes, 0, newMinutes, 0, minutes.length );
+            for( var i = minutes.length; i < length; ++i ) newMinutes [i] = formatMinutes( i / 60L, i % 60L );
+            m_Minutes = newMinutes;
+        }
+    }   //  prepare()
+}
+//  class CountdownFormatter
+
+/*
+ *  End of File
+ */
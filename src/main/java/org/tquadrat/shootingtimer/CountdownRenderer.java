@@ -0,0 +1,222 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static javafx.application.Platform.runLater;
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import javafx.animation.AnimationTimer;
+import javafx.scene.control.TextField;
+
+/**
+ *  <p>{@summary Renders the remaining time for the current phase
+ *  synchronised with the JavaFX pulse.}</p>
+ *  <p>Different from
+ *  {@link TimeUpdateService},
+ *  the remaining time is calculated from the deadline inside the pulse
+ *  itself, so the displayed value is never older than a single frame.</p>
+ *  <p>For short phases, the remaining time can be displayed with
+ *  hundredths of a second.</p>
+ *  <p>The texts are provided by the
+ *  {@link CountdownFormatter}.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.3.0" )
+public final class CountdownRenderer extends AnimationTimer
+{
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The default rate of the JavaFX pulse, in frames per second: {@value}.
+     */
+    public static final int DEFAULT_PULSE_RATE = 60;
+
+    /**
+     *  The intended time between two pulses, in nanoseconds; it is derived
+     *  from the system property
+     *  {@value #PROPERTY_PULSE_RATE}.
+     */
+    public static final long FRAME_PERIOD = SECONDS.toNanos( 1L ) / Math.max( 1, Integer.getInteger( CountdownRenderer.PROPERTY_PULSE_RATE, DEFAULT_PULSE_RATE ).intValue() );
+
+    /**
+     *  The maximum duration of a phase in milliseconds that allows the
+     *  display of hundredths of a second: {@value}.
+     */
+    public static final long HUNDREDTHS_LIMIT = 60_000L;
+
+    /**
+     *  The minimum duration of a phase in milliseconds that causes the
+     *  display of minutes: {@value}.
+     */
+    public static final long MINUTES_LIMIT = 350_000L;
+
+    /**
+     *  The name of the system property for the rate of the JavaFX pulse:
+     *  {@value}.
+     */
+    public static final String PROPERTY_PULSE_RATE = "javafx.animation.pulse";
+
+    /**
+     *  The source for the
+     *  {@link TimerEvents.DisplayTickEvent}:
+     *  {@value}.
+     */
+    private static final String TICK_SOURCE = "pulse";
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The deadline for the current phase, as a value compatible to
+     *  {@link System#nanoTime()}.
+     *
+     *  @note   The other attributes are written before this one, and read
+     *      after it, so the volatile access to this attribute publishes them
+     *      as well.
+     */
+    private volatile long m_Deadline;
+
+    /**
+     *  The text that is currently displayed.
+     */
+    private String m_DisplayedText;
+
+    /**
+     *  The time of the previous pulse, as given to
+     *  {@link #handle(long)};
+     *  0 before the first pulse of a countdown.
+     */
+    private long m_PreviousPulse;
+
+    /**
+     *  Flag that indicates whether hundredths of a second should be
+     *  displayed.
+     */
+    private boolean m_ShowHundredths;
+
+    /**
+     *  Flag that indicates whether minutes should be displayed.
+     */
+    private boolean m_ShowMinutes;
+
+    /**
+     *  The reference for the node that displays the time.
+     */
+    private final TextField m_TimeDisplay;
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new {@code CountdownRenderer} instance.
+     *
+     *  @param  timeDisplay The reference for the node that displays the time.
+     */
+    public CountdownRenderer( final TextField timeDisplay )
+    {
+        m_TimeDisplay = requireNonNullArgument( timeDisplay, "timeDisplay" );
+    }   //  CountdownRenderer()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  {@inheritDoc}
+     *  <p>The intended time of a frame is one
+     *  {@linkplain #FRAME_PERIOD frame period}
+     *  after the previous pulse; so the lateness of the tick includes a
+     *  pulse that started late, or a frame that was skipped.</p>
+     */
+    @Override
+    public final void handle( final long now )
+    {
+        final var deadline = m_Deadline;
+        final var remainingTime = now - deadline < 0L ? NANOSECONDS.toMillis( deadline - now ) : 0L;
+        final var intendedTime = m_PreviousPulse == 0L ? now : m_PreviousPulse + FRAME_PERIOD;
+        m_PreviousPulse = now;
+        TimerEvents.DisplayTickEvent.emit( TICK_SOURCE, intendedTime, remainingTime );
+
+        final String text;
+        if( m_ShowMinutes )
+        {
+            text = CountdownFormatter.formatMinutes( remainingTime );
+        }
+        else if( m_ShowHundredths )
+        {
+            text = CountdownFormatter.formatHundredths( remainingTime );
+        }
+        else
+        {
+            text = CountdownFormatter.formatTenths( remainingTime );
+        }
+
+        //---* Touch the node only if the text has changed *-------------------
+        //noinspection StringEquality
+        if( text != m_DisplayedText )
+        {
+            m_DisplayedText = text;
+            m_TimeDisplay.setText( text );
+        }
+    }   //  handle()
+
+    /**
+     *  Starts the countdown for the given deadline. This method can be called
+     *  from any thread.
+     *
+     *  @param  deadline    The deadline, as a value compatible to
+     *      {@link System#nanoTime()}.
+     *  @param  hundredths  {@code true} if hundredths of a second should be
+     *      displayed for short phases, {@code false} if not.
+     */
+    public final void startCountdown( final long deadline, final boolean hundredths )
+    {
+        final var duration = NANOSECONDS.toMillis( deadline - nanoTime() );
+        m_ShowMinutes = duration > MINUTES_LIMIT;
+        if( m_ShowMinutes ) CountdownFormatter.prepare( duration );
+        m_ShowHundredths = hundredths && (duration <= HUNDREDTHS_LIMIT);
+        m_Deadline = deadline;
+        runLater( () ->
+        {
+            m_DisplayedText = null;
+            m_PreviousPulse = 0L;
+            start();
+        } );
+    }   //  startCountdown()
+
+    /**
+     *  Stops the countdown. This method can be called from any thread.
+     */
+    public final void stopCountdown() { runLater( this::stop ); }
+}
+//  class CountdownRenderer
+
+/*
+ *  End of File
+ */
@@ -18,10 +18,7 @@
 package org.tquadrat.shootingtimer;
 
 import static org.apiguardian.api.API.Status.STABLE;
-import static org.tquadrat.foundation.i18n.I18nUtil.loadResourceBundle;
 import static org.tquadrat.foundation.i18n.I18nUtil.retrieveText;
-import static org.tquadrat.shootingtimer.Main.BASE_BUNDLE_NAME;
-import static org.tquadrat.shootingtimer.Main.MSG_CannotLoadTextResources;
 
 import java.util.Arrays;
 import java.util.MissingResourceException;
@@ -304,9 +301,8 @@ public enum Discipline
     {
         try
         {
-            //---* Load the resource bundle with the texts *-------------------
-            m_ResourceBundle = loadResourceBundle( BASE_BUNDLE_NAME )
-                .orElseThrow( () -> new MissingResourceException( MSG_CannotLoadTextResources, BASE_BUNDLE_NAME, null ) );
+            //---* Retrieve the shared resource bundle with the texts *--------
+            m_ResourceBundle = TextResources.getResourceBundle();
         }
         catch( final MissingResourceException e )
         {
@@ -0,0 +1,183 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static java.lang.System.nanoTime;
+import static javafx.application.Platform.requestNextPulse;
+import static javafx.application.Platform.runLater;
+import static org.apiguardian.api.API.Status.INTERNAL;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+
+import java.util.function.LongConsumer;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.foundation.annotation.UtilityClass;
+import org.tquadrat.foundation.exception.PrivateConstructorForStaticClassCalledError;
+import javafx.animation.AnimationTimer;
+import javafx.scene.Scene;
+
+/**
+ *  <p>{@summary Notifies about the next frame of a
+ *  {@link Scene};
+ *  this is used to measure the time until a change becomes visible.}</p>
+ *  <p>JavaFX has no notification for the presentation of a frame. The
+ *  layout of a pulse is done on the JavaFX Application Thread; after that,
+ *  the scene graph is synchronised, and the frame is rendered and presented
+ *  on the render thread, while the Application Thread is already waiting
+ *  for the next pulse. The pulses are paced by the refresh of the display,
+ *  and the next pulse cannot synchronise the scene graph before the
+ *  rendering of the previous frame is complete. Therefore the time is taken
+ *  at the start of the pulse that follows the frame with the change, not
+ *  after its layout: a time taken after the layout would miss the
+ *  synchronisation, the rendering and the wait for the vertical blank, so it
+ *  would always be too early by about one frame.</p>
+ *  <p>The remaining error is the time between the presentation and the
+ *  start of the following pulse; it is less than one refresh interval, as
+ *  long as a frame can be rendered within that interval.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@UtilityClass
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = INTERNAL, since = "0.3.0" )
+public final class FrameProbe
+{
+        /*---------------*\
+    ====** Inner Classes **====================================================
+        \*---------------*/
+    /**
+     *  The probe for a single frame: it is registered as a listener for the
+     *  end of the layout, and after the frame with the change was laid out,
+     *  it waits for the start of the next pulse.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.3.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = INTERNAL, since = "0.3.0" )
+    private static final class Probe extends AnimationTimer implements Runnable
+    {
+            /*------------*\
+        ====** Attributes **===================================================
+            \*------------*/
+        /**
+         *  The action.
+         */
+        private final LongConsumer m_Action;
+
+        /**
+         *  Flag that indicates whether the frame with the change was laid
+         *  out.
+         */
+        private boolean m_IsLaidOut = false;
+
+        /**
+         *  The scene.
+         */
+        private final Scene m_Scene;
+
+            /*--------------*\
+        ====** Constructors **=================================================
+            \*--------------*/
+        /**
+         *  Creates a new {@code Probe} instance.
+         *
+         *  @param  scene   The scene.
+         *  @param  action  The action.
+         */
+        public Probe( final Scene scene, final LongConsumer action )
+        {
+            m_Scene = scene;
+            m_Action = action;
+        }   //  Probe()
+
+            /*---------*\
+        ====** Methods **======================================================
+            \*---------*/
+        /**
+         *  {@inheritDoc}
+         *  <p>This is called at the start of the pulse after the frame with
+         *  the change; the rendering of that frame is complete now.</p>
+         */
+        @Override
+        public final void handle( final long now )
+        {
+            stop();
+            m_Action.accept( nanoTime() );
+        }   //  handle()
+
+        /**
+         *  {@inheritDoc}
+         *  <p>This is called after the layout of a frame.</p>
+         */
+        @Override
+        public final void run()
+        {
+            if( !m_IsLaidOut )
+            {
+                m_IsLaidOut = true;
+
+                //---* The timer requests the next pulse *---------------------
+                start();
+
+                //---* The listener list must not be modified now *------------
+                runLater( () -> m_Scene.removePostLayoutPulseListener( this ) );
+            }
+        }   //  run()
+    }
+    //  class Probe
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  No instance allowed for this class.
+     */
+    private FrameProbe() { throw new PrivateConstructorForStaticClassCalledError( FrameProbe.class ); }
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Calls the given action once, when the next frame of the given scene
+     *  was presented. This method has to be called on the JavaFX
+     *  Application Thread.
+     *
+     *  @param  scene   The scene.
+     *  @param  action  The action; it gets the time of the presentation, as
+     *      returned by
+     *      {@link System#nanoTime()}.
+     */
+    public static final void onNextFrame( final Scene scene, final LongConsumer action )
+    {
+        final var probe = new Probe( requireNonNullArgument( scene, "scene" ), requireNonNullArgument( action, "action" ) );
+        scene.addPostLayoutPulseListener( probe );
+        requestNextPulse();
+    }   //  onNextFrame()
+}
+//  class FrameProbe
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,78 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static org.apiguardian.api.API.Status.STABLE;
+
+import java.util.concurrent.Future;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary The time source and scheduler for a
+ *  {@link HeatEngine}.}</p>
+ *  <p>All time values are in nanoseconds; they are compatible to each other
+ *  only, not to the wall clock. The implementation
+ *  {@link SystemHeatClock}
+ *  is based on
+ *  {@link System#nanoTime()},
+ *  as is
+ *  {@link TimerWheel},
+ *  that keeps a large number of deadlines with a single thread, while
+ *  {@link SimulatedHeatClock}
+ *  allows to run a heat, or even a whole program, without waiting for the
+ *  real time to pass.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.3.0" )
+public interface HeatClock
+{
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Returns the current time of this clock.
+     *
+     *  @return The current time in nanoseconds.
+     */
+    public long nanoTime();
+
+    /**
+     *  Schedules the given task for execution at the given deadline. If the
+     *  deadline has already passed, the task will be executed as soon as
+     *  possible.
+     *
+     *  @param  task    The task.
+     *  @param  deadline    The deadline, as a value compatible to
+     *      {@link #nanoTime()}.
+     *  @return The handle for the scheduled task; it can be used to cancel
+     *      the task.
+     */
+    public Future<?> schedule( final Runnable task, final long deadline );
+}
+//  interface HeatClock
+
+/*
+ *  End of File
+ */
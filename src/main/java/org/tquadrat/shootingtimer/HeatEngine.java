@@ -0,0 +1,518 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.lang.Objects.nonNull;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+import static org.tquadrat.shootingtimer.spi.Status.STATUS_OFF;
+import static org.tquadrat.shootingtimer.spi.Status.STATUS_STARTING;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.foundation.lang.AutoLock;
+import org.tquadrat.shootingtimer.spi.Status;
+
+/**
+ *  <p>{@summary The timing engine that executes a
+ *  {@link HeatSchedule}.}</p>
+ *  <p>When the engine is started, it takes a single reading from its
+ *  {@link HeatClock}
+ *  as the anchor for the whole heat; the deadlines for all phases are derived
+ *  from that anchor and the offsets stored in the schedule. Neither
+ *  adjustments of the wall clock nor late wake-ups for a phase have an impact
+ *  on the deadlines of the subsequent phases.</p>
+ *  <p>The engine does not own a thread; each phase is entered by a task that
+ *  is scheduled on the clock, and that task schedules the next phase. All
+ *  tasks for a heat belong to a
+ *  {@link TaskScope},
+ *  and each phase has its own child scope for the activities that were
+ *  started for it, like the time display; the scope of a phase is closed when
+ *  the next phase is entered, and the scope of the heat is closed when the
+ *  heat ends or is aborted, so nothing survives the heat. Outputs with a
+ *  known latency can be triggered ahead of the start of a phase by
+ *  {@linkplain #addCue(long, CueListener) cues}. The
+ *  engine does not depend on JavaFX: with a
+ *  {@link SimulatedHeatClock},
+ *  a heat can be executed headless and without waiting for the real time to
+ *  pass.</p>
+ *  <p>For each
+ *  {@link Status}
+ *  transition, the engine records how late it was executed in relation to
+ *  its deadline into an instance of
+ *  {@link TransitionLatencies},
+ *  and it emits a
+ *  {@link TimerEvents.StatusTransitionEvent}
+ *  for the JDK Flight Recorder.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.3.0" )
+public final class HeatEngine
+{
+        /*---------------*\
+    ====** Inner Classes **====================================================
+        \*---------------*/
+    /**
+     *  A cue: a listener that is called ahead of the start of each phase.
+     *
+     *  @param  lead    The time in nanoseconds by that the listener is called
+     *      before the start of a phase.
+     *  @param  listener    The listener.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.3.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.3.0" )
+    private static record Cue( long lead, CueListener listener ) {}
+
+    /**
+     *  <p>{@summary The listener for a cue.}</p>
+     *  <p>A cue is called ahead of the start of each phase, by the lead time
+     *  it was registered with; this allows to trigger an output that has a
+     *  known latency early enough that it becomes effective exactly when the
+     *  phase starts. The listener is called on the thread of the
+     *  {@link HeatClock},
+     *  and it should return quickly.</p>
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.3.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.3.0" )
+    @FunctionalInterface
+    public static interface CueListener
+    {
+            /*---------*\
+        ====** Methods **======================================================
+            \*---------*/
+        /**
+         *  Called ahead of the start of the given phase.
+         *
+         *  @param  oldStatus   The status of the phase before the given one.
+         *  @param  phase   The phase that will start.
+         */
+        public void cue( final Status oldStatus, final HeatSchedule.Phase phase );
+    }
+    //  interface CueListener
+
+    /**
+     *  The listener that will be notified when a new phase was entered.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.3.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.3.0" )
+    @FunctionalInterface
+    public static interface PhaseListener
+    {
+            /*---------*\
+        ====** Methods **======================================================
+            \*---------*/
+        /**
+         *  Called when the given phase was entered; the engine does not hold
+         *  any lock while it calls this method.
+         *
+         *  @param  phase   The phase.
+         *  @param  deadline    The end of the phase, as a value compatible to
+         *      {@link HeatClock#nanoTime()}.
+         *  @param  scope   The scope for the phase; all activities that are
+         *      started for the phase should be registered with it, so that
+         *      they are stopped when the phase ends, or when the heat is
+         *      aborted.
+         */
+        public void phaseStarted( final HeatSchedule.Phase phase, final long deadline, final TaskScope scope );
+    }
+    //  interface PhaseListener
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The flag that indicates whether the heat was aborted.
+     */
+    private volatile boolean m_Aborted = false;
+
+    /**
+     *  The anchor for the heat, as a value compatible to
+     *  {@link HeatClock#nanoTime()}.
+     */
+    private long m_Anchor;
+
+    /**
+     *  The clock that provides the time and executes the phases.
+     */
+    private final HeatClock m_Clock;
+
+    /**
+     *  The cues.
+     */
+    private final List<Cue> m_Cues = new ArrayList<>();
+
+    /**
+     *  The flag that indicates that the listener is notified of a new phase
+     *  right now.
+     */
+    private volatile boolean m_IsNotifying = false;
+
+    /**
+     *  The lateness of the transitions.
+     */
+    private final TransitionLatencies m_Latencies;
+
+    /**
+     *  The guard for the scheduling of the phases.
+     */
+    private final AutoLock m_Guard;
+
+    /**
+     *  The listener for the phase changes.
+     */
+    private final PhaseListener m_Listener;
+
+    /**
+     *  The lock that is used by the
+     *  {@linkplain #m_Guard guard}.
+     */
+    private final ReentrantLock m_Lock = new ReentrantLock( false );
+
+    /**
+     *  The task for the next phase.
+     */
+    private Future<?> m_NextPhase;
+
+    /**
+     *  The scope for the current phase.
+     */
+    private TaskScope m_PhaseScope;
+
+    /**
+     *  The index of the next phase.
+     */
+    private int m_PhaseIndex = 0;
+
+    /**
+     *  The status of the current phase.
+     */
+    private Status m_PreviousStatus = STATUS_STARTING;
+
+    /**
+     *  The result; it will be completed with {@code true} when all phases of
+     *  the heat were executed, or with {@code false} when the heat was
+     *  aborted.
+     */
+    private final CompletableFuture<Boolean> m_Result = new CompletableFuture<>();
+
+    /**
+     *  The schedule for the heat.
+     */
+    private final HeatSchedule m_Schedule;
+
+    /**
+     *  The scope for the heat.
+     */
+    private final TaskScope m_Scope = new TaskScope();
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new {@code HeatEngine} instance.
+     *
+     *  @param  schedule    The schedule for the heat.
+     *  @param  clock   The clock that provides the time and executes the
+     *      phases.
+     *  @param  listener    The listener for the phase changes.
+     */
+    public HeatEngine( final HeatSchedule schedule, final HeatClock clock, final PhaseListener listener )
+    {
+        this( schedule, clock, listener, new TransitionLatencies() );
+    }   //  HeatEngine()
+
+    /**
+     *  Creates a new {@code HeatEngine} instance.
+     *
+     *  @param  schedule    The schedule for the heat.
+     *  @param  clock   The clock that provides the time and executes the
+     *      phases.
+     *  @param  listener    The listener for the phase changes.
+     *  @param  latencies   The collector for the lateness of the
+     *      transitions.
+     */
+    public HeatEngine( final HeatSchedule schedule, final HeatClock clock, final PhaseListener listener, final TransitionLatencies latencies )
+    {
+        m_Schedule = requireNonNullArgument( schedule, "schedule" );
+        m_Clock = requireNonNullArgument( clock, "clock" );
+        m_Listener = requireNonNullArgument( listener, "listener" );
+        m_Latencies = requireNonNullArgument( latencies, "latencies" );
+        m_Guard = AutoLock.of( m_Lock );
+    }   //  HeatEngine()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Adds a cue; the given listener will be called ahead of the start of
+     *  each phase, by the given lead time. The cues for all phases are
+     *  scheduled when the engine is started, and they belong to the scope of
+     *  the heat, so they will not be called any more after an abort.
+     *
+     *  @param  lead    The lead time in nanoseconds; it should be shorter
+     *      than the shortest phase.
+     *  @param  listener    The listener.
+     *  @throws IllegalArgumentException    The lead time is negative.
+     *  @throws IllegalStateException   The engine was already started.
+     */
+    public final void addCue( final long lead, final CueListener listener ) throws IllegalArgumentException, IllegalStateException
+    {
+        if( lead < 0L ) throw new IllegalArgumentException( "lead is negative" );
+        requireNonNullArgument( listener, "listener" );
+        try( var ignored = m_Guard.lock() )
+        {
+            if( m_PhaseIndex > 0 || nonNull( m_NextPhase ) ) throw new IllegalStateException( "Heat already started" );
+            m_Cues.add( new Cue( lead, listener ) );
+        }
+    }   //  addCue()
+
+    /**
+     *  <p>Aborts the heat.</p>
+     *  <p>The method does not wait for anything and returns immediately:
+     *  the scope of the heat is closed, so all tasks and activities of the
+     *  heat are stopped, and no further phase will be entered. The returned
+     *  result confirms the termination; it will be completed with
+     *  {@code false} as soon as no phase change is in progress any
+     *  more.</p>
+     *
+     *  @return The result of the heat; this is the same instance as the one
+     *      returned from
+     *      {@link #start()}.
+     */
+    public final CompletableFuture<Boolean> abort()
+    {
+        m_Aborted = true;
+        m_Scope.close();
+
+        /*
+         * If a phase change is in progress right now, it will complete the
+         * result when it is finished.
+         */
+        if( !m_IsNotifying && m_Lock.tryLock() )
+        {
+            try
+            {
+                m_Result.complete( Boolean.FALSE );
+            }
+            finally
+            {
+                m_Lock.unlock();
+            }
+        }
+
+        //---* Done *----------------------------------------------------------
+        return m_Result;
+    }   //  abort()
+
+    /**
+     *  Enters the next phase and schedules the one after it. When the last
+     *  phase has ended, the
+     *  {@linkplain #start() result}
+     *  will be completed.
+     *  <p>The phase is entered under the guard, but the listener is called
+     *  after the guard was released, so that a slow listener does not hold
+     *  the engine; the next phase is scheduled when the listener has
+     *  returned, so the phases are still reported in their order.</p>
+     */
+    private final void executeNextPhase()
+    {
+        var finished = false;
+        HeatSchedule.Phase phase = null;
+        TaskScope phaseScope = null;
+        try( var ignored = m_Guard.lock() )
+        {
+            if( !m_Aborted )
+            {
+                final var phases = m_Schedule.getPhases();
+                if( m_PhaseIndex < phases.size() )
+                {
+                    phase = phases.get( m_PhaseIndex++ );
+                    if( nonNull( m_PhaseScope ) ) m_PhaseScope.close();
+                    m_PhaseScope = m_Scope.openChild();
+                    phaseScope = m_PhaseScope;
+
+                    //---* The transition time does not include the listener *-
+                    final var intendedTime = m_Anchor + phase.getStartOffset();
+                    final var actualTime = m_Clock.nanoTime();
+                    m_Latencies.record( m_PreviousStatus, phase.getStatus(), actualTime - intendedTime );
+                    TimerEvents.StatusTransitionEvent.emit( m_PreviousStatus, phase.getStatus(), intendedTime, actualTime );
+                    m_PreviousStatus = phase.getStatus();
+                    m_IsNotifying = true;
+                }
+                else
+                {
+                    m_NextPhase = null;
+                    finished = true;
+                    final var intendedTime = m_Anchor + m_Schedule.getDuration();
+                    final var actualTime = m_Clock.nanoTime();
+                    m_Latencies.record( m_PreviousStatus, STATUS_OFF, actualTime - intendedTime );
+                    TimerEvents.StatusTransitionEvent.emit( m_PreviousStatus, STATUS_OFF, intendedTime, actualTime );
+                }
+            }
+        }
+
+        if( nonNull( phase ) )
+        {
+            try
+            {
+                //---* Notify the listener outside of the guard *--------------
+                m_Listener.phaseStarted( phase, m_Anchor + phase.getEndOffset(), phaseScope );
+
+                //---* Schedule the next phase *-------------------------------
+                try( var ignored = m_Guard.lock() )
+                {
+                    if( !m_Aborted )
+                    {
+                        final var phases = m_Schedule.getPhases();
+                        final var nextDeadline = m_Anchor + (m_PhaseIndex < phases.size() ? phases.get( m_PhaseIndex ).getStartOffset() : m_Schedule.getDuration());
+                        m_NextPhase = m_Scope.fork( m_Clock.schedule( this::executeNextPhase, nextDeadline ) );
+                    }
+                }
+            }
+            catch( final RuntimeException e )
+            {
+                m_Scope.close();
+                m_Result.completeExceptionally( e );
+            }
+            finally
+            {
+                m_IsNotifying = false;
+            }
+        }
+
+        if( finished )
+        {
+            m_Scope.close();
+            m_Result.complete( Boolean.TRUE );
+        }
+        else if( m_Aborted )
+        {
+            //---* Confirm the abort *-----------------------------------------
+            m_Result.complete( Boolean.FALSE );
+        }
+    }   //  executeNextPhase()
+
+    /**
+     *  Calls the given cue for the given phase, unless the heat was aborted.
+     *
+     *  @param  cue The cue.
+     *  @param  oldStatus   The status of the phase before the given one.
+     *  @param  phase   The phase.
+     */
+    private final void fireCue( final Cue cue, final Status oldStatus, final HeatSchedule.Phase phase )
+    {
+        if( !m_Aborted ) cue.listener().cue( oldStatus, phase );
+    }   //  fireCue()
+
+    /**
+     *  Returns the collector for the lateness of the transitions.
+     *
+     *  @return The transition latencies.
+     */
+    public final TransitionLatencies getLatencies() { return m_Latencies; }
+
+    /**
+     *  Returns the schedule that is executed by this engine.
+     *
+     *  @return The schedule.
+     */
+    public final HeatSchedule getSchedule() { return m_Schedule; }
+
+    /**
+     *  Starts the execution of the heat. The anchor for all deadlines is taken
+     *  now, and the first phase is entered immediately.
+     *
+     *  @return The result; it will be completed with {@code true} when all
+     *      phases were executed, or with {@code false} if the heat was
+     *      aborted.
+     *  @throws IllegalStateException   The engine was already started.
+     */
+    public final CompletableFuture<Boolean> start() throws IllegalStateException { return start( m_Clock.nanoTime() ); }
+
+    /**
+     *  Starts the execution of the heat with the given anchor for all
+     *  deadlines. This allows several engines to execute the same heat in
+     *  step, when their clocks share the same timebase. If the anchor is
+     *  already in the past, the phases that have passed meanwhile are
+     *  entered immediately, one after the other, and the cues for them are
+     *  fired immediately, too.
+     *
+     *  @param  anchor  The anchor, as a value compatible to
+     *      {@link HeatClock#nanoTime()}.
+     *  @return The result; it will be completed with {@code true} when all
+     *      phases were executed, or with {@code false} if the heat was
+     *      aborted.
+     *  @throws IllegalStateException   The engine was already started.
+     */
+    public final CompletableFuture<Boolean> start( final long anchor ) throws IllegalStateException
+    {
+        try( var ignored = m_Guard.lock() )
+        {
+            if( m_PhaseIndex > 0 || nonNull( m_NextPhase ) ) throw new IllegalStateException( "Heat already started" );
+            m_Anchor = anchor;
+            m_NextPhase = m_Scope.fork( m_Clock.schedule( this::executeNextPhase, m_Anchor ) );
+
+            //---* Schedule the cues *-----------------------------------------
+            var oldStatus = STATUS_STARTING;
+            for( final var phase : m_Schedule.getPhases() )
+            {
+                for( final var cue : m_Cues )
+                {
+                    final var previousStatus = oldStatus;
+                    m_Scope.fork( m_Clock.schedule( () -> fireCue( cue, previousStatus, phase ), m_Anchor + phase.getStartOffset() - cue.lead() ) );
+                }
+                oldStatus = phase.getStatus();
+            }
+        }
+        if( m_Aborted ) m_Result.complete( Boolean.FALSE );
+
+        //---* Done *----------------------------------------------------------
+        return m_Result;
+    }   //  start()
+}
+//  class HeatEngine
+
+/*
+ *  End of File
+ */
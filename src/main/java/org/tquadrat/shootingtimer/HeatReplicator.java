@@ -0,0 +1,566 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static java.lang.System.Logger.Level.DEBUG;
+import static java.lang.System.Logger.Level.ERROR;
+import static java.lang.System.Logger.Level.WARNING;
+import static java.lang.System.getLogger;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.lang.Objects.isNull;
+import static org.tquadrat.foundation.lang.Objects.nonNull;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.shootingtimer.spi.Status;
+
+/**
+ *  <p>{@summary Replicates the heats between several instances of the
+ *  Shooting Timer, with one instance as the leader and the others as
+ *  followers.}</p>
+ *  <p>Only the leader starts heats. It does not send a message per
+ *  {@link Status}
+ *  transition, but the complete
+ *  {@link HeatTimeline}
+ *  once, including the anchor on the shared clock; each instance executes
+ *  the heat on its own from that timeline, so the timing of the signals is
+ *  not affected by the network at all. An abort is replicated, too, and can
+ *  be triggered on any instance.</p>
+ *  <p>Every instance sends a heartbeat to all its peers each
+ *  {@value #HEARTBEAT_INTERVAL}
+ *  milliseconds. A heartbeat carries the node id of the sender, the heat it
+ *  is executing and the most recently aborted heat; so an instance that
+ *  missed the start of a heat, or that joined late, will pick it up with the
+ *  next heartbeat of any peer. The leader is the instance with the lowest
+ *  node id from those that were heard from within the last
+ *  {@value #LEADER_TIMEOUT}
+ *  milliseconds. A new instance starts as a follower: it takes the
+ *  leadership only if it did not hear from an instance with a lower node id
+ *  for that time. When the leader dies, the next one takes over without
+ *  interrupting a heat in progress, as all instances already execute it on
+ *  their own.</p>
+ *  <p>The anchor of a timeline is meaningful only on a
+ *  {@link SharedClock}
+ *  that is synchronised with the reference. Therefore the leader does not
+ *  start a heat while its clock is not synchronised, and a follower does not
+ *  adopt a timeline before its clock is synchronised; as the current
+ *  timeline is repeated with each heartbeat, the follower adopts it with the
+ *  first heartbeat after the synchronisation, provided that the heat has
+ *  not yet ended.</p>
+ *  <p>The listener is called on the thread that receives the messages, or
+ *  on the scheduler for the heartbeats; it should return quickly.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.3.0" )
+public final class HeatReplicator implements AutoCloseable
+{
+        /*---------------*\
+    ====** Inner Classes **====================================================
+        \*---------------*/
+    /**
+     *  The listener for the replicated heats.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.3.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.3.0" )
+    public static interface ReplicationListener
+    {
+            /*---------*\
+        ====** Methods **======================================================
+            \*---------*/
+        /**
+         *  Called when a heat that was started by the leader was aborted.
+         *
+         *  @param  timeline    The timeline of the aborted heat.
+         */
+        public void heatAborted( final HeatTimeline timeline );
+
+        /**
+         *  Called when the leader started a heat; it is not called for the
+         *  heats that were started by this instance.
+         *
+         *  @param  timeline    The timeline of the heat.
+         */
+        public void heatStarted( final HeatTimeline timeline );
+
+        /**
+         *  Called when another instance became the leader.
+         *
+         *  @param  leaderId    The node id of the new leader.
+         *  @param  isLeader    {@code true} if the new leader is this
+         *      instance, {@code false} otherwise.
+         */
+        public void leaderChanged( final int leaderId, final boolean isLeader );
+
+        /**
+         *  Called when the shared clock of this instance was synchronised
+         *  with the reference, or when it lost the synchronisation.
+         *
+         *  @param  isSynchronised  {@code true} if the clock is synchronised
+         *      now, {@code false} otherwise.
+         */
+        public void synchronisationChanged( final boolean isSynchronised );
+    }
+    //  interface ReplicationListener
+
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The interval for the heartbeats, in milliseconds: {@value}.
+     */
+    public static final long HEARTBEAT_INTERVAL = 200L;
+
+    /**
+     *  The time after that an instance that was not heard from is considered
+     *  dead, in milliseconds: {@value}.
+     */
+    public static final long LEADER_TIMEOUT = 1_000L;
+
+    /**
+     *  The magic number that starts each message: {@value}.
+     */
+    public static final int MAGIC = 0x53545250;
+
+    /**
+     *  The marker for &quot;no leader&quot;: {@value}. This is the leader
+     *  id as long as the leader is not yet known.
+     */
+    public static final int NO_LEADER = Integer.MIN_VALUE;
+
+    /**
+     *  The marker for &quot;no heat&quot;.
+     */
+    private static final long NO_HEAT = Long.MIN_VALUE;
+
+    /**
+     *  The maximum size of a message in bytes: {@value}.
+     */
+    public static final int PACKET_SIZE = 512;
+
+    /**
+     *  The name of the system property for the node id of this instance:
+     *  {@value}. The instance with the lowest id that is alive is the
+     *  leader.
+     */
+    public static final String PROPERTY_NODE_ID = "org.tquadrat.shootingtimer.nodeId";
+
+    /**
+     *  The name of the system property for the peers, as a comma separated
+     *  list of {@code host:port} pairs: {@value}. If it is set, the heats are
+     *  replicated.
+     */
+    public static final String PROPERTY_PEERS = "org.tquadrat.shootingtimer.replicationPeers";
+
+    /**
+     *  The name of the system property for the UDP port for the replication
+     *  messages: {@value}.
+     */
+    public static final String PROPERTY_PORT = "org.tquadrat.shootingtimer.replicationPort";
+
+    /**
+     *  The time between the start of a heat on the leader and its anchor, in
+     *  milliseconds: {@value}. This gives the followers the time to receive
+     *  the timeline before the first phase begins.
+     */
+    public static final long START_LEAD = 250L;
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The anchor of the most recently aborted heat.
+     */
+    private long m_AbortedAnchor = NO_HEAT;
+
+    /**
+     *  The shared clock.
+     */
+    private final SharedClock m_Clock;
+
+    /**
+     *  The flag that indicates that the replicator was closed.
+     */
+    private volatile boolean m_Closed = false;
+
+    /**
+     *  The most recent heat.
+     */
+    private HeatTimeline m_Current;
+
+    /**
+     *  The task for the heartbeats.
+     */
+    private final ScheduledFuture<?> m_Heartbeat;
+
+    /**
+     *  The local times when the peers were heard from most recently, by their
+     *  node ids.
+     */
+    private final Map<Integer,Long> m_LastSeen = new ConcurrentHashMap<>();
+
+    /**
+     *  The node id of the current leader.
+     */
+    private volatile int m_LeaderId = NO_LEADER;
+
+    /**
+     *  The listener.
+     */
+    private final ReplicationListener m_Listener;
+
+    /**
+     *  The node id of this instance.
+     */
+    private final int m_NodeId;
+
+    /**
+     *  The peers.
+     */
+    private final List<InetSocketAddress> m_Peers;
+
+    /**
+     *  The thread that receives the messages.
+     */
+    private final Thread m_Receiver;
+
+    /**
+     *  The socket.
+     */
+    private final DatagramSocket m_Socket;
+
+    /**
+     *  The local time when the replicator was started.
+     */
+    private final long m_StartTime;
+
+    /**
+     *  The flag that indicates whether the shared clock was synchronised
+     *  when it was checked last.
+     */
+    private boolean m_WasSynchronised = false;
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new {@code HeatReplicator} instance and starts the
+     *  heartbeats. The new instance is a follower until it becomes the
+     *  leader after
+     *  {@value #LEADER_TIMEOUT}
+     *  milliseconds at the earliest.
+     *
+     *  @param  nodeId  The node id of this instance; it has to be unique
+     *      among the peers.
+     *  @param  clock   The shared clock.
+     *  @param  address The address for receiving the messages.
+     *  @param  peers   The addresses of the peers.
+     *  @param  scheduler   The scheduler for the heartbeats.
+     *  @param  listener    The listener for the replicated heats.
+     *  @throws IOException The socket could not be opened.
+     */
+    public HeatReplicator( final int nodeId, final SharedClock clock, final InetSocketAddress address, final List<InetSocketAddress> peers, final ScheduledExecutorService scheduler, final ReplicationListener listener ) throws IOException
+    {
+        m_NodeId = nodeId;
+        m_StartTime = System.nanoTime();
+        m_Clock = requireNonNullArgument( clock, "clock" );
+        m_Peers = List.copyOf( requireNonNullArgument( peers, "peers" ) );
+        m_Listener = requireNonNullArgument( listener, "listener" );
+        m_Socket = new DatagramSocket( requireNonNullArgument( address, "address" ) );
+
+        m_Receiver = new Thread( this::receive, "ShootingTimer-HeatReplicator" );
+        m_Receiver.setDaemon( true );
+        m_Receiver.start();
+        m_Heartbeat = requireNonNullArgument( scheduler, "scheduler" ).scheduleAtFixedRate( this::heartbeat, 0L, HEARTBEAT_INTERVAL, MILLISECONDS );
+    }   //  HeatReplicator()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Aborts the current heat on all instances; this is possible on any
+     *  instance, not only on the leader.
+     */
+    public final void abortHeat()
+    {
+        HeatTimeline aborted = null;
+        synchronized( this )
+        {
+            if( nonNull( m_Current ) && (m_Current.anchor() > m_AbortedAnchor) )
+            {
+                aborted = m_Current;
+                m_AbortedAnchor = aborted.anchor();
+            }
+        }
+        if( nonNull( aborted ) ) send();
+    }   //  abortHeat()
+
+    /**
+     *  Adopts the given timeline if it is more recent than the current one,
+     *  and if it was neither aborted nor has already ended. A timeline is
+     *  not adopted as long as the shared clock is not synchronised.
+     *
+     *  @param  timeline    The timeline.
+     *  @return {@code true} if the timeline was adopted, {@code false}
+     *      otherwise.
+     */
+    private final synchronized boolean adopt( final HeatTimeline timeline )
+    {
+        final var retValue = m_Clock.isSynchronised()
+            && (isNull( m_Current ) || (timeline.anchor() > m_Current.anchor()))
+            && (timeline.anchor() > m_AbortedAnchor)
+            && (m_Clock.nanoTime() < timeline.getEnd());
+        if( retValue ) m_Current = timeline;
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  adopt()
+
+    /**
+     *  Stops the heartbeats and closes the socket.
+     */
+    @Override
+    public final void close()
+    {
+        m_Closed = true;
+        m_Heartbeat.cancel( false );
+        m_Socket.close();
+    }   //  close()
+
+    /**
+     *  Returns the node id of the current leader.
+     *
+     *  @return The node id of the leader, or
+     *      {@value #NO_LEADER}
+     *      if the leader is not yet known.
+     */
+    public final int getLeaderId() { return m_LeaderId; }
+
+    /**
+     *  Returns the node id of this instance.
+     *
+     *  @return The node id.
+     */
+    public final int getNodeId() { return m_NodeId; }
+
+    /**
+     *  Sends a heartbeat, checks whether the leader is still alive, and
+     *  whether the shared clock is still synchronised.
+     */
+    private final void heartbeat()
+    {
+        send();
+        updateLeader();
+
+        final var isSynchronised = m_Clock.isSynchronised();
+        if( isSynchronised != m_WasSynchronised )
+        {
+            m_WasSynchronised = isSynchronised;
+            m_Listener.synchronisationChanged( isSynchronised );
+        }
+    }   //  heartbeat()
+
+    /**
+     *  Returns whether this instance is the leader.
+     *
+     *  @return {@code true} if this instance is the leader, {@code false}
+     *      otherwise.
+     */
+    public final boolean isLeader() { return m_LeaderId == m_NodeId; }
+
+    /**
+     *  The loop that receives the messages; it is executed by the receiver
+     *  thread until the replicator is closed.
+     */
+    private final void receive()
+    {
+        final var logger = getLogger( HeatReplicator.class.getName() );
+        final var packet = new DatagramPacket( new byte [PACKET_SIZE], PACKET_SIZE );
+        ReceiveLoop: while( !m_Closed )
+        {
+            try
+            {
+                packet.setLength( PACKET_SIZE );
+                m_Socket.receive( packet );
+                final var input = new DataInputStream( new ByteArrayInputStream( packet.getData(), 0, packet.getLength() ) );
+                if( input.readInt() != MAGIC ) continue ReceiveLoop;
+                final var senderId = input.readInt();
+                final var abortedAnchor = input.readLong();
+                final var timeline = input.readBoolean() ? HeatTimeline.readFrom( input ) : null;
+                if( senderId == m_NodeId ) continue ReceiveLoop;
+
+                m_LastSeen.put( Integer.valueOf( senderId ), Long.valueOf( System.nanoTime() ) );
+                updateLeader();
+                if( nonNull( timeline ) && adopt( timeline ) ) m_Listener.heatStarted( timeline );
+                if( abortedAnchor != NO_HEAT )
+                {
+                    HeatTimeline aborted = null;
+                    synchronized( this )
+                    {
+                        if( abortedAnchor > m_AbortedAnchor )
+                        {
+                            m_AbortedAnchor = abortedAnchor;
+                            if( nonNull( m_Current ) && (m_Current.anchor() == abortedAnchor) ) aborted = m_Current;
+                        }
+                    }
+                    if( nonNull( aborted ) ) m_Listener.heatAborted( aborted );
+                }
+            }
+            catch( final SocketException e )
+            {
+                //---* Closing the socket causes a SocketException *-----------
+                if( !m_Closed ) logger.log( ERROR, "Heat replication failed", e );
+                break ReceiveLoop;
+            }
+            catch( final IOException e )
+            {
+                logger.log( WARNING, "Invalid heat replication message", e );
+            }
+            catch( final RuntimeException e )
+            {
+                logger.log( ERROR, "Heat replication listener failed", e );
+            }
+        }   //  ReceiveLoop:
+    }   //  receive()
+
+    /**
+     *  Sends the current state to all peers.
+     */
+    private final void send()
+    {
+        final var buffer = new ByteArrayOutputStream( PACKET_SIZE );
+        try( final var output = new DataOutputStream( buffer ) )
+        {
+            final long abortedAnchor;
+            final HeatTimeline current;
+            synchronized( this )
+            {
+                abortedAnchor = m_AbortedAnchor;
+                current = nonNull( m_Current ) && (m_Current.anchor() != abortedAnchor) && (m_Clock.nanoTime() < m_Current.getEnd()) ? m_Current : null;
+            }
+            output.writeInt( MAGIC );
+            output.writeInt( m_NodeId );
+            output.writeLong( abortedAnchor );
+            output.writeBoolean( nonNull( current ) );
+            if( nonNull( current ) ) current.writeTo( output );
+            output.flush();
+
+            final var data = buffer.toByteArray();
+            for( final var peer : m_Peers )
+            {
+                m_Socket.send( new DatagramPacket( data, data.length, peer ) );
+            }
+        }
+        catch( final IOException e )
+        {
+            //---* The peer may not be reachable; the next heartbeat retries *-
+            if( !m_Closed ) getLogger( HeatReplicator.class.getName() ).log( DEBUG, "Heat replication message could not be sent", e );
+        }
+    }   //  send()
+
+    /**
+     *  Starts a new heat, and sends its timeline to all peers at once. The
+     *  anchor of the heat is
+     *  {@value #START_LEAD}
+     *  milliseconds from now.
+     *
+     *  @param  discipline  The discipline.
+     *  @param  heat    The heat.
+     *  @param  beforeTime  The time before the prolog in milliseconds.
+     *  @param  afterTime   The time after shooting and before the reset, in
+     *      milliseconds.
+     *  @return The timeline of the heat.
+     *  @throws IllegalStateException   This instance is not the leader, or
+     *      its shared clock is not synchronised.
+     */
+    public final HeatTimeline startHeat( final Discipline discipline, final Heat heat, final long beforeTime, final long afterTime ) throws IllegalStateException
+    {
+        if( !isLeader() ) throw new IllegalStateException( "Only the leader can start a heat" );
+        if( !m_Clock.isSynchronised() ) throw new IllegalStateException( "The shared clock is not synchronised" );
+        final var retValue = new HeatTimeline( discipline, heat, beforeTime, afterTime, m_Clock.nanoTime() + MILLISECONDS.toNanos( START_LEAD ) );
+        synchronized( this )
+        {
+            m_Current = retValue;
+        }
+        send();
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  startHeat()
+
+    /**
+     *  Determines the leader: this is the instance with the lowest node id
+     *  of those that are alive. This instance becomes the leader only after
+     *  it listened to its peers for
+     *  {@value #LEADER_TIMEOUT}
+     *  milliseconds, otherwise two instances could consider themselves as
+     *  the leader at the same time.
+     */
+    private final void updateLeader()
+    {
+        final var now = System.nanoTime();
+        final var timeout = MILLISECONDS.toNanos( LEADER_TIMEOUT );
+        var lowestId = m_NodeId;
+        for( final var entry : m_LastSeen.entrySet() )
+        {
+            if( (now - entry.getValue().longValue() <= timeout) && (entry.getKey().intValue() < lowestId) ) lowestId = entry.getKey().intValue();
+        }
+        final var leaderId = (lowestId != m_NodeId) || (now - m_StartTime > timeout) ? lowestId : NO_LEADER;
+        var changed = false;
+        synchronized( this )
+        {
+            if( m_LeaderId != leaderId )
+            {
+                m_LeaderId = leaderId;
+                changed = true;
+            }
+        }
+        if( changed ) m_Listener.leaderChanged( leaderId, leaderId == m_NodeId );
+    }   //  updateLeader()
+}
+//  class HeatReplicator
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,236 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.apiguardian.api.API.Status.INTERNAL;
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+import static org.tquadrat.shootingtimer.spi.Status.STATUS_AFTER;
+import static org.tquadrat.shootingtimer.spi.Status.STATUS_BEFORE;
+import static org.tquadrat.shootingtimer.spi.Status.STATUS_PROLOG;
+import static org.tquadrat.shootingtimer.spi.Status.STATUS_SHOOTING;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.shootingtimer.spi.Status;
+
+/**
+ *  <p>{@summary The complete timeline for the execution of a single
+ *  {@link Heat}.}</p>
+ *  <p>All phases of the heat are determined once, when the schedule is
+ *  created; the start and the end of each phase is stored as an offset in
+ *  nanoseconds relative to the start of the heat (the <i>anchor</i>). This
+ *  means that a late wake-up for one phase will not shift the deadlines for
+ *  the following phases.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.3.0" )
+public final class HeatSchedule
+{
+        /*---------------*\
+    ====** Inner Classes **====================================================
+        \*---------------*/
+    /**
+     *  A single phase within a heat.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.3.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = INTERNAL, since = "0.3.0" )
+    public static final class Phase
+    {
+            /*------------*\
+        ====** Attributes **===================================================
+            \*------------*/
+        /**
+         *  The offset for the end of this phase in nanoseconds, relative to
+         *  the anchor.
+         */
+        private final long m_EndOffset;
+
+        /**
+         *  The repetition this phase belongs to; starts with 1, the value is 0
+         *  for the phases before and after the repetitions.
+         */
+        private final int m_Repetition;
+
+        /**
+         *  The offset for the start of this phase in nanoseconds, relative to
+         *  the anchor.
+         */
+        private final long m_StartOffset;
+
+        /**
+         *  The status for this phase.
+         */
+        private final Status m_Status;
+
+            /*--------------*\
+        ====** Constructors **=================================================
+            \*--------------*/
+        /**
+         *  Creates a new {@code Phase} instance.
+         *
+         *  @param  status  The status for this phase.
+         *  @param  repetition  The repetition this phase belongs to.
+         *  @param  startOffset The offset for the start of this phase in
+         *      nanoseconds.
+         *  @param  endOffset   The offset for the end of this phase in
+         *      nanoseconds.
+         */
+        private Phase( final Status status, final int repetition, final long startOffset, final long endOffset )
+        {
+            m_Status = status;
+            m_Repetition = repetition;
+            m_StartOffset = startOffset;
+            m_EndOffset = endOffset;
+        }   //  Phase()
+
+            /*---------*\
+        ====** Methods **======================================================
+            \*---------*/
+        /**
+         *  Returns the offset for the end of this phase, relative to the
+         *  anchor.
+         *
+         *  @return The end offset in nanoseconds.
+         */
+        public final long getEndOffset() { return m_EndOffset; }
+
+        /**
+         *  Returns the repetition this phase belongs to.
+         *
+         *  @return The repetition, starting with 1; 0 for the phases before
+         *      and after the repetitions.
+         */
+        public final int getRepetition() { return m_Repetition; }
+
+        /**
+         *  Returns the offset for the start of this phase, relative to the
+         *  anchor.
+         *
+         *  @return The start offset in nanoseconds.
+         */
+        public final long getStartOffset() { return m_StartOffset; }
+
+        /**
+         *  Returns the status for this phase.
+         *
+         *  @return The status.
+         */
+        public final Status getStatus() { return m_Status; }
+
+        /**
+         *  Returns whether the remaining time for this phase should be
+         *  displayed.
+         *
+         *  @return {@code true} if this is a prolog or shooting phase,
+         *      {@code false} otherwise.
+         */
+        public final boolean isTimed() { return (m_Status == STATUS_PROLOG) || (m_Status == STATUS_SHOOTING); }
+    }
+    //  class Phase
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The heat.
+     */
+    private final Heat m_Heat;
+
+    /**
+     *  The phases of the heat, in the sequence of their execution.
+     */
+    private final List<Phase> m_Phases;
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new {@code HeatSchedule} instance.
+     *
+     *  @param  heat    The heat.
+     *  @param  beforeTime  The time before the prolog in milliseconds.
+     *  @param  afterTime   The time after shooting and before the reset, in
+     *      milliseconds.
+     */
+    public HeatSchedule( final Heat heat, final long beforeTime, final long afterTime )
+    {
+        m_Heat = requireNonNullArgument( heat, "heat" );
+
+        final var prologTime = MILLISECONDS.toNanos( heat.getPrologTime() );
+        final var shootingTime = MILLISECONDS.toNanos( heat.getShootingTime() );
+        final var phases = new ArrayList<Phase>( 2 + heat.getRepetitions() * 2 );
+
+        var offset = MILLISECONDS.toNanos( Math.max( beforeTime, 0L ) );
+        phases.add( new Phase( STATUS_BEFORE, 0, 0L, offset ) );
+        for( var r = 1; r <= heat.getRepetitions(); ++r )
+        {
+            phases.add( new Phase( STATUS_PROLOG, r, offset, offset + prologTime ) );
+            offset += prologTime;
+            phases.add( new Phase( STATUS_SHOOTING, r, offset, offset + shootingTime ) );
+            offset += shootingTime;
+        }
+        phases.add( new Phase( STATUS_AFTER, 0, offset, offset + MILLISECONDS.toNanos( Math.max( afterTime, 0L ) ) ) );
+
+        m_Phases = List.copyOf( phases );
+    }   //  HeatSchedule()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Returns the total duration of the heat, including the times before and
+     *  after.
+     *
+     *  @return The duration in nanoseconds.
+     */
+    public final long getDuration() { return m_Phases.get( m_Phases.size() - 1 ).getEndOffset(); }
+
+    /**
+     *  Returns the heat this schedule was created for.
+     *
+     *  @return The heat.
+     */
+    public final Heat getHeat() { return m_Heat; }
+
+    /**
+     *  Returns the phases of the heat.
+     *
+     *  @return The phases, in the sequence of their execution.
+     */
+    public final List<Phase> getPhases() { return m_Phases; }
+}
+//  class HeatSchedule
+
+/*
+ *  End of File
+ */
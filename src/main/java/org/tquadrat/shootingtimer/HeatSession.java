@@ -0,0 +1,398 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static java.lang.System.err;
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.lang.Objects.isNull;
+import static org.tquadrat.foundation.lang.Objects.nonNull;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+import static org.tquadrat.shootingtimer.spi.Status.STATUS_STARTING;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.foundation.lang.AutoLock;
+
+/**
+ *  <p>{@summary Starts and aborts the heats, and keeps track of the heat
+ *  that is currently executed.}</p>
+ *  <p>The session drives the
+ *  {@link StatusMachine}
+ *  through the beginning of a heat, creates the
+ *  {@link HeatTimeline}
+ *  &ndash; through the
+ *  {@link HeatReplicator}
+ *  if the heats are replicated &ndash; and executes it with a
+ *  {@link HeatEngine}.
+ *  Everything that concerns the display, the lights and the sounds is left
+ *  to the
+ *  {@link HeatSetup}.</p>
+ *  <p>The methods that start or abort a heat are called on the JavaFX
+ *  Application Thread; the engine ends a heat on its own thread.</p>
+ *  <p>The session can be
+ *  {@linkplain #setBlocked(boolean) blocked}
+ *  while the signals are used otherwise, for example for their
+ *  calibration; no heat is started or followed then.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.3.0" )
+public final class HeatSession
+{
+        /*---------------*\
+    ====** Inner Classes **====================================================
+        \*---------------*/
+    /**
+     *  The part of the execution of a heat that depends on the user
+     *  interface.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.3.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.3.0" )
+    public static interface HeatSetup
+    {
+            /*---------*\
+        ====** Methods **======================================================
+            \*---------*/
+        /**
+         *  Adds the cues for the signals to the engine for a new heat.
+         *
+         *  @param  engine  The engine.
+         */
+        public void addCues( final HeatEngine engine );
+
+        /**
+         *  Creates the listener for the phases of a new heat; it has to
+         *  apply the status of each phase to the
+         *  {@link StatusMachine}.
+         *
+         *  @return The listener.
+         */
+        public HeatEngine.PhaseListener createPhaseListener();
+    }
+    //  interface HeatSetup
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The shared clock.
+     */
+    private final SharedClock m_Clock;
+
+    /**
+     *  The engine that executes the current heat.
+     */
+    private HeatEngine m_Engine;
+
+    /**
+     *  The guard for the engine and the timeline of the current heat.
+     */
+    private final AutoLock m_Guard = AutoLock.of( new ReentrantLock( false ) );
+
+    /**
+     *  The flag that indicates that no heat may be started or followed.
+     */
+    private volatile boolean m_IsBlocked = false;
+
+    /**
+     *  The latencies of the transitions.
+     */
+    private final TransitionLatencies m_Latencies;
+
+    /**
+     *  The replication of the heats; {@code null} if the heats are not
+     *  replicated.
+     */
+    private final HeatReplicator m_Replicator;
+
+    /**
+     *  The setup for the heats.
+     */
+    private final HeatSetup m_Setup;
+
+    /**
+     *  The status machine.
+     */
+    private final StatusMachine m_StatusMachine;
+
+    /**
+     *  The timeline of the current heat.
+     */
+    private HeatTimeline m_Timeline;
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new {@code HeatSession} instance.
+     *
+     *  @param  statusMachine   The status machine.
+     *  @param  clock   The shared clock.
+     *  @param  replicator  The replication of the heats; {@code null} if the
+     *      heats are not replicated.
+     *  @param  latencies   The latencies of the transitions.
+     *  @param  setup   The setup for the heats.
+     */
+    public HeatSession( final StatusMachine statusMachine, final SharedClock clock, final HeatReplicator replicator, final TransitionLatencies latencies, final HeatSetup setup )
+    {
+        m_StatusMachine = requireNonNullArgument( statusMachine, "statusMachine" );
+        m_Clock = requireNonNullArgument( clock, "clock" );
+        m_Replicator = replicator;
+        m_Latencies = requireNonNullArgument( latencies, "latencies" );
+        m_Setup = requireNonNullArgument( setup, "setup" );
+    }   //  HeatSession()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Aborts the current heat, here and on the other instances, and resets
+     *  the status. The engine is told to stop, but this method does not wait
+     *  for it.
+     *
+     *  @return {@code true} if a heat was running, {@code false} otherwise.
+     */
+    public final boolean abort()
+    {
+        HeatEngine engine;
+        try( var ignored = m_Guard.lock() )
+        {
+            engine = m_Engine;
+            m_Engine = null;
+            m_Timeline = null;
+        }
+
+        //---* Closes the scope of the heat with all its tasks *---------------
+        if( nonNull( engine ) ) engine.abort();
+
+        //---* Abort the heat on the other instances, too *--------------------
+        if( nonNull( m_Replicator ) ) m_Replicator.abortHeat();
+
+        //---* Reset the system *----------------------------------------------
+        m_StatusMachine.reset();
+        final var retValue = nonNull( engine );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  abort()
+
+    /**
+     *  Executes the heat with the given timeline.
+     *
+     *  @param  timeline    The timeline of the heat.
+     */
+    private final void execute( final HeatTimeline timeline )
+    {
+        final var heatEvent = TimerEvents.HeatEvent.start( timeline.discipline(), timeline.heat() );
+
+        /*
+         * All deadlines for the heat are calculated once, relative to the
+         * anchor from the timeline; they refer to the timebase that is shared
+         * with the other instances.
+         */
+        final var engine = new HeatEngine( timeline.toSchedule(), m_Clock, m_Setup.createPhaseListener(), m_Latencies );
+        m_Setup.addCues( engine );
+
+        //---* Execute ... *---------------------------------------------------
+        try( var ignored = m_Guard.lock() )
+        {
+            m_Engine = engine;
+            m_Timeline = timeline;
+        }
+        m_StatusMachine.transitionTo( STATUS_STARTING );
+        engine.start( timeline.anchor() ).whenComplete( (completed,t) ->
+        {
+            if( nonNull( t ) ) t.printStackTrace( err );
+            heatEvent.end( !Boolean.TRUE.equals( completed ) );
+
+            //---* Cleanup *---------------------------------------------------
+            var isCurrent = false;
+            try( var ignored = m_Guard.lock() )
+            {
+                isCurrent = m_Engine == engine;
+                if( isCurrent )
+                {
+                    m_Engine = null;
+                    m_Timeline = null;
+                }
+            }
+
+            //---* A replaced heat must not reset the status *-----------------
+            if( isCurrent ) m_StatusMachine.reset();
+        } );
+    }   //  execute()
+
+    /**
+     *  Executes the heat that was started by the leader, with the same
+     *  timeline; a heat that is still running here is replaced. While the
+     *  session is blocked, the heat is ignored.
+     *
+     *  @param  timeline    The timeline of the heat.
+     *  @return {@code true} if the heat is executed, {@code false} if the
+     *      session is blocked.
+     */
+    public final boolean follow( final HeatTimeline timeline )
+    {
+        requireNonNullArgument( timeline, "timeline" );
+        if( m_IsBlocked ) return false;
+
+        HeatEngine engine;
+        try( var ignored = m_Guard.lock() )
+        {
+            engine = m_Engine;
+            m_Engine = null;
+            m_Timeline = null;
+        }
+        if( nonNull( engine ) ) engine.abort();
+
+        //---* Start the sequence *--------------------------------------------
+        m_StatusMachine.reset();
+        m_StatusMachine.proceed();
+
+        //---* Execute the heat *----------------------------------------------
+        execute( timeline );
+
+        //---* Done *----------------------------------------------------------
+        return true;
+    }   //  follow()
+
+    /**
+     *  Returns whether the session is blocked.
+     *
+     *  @return {@code true} if no heat may be started or followed,
+     *      {@code false} otherwise.
+     */
+    public final boolean isBlocked() { return m_IsBlocked; }
+
+    /**
+     *  Returns whether the heat with the given timeline is the current heat.
+     *
+     *  @param  timeline    The timeline.
+     *  @return {@code true} if the heat is currently executed,
+     *      {@code false} otherwise.
+     */
+    public final boolean isCurrent( final HeatTimeline timeline )
+    {
+        final boolean retValue;
+        try( var ignored = m_Guard.lock() )
+        {
+            retValue = nonNull( m_Timeline ) && (m_Timeline.anchor() == requireNonNullArgument( timeline, "timeline" ).anchor());
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  isCurrent()
+
+    /**
+     *  Returns whether a heat is currently executed.
+     *
+     *  @return {@code true} if a heat is running, {@code false} otherwise.
+     */
+    public final boolean isRunning()
+    {
+        final boolean retValue;
+        try( var ignored = m_Guard.lock() )
+        {
+            retValue = nonNull( m_Engine );
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  isRunning()
+
+    /**
+     *  Returns whether a heat may be started on this instance: this is the
+     *  case if the session is not blocked, and if the heats are not
+     *  replicated, or this instance is the leader and its shared clock is
+     *  synchronised.
+     *
+     *  @return {@code true} if a heat may be started here, {@code false}
+     *      otherwise.
+     */
+    public final boolean mayStart() { return !m_IsBlocked && (isNull( m_Replicator ) || (m_Replicator.isLeader() && m_Clock.isSynchronised())); }
+
+    /**
+     *  Blocks the session, or releases it. A heat that is running already
+     *  is not affected.
+     *
+     *  @param  flag    {@code true} if no heat may be started or followed,
+     *      {@code false} if the heats are possible again.
+     */
+    public final void setBlocked( final boolean flag ) { m_IsBlocked = flag; }
+
+    /**
+     *  Starts a new heat; if the heats are replicated, it is executed by the
+     *  other instances, too.
+     *
+     *  @param  discipline  The discipline.
+     *  @param  heat    The heat.
+     *  @param  beforeTime  The time before the prolog in milliseconds.
+     *  @param  afterTime   The time after shooting and before the reset, in
+     *      milliseconds.
+     *  @return {@code true} if the heat was started, {@code false} if a heat
+     *      is running already, or if this instance may not start a heat.
+     */
+    public final boolean start( final Discipline discipline, final Heat heat, final long beforeTime, final long afterTime )
+    {
+        requireNonNullArgument( discipline, "discipline" );
+        requireNonNullArgument( heat, "heat" );
+
+        var retValue = !isRunning() && mayStart();
+        if( retValue )
+        {
+            //---* Start the sequence *----------------------------------------
+            m_StatusMachine.reset();
+            m_StatusMachine.proceed();
+
+            try
+            {
+                final var timeline = isNull( m_Replicator )
+                    ? new HeatTimeline( discipline, heat, beforeTime, afterTime, m_Clock.nanoTime() )
+                    : m_Replicator.startHeat( discipline, heat, beforeTime, afterTime );
+
+                //---* Execute the heat *--------------------------------------
+                execute( timeline );
+            }
+            catch( final IllegalStateException e )
+            {
+                //---* The leadership or the synchronisation was lost *--------
+                m_StatusMachine.reset();
+                retValue = false;
+            }
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  start()
+}
+//  class HeatSession
+
+/*
+ *  End of File
+ */
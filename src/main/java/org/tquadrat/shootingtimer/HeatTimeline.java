@@ -0,0 +1,191 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary The complete timeline of a heat: what is executed, and
+ *  when.}</p>
+ *  <p>Together with a clock that shares its timebase with the other
+ *  instances, like the
+ *  {@link SharedClock},
+ *  a timeline allows each instance to execute the heat on its own, in step
+ *  with the others: the deadlines of all phases are derived from the
+ *  anchor, so no further message is needed once the timeline is known. The
+ *  anchor identifies the heat, too.</p>
+ *  <p>On the wire, the heat is referenced by its position in the program of
+ *  the discipline, and its timings are sent along to detect instances with
+ *  a different program.</p>
+ *
+ *  @param  discipline  The discipline.
+ *  @param  heat    The heat; it has to be a part of the program of the
+ *      discipline.
+ *  @param  beforeTime  The time before the prolog in milliseconds.
+ *  @param  afterTime   The time after shooting and before the reset, in
+ *      milliseconds.
+ *  @param  anchor  The start of the heat, as a value of the shared clock.
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.3.0" )
+public record HeatTimeline( Discipline discipline, Heat heat, long beforeTime, long afterTime, long anchor )
+{
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new {@code HeatTimeline} instance.
+     *
+     *  @param  discipline  The discipline.
+     *  @param  heat    The heat; it has to be a part of the program of the
+     *      discipline.
+     *  @param  beforeTime  The time before the prolog in milliseconds.
+     *  @param  afterTime   The time after shooting and before the reset, in
+     *      milliseconds.
+     *  @param  anchor  The start of the heat, as a value of the shared
+     *      clock.
+     *  @throws IllegalArgumentException    The heat is not part of the
+     *      program of the discipline.
+     */
+    public HeatTimeline
+    {
+        requireNonNullArgument( discipline, "discipline" );
+        requireNonNullArgument( heat, "heat" );
+        if( indexOf( discipline, heat ) < 0 ) throw new IllegalArgumentException( "heat is not part of the program for %s".formatted( discipline.name() ) );
+    }   //  HeatTimeline()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Returns the position of the given heat in the program of the given
+     *  discipline.
+     *
+     *  @param  discipline  The discipline.
+     *  @param  heat    The heat.
+     *  @return The position of the heat; -1 if it is not part of the
+     *      program.
+     */
+    private static final int indexOf( final Discipline discipline, final Heat heat )
+    {
+        var retValue = -1;
+        final var program = discipline.getProgram();
+        SearchLoop: for( var i = 0; i < program.length; ++i )
+        {
+            if( program [i] == heat )
+            {
+                retValue = i;
+                break SearchLoop;
+            }
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  indexOf()
+
+    /**
+     *  Returns the end of the heat.
+     *
+     *  @return The end of the heat, as a value of the shared clock.
+     */
+    public final long getEnd() { return anchor + toSchedule().getDuration(); }
+
+    /**
+     *  Reads a timeline that was written by
+     *  {@link #writeTo(DataOutput)}.
+     *
+     *  @param  input   The input.
+     *  @return The timeline.
+     *  @throws IOException The timeline could not be read, or it refers to
+     *      a heat that does not match the local program.
+     */
+    public static final HeatTimeline readFrom( final DataInput input ) throws IOException
+    {
+        final Discipline discipline;
+        try
+        {
+            discipline = Discipline.valueOf( input.readUTF() );
+        }
+        catch( final IllegalArgumentException e )
+        {
+            throw new IOException( "Unknown discipline", e );
+        }
+        final var index = input.readInt();
+        final var prologTime = input.readLong();
+        final var shootingTime = input.readLong();
+        final var repetitions = input.readInt();
+        final var beforeTime = input.readLong();
+        final var afterTime = input.readLong();
+        final var anchor = input.readLong();
+
+        final var program = discipline.getProgram();
+        if( (index < 0) || (index >= program.length) ) throw new IOException( "Unknown heat %d for %s".formatted( index, discipline.name() ) );
+        final var heat = program [index];
+        if( (heat.getPrologTime() != prologTime) || (heat.getShootingTime() != shootingTime) || (heat.getRepetitions() != repetitions) )
+        {
+            throw new IOException( "Heat %d for %s does not match the local program".formatted( index, discipline.name() ) );
+        }
+        final var retValue = new HeatTimeline( discipline, heat, beforeTime, afterTime, anchor );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  readFrom()
+
+    /**
+     *  Creates the schedule for the heat.
+     *
+     *  @return The schedule.
+     */
+    public final HeatSchedule toSchedule() { return new HeatSchedule( heat, beforeTime, afterTime ); }
+
+    /**
+     *  Writes this timeline to the given output.
+     *
+     *  @param  output  The output.
+     *  @throws IOException The timeline could not be written.
+     */
+    public final void writeTo( final DataOutput output ) throws IOException
+    {
+        output.writeUTF( discipline.name() );
+        output.writeInt( indexOf( discipline, heat ) );
+        output.writeLong( heat.getPrologTime() );
+        output.writeLong( heat.getShootingTime() );
+        output.writeInt( heat.getRepetitions() );
+        output.writeLong( beforeTime );
+        output.writeLong( afterTime );
+        output.writeLong( anchor );
+    }   //  writeTo()
+}
+//  record HeatTimeline
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,250 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.lang.Objects.isNull;
+import static org.tquadrat.foundation.lang.Objects.nonNull;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+import static org.tquadrat.shootingtimer.spi.Status.STATUS_STARTING;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.shootingtimer.spi.Status;
+
+/**
+ *  <p>{@summary A single lane of a range, with its own heat and its own
+ *  {@link Status}.}</p>
+ *  <p>The lanes are created and owned by a
+ *  {@link LaneManager};
+ *  all lanes of a manager share its
+ *  {@link HeatClock},
+ *  so a lane does not have a thread of its own. An idle lane holds only its
+ *  {@link StatusMachine};
+ *  while a heat is running, it holds the
+ *  {@link HeatEngine}
+ *  for that heat, and that has at most one task scheduled per cue and
+ *  phase.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.3.0" )
+public final class Lane
+{
+        /*---------------*\
+    ====** Inner Classes **====================================================
+        \*---------------*/
+    /**
+     *  The heat that is currently running on a lane.
+     *
+     *  @param  discipline  The discipline.
+     *  @param  heat    The heat.
+     *  @param  engine  The engine that executes the heat.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.3.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.3.0" )
+    private static record Run( Discipline discipline, Heat heat, HeatEngine engine ) {}
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The manager that owns this lane.
+     */
+    private final LaneManager m_Manager;
+
+    /**
+     *  The number of the lane.
+     */
+    private final int m_Number;
+
+    /**
+     *  The heat that is currently running; {@code null} if the lane is idle.
+     */
+    private final AtomicReference<Run> m_Run = new AtomicReference<>();
+
+    /**
+     *  The state machine for the status of the lane.
+     */
+    private final StatusMachine m_StatusMachine = new StatusMachine();
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new {@code Lane} instance.
+     *
+     *  @param  manager The manager that owns this lane.
+     *  @param  number  The number of the lane.
+     */
+    Lane( final LaneManager manager, final int number )
+    {
+        m_Manager = requireNonNullArgument( manager, "manager" );
+        m_Number = number;
+    }   //  Lane()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Aborts the heat that is running on this lane, if any. The method
+     *  returns immediately, as
+     *  {@link HeatEngine#abort()}.
+     *
+     *  @return The result of the heat; it is completed with {@code false}
+     *      when the heat was aborted, and with {@code true} when the heat had
+     *      ended regularly before. If the lane was idle, the result is
+     *      already completed with {@code false}.
+     */
+    public final CompletableFuture<Boolean> abort()
+    {
+        final var run = m_Run.get();
+        final var retValue = isNull( run ) ? CompletableFuture.completedFuture( Boolean.FALSE ) : run.engine().abort();
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  abort()
+
+    /**
+     *  Returns the discipline of the heat that is currently running on this
+     *  lane.
+     *
+     *  @return An instance of
+     *      {@link Optional}
+     *      that holds the discipline; empty if the lane is idle.
+     */
+    public final Optional<Discipline> getDiscipline() { return Optional.ofNullable( m_Run.get() ).map( Run::discipline ); }
+
+    /**
+     *  Returns the heat that is currently running on this lane.
+     *
+     *  @return An instance of
+     *      {@link Optional}
+     *      that holds the heat; empty if the lane is idle.
+     */
+    public final Optional<Heat> getHeat() { return Optional.ofNullable( m_Run.get() ).map( Run::heat ); }
+
+    /**
+     *  Returns the number of this lane.
+     *
+     *  @return The number of the lane, starting with 1.
+     */
+    public final int getNumber() { return m_Number; }
+
+    /**
+     *  Returns the current status of this lane.
+     *
+     *  @return The status.
+     */
+    public final Status getStatus() { return m_StatusMachine.getStatus(); }
+
+    /**
+     *  Returns the state machine for the status of this lane; listeners for
+     *  the status transitions, like a
+     *  {@link SignalDispatcher},
+     *  can be registered with it.
+     *
+     *  @return The state machine.
+     */
+    public final StatusMachine getStatusMachine() { return m_StatusMachine; }
+
+    /**
+     *  Returns whether a heat is running on this lane.
+     *
+     *  @return {@code true} if a heat is running, {@code false} if the lane
+     *      is idle.
+     */
+    public final boolean isActive() { return nonNull( m_Run.get() ); }
+
+    /**
+     *  Starts the given heat on this lane.
+     *
+     *  @param  discipline  The discipline.
+     *  @param  heat    The heat.
+     *  @param  beforeTime  The time before the prolog in milliseconds.
+     *  @param  afterTime   The time after shooting and before the reset, in
+     *      milliseconds.
+     *  @return The result of the heat; it will be completed with
+     *      {@code true} when all phases of the heat were executed, or with
+     *      {@code false} when the heat was aborted.
+     *  @throws IllegalStateException   A heat is already running on this
+     *      lane.
+     */
+    public final CompletableFuture<Boolean> start( final Discipline discipline, final Heat heat, final long beforeTime, final long afterTime ) throws IllegalStateException
+    {
+        return start( discipline, heat, beforeTime, afterTime, (phase,deadline,scope) -> {} );
+    }   //  start()
+
+    /**
+     *  Starts the given heat on this lane.
+     *
+     *  @param  discipline  The discipline.
+     *  @param  heat    The heat.
+     *  @param  beforeTime  The time before the prolog in milliseconds.
+     *  @param  afterTime   The time after shooting and before the reset, in
+     *      milliseconds.
+     *  @param  listener    The listener for the phase changes; it is called
+     *      after the status of the lane was changed.
+     *  @return The result of the heat; it will be completed with
+     *      {@code true} when all phases of the heat were executed, or with
+     *      {@code false} when the heat was aborted.
+     *  @throws IllegalStateException   A heat is already running on this
+     *      lane.
+     */
+    public final CompletableFuture<Boolean> start( final Discipline discipline, final Heat heat, final long beforeTime, final long afterTime, final HeatEngine.PhaseListener listener ) throws IllegalStateException
+    {
+        requireNonNullArgument( discipline, "discipline" );
+        requireNonNullArgument( listener, "listener" );
+        final var engine = new HeatEngine( new HeatSchedule( heat, beforeTime, afterTime ), m_Manager.getClock(), (phase,deadline,scope) ->
+        {
+            m_StatusMachine.transitionTo( phase.getStatus() );
+            listener.phaseStarted( phase, deadline, scope );
+        }, m_Manager.getLatencies() );
+        final var run = new Run( discipline, heat, engine );
+        if( !m_Run.compareAndSet( null, run ) ) throw new IllegalStateException( "Lane %d is busy".formatted( m_Number ) );
+
+        m_StatusMachine.transitionTo( STATUS_STARTING );
+        final var retValue = engine.start();
+        retValue.whenComplete( (result,exception) ->
+        {
+            m_StatusMachine.reset();
+            m_Run.compareAndSet( run, null );
+        } );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  start()
+}
+//  class Lane
+
+/*
+ *  End of File
+ */
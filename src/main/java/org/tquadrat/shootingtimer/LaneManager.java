@@ -0,0 +1,172 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary Runs the independent heats of several
+ *  {@linkplain Lane lanes}
+ *  in a single process.}</p>
+ *  <p>All lanes are driven by the same
+ *  {@link HeatClock};
+ *  by default, this is the
+ *  {@linkplain TimerScheduler#getWheel() timer wheel}
+ *  from the
+ *  {@link TimerScheduler}.
+ *  Neither the manager nor the lanes create threads, so the costs grow with
+ *  the number of heats that are running, not with the number of lanes. The
+ *  lateness of the status transitions is collected for all lanes
+ *  together.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.3.0" )
+public final class LaneManager
+{
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The clock that drives all lanes.
+     */
+    private final HeatClock m_Clock;
+
+    /**
+     *  The lanes.
+     */
+    private final List<Lane> m_Lanes;
+
+    /**
+     *  The lateness of the transitions, for all lanes.
+     */
+    private final TransitionLatencies m_Latencies = new TransitionLatencies();
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new {@code LaneManager} instance that uses the timer wheel
+     *  from the
+     *  {@link TimerScheduler}.
+     *
+     *  @param  laneCount   The number of lanes.
+     */
+    public LaneManager( final int laneCount )
+    {
+        this( TimerScheduler.getWheel(), laneCount );
+    }   //  LaneManager()
+
+    /**
+     *  Creates a new {@code LaneManager} instance.
+     *
+     *  @param  clock   The clock that drives all lanes.
+     *  @param  laneCount   The number of lanes.
+     *  @throws IllegalArgumentException    The number of lanes is less than
+     *      1.
+     */
+    public LaneManager( final HeatClock clock, final int laneCount ) throws IllegalArgumentException
+    {
+        m_Clock = requireNonNullArgument( clock, "clock" );
+        if( laneCount < 1 ) throw new IllegalArgumentException( "laneCount is less than 1" );
+        final var lanes = new ArrayList<Lane>( laneCount );
+        for( var number = 1; number <= laneCount; ++number ) lanes.add( new Lane( this, number ) );
+        m_Lanes = List.copyOf( lanes );
+    }   //  LaneManager()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Aborts the heats on all lanes.
+     *
+     *  @return The future that completes when the heats on all lanes were
+     *      terminated.
+     */
+    public final CompletableFuture<Void> abortAll()
+    {
+        final var retValue = CompletableFuture.allOf( m_Lanes.stream()
+            .map( Lane::abort )
+            .toArray( CompletableFuture<?> []::new ) );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  abortAll()
+
+    /**
+     *  Returns the number of lanes with a running heat.
+     *
+     *  @return The number of active lanes.
+     */
+    public final int getActiveLaneCount()
+    {
+        var retValue = 0;
+        for( final var lane : m_Lanes ) if( lane.isActive() ) ++retValue;
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getActiveLaneCount()
+
+    /**
+     *  Returns the clock that drives all lanes.
+     *
+     *  @return The clock.
+     */
+    public final HeatClock getClock() { return m_Clock; }
+
+    /**
+     *  Returns the lane with the given number.
+     *
+     *  @param  number  The number of the lane, starting with 1.
+     *  @return The lane.
+     *  @throws IndexOutOfBoundsException   There is no lane with the given
+     *      number.
+     */
+    public final Lane getLane( final int number ) throws IndexOutOfBoundsException { return m_Lanes.get( number - 1 ); }
+
+    /**
+     *  Returns all lanes.
+     *
+     *  @return The lanes, ordered by their numbers.
+     */
+    public final List<Lane> getLanes() { return m_Lanes; }
+
+    /**
+     *  Returns the lateness of the status transitions for all lanes.
+     *
+     *  @return The lateness of the transitions.
+     */
+    public final TransitionLatencies getLatencies() { return m_Latencies; }
+}
+//  class LaneManager
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,250 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static java.lang.Long.numberOfLeadingZeros;
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.apiguardian.api.API.Status.STABLE;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary A histogram for latencies, with a fixed memory
+ *  footprint.}</p>
+ *  <p>The values are recorded with a resolution of one microsecond. Values
+ *  below
+ *  {@value #LINEAR_LIMIT}&nbsp;µs
+ *  are counted exactly; above that limit, each power of two is divided into
+ *  {@value #SUB_BUCKETS} buckets, so that the relative error of a reported
+ *  percentile is less than 7%. Values above
+ *  {@value #MAX_TRACKABLE}&nbsp;µs
+ *  are counted in the last bucket; the maximum is always tracked
+ *  exactly.</p>
+ *  <p>Recording a value is lock-free and does not allocate any memory.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.3.0" )
+public final class LatencyHistogram
+{
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The number of bits for the sub buckets: {@value}.
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /**
+     *  The number of sub buckets per power of two: {@value}.
+     */
+    public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     *  The limit for the values in microseconds that will be counted exactly:
+     *  {@value}.
+     */
+    public static final long LINEAR_LIMIT = SUB_BUCKETS << 1;
+
+    /**
+     *  The largest value in microseconds that will be recorded with the
+     *  regular precision: {@value}.
+     */
+    public static final long MAX_TRACKABLE = (1L << 31) - 1;
+
+    /**
+     *  The number of buckets.
+     */
+    private static final int BUCKET_COUNT = indexFor( MAX_TRACKABLE ) + 1;
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The buckets.
+     */
+    private final AtomicLongArray m_Buckets = new AtomicLongArray( BUCKET_COUNT );
+
+    /**
+     *  The number of recorded values.
+     */
+    private final AtomicLong m_Count = new AtomicLong();
+
+    /**
+     *  The largest recorded value in nanoseconds.
+     */
+    private final AtomicLong m_Max = new AtomicLong( Long.MIN_VALUE );
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new {@code LatencyHistogram} instance.
+     */
+    public LatencyHistogram() { /* Just exists */ }
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Returns the number of recorded values.
+     *
+     *  @return The number of values.
+     */
+    public final long getCount() { return m_Count.get(); }
+
+    /**
+     *  Returns the largest recorded value.
+     *
+     *  @return The largest value in nanoseconds, or 0 if no value was
+     *      recorded yet.
+     */
+    public final long getMax()
+    {
+        final var retValue = m_Count.get() > 0 ? m_Max.get() : 0L;
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getMax()
+
+    /**
+     *  Returns the value at the given percentile. The returned value is the
+     *  upper bound of the bucket that contains the percentile, but never
+     *  greater than the
+     *  {@linkplain #getMax() maximum}.
+     *
+     *  @param  percentile  The percentile, a value between 0.0 and 100.0.
+     *  @return The value in nanoseconds, or 0 if no value was recorded yet.
+     */
+    public final long getValueAtPercentile( final double percentile )
+    {
+        var retValue = 0L;
+        final var count = m_Count.get();
+        if( count > 0 )
+        {
+            final var threshold = Math.max( 1L, (long) Math.ceil( count * Math.min( Math.max( percentile, 0.0 ), 100.0 ) / 100.0 ) );
+            var sum = 0L;
+            SearchLoop: for( var i = 0; i < BUCKET_COUNT; ++i )
+            {
+                sum += m_Buckets.get( i );
+                if( sum >= threshold )
+                {
+                    retValue = Math.min( MICROSECONDS.toNanos( upperBoundFor( i ) ), getMax() );
+                    break SearchLoop;
+                }
+            }   //  SearchLoop:
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getValueAtPercentile()
+
+    /**
+     *  Returns the bucket index for the given value.
+     *
+     *  @param  value   The value in microseconds.
+     *  @return The index.
+     */
+    private static final int indexFor( final long value )
+    {
+        final int retValue;
+        if( value < LINEAR_LIMIT )
+        {
+            retValue = (int) Math.max( value, 0L );
+        }
+        else
+        {
+            final var shift = 63 - numberOfLeadingZeros( Math.min( value, MAX_TRACKABLE ) ) - SUB_BUCKET_BITS;
+            retValue = (shift << SUB_BUCKET_BITS) + (int) (Math.min( value, MAX_TRACKABLE ) >>> shift);
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  indexFor()
+
+    /**
+     *  Records the given value.
+     *
+     *  @param  value   The value in nanoseconds; negative values are counted
+     *      as 0.
+     */
+    public final void record( final long value )
+    {
+        m_Buckets.incrementAndGet( indexFor( NANOSECONDS.toMicros( value ) ) );
+        m_Max.accumulateAndGet( value, Math::max );
+        m_Count.incrementAndGet();
+    }   //  record()
+
+    /**
+     *  Returns a summary with the number of values, the 50th and 99th
+     *  percentile and the maximum.
+     *
+     *  @return The summary.
+     */
+    public final String summary()
+    {
+        final var retValue = format( "n = %d, p50 = %.3f ms, p99 = %.3f ms, max = %.3f ms",
+            getCount(),
+            getValueAtPercentile( 50.0 ) / 1_000_000.0,
+            getValueAtPercentile( 99.0 ) / 1_000_000.0,
+            getMax() / 1_000_000.0 );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  summary()
+
+    /**
+     *  Returns the largest value that belongs to the bucket with the given
+     *  index.
+     *
+     *  @param  index   The index.
+     *  @return The upper bound for the bucket in microseconds.
+     */
+    private static final long upperBoundFor( final int index )
+    {
+        final long retValue;
+        if( index < LINEAR_LIMIT )
+        {
+            retValue = index;
+        }
+        else
+        {
+            final var shift = (index >>> SUB_BUCKET_BITS) - 1;
+            final var mantissa = (index & (SUB_BUCKETS - 1)) + SUB_BUCKETS;
+            retValue = ((long) (mantissa + 1) << shift) - 1;
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  upperBoundFor()
+}
+//  class LatencyHistogram
+
+/*
+ *  End of File
+ */
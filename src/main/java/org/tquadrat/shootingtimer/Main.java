@@ -17,19 +17,26 @@
 
 package org.tquadrat.shootingtimer;
 
+import static java.lang.System.Logger.Level.ERROR;
+import static java.lang.System.Logger.Level.INFO;
 import static java.lang.System.err;
+import static java.lang.System.getLogger;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static javafx.application.Platform.exit;
 import static javafx.scene.input.KeyCombination.NO_MATCH;
 import static org.apiguardian.api.API.Status.STABLE;
-import static org.tquadrat.foundation.i18n.I18nUtil.loadResourceBundle;
 import static org.tquadrat.foundation.lang.CommonConstants.EMPTY_STRING;
 import static org.tquadrat.foundation.lang.DebugOutput.ifDebug;
 import static org.tquadrat.foundation.lang.Objects.isNull;
 import static org.tquadrat.foundation.lang.Objects.nonNull;
 import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.NoSuchElementException;
 import java.util.ResourceBundle;
+import java.util.concurrent.ExecutionException;
 
 import org.apiguardian.api.API;
 import org.tquadrat.foundation.annotation.ClassVersion;
@@ -110,9 +117,58 @@ public class Main extends Application
         )
     public static final int MSGKEY_CannotLoadUIDefinition = 2;
 
+    /**
+     *  The name of the system property that selects the startup probe:
+     *  {@value}. If the property is set to
+     *  {@value #STARTUP_PROBE_EXIT},
+     *  the application terminates as soon as the first frame was rendered; if
+     *  it is set to
+     *  {@value #STARTUP_PROBE_TRAINING},
+     *  it executes the
+     *  {@link TrainingRun}
+     *  before it terminates. The build uses this for the training of the class
+     *  data sharing archive and for the startup report.
+     */
+    public static final String PROPERTY_STARTUP_PROBE = "org.tquadrat.shootingtimer.startupProbe";
+
+    /**
+     *  The value for
+     *  {@value #PROPERTY_STARTUP_PROBE}
+     *  that terminates the application after the first frame: {@value}.
+     */
+    public static final String STARTUP_PROBE_EXIT = "exit";
+
+    /**
+     *  The value for
+     *  {@value #PROPERTY_STARTUP_PROBE}
+     *  that executes the training run after the first frame: {@value}.
+     */
+    public static final String STARTUP_PROBE_TRAINING = "training";
+
         /*---------*\
     ====** Methods **==========================================================
         \*---------*/
+    /**
+     *  Logs the time until the first frame was rendered.
+     *
+     *  @param  startTime   The time when
+     *      {@link #start(Stage)}
+     *      was called, as returned by
+     *      {@link System#nanoTime()}.
+     *  @param  frameTime   The time of the first frame, as returned by
+     *      {@link System#nanoTime()}.
+     */
+    private static final void logTimeToFirstFrame( final long startTime, final long frameTime )
+    {
+        final var sinceJVMStart = ProcessHandle.current()
+            .info()
+            .startInstant()
+            .map( instant -> Duration.between( instant, Instant.now() ).toMillis() )
+            .orElse( -1L );
+        getLogger( Main.class.getName() ).log( INFO, "Time to first frame: %d ms after start(), %d ms after JVM start"
+            .formatted( NANOSECONDS.toMillis( frameTime - startTime ), sinceJVMStart ) );
+    }   //  logTimeToFirstFrame()
+
     /**
      *  The program entry point.
      *
@@ -120,6 +176,9 @@ public class Main extends Application
      */
     public static final void main( final String... args )
     {
+        //---* The embedded HTTP servers must not delay their replies *--------
+        if( isNull( System.getProperty( RemoteControl.PROPERTY_HTTP_NODELAY ) ) ) System.setProperty( RemoteControl.PROPERTY_HTTP_NODELAY, "true" );
+
         try
         {
             launch( args );
@@ -131,6 +190,36 @@ public class Main extends Application
         }
     }   //  main()
 
+    /**
+     *  Executes the startup probe that was selected with the system property
+     *  {@value #PROPERTY_STARTUP_PROBE},
+     *  if any.
+     */
+    private static final void probeStartup()
+    {
+        final var probe = System.getProperty( PROPERTY_STARTUP_PROBE );
+        if( nonNull( probe ) )
+        {
+            final var logger = getLogger( Main.class.getName() );
+            try
+            {
+                if( STARTUP_PROBE_TRAINING.equals( probe ) )
+                {
+                    final var latencies = TrainingRun.execute();
+                    logger.log( INFO, "Training run finished:\n%s".formatted( latencies.report() ) );
+                }
+            }
+            catch( final ExecutionException | InterruptedException e )
+            {
+                logger.log( ERROR, "Training run failed", e );
+            }
+            finally
+            {
+                exit();
+            }
+        }
+    }   //  probeStartup()
+
     /**
      *  <p>{@summary Retrieves the message with the given key from the given
      *  resource bundle and applies the given arguments to it.}</p>
@@ -158,8 +247,12 @@ public class Main extends Application
     @Override
     public final void start( final Stage primaryStage )
     {
+        final var startTime = nanoTime();
         try
         {
+            //---* Start to decode the sounds while the UI is built *----------
+            SoundLibrary.preload( MainController.SOUND_ENDSHOOTING, MainController.SOUND_STARTSHOOTING );
+
             //---* Display the physical screen size *--------------------------
 //            out.println( "Screen Size" );
 //            final Screen screen = Screen.getPrimary();
@@ -178,10 +271,7 @@ public class Main extends Application
             ifDebug( nonNull( textURL ), $ -> textURL.toExternalForm() );
             ifDebug( isNull( textURL ), "Not found %s%n"::formatted, "/" + BASE_BUNDLE_NAME.replace( '.', '/' ) + ".properties" );
 
-            ResourceBundle.getBundle( BASE_BUNDLE_NAME );
-
-            final var resources = loadResourceBundle( BASE_BUNDLE_NAME )
-                .orElseThrow( () -> new ApplicationError( MSG_CannotLoadTextResources ) );
+            final var resources = TextResources.getResourceBundle();
 
             //---* Create the main window *------------------------------------
             final var fxmlFileName = "Main.fxml";
@@ -214,6 +304,11 @@ public class Main extends Application
             primaryStage.setFullScreenExitKeyCombination( NO_MATCH );
 
             //---* Show the stage *--------------------------------------------
+            FrameProbe.onNextFrame( scene, frameTime ->
+            {
+                logTimeToFirstFrame( startTime, frameTime );
+                probeStartup();
+            } );
             primaryStage.show();
         }
         catch( final Throwable t )
@@ -17,14 +17,15 @@
 
 package org.tquadrat.shootingtimer;
 
-import static java.lang.System.currentTimeMillis;
 import static java.lang.System.err;
 import static java.lang.System.getProperty;
-import static java.lang.Thread.interrupted;
-import static java.lang.Thread.sleep;
+import static java.lang.System.nanoTime;
 import static java.util.Arrays.asList;
 import static javafx.application.Platform.exit;
+import static javafx.application.Platform.isFxApplicationThread;
 import static javafx.application.Platform.runLater;
+import static javafx.scene.control.Alert.AlertType.ERROR;
+import static javafx.scene.control.Alert.AlertType.INFORMATION;
 import static javafx.stage.StageStyle.UTILITY;
 import static org.apiguardian.api.API.Status.INTERNAL;
 import static org.apiguardian.api.API.Status.STABLE;
@@ -33,23 +34,20 @@ import static org.tquadrat.foundation.lang.CommonConstants.PROPERTY_CPUARCHITECT
 import static org.tquadrat.foundation.lang.Objects.isNull;
 import static org.tquadrat.foundation.lang.Objects.nonNull;
 import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
-import static org.tquadrat.foundation.util.StringUtils.format;
 import static org.tquadrat.shootingtimer.Discipline.DISCIPLINE_2_17;
 import static org.tquadrat.shootingtimer.Main.MSGKEY_CannotLoadUIDefinition;
-import static org.tquadrat.shootingtimer.Status.STATUS_AFTER;
-import static org.tquadrat.shootingtimer.Status.STATUS_BEFORE;
-import static org.tquadrat.shootingtimer.Status.STATUS_OFF;
-import static org.tquadrat.shootingtimer.Status.STATUS_PROLOG;
-import static org.tquadrat.shootingtimer.Status.STATUS_SHOOTING;
-import static org.tquadrat.shootingtimer.Status.STATUS_STARTING;
+import static org.tquadrat.shootingtimer.spi.Status.STATUS_OFF;
+import static org.tquadrat.shootingtimer.spi.Status.STATUS_SHOOTING;
 
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.Optional;
 import java.util.ResourceBundle;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
-import java.util.prefs.BackingStoreException;
-import java.util.prefs.PreferenceChangeEvent;
 import java.util.prefs.Preferences;
 
 import org.apiguardian.api.API;
@@ -57,14 +55,17 @@ import org.tquadrat.foundation.annotation.ClassVersion;
 import org.tquadrat.foundation.exception.ApplicationError;
 import org.tquadrat.foundation.exception.UnsupportedEnumError;
 import org.tquadrat.foundation.fx.SceneUserData;
-import org.tquadrat.foundation.lang.AutoLock;
+import org.tquadrat.shootingtimer.spi.Status;
 import javafx.beans.binding.Bindings;
+import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.value.ObservableValue;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
+import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.CheckMenuItem;
 import javafx.scene.control.ChoiceBox;
@@ -77,7 +78,6 @@ import javafx.scene.control.ToggleGroup;
 import javafx.scene.input.TouchEvent;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.Pane;
-import javafx.scene.media.AudioClip;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Circle;
 import javafx.stage.Stage;
@@ -192,6 +192,18 @@ public class MainController
         /*-----------*\
     ====** Constants **========================================================
         \*-----------*/
+    /**
+     *  The name for the preference node that stores the calibrated latency of
+     *  the light, in nanoseconds: {@value}.
+     */
+    public final static String PREF_NODE_LightLatency = "/Calibration/LightLatency";
+
+    /**
+     *  The name for the preference node that stores the calibrated latency of
+     *  the sound, in nanoseconds: {@value}.
+     */
+    public final static String PREF_NODE_SoundLatency = "/Calibration/SoundLatency";
+
     /**
      *  The name for the preference node that stores the last used discipline:
      *  {@value}.
@@ -221,12 +233,24 @@ public class MainController
      */
     public final static String PREF_NODE_ShowStatus = "/Show/Status";
 
+    /**
+     *  The name for the preference node that stores the &quot;show
+     *  hundredths&quot; flag: {@value}.
+     */
+    public final static String PREF_NODE_ShowHundredths = "/Show/Hundredths";
+
     /**
      *  The name for the preference node that stores the &quot;show time&quot;
      *  flag: {@value}.
      */
     public final static String PREF_NODE_ShowTime = "/Show/Time";
 
+    /**
+     *  The name for the preference node that stores the flag whether the time
+     *  display should be synchronised with the screen refresh: {@value}.
+     */
+    public final static String PREF_NODE_SyncTime = "/Show/SyncTime";
+
     /**
      *  The name for the preference node that stores the time after shooting
      *  and before a reset: {@value}.
@@ -276,6 +300,12 @@ public class MainController
         /*------------*\
     ====** Attributes **=======================================================
         \*------------*/
+    /**
+     *  The latency between an abort request and the first frame that shows
+     *  the red light.
+     */
+    private final LatencyHistogram m_AbortLatency = new LatencyHistogram();
+
     /**
      *  The button that aborts a running heat.
      */
@@ -300,6 +330,12 @@ public class MainController
     @FXML
     private CheckMenuItem m_CheckMenuItem_ShowHeatCount;
 
+    /**
+     *  The menu item for the display of hundredths of a second.
+     */
+    @FXML
+    private CheckMenuItem m_CheckMenuItem_ShowHundredths;
+
     /**
      *  The menu item for the status display.
      */
@@ -318,6 +354,12 @@ public class MainController
     @FXML
     private CheckMenuItem m_CheckMenuItem_Sound;
 
+    /**
+     *  The menu item for the synchronised time display.
+     */
+    @FXML
+    private CheckMenuItem m_CheckMenuItem_SyncTime;
+
     /**
      *  The choice box for the program of the selected discipline.
      */
@@ -336,6 +378,24 @@ public class MainController
     @FXML
     private Circle m_Circle_Red;
 
+    /**
+     *  The timebase that is shared with the other instances of the
+     *  application; the heats are executed on this clock.
+     */
+    private final SharedClock m_Clock;
+
+    /**
+     *  The responder for the clock synchronisation requests from the other
+     *  instances; {@code null} if this instance is not configured as the
+     *  reference.
+     */
+    private final ClockSyncResponder m_ClockSyncResponder;
+
+    /**
+     *  The renderer for the synchronised time display.
+     */
+    private CountdownRenderer m_CountdownRenderer;
+
     /**
      *  The toggle group for the selected discipline.
      */
@@ -346,7 +406,7 @@ public class MainController
      *  The end sound.
      */
     @SuppressWarnings( "OptionalUsedAsFieldOrParameterType" )
-    private Optional<AudioClip> m_EndSound;
+    private Optional<Sound> m_EndSound;
 
     /**
      *  The green light.
@@ -354,14 +414,15 @@ public class MainController
     private Light m_GreenLight;
 
     /**
-     *  The thread that executes the current heat.
+     *  The session that starts and aborts the heats.
      */
-    private Thread m_HeatThread;
+    private final HeatSession m_HeatSession;
 
     /**
-     *  The guard for the heat thread.
+     *  The flag that indicates that this instance may not start a heat
+     *  because of the replication; the status label shows the reason then.
      */
-    private final AutoLock m_HeatThreadGuard;
+    private final BooleanProperty m_IsStartBlocked = new SimpleBooleanProperty( false );
 
     /**
      *  The label that displays the heat counter.
@@ -392,16 +453,38 @@ public class MainController
      */
     private final Preferences m_Preferences;
 
+    /**
+     *  The writer for the preferences.
+     */
+    private final PreferencesWriter m_PreferencesWriter;
+
     /**
      *  The red light.
      */
     private Light m_RedLight;
 
+    /**
+     *  The remote control for the range officer tablets; {@code null} if it
+     *  is not enabled.
+     */
+    private final RemoteControl m_RemoteControl;
+
+    /**
+     *  The replication of the heats to the other instances; {@code null} if
+     *  the heats are not replicated.
+     */
+    private final HeatReplicator m_Replicator;
+
     /**
      *  The currently selected discipline.
      */
     private final ObjectProperty<Discipline> m_SelectedDiscipline = new SimpleObjectProperty<>();
 
+    /**
+     *  The dispatcher for the external signal outputs.
+     */
+    private final SignalDispatcher m_SignalDispatcher = new SignalDispatcher();
+
     /**
      *  The slider for the time after shooting and before the reset.
      */
@@ -415,20 +498,21 @@ public class MainController
     private Slider m_Slider_BeforeTime;
 
     /**
-     *  The start sound.
+     *  The feed for the spectator screens; {@code null} if it is not
+     *  enabled.
      */
-    @SuppressWarnings( "OptionalUsedAsFieldOrParameterType" )
-    private Optional<AudioClip> m_StartSound;
+    private final SpectatorFeed m_SpectatorFeed;
 
     /**
-     *  The status control property.
+     *  The start sound.
      */
-    private final ObjectProperty<Status> m_StatusControl;
+    @SuppressWarnings( "OptionalUsedAsFieldOrParameterType" )
+    private Optional<Sound> m_StartSound;
 
     /**
-     *  The guard for the status control.
+     *  The state machine for the system status.
      */
-    private final AutoLock m_StatusControlGuard;
+    private final StatusMachine m_StatusMachine = new StatusMachine();
 
     /**
      *  The text field that is used to display the remaining time.
@@ -436,6 +520,12 @@ public class MainController
     @FXML
     private TextField m_TextField_Time;
 
+    /**
+     *  The lateness of the status transitions, for all heats since the
+     *  program start.
+     */
+    private final TransitionLatencies m_TransitionLatencies = new TransitionLatencies();
+
     /**
      *  The injected resource bundle.
      *
@@ -458,17 +548,36 @@ public class MainController
     {
         //---* Load the preferences *------------------------------------------
         m_Preferences = Preferences.userNodeForPackage( getClass() );
-        m_Preferences.addPreferenceChangeListener( this::preferenceChanged );
+        m_PreferencesWriter = new PreferencesWriter( m_Preferences, TimerScheduler.getScheduler() );
+
+        //---* Listen to the status transitions *------------------------------
+        m_StatusMachine.addListener( this::statusChanged );
+        m_StatusMachine.addListener( m_SignalDispatcher );
+
+        //---* Set up the shared timebase *------------------------------------
+        m_Clock = createSharedClock();
+        m_ClockSyncResponder = createClockSyncResponder( m_Clock );
+
+        //---* Set up the replication of the heats *---------------------------
+        m_Replicator = createReplicator( m_Clock );
 
-        //---* Create the lock *-----------------------------------------------
-        var lock = new ReentrantLock( false );
-        m_HeatThreadGuard = AutoLock.of( lock );
-        lock = new ReentrantLock( false );
-        m_StatusControlGuard = AutoLock.of( lock );
+        //---* Set up the execution of the heats *-----------------------------
+        m_HeatSession = new HeatSession( m_StatusMachine, m_Clock, m_Replicator, m_TransitionLatencies, new HeatSession.HeatSetup()
+        {
+            @Override
+            public final void addCues( final HeatEngine engine ) { addSignalCues( engine ); }
+
+            @Override
+            public final HeatEngine.PhaseListener createPhaseListener() { return createDisplayListener(); }
+        } );
+
+        //---* Stream the status to the spectators *---------------------------
+        m_SpectatorFeed = createSpectatorFeed();
+        if( nonNull( m_SpectatorFeed ) ) m_StatusMachine.addListener( m_SpectatorFeed );
 
-        //---* Create the status control *-------------------------------------
-        m_StatusControl = new SimpleObjectProperty<>();
-        m_StatusControl.addListener( this::statusTransition );
+        //---* Accept the commands from the range officer tablets *------------
+        m_RemoteControl = createRemoteControl();
+        if( nonNull( m_RemoteControl ) ) m_StatusMachine.addListener( m_RemoteControl );
     }   //  MainController()
 
 
@@ -476,116 +585,266 @@ public class MainController
     ====** Methods **==========================================================
         \*---------*/
     /**
-     *  Executes the current heat.
+     *  Adds the cues for the light and the sound to the engine for a new
+     *  heat: both are triggered ahead of each phase, each by its own
+     *  calibrated latency, so that both reach the shooter when the phase
+     *  starts. The settings are read here, on the JavaFX Application Thread,
+     *  never by the engine.<br>
+     *  <br>The latency of the sound was calibrated with the
+     *  {@link SignalEngine};
+     *  if a sound is played as a JavaFX
+     *  {@link javafx.scene.media.AudioClip}
+     *  instead, that latency does not apply, and the sound is triggered with
+     *  the start of the phase.
+     *
+     *  @param  engine  The engine.
      */
-    @SuppressWarnings( "BusyWait" )
-    private final void executeHeat()
+    private final void addSignalCues( final HeatEngine engine )
     {
-        var proceed = !interrupted();
+        final var soundFlag = m_CheckMenuItem_Sound.isSelected();
+        final var startSound = m_StartSound;
+        final var endSound = m_EndSound;
 
-        //---* Retrieve the current heat settings *----------------------------
-        final var heat = m_ChoiceBox_Program.getValue();
+        engine.addCue( m_Preferences.getLong( PREF_NODE_LightLatency, 0L ), (oldStatus,phase) -> runLater( () -> switchLights( phase.getStatus() ) ) );
+        if( soundFlag )
+        {
+            final var soundLatency = isPlayedBySignalEngine( startSound ) && isPlayedBySignalEngine( endSound ) ? m_Preferences.getLong( PREF_NODE_SoundLatency, 0L ) : 0L;
+            engine.addCue( soundLatency, (oldStatus,phase) -> playSignal( oldStatus, phase.getStatus(), startSound, endSound ) );
+        }
+    }   //  addSignalCues()
 
-        //---* Execute ... *---------------------------------------------------
-        setStatusStarting();
-        proceedToNextStatus();
-        final var beforeTime = (long) (m_Slider_BeforeTime.getValue() * 1000.0);
-        if( beforeTime > 0.0 )
+    /**
+     *  Creates the responder for the clock synchronisation requests if the
+     *  system property
+     *  {@value ClockSyncResponder#PROPERTY_PORT}
+     *  is set.
+     *
+     *  @param  clock   The shared clock.
+     *  @return The responder; {@code null} if the property is not set, or
+     *      if the socket could not be opened.
+     */
+    private static final ClockSyncResponder createClockSyncResponder( final SharedClock clock )
+    {
+        ClockSyncResponder retValue = null;
+        final var port = Integer.getInteger( ClockSyncResponder.PROPERTY_PORT );
+        if( nonNull( port ) )
         {
             try
             {
-                sleep( beforeTime );
+                retValue = new ClockSyncResponder( clock, new InetSocketAddress( port.intValue() ) );
             }
-            catch( @SuppressWarnings( "unused" ) final InterruptedException e )
+            catch( final IOException e )
             {
-                proceed = false;
+                e.printStackTrace( err );
             }
         }
-        if( !heat.isRepeated() ) proceedToNextStatus();
 
-        final var heatCount = new AtomicInteger();
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  createClockSyncResponder()
 
-        RepeatLoop: for( var r = 0; (r < heat.getRepetitions()) && proceed; ++r )
-        {
-            if( heat.isRepeated() ) setStatusProlog();
+    /**
+     *  Creates the listener for the phases of a new heat; the settings for
+     *  the time display are read here, on the JavaFX Application Thread,
+     *  never by the engine.
+     *
+     *  @return The listener.
+     */
+    private final HeatEngine.PhaseListener createDisplayListener()
+    {
+        final var syncTime = m_CheckMenuItem_SyncTime.isSelected();
+        final var showHundredths = m_CheckMenuItem_ShowHundredths.isSelected();
+
+        /*
+         * The deadlines from the engine refer to the timebase that is shared
+         * with the other instances, while the time display works with the
+         * local time.
+         */
+        final HeatEngine.PhaseListener retValue = (phase,deadline,scope) -> phaseStarted( phase, m_Clock.toLocalTime( deadline ), scope, syncTime, showHundredths );
 
-            //---* Update the heat count *-------------------------------------
-            heatCount.set( r + 1 );
-            runLater( () -> m_Label_HeatCount.setText( Integer.toString( heatCount.get() ) ) );
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  createDisplayListener()
 
-            //---* Start the prolog *------------------------------------------
-            var endTime = currentTimeMillis() + heat.getPrologTime();
-            var scheduledService = new TimeUpdateService( endTime, m_TextField_Time );
-            scheduledService.start();
-            PrologLoop: while( currentTimeMillis() < endTime )
+    /**
+     *  Creates the remote control if the system property
+     *  {@value RemoteControl#PROPERTY_PORT}
+     *  is set. It listens on the address from
+     *  {@value RemoteControl#PROPERTY_ADDRESS},
+     *  or on the loopback address if that is not set, and it requires the
+     *  token from
+     *  {@value RemoteControl#PROPERTY_TOKEN}.
+     *  The commands are executed on the JavaFX Application Thread.
+     *
+     *  @return The remote control; {@code null} if the port is not set, or
+     *      if the HTTP server could not be started.
+     */
+    private final RemoteControl createRemoteControl()
+    {
+        RemoteControl retValue = null;
+        final var port = Integer.getInteger( RemoteControl.PROPERTY_PORT );
+        if( nonNull( port ) )
+        {
+            try
             {
-                if( interrupted() )
+                final var host = getProperty( RemoteControl.PROPERTY_ADDRESS );
+                final var address = isNull( host )
+                    ? new InetSocketAddress( InetAddress.getLoopbackAddress(), port.intValue() )
+                    : new InetSocketAddress( host, port.intValue() );
+                final var token = getProperty( RemoteControl.PROPERTY_TOKEN );
+                if( isNull( token ) ) throw new IllegalArgumentException( "The property '%s' is required for the remote control".formatted( RemoteControl.PROPERTY_TOKEN ) );
+                retValue = new RemoteControl( address, token, new RemoteControl.CommandHandler()
                 {
-                    proceed = false;
-                    break PrologLoop;
-                }
-                try
-                {
-                    sleep( endTime - currentTimeMillis() );
-                }
-                catch( @SuppressWarnings( "unused" ) final InterruptedException e )
-                {
-                    proceed = false;
-                    break PrologLoop;
-                }
-            }   //  PrologLoop:
+                    @Override
+                    public final CompletableFuture<Boolean> abortHeat() { return runOnApplicationThread( () -> onRemoteAbort() ); }
+
+                    @Override
+                    public final CompletableFuture<Boolean> selectDiscipline( final Discipline discipline ) { return runOnApplicationThread( () -> onRemoteSelectDiscipline( discipline ) ); }
 
-            scheduledService.stop();
-            proceedToNextStatus();
+                    @Override
+                    public final CompletableFuture<Boolean> selectHeat( final int index ) { return runOnApplicationThread( () -> onRemoteSelectHeat( index ) ); }
 
-            if( proceed )
+                    @Override
+                    public final CompletableFuture<Boolean> startHeat() { return runOnApplicationThread( () -> onRemoteStart() ); }
+                } );
+            }
+            catch( final IOException | IllegalArgumentException e )
             {
-                //---* Start the shooting *------------------------------------
-                endTime = currentTimeMillis() + heat.getShootingTime();
-                scheduledService = new TimeUpdateService( endTime, m_TextField_Time );
-                scheduledService.start();
-                ShootingLoop: while( currentTimeMillis() < endTime )
-                {
-                    if( interrupted() )
-                    {
-                        proceed = false;
-                        break ShootingLoop;
-                    }
-                    try
-                    {
-                        sleep( endTime - currentTimeMillis() );
-                    }
-                    catch( @SuppressWarnings( "unused" ) final InterruptedException e )
-                    {
-                        proceed = false;
-                        break ShootingLoop;
-                    }
-                }   //  ShootingLoop:
-                scheduledService.stop();
+                e.printStackTrace( err );
             }
+        }
 
-            proceed &= !interrupted();
-        }   //  RepeatLoop:
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  createRemoteControl()
 
-        if( proceed )
+    /**
+     *  Creates the replication of the heats if the system property
+     *  {@value HeatReplicator#PROPERTY_PEERS}
+     *  is set.
+     *
+     *  @param  clock   The shared clock.
+     *  @return The replication; {@code null} if the property is not set, or
+     *      if the replication could not be started.
+     */
+    private final HeatReplicator createReplicator( final SharedClock clock )
+    {
+        HeatReplicator retValue = null;
+        final var peers = getProperty( HeatReplicator.PROPERTY_PEERS );
+        if( nonNull( peers ) )
         {
-            //---* After shooting *--------------------------------------------
-            proceedToNextStatus();
-            final var epilogTime = (long) (m_Slider_AfterTime.getValue() * 1_000.0);
-            if( epilogTime > 0.0 )
+            try
             {
-                try
+                final var peerAddresses = new ArrayList<InetSocketAddress>();
+                for( final var peer : peers.split( "," ) )
                 {
-                    sleep( epilogTime );
+                    final var separator = peer.lastIndexOf( ':' );
+                    peerAddresses.add( new InetSocketAddress( peer.substring( 0, separator ).trim(), Integer.parseInt( peer.substring( separator + 1 ).trim() ) ) );
                 }
-                catch( @SuppressWarnings( "unused" ) final InterruptedException e ) { /* Deliberately ignored */ }
+                retValue = new HeatReplicator( Integer.getInteger( HeatReplicator.PROPERTY_NODE_ID, 0 ).intValue(),
+                    clock,
+                    new InetSocketAddress( Integer.getInteger( HeatReplicator.PROPERTY_PORT, 0 ).intValue() ),
+                    peerAddresses,
+                    TimerScheduler.getScheduler(),
+                    new HeatReplicator.ReplicationListener()
+                    {
+                        @Override
+                        public final void heatAborted( final HeatTimeline timeline ) { runLater( () -> onReplicatedHeatAborted( timeline ) ); }
+
+                        @Override
+                        public final void heatStarted( final HeatTimeline timeline ) { runLater( () -> onReplicatedHeatStarted( timeline ) ); }
+
+                        @Override
+                        public final void leaderChanged( final int leaderId, final boolean isLeader ) { runLater( () -> onReplicationChanged() ); }
+
+                        @Override
+                        public final void synchronisationChanged( final boolean isSynchronised ) { runLater( () -> onReplicationChanged() ); }
+                    } );
+            }
+            catch( final IOException | RuntimeException e )
+            {
+                e.printStackTrace( err );
             }
         }
 
-        //---* Cleanup *-------------------------------------------------------
-        m_HeatThread = null;
-        reset();
-    }   //  executeHeat()
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  createReplicator()
+
+    /**
+     *  Creates the shared clock; it follows the instance that is given by
+     *  the system property
+     *  {@value SharedClock#PROPERTY_REFERENCE},
+     *  or it is the reference itself if that property is not set.
+     *
+     *  @return The shared clock.
+     */
+    private static final SharedClock createSharedClock()
+    {
+        SharedClock retValue = null;
+        final var reference = getProperty( SharedClock.PROPERTY_REFERENCE );
+        if( nonNull( reference ) )
+        {
+            try
+            {
+                final var separator = reference.lastIndexOf( ':' );
+                final var address = new InetSocketAddress( reference.substring( 0, separator ), Integer.parseInt( reference.substring( separator + 1 ) ) );
+                retValue = new SharedClock( TimerScheduler.getClock(), address, SharedClock.POLL_INTERVAL );
+            }
+            catch( final IOException | RuntimeException e )
+            {
+                e.printStackTrace( err );
+            }
+        }
+        if( isNull( retValue ) ) retValue = new SharedClock( TimerScheduler.getClock() );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  createSharedClock()
+
+    /**
+     *  Creates the feed for the spectator screens if the system property
+     *  {@value SpectatorFeed#PROPERTY_PORT}
+     *  is set.
+     *
+     *  @return The feed; {@code null} if the property is not set, or if the
+     *      HTTP server could not be started.
+     */
+    private static final SpectatorFeed createSpectatorFeed()
+    {
+        SpectatorFeed retValue = null;
+        final var port = Integer.getInteger( SpectatorFeed.PROPERTY_PORT );
+        if( nonNull( port ) )
+        {
+            try
+            {
+                retValue = new SpectatorFeed( new InetSocketAddress( port.intValue() ) );
+            }
+            catch( final IOException e )
+            {
+                e.printStackTrace( err );
+            }
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  createSpectatorFeed()
+
+    /**
+     *  Returns the state of the replication of this instance.
+     *
+     *  @return The description of the state.
+     */
+    private final String getReplicationState()
+    {
+        final var leaderId = m_Replicator.getLeaderId();
+        final var retValue = "%s, clock %s".formatted(
+            leaderId == HeatReplicator.NO_LEADER ? "leader unknown" : m_Replicator.isLeader() ? "leader" : "follower of node %d".formatted( leaderId ),
+            m_Clock.isSynchronised() ? "synchronised" : "not synchronised" );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getReplicationState()
 
     /**
      *  Initialises the controller.
@@ -597,9 +856,11 @@ public class MainController
         assert nonNull( m_Button_Start ) : "fx:id=\"m_Button_Start\" was not injected: check your FXML file 'Main.fxml'.";
         assert nonNull( m_ButtonPane ) : "fx:id=\"m_ButtonPane\" was not injected: check your FXML file 'Main.fxml'.";
         assert nonNull( m_CheckMenuItem_ShowHeatCount ) : "fx:id=\"m_CheckMenuItem_ShowHeatCount\" was not injected: check your FXML file 'Main.fxml'.";
+        assert nonNull( m_CheckMenuItem_ShowHundredths ) : "fx:id=\"m_CheckMenuItem_ShowHundredths\" was not injected: check your FXML file 'Main.fxml'.";
         assert nonNull( m_CheckMenuItem_ShowStatus ) : "fx:id=\"m_CheckMenuItem_ShowStatus\" was not injected: check your FXML file 'Main.fxml'.";
         assert nonNull( m_CheckMenuItem_ShowTime ) : "fx:id=\"m_CheckMenuItem_ShowTime\" was not injected: check your FXML file 'Main.fxml'.";
         assert nonNull( m_CheckMenuItem_Sound ) : "fx:id=\"m_CheckMenuItem_Sound\" was not injected: check your FXML file 'Main.fxml'.";
+        assert nonNull( m_CheckMenuItem_SyncTime ) : "fx:id=\"m_CheckMenuItem_SyncTime\" was not injected: check your FXML file 'Main.fxml'.";
         assert nonNull( m_ChoiceBox_Program ) : "fx:id=\"m_ChoiceBox_Program\" was not injected: check your FXML file 'Main.fxml'.";
         assert nonNull( m_Circle_Green ) : "fx:id=\"m_Circle_Green\" was not injected: check your FXML file 'Main.fxml'.";
         assert nonNull( m_Circle_Red ) : "fx:id=\"m_Circle_Red\" was not injected: check your FXML file 'Main.fxml'.";
@@ -614,64 +875,27 @@ public class MainController
         assert nonNull( resources ) : "The resource bundle was not injected";
 
         //---* Load the sounds *-----------------------------------------------
-        if( "arm".equalsIgnoreCase( getProperty( PROPERTY_CPUARCHITECTURE ) ) )
-        {
-            /*
-             * Currently (as for 2017-08-19) JavaFX has issues to play media on
-             * the Raspberry PI 3, due to a problem with libjfxmedia.so.
-             * Therefore, we do now allow audio/sound on a Raspberry PI.
-             */
-            m_CheckMenuItem_Sound.setDisable( true );
-            m_CheckMenuItem_Sound.setSelected( false );
+        m_StartSound = Optional.empty();
+        m_EndSound = Optional.empty();
+        m_CheckMenuItem_Sound.setDisable( true );
+        m_CheckMenuItem_Sound.setSelected( false );
 
-            m_StartSound = Optional.empty();
-            m_EndSound = Optional.empty();
-        }
-        else
-        {
-            //---* Sets the sound flag *---------------------------------------
-            m_CheckMenuItem_Sound.setDisable( false );
-            final var soundFlag = m_Preferences.getBoolean( PREF_NODE_Sound, false );
-            m_CheckMenuItem_Sound.setSelected( soundFlag );
-
-            //---* Load the audio clips *--------------------------------------
-            var audioClipURL = getClass().getResource( SOUND_ENDSHOOTING );
-            if( nonNull( audioClipURL ) )
+        /*
+         * The sounds are decoded in the background; the sound flag menu
+         * item will be enabled when both are available.
+         */
+        final var soundFlag = m_Preferences.getBoolean( PREF_NODE_Sound, false );
+        SoundLibrary.load( SOUND_ENDSHOOTING )
+            .thenCombine( SoundLibrary.load( SOUND_STARTSHOOTING ), (endSound,startSound) ->
             {
-                var audioClip = new AudioClip( audioClipURL.toExternalForm() );
-                audioClip.play();
-                audioClip.stop();
-                m_EndSound = Optional.of( audioClip );
-
-                /*
-                 * We try to load the start sound only when we have an end
-                 * sound.
-                 */
-                audioClipURL = getClass().getResource( SOUND_STARTSHOOTING );
-                if( nonNull( audioClipURL ) )
-                {
-                    audioClip = new AudioClip( audioClipURL.toExternalForm() );
-                    audioClip.play();
-                    audioClip.stop();
-                    m_StartSound = Optional.of( audioClip );
-
-                    //---* Sets the listener for the sound flag menu item *----
-                    m_CheckMenuItem_Sound.selectedProperty().addListener( (p,o,n) -> m_Preferences.putBoolean( PREF_NODE_Sound, n ) );
-                }
-                else
-                {
-                    m_StartSound = Optional.empty();
-                    m_CheckMenuItem_Sound.setDisable( true );
-                    m_CheckMenuItem_Sound.setSelected( false );
-                }
-            }
-            else
+                runLater( () -> soundsLoaded( startSound, endSound, soundFlag ) );
+                return null;
+            } )
+            .exceptionally( t ->
             {
-                m_EndSound = Optional.empty();
-                m_CheckMenuItem_Sound.setDisable( true );
-                m_CheckMenuItem_Sound.setSelected( false );
-            }
-        }
+                t.printStackTrace( err );
+                return null;
+            } );
 
         /*
          * Although this can be set also in the *.fxml file, it should be done
@@ -703,6 +927,25 @@ public class MainController
         m_CheckMenuItem_ShowTime.selectedProperty()
             .addListener( (p,o,n) -> m_Preferences.putBoolean( PREF_NODE_ShowTime, n ) );
 
+        //---* Sets the flags for the synchronised time display *--------------
+        m_CountdownRenderer = new CountdownRenderer( m_TextField_Time );
+        final var syncTimeFlag = m_Preferences.getBoolean( PREF_NODE_SyncTime, true );
+        m_CheckMenuItem_SyncTime.setSelected( syncTimeFlag );
+        m_CheckMenuItem_SyncTime.selectedProperty()
+            .addListener( (p,o,n) -> m_Preferences.putBoolean( PREF_NODE_SyncTime, n ) );
+
+        /*
+         * Hundredths of a second are displayed only when the time display is
+         * synchronised with the screen refresh; the polling would not be fast
+         * enough for them.
+         */
+        final var showHundredthsFlag = m_Preferences.getBoolean( PREF_NODE_ShowHundredths, false );
+        m_CheckMenuItem_ShowHundredths.setSelected( showHundredthsFlag );
+        m_CheckMenuItem_ShowHundredths.disableProperty()
+            .bind( m_CheckMenuItem_SyncTime.selectedProperty().not() );
+        m_CheckMenuItem_ShowHundredths.selectedProperty()
+            .addListener( (p,o,n) -> m_Preferences.putBoolean( PREF_NODE_ShowHundredths, n ) );
+
         //---* Initialises the additional times *------------------------------
         final var prologTime = m_Preferences.getDouble( PREF_NODE_Before, 0.0 );
         m_Slider_BeforeTime.setValue( prologTime );
@@ -786,7 +1029,7 @@ public class MainController
          */
 
         m_Label_Status.visibleProperty()
-            .bind( m_CheckMenuItem_ShowStatus.selectedProperty() );
+            .bind( m_CheckMenuItem_ShowStatus.selectedProperty().or( m_IsStartBlocked ) );
 
         //---* Sets the show heat count flag *---------------------------------
         final var showHeatCountFlag = m_Preferences.getBoolean( PREF_NODE_ShowHeatCount, true );
@@ -810,6 +1053,22 @@ public class MainController
         reset();
     }   //  initialize()
 
+    /**
+     *  Checks whether the given sound is played by the
+     *  {@link SignalEngine}.
+     *
+     *  @param  sound   The sound; may be empty.
+     *  @return {@code true} if the sound is played by the signal engine, or
+     *      if there is no sound at all, {@code false} otherwise.
+     */
+    private static final boolean isPlayedBySignalEngine( final Optional<Sound> sound )
+    {
+        final var retValue = sound.map( SignalEngine.Signal.class::isInstance ).orElse( Boolean.TRUE ).booleanValue();
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  isPlayedBySignalEngine()
+
     /**
      *  Sets the lights to the off state.
      */
@@ -820,36 +1079,44 @@ public class MainController
     }   //  lightsOff()
 
     /**
-     *  The button handler for the
+     *  Records the latency between an abort request and the first frame that
+     *  shows the red light.
+     *
+     *  @param  abortTime   The time of the abort request, as returned by
+     *      {@link System#nanoTime()}.
+     */
+    private final void measureAbortLatency( final long abortTime )
+    {
+        final var scene = m_Circle_Red.getScene();
+        if( nonNull( scene ) ) FrameProbe.onNextFrame( scene, frameTime -> m_AbortLatency.record( frameTime - abortTime ) );
+    }   //  measureAbortLatency()
+
+    /**
+     *  <p>{@summary The button handler for the
      *  {@link #m_Button_Abort ABORT}
-     *  button.
+     *  button.}</p>
+     *  <p>The heat engine is told to stop, but this method does not wait for
+     *  it; the red light is switched on immediately, so that it will be
+     *  shown with the next frame. The engine confirms the termination
+     *  asynchronously.</p>
      *
      *  @param  ignoredEvent    The action event.
      */
     @FXML
     private final void onAbort( final ActionEvent ignoredEvent )
     {
+        final var abortTime = nanoTime();
+
         //---* Disable the abort button *--------------------------------------
         m_Button_Abort.setDisable( true );
 
-        try( var ignored = m_HeatThreadGuard.lock() )
-        {
-            //---* Stop the heat thread *---------------------------------------
-            if( nonNull( m_HeatThread ) && m_HeatThread.isAlive() )
-            {
-                var t = m_HeatThread;
-                m_HeatThread = null;
-                t.interrupt();
-                try
-                {
-                    t.join( 1000 );
-                }
-                catch( @SuppressWarnings( "unused" ) final InterruptedException e ) { /* Deliberately ignored */ }
-            }
-        }
+        //---* Stop the heat, here and on the other instances *----------------
+        m_HeatSession.abort();
 
-        //---* Reset the system *----------------------------------------------
-        reset();
+        //---* Cease fire: switch on the red light *---------------------------
+        m_GreenLight.off();
+        m_RedLight.on();
+        measureAbortLatency( abortTime );
     }   //  onAbort()
 
     /**
@@ -898,6 +1165,28 @@ public class MainController
     @FXML
     private final void onExit( final ActionEvent ignoredEvent )
     {
+        //---* Write the pending changes to the preferences *------------------
+        m_PreferencesWriter.close();
+
+        //---* Release the audio output *--------------------------------------
+        SignalEngine.getInstance().ifPresent( SignalEngine::close );
+
+        //---* Release the external signal outputs *---------------------------
+        m_SignalDispatcher.close();
+
+        //---* Stop the clock synchronisation *--------------------------------
+        if( nonNull( m_ClockSyncResponder ) ) m_ClockSyncResponder.close();
+        m_Clock.close();
+
+        //---* Stop the replication *------------------------------------------
+        if( nonNull( m_Replicator ) ) m_Replicator.close();
+
+        //---* Disconnect the spectators *-------------------------------------
+        if( nonNull( m_SpectatorFeed ) ) m_SpectatorFeed.close();
+
+        //---* Stop the remote control *---------------------------------------
+        if( nonNull( m_RemoteControl ) ) m_RemoteControl.close();
+
         exit();
     }   //  onExit()
 
@@ -957,6 +1246,231 @@ public class MainController
         }
     }   //  onMenuAbout()
 
+    /**
+     *  Responds to the menu item {@code Help|Calibrate Signals}: measures the
+     *  latencies of the light and of the sound, stores them as the lead times
+     *  for the cues, and shows the results. The calibration is possible only
+     *  while no heat is running; during the calibration, no heat can be
+     *  started or followed.
+     *
+     *  @param  event   The event that triggered this handler.
+     */
+    @FXML
+    private final void onMenuCalibration( final ActionEvent event )
+    {
+        event.consume();
+
+        final var scene = m_Circle_Green.getScene();
+        if( nonNull( scene ) && (m_StatusMachine.getStatus() == STATUS_OFF) && !m_HeatSession.isRunning() && !m_HeatSession.isBlocked() )
+        {
+            final var ownerWindow = ((MenuItem) event.getSource()).getParentPopup().getOwnerWindow();
+            m_HeatSession.setBlocked( true );
+            updateStartButton();
+            try
+            {
+                new SignalCalibration( scene, on -> { if( on.booleanValue() ) m_GreenLight.on(); else m_GreenLight.off(); } )
+                    .start( TimerScheduler.getScheduler() )
+                    .whenComplete( (calibration,t) -> runLater( () ->
+                    {
+                        //---* Release the session in any case *---------------
+                        m_HeatSession.setBlocked( false );
+                        updateStartButton();
+
+                        final Alert alert;
+                        if( isNull( t ) )
+                        {
+                            m_Preferences.putLong( PREF_NODE_LightLatency, calibration.getLightLatency() );
+                            m_Preferences.putLong( PREF_NODE_SoundLatency, calibration.getSoundLatency() );
+
+                            alert = new Alert( INFORMATION );
+                            alert.setContentText( """
+                                Light: %s
+                                Sound: %s
+                                Lead times: light %.1f ms, sound %.1f ms"""
+                                .formatted( calibration.getLightLatencies().summary(),
+                                    calibration.getSoundLatencies().getCount() > 0 ? calibration.getSoundLatencies().summary() : "n/a",
+                                    calibration.getLightLatency() / 1_000_000.0,
+                                    calibration.getSoundLatency() / 1_000_000.0 ) );
+                        }
+                        else
+                        {
+                            t.printStackTrace( err );
+
+                            //---* The previous lead times remain valid *------
+                            alert = new Alert( ERROR );
+                            alert.setContentText( "The calibration failed: %s".formatted( t ) );
+                        }
+                        alert.setTitle( resources.getString( "TITLE_CALIBRATION" ) );
+                        alert.setHeaderText( null );
+                        alert.initOwner( ownerWindow );
+                        alert.show();
+                    } ) );
+            }
+            catch( final RuntimeException e )
+            {
+                m_HeatSession.setBlocked( false );
+                updateStartButton();
+                throw e;
+            }
+        }
+    }   //  onMenuCalibration()
+
+    /**
+     *  Responds to the menu item {@code Help|Signal Timing} and shows the
+     *  lateness of the status transitions for all heats since the program
+     *  start.
+     *
+     *  @param  event   The event that triggered this handler.
+     */
+    @FXML
+    private final void onMenuSignalTiming( final ActionEvent event )
+    {
+        event.consume();
+
+        final var alert = new Alert( INFORMATION );
+        alert.setTitle( resources.getString( "TITLE_SIGNALTIMING" ) );
+        alert.setHeaderText( null );
+        alert.setContentText( """
+            %s
+            Abort → red light: %s
+            Signal → first sample: %s
+            %s
+            Clock: %s
+            Replication: %s
+            Spectators: %s
+            Remote control: %s
+            Preferences: %d changes, %d flushes, %d flushes avoided"""
+            .formatted( m_TransitionLatencies.report(),
+                m_AbortLatency.summary(),
+                SignalEngine.getInstance().map( engine -> engine.getLatencies().summary() ).orElse( "n/a" ),
+                m_SignalDispatcher.report(),
+                m_Clock.report(),
+                isNull( m_Replicator ) ? "Off" : "Node %d, %s".formatted( m_Replicator.getNodeId(), getReplicationState() ),
+                isNull( m_SpectatorFeed ) ? "Off" : m_SpectatorFeed.report(),
+                isNull( m_RemoteControl ) ? "Off" : m_RemoteControl.report(),
+                m_PreferencesWriter.getChangeCount(),
+                m_PreferencesWriter.getFlushCount(),
+                m_PreferencesWriter.getFlushesAvoided() ) );
+        alert.initOwner( ((MenuItem) event.getSource()).getParentPopup().getOwnerWindow() );
+        alert.show();
+    }   //  onMenuSignalTiming()
+
+    /**
+     *  Executes the command {@code abort} from the
+     *  {@link RemoteControl}.
+     *
+     *  @return {@code true} if a heat was aborted, {@code false} if there
+     *      was none.
+     */
+    private final boolean onRemoteAbort()
+    {
+        final var retValue = m_HeatSession.isRunning();
+        if( retValue ) onAbort( null );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  onRemoteAbort()
+
+    /**
+     *  Executes the command {@code discipline} from the
+     *  {@link RemoteControl}.
+     *
+     *  @param  discipline  The discipline.
+     *  @return {@code true} if the discipline was selected, {@code false} if
+     *      a heat is running.
+     */
+    private final boolean onRemoteSelectDiscipline( final Discipline discipline )
+    {
+        var retValue = false;
+        if( !m_HeatSession.isRunning() )
+        {
+            m_DisciplinesToggleGroup.getToggles()
+                .stream()
+                .filter( toggle -> toggle.getUserData() == discipline )
+                .findFirst()
+                .ifPresent( m_DisciplinesToggleGroup::selectToggle );
+            retValue = m_SelectedDiscipline.getValue() == discipline;
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  onRemoteSelectDiscipline()
+
+    /**
+     *  Executes the command {@code heat} from the
+     *  {@link RemoteControl}.
+     *
+     *  @param  index   The index of the heat in the program of the current
+     *      discipline.
+     *  @return {@code true} if the heat was selected, {@code false} if there
+     *      is no such heat, or if a heat is running.
+     */
+    private final boolean onRemoteSelectHeat( final int index )
+    {
+        var retValue = false;
+        final var program = m_SelectedDiscipline.getValue().getProgram();
+        if( !m_HeatSession.isRunning() && (index >= 0) && (index < program.length) )
+        {
+            m_ChoiceBox_Program.setValue( program [index] );
+            retValue = true;
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  onRemoteSelectHeat()
+
+    /**
+     *  Executes the command {@code start} from the
+     *  {@link RemoteControl};
+     *  it has the same effect as a touch on the screen when no heat is
+     *  running.
+     *
+     *  @return {@code true} if the heat was started, {@code false} if a heat
+     *      is running already, or if this instance may not start a heat.
+     */
+    private final boolean onRemoteStart()
+    {
+        final var retValue = startHeat();
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  onRemoteStart()
+
+    /**
+     *  Responds to the abort of a replicated heat on another instance.
+     *
+     *  @param  timeline    The timeline of the aborted heat.
+     */
+    private final void onReplicatedHeatAborted( final HeatTimeline timeline )
+    {
+        //---* Only the heat with the same anchor is aborted *-----------------
+        if( m_HeatSession.isCurrent( timeline ) ) onAbort( null );
+    }   //  onReplicatedHeatAborted()
+
+    /**
+     *  Responds to the start of a heat by the leader: the heat is executed
+     *  here, too, with the same timeline. A heat that is still running here
+     *  is replaced. While the signals are calibrated, the heat is
+     *  ignored.
+     *
+     *  @param  timeline    The timeline of the heat.
+     */
+    private final void onReplicatedHeatStarted( final HeatTimeline timeline )
+    {
+        m_HeatSession.follow( timeline );
+    }   //  onReplicatedHeatStarted()
+
+    /**
+     *  Responds to a change of the leader for the replicated heats, or to a
+     *  change of the synchronisation of the shared clock; the start button is
+     *  enabled only on the leader, and only while the clock is
+     *  synchronised.
+     */
+    private final void onReplicationChanged()
+    {
+        if( m_StatusMachine.getStatus() == STATUS_OFF ) updateStartButton();
+    }   //  onReplicationChanged()
+
     /**
      *  The handler method for the
      *  {@link #m_Button_Start START}
@@ -967,17 +1481,7 @@ public class MainController
     @FXML
     private final void onStart( final ActionEvent ignoredEvent )
     {
-        //---* Start the sequence *--------------------------------------------
-        reset();
-        proceedToNextStatus();
-
-        try( var ignored = m_HeatThreadGuard.lock() )
-        {
-            //---* Execute the heat *------------------------------------------
-            m_HeatThread = new Thread( this::executeHeat );
-            m_HeatThread.setDaemon( true );
-            m_HeatThread.start();
-        }
+        startHeat();
     }   //  onStart()
 
     /**
@@ -990,222 +1494,333 @@ public class MainController
     {
         final var buttonEvent = new ActionEvent( event.getSource(), event.getTarget() );
 
-        try( var ignored = m_HeatThreadGuard.lock() )
+        if( m_HeatSession.isRunning() )
+        {
+            onAbort( buttonEvent );
+        }
+        else
+        {
+            onStart( buttonEvent );
+        }
+    }   //  onTouch()
+
+    /**
+     *  Called by the
+     *  {@link HeatEngine}
+     *  when a new phase of the current heat was entered.
+     *
+     *  @param  phase   The phase.
+     *  @param  deadline    The end of the phase, as a value compatible to
+     *      {@link System#nanoTime()}.
+     *  @param  scope   The scope for the phase; the time display is stopped
+     *      when it is closed.
+     *  @param  syncTime    {@code true} if the time display is synchronised
+     *      with the JavaFX pulse, {@code false} if it is updated by a
+     *      {@link TimeUpdateService}.
+     *  @param  showHundredths  {@code true} if hundredths of a second should
+     *      be displayed for short phases, {@code false} if not.
+     */
+    private final void phaseStarted( final HeatSchedule.Phase phase, final long deadline, final TaskScope scope, final boolean syncTime, final boolean showHundredths )
+    {
+        //---* Update the heat count *-----------------------------------------
+        if( phase.getRepetition() > 0 )
+        {
+            final var heatCount = Integer.toString( phase.getRepetition() );
+            runLater( () -> m_Label_HeatCount.setText( heatCount ) );
+        }
+
+        //---* Inform the spectators *-----------------------------------------
+        if( nonNull( m_SpectatorFeed ) ) m_SpectatorFeed.phaseStarted( phase, deadline );
+
+        //---* Apply the new status *------------------------------------------
+        setStatus( phase.getStatus() );
+
+        //---* Start the time display *----------------------------------------
+        if( phase.isTimed() )
         {
-            if( isNull( m_HeatThread ) || !m_HeatThread.isAlive() )
+            if( syncTime )
             {
-                onStart( buttonEvent );
+                m_CountdownRenderer.startCountdown( deadline, showHundredths );
+                scope.onClose( m_CountdownRenderer::stopCountdown );
             }
             else
             {
-                onAbort( buttonEvent );
+                final var timeUpdateService = new TimeUpdateService( deadline, m_TextField_Time );
+                timeUpdateService.start( TimerScheduler.getClock() );
+                scope.onClose( timeUpdateService::stop );
             }
         }
-    }   //  onTouch()
+    }   //  phaseStarted()
 
     /**
-     *  The change listener for the preferences.
+     *  Plays the signal for the transition to the given status; this is the
+     *  start sound when shooting starts, and the end sound when it ends.
      *
-     *  @param  event   The change event.
+     *  @param  oldStatus   The previous status.
+     *  @param  newStatus   The new status.
+     *  @param  startSound  The start sound.
+     *  @param  endSound    The end sound.
      */
-    private final void preferenceChanged( final PreferenceChangeEvent event )
+    @SuppressWarnings( "OptionalUsedAsFieldOrParameterType" )
+    private static final void playSignal( final Status oldStatus, final Status newStatus, final Optional<Sound> startSound, final Optional<Sound> endSound )
     {
-        final var preferences = event.getNode();
-        try
-        {
-            preferences.flush();
-        }
-        catch( final BackingStoreException e )
+        switch( newStatus )
         {
-            //---* We will not terminate the program … *-----------------------
-            e.printStackTrace( err );
+            case STATUS_SHOOTING -> playSound( startSound, SOUND_STARTSHOOTING );
+            case STATUS_AFTER -> playSound( endSound, SOUND_ENDSHOOTING );
+            case STATUS_PROLOG -> { if( oldStatus == STATUS_SHOOTING ) playSound( endSound, SOUND_ENDSHOOTING ); }
+            default -> { /* No signal */ }
         }
-    }   //  preferenceChanged()
+    }   //  playSignal()
 
     /**
-     *  Proceeds to the next status.
+     *  Plays the given sound, if it is available.
+     *
+     *  @param  sound   The sound.
+     *  @param  name    The name of the sound.
      */
-    @SuppressWarnings( "UnnecessaryDefault" )
-    private final void proceedToNextStatus()
+    @SuppressWarnings( "OptionalUsedAsFieldOrParameterType" )
+    private static final void playSound( final Optional<Sound> sound, final String name )
     {
-        /*
-         * We do not rely on the sequence the enum values of Status are defined
-         * in; instead, we do it the verbose way.
-         */
-        try( var ignored = m_StatusControlGuard.lock() )
+        sound.ifPresent( s ->
         {
-            var currentStatus = m_StatusControl.get();
-            var newStatus = switch( currentStatus )
-            {
-                case null, STATUS_OFF -> STATUS_STARTING;
-                case STATUS_STARTING -> STATUS_BEFORE;
-                case STATUS_BEFORE -> STATUS_PROLOG;
-                case STATUS_PROLOG -> STATUS_SHOOTING;
-                case STATUS_SHOOTING -> STATUS_AFTER;
-                case STATUS_AFTER -> STATUS_OFF;
-                default -> throw new UnsupportedEnumError( currentStatus );
-            };
-
-            //---* Apply the new status *--------------------------------------
-            m_StatusControl.set( newStatus );
-        }
-    }   //  proceedToNextStatus()
+            TimerEvents.SoundPlaybackEvent.emit( name );
+            s.play();
+        } );
+    }   //  playSound()
 
     /**
      *  Resets the system status.
      */
     private final void reset()
     {
-        try( var ignored = m_StatusControlGuard.lock() )
-        {
-            m_StatusControl.set( STATUS_OFF );
-        }
+        m_StatusMachine.reset();
     }   //  reset()
 
     /**
-     *  Sets the system status to
-     *  {@link Status#STATUS_PROLOG}.
+     *  Executes the given command on the JavaFX Application Thread.
+     *
+     *  @param  command The command.
+     *  @return The result of the command.
      */
-    private final void setStatusProlog()
+    private static final CompletableFuture<Boolean> runOnApplicationThread( final BooleanSupplier command )
     {
-        try( var ignored = m_StatusControlGuard.lock() )
+        final var retValue = new CompletableFuture<Boolean>();
+        runLater( () ->
         {
-            m_StatusControl.set( STATUS_PROLOG );
-        }
-    }   //  setStatusProlog()
+            try
+            {
+                retValue.complete( Boolean.valueOf( command.getAsBoolean() ) );
+            }
+            catch( final RuntimeException e )
+            {
+                retValue.completeExceptionally( e );
+            }
+        } );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  runOnApplicationThread()
+
+    /**
+     *  Sets the system status to the given value; the status will not change
+     *  if the transition from the current status is not allowed.
+     *
+     *  @param  newStatus   The new status.
+     */
+    private final void setStatus( final Status newStatus )
+    {
+        m_StatusMachine.transitionTo( newStatus );
+    }   //  setStatus()
 
     /**
-     *  Sets the system status to
-     *  {@link Status#STATUS_STARTING}.
+     *  Applies the sounds when they were loaded in the background.
+     *
+     *  @param  startSound  The start sound.
+     *  @param  endSound    The end sound.
+     *  @param  soundFlag   The stored value for the sound flag.
      */
-    private final void setStatusStarting()
+    @SuppressWarnings( "OptionalUsedAsFieldOrParameterType" )
+    private final void soundsLoaded( final Optional<Sound> startSound, final Optional<Sound> endSound, final boolean soundFlag )
     {
-        try( var ignored = m_StatusControlGuard.lock() )
+        if( startSound.isPresent() && endSound.isPresent() )
         {
-            m_StatusControl.set( STATUS_STARTING );
+            m_StartSound = startSound;
+            m_EndSound = endSound;
+
+            //---* Sets the sound flag *---------------------------------------
+            m_CheckMenuItem_Sound.setDisable( false );
+            m_CheckMenuItem_Sound.setSelected( soundFlag );
+
+            //---* Sets the listener for the sound flag menu item *------------
+            m_CheckMenuItem_Sound.selectedProperty().addListener( (p,o,n) -> m_Preferences.putBoolean( PREF_NODE_Sound, n ) );
         }
-    }   //  setStatusStarting()
+    }   //  soundsLoaded()
+
+    /**
+     *  Starts the selected heat; if the heats are replicated, it is executed
+     *  by the other instances, too. The settings for the heat are read here,
+     *  on the JavaFX Application Thread, never by the engine.
+     *
+     *  @return {@code true} if the heat was started, {@code false} if a heat
+     *      is running already, or if this instance may not start a heat.
+     */
+    private final boolean startHeat()
+    {
+        final var retValue = m_HeatSession.start( m_SelectedDiscipline.getValue(),
+            m_ChoiceBox_Program.getValue(),
+            (long) (m_Slider_BeforeTime.getValue() * 1_000.0),
+            (long) (m_Slider_AfterTime.getValue() * 1_000.0) );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  startHeat()
 
     /**
-     *  The change listener for the status control.<br>
-     *  <br>This method controls the current display.
+     *  The listener for the status transitions; it executes the changes for
+     *  the display on the JavaFX Application Thread.
      *
-     *  @param  ignoredObservable   The observed entity; ignored.
      *  @param  oldStatus   The previous status.
      *  @param  newStatus   The new status.
      */
-    private final void statusTransition( final ObservableValue<? extends Status> ignoredObservable, final Status oldStatus, final Status newStatus )
+    private final void statusChanged( final Status oldStatus, final Status newStatus )
     {
-        try( var ignored = m_StatusControlGuard.lock() )
+        if( isFxApplicationThread() )
         {
-            if( nonNull( newStatus ) )
-            {
-                runLater( () -> m_Label_Status.setText( newStatus.toString() ) );
-
-                StatusSwitch:
-                switch( newStatus )
-                {
-                    case STATUS_AFTER -> {
-                        //---* Stop the start sound and play the end sound *---
-                        if( m_CheckMenuItem_Sound.isSelected() )
-                        {
-                            m_StartSound.ifPresent( s -> {
-                                if( s.isPlaying() )
-                                    s.stop();
-                            } );
-                            m_EndSound.ifPresent( AudioClip::play );
-                        }
-
-                        //---* Disable the abort button *----------------------
-                        m_Button_Abort.setDisable( true );
-
-                        //---* Change the lights *-----------------------------
-                        m_RedLight.toggle();
-                        m_GreenLight.toggle();
+            statusTransition( oldStatus, newStatus );
+        }
+        else
+        {
+            runLater( () -> statusTransition( oldStatus, newStatus ) );
+        }
+    }   //  statusChanged()
 
-                        //---* Hide the heat count *---------------------------
-                        m_Label_HeatCount.setVisible( false );
-                    }
-                    case STATUS_BEFORE -> {
-                        //---* Disable the start button *----------------------
-                        m_Button_Start.setDisable( true );
+    /**
+     *  Executes the changes for the display on a status transition.<br>
+     *  <br>This method controls the current display; it will be called on
+     *  the JavaFX Application Thread only. The lights and the sounds for a
+     *  heat are not switched here, but by the cues of the
+     *  {@link HeatEngine},
+     *  ahead of the transition.
+     *
+     *  @param  oldStatus   The previous status.
+     *  @param  newStatus   The new status.
+     */
+    private final void statusTransition( final Status oldStatus, final Status newStatus )
+    {
+        /*
+         * A notification from another thread that was overtaken by a reset is
+         * outdated; it must not change the display again.
+         */
+        final var outdated = (newStatus != STATUS_OFF) && (m_StatusMachine.getStatus() == STATUS_OFF);
+        if( nonNull( newStatus ) && !outdated )
+        {
+            m_Label_Status.setText( newStatus.toString() );
 
-                        //---* Enable the abort button *----------------------
-                        m_Button_Abort.setDisable( false );
+            StatusSwitch:
+            switch( newStatus )
+            {
+                case STATUS_AFTER -> {
+                    //---* Disable the abort button *--------------------------
+                    m_Button_Abort.setDisable( true );
 
-                        //---* Focus the abort button *------------------------
-                        runLater( m_Button_Abort::requestFocus );
-                    }
-                    case STATUS_OFF -> {
-                        //---* Set the default time *--------------------------
-                        m_TextField_Time.setText( format( "%3.1f", 0.0 ) );
+                    //---* Hide the heat count *-------------------------------
+                    m_Label_HeatCount.setVisible( false );
+                }
+                case STATUS_BEFORE -> {
+                    //---* Disable the start button *--------------------------
+                    m_Button_Start.setDisable( true );
 
-                        //---* Enable the start button *-----------------------
-                        m_Button_Start.setDisable( false );
+                    //---* Enable the abort button *---------------------------
+                    m_Button_Abort.setDisable( false );
 
-                        //---* Disable the abort button *----------------------
-                        m_Button_Abort.setDisable( true );
+                    //---* Focus the abort button *----------------------------
+                    runLater( m_Button_Abort::requestFocus );
+                }
+                case STATUS_OFF -> {
+                    //---* Set the default time *------------------------------
+                    m_TextField_Time.setText( CountdownFormatter.formatTenths( 0L ) );
 
-                        //---* Focus the start button *------------------------
-                        runLater( m_Button_Start::requestFocus );
+                    //---* Enable the start button, unless this is a follower *
+                    updateStartButton();
 
-                        //---* Hide the heat count *---------------------------
-                        m_Label_HeatCount.setVisible( false );
+                    //---* Disable the abort button *--------------------------
+                    m_Button_Abort.setDisable( true );
 
-                        //---* Switch off the lights *-------------------------
-                        lightsOff();
-                    }
-                    case STATUS_PROLOG -> {
-                        if( oldStatus == STATUS_SHOOTING )
-                        {
-                            if( m_CheckMenuItem_Sound.isSelected() )
-                            {
-                                /*
-                                 * Stop the start sound and play the end sound.
-                                 */
-                                m_StartSound.ifPresent( s -> {
-                                    if( s.isPlaying() )
-                                        s.stop();
-                                } );
-                                m_EndSound.ifPresent( AudioClip::play );
-                            }
-
-                            //---* Switch off the red light *------------------
-                            m_GreenLight.off();
-                        }
+                    //---* Focus the start button *----------------------------
+                    runLater( m_Button_Start::requestFocus );
 
-                        //---* Show the heat count *---------------------------
-                        if( m_ChoiceBox_Program.getValue().isRepeated() && m_CheckMenuItem_ShowHeatCount.isSelected() )
-                        {
-                            m_Label_HeatCount.setVisible( true );
-                        }
+                    //---* Hide the heat count *-------------------------------
+                    m_Label_HeatCount.setVisible( false );
 
-                        //---* Switch on the red light *-----------------------
-                        m_RedLight.on();
+                    //---* Switch off the lights *-----------------------------
+                    lightsOff();
+                }
+                case STATUS_PROLOG -> {
+                    //---* Show the heat count *-------------------------------
+                    if( m_ChoiceBox_Program.getValue().isRepeated() && m_CheckMenuItem_ShowHeatCount.isSelected() )
+                    {
+                        m_Label_HeatCount.setVisible( true );
                     }
-                    case STATUS_SHOOTING -> {
-                        //---* Play the start sound *--------------------------
-                        if( m_CheckMenuItem_Sound.isSelected() )
-                            m_StartSound.ifPresent( AudioClip::play );
+                }
+                case STATUS_SHOOTING -> {
+                    //---* The lights and the sound are switched by cues *-----
 
-                        //---* Switch on the green light *---------------------
-                        m_GreenLight.on();
+                    //---* Leave the switch *----------------------------------
+                    break StatusSwitch;
+                }
 
-                        //---* Switch off the red light *----------------------
-                        m_RedLight.off();
+                //---* Disable the start button *------------------------------
+                case STATUS_STARTING -> {
+                    //---* Disable the start button *--------------------------
+                    m_Button_Start.setDisable( true );
 
-                        //---* Leave the switch *------------------------------
-                        break StatusSwitch;
-                    }
+                    //---* Switch off the red light from an abort *------------
+                    lightsOff();
+                }
 
-                    //---* Disable the start button *--------------------------
-                    case STATUS_STARTING -> m_Button_Start.setDisable( true );
+                default -> throw new UnsupportedEnumError( newStatus );
+            }   //  StatusSwitch:
+        }
+    }   //  statusTransition()
 
-                    default -> throw new UnsupportedEnumError( newStatus );
-                }   //  StatusSwitch:
+    /**
+     *  Switches the lights for the given status. This method will be called
+     *  on the JavaFX Application Thread only.
+     *
+     *  @param  status  The status.
+     */
+    private final void switchLights( final Status status )
+    {
+        //---* A cue from an aborted heat must not switch the lights *---------
+        if( m_StatusMachine.getStatus() != STATUS_OFF )
+        {
+            switch( status )
+            {
+                case STATUS_PROLOG, STATUS_AFTER -> {
+                    m_GreenLight.off();
+                    m_RedLight.on();
+                }
+                case STATUS_SHOOTING -> {
+                    m_GreenLight.on();
+                    m_RedLight.off();
+                }
+                default -> { /* Nothing to switch */ }
             }
         }
-    }   //  statusTransition()
+    }   //  switchLights()
+
+    /**
+     *  Enables the start button if this instance may start a heat; otherwise
+     *  the status label shows the reason.
+     */
+    private final void updateStartButton()
+    {
+        final var mayStart = m_HeatSession.mayStart();
+        m_Button_Start.setDisable( !mayStart );
+        m_Label_Status.setText( mayStart ? STATUS_OFF.toString() : "%s: %s".formatted( STATUS_OFF, m_HeatSession.isBlocked() ? "calibrating" : getReplicationState() ) );
+        m_IsStartBlocked.set( !mayStart );
+    }   //  updateStartButton()
 }
 //  class MainController
 
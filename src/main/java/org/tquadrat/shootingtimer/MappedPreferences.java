@@ -0,0 +1,149 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static org.apiguardian.api.API.Status.INTERNAL;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+
+import java.util.prefs.AbstractPreferences;
+import java.util.prefs.BackingStoreException;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary An implementation of
+ *  {@link java.util.prefs.Preferences}
+ *  that keeps all nodes of a tree in a single
+ *  {@link PreferencesStore}.}</p>
+ *  <p>All reads and writes work on the in-memory copy of the store; only
+ *  {@link #flush()}
+ *  and
+ *  {@link #sync()}
+ *  access the file. Changes from other processes are not read: the Shooting
+ *  Timer is the only application that uses the file.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = INTERNAL, since = "0.3.0" )
+final class MappedPreferences extends AbstractPreferences
+{
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The store.
+     */
+    private final PreferencesStore m_Store;
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates the root node for the given store.
+     *
+     *  @param  store   The store.
+     */
+    MappedPreferences( final PreferencesStore store )
+    {
+        this( null, "", store );
+    }   //  MappedPreferences()
+
+    /**
+     *  Creates a new {@code MappedPreferences} instance.
+     *
+     *  @param  parent  The parent node; {@code null} for the root node.
+     *  @param  name    The name of the node.
+     *  @param  store   The store.
+     */
+    private MappedPreferences( final MappedPreferences parent, final String name, final PreferencesStore store )
+    {
+        super( parent, name );
+        m_Store = requireNonNullArgument( store, "store" );
+        m_Store.createNode( absolutePath() );
+    }   //  MappedPreferences()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    protected final MappedPreferences childSpi( final String name )
+    {
+        return new MappedPreferences( this, name, m_Store );
+    }   //  childSpi()
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    protected final String [] childrenNamesSpi() { return m_Store.childrenNames( absolutePath() ); }
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    protected final void flushSpi() throws BackingStoreException { m_Store.flush(); }
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    protected final String getSpi( final String key ) { return m_Store.get( absolutePath(), key ); }
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    protected final String [] keysSpi() { return m_Store.keys( absolutePath() ); }
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    protected final void putSpi( final String key, final String value ) { m_Store.put( absolutePath(), key, value ); }
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    protected final void removeNodeSpi() { m_Store.removeNode( absolutePath() ); }
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    protected final void removeSpi( final String key ) { m_Store.remove( absolutePath(), key ); }
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    protected final void syncSpi() throws BackingStoreException { m_Store.flush(); }
+}
+//  class MappedPreferences
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,161 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static java.lang.System.getProperty;
+import static org.apiguardian.api.API.Status.INTERNAL;
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.lang.Objects.isNull;
+
+import java.nio.file.Path;
+import java.util.prefs.Preferences;
+import java.util.prefs.PreferencesFactory;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary The
+ *  {@link PreferencesFactory}
+ *  for the Shooting Timer.}</p>
+ *  <p>Different from the default implementation for Linux, that stores each
+ *  node in a separate XML file and synchronises them with a timer thread,
+ *  the preferences returned by this factory keep the whole tree in a single,
+ *  compact file that is memory-mapped and read once, on the first access;
+ *  it is written only on an explicit flush, and no background thread is
+ *  used.</p>
+ *  <p>The files are located in the folder
+ *  {@value #PREFERENCES_FOLDER}
+ *  in the home folder of the user; the location can be changed with the
+ *  system property
+ *  {@value #PROPERTY_PREFERENCES_FOLDER}.</p>
+ *  <p>The factory is registered as a service provider, so that
+ *  {@link Preferences}
+ *  will pick it up automatically.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.3.0" )
+public final class MappedPreferencesFactory implements PreferencesFactory
+{
+        /*---------------*\
+    ====** Inner Classes **====================================================
+        \*---------------*/
+    /**
+     *  The holder for the system root; it will be created on the first
+     *  access.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.3.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = INTERNAL, since = "0.3.0" )
+    private static final class SystemRootHolder
+    {
+        /**
+         *  The system root.
+         */
+        static final Preferences m_SystemRoot = createRoot( "systemPreferences.bin" );
+    }
+    //  class SystemRootHolder
+
+    /**
+     *  The holder for the user root; it will be created on the first
+     *  access.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.3.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = INTERNAL, since = "0.3.0" )
+    private static final class UserRootHolder
+    {
+        /**
+         *  The user root.
+         */
+        static final Preferences m_UserRoot = createRoot( "userPreferences.bin" );
+    }
+    //  class UserRootHolder
+
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The name of the folder for the preferences files, relative to the
+     *  home folder of the user: {@value}.
+     */
+    public static final String PREFERENCES_FOLDER = ".shootingtimer";
+
+    /**
+     *  The name of the system property that overrides the folder for the
+     *  preferences files: {@value}.
+     */
+    public static final String PROPERTY_PREFERENCES_FOLDER = "org.tquadrat.shootingtimer.preferences.folder";
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new {@code MappedPreferencesFactory} instance.
+     */
+    public MappedPreferencesFactory() { /* Just exists */ }
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Creates the root node that is stored in the file with the given name.
+     *
+     *  @param  fileName    The name of the file.
+     *  @return The root node.
+     */
+    private static final Preferences createRoot( final String fileName )
+    {
+        final var folder = getProperty( PROPERTY_PREFERENCES_FOLDER );
+        final var path = (isNull( folder ) ? Path.of( getProperty( "user.home" ), PREFERENCES_FOLDER ) : Path.of( folder )).resolve( fileName );
+        final var retValue = new MappedPreferences( new PreferencesStore( path ) );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  createRoot()
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final Preferences systemRoot() { return SystemRootHolder.m_SystemRoot; }
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final Preferences userRoot() { return UserRootHolder.m_UserRoot; }
+}
+//  class MappedPreferencesFactory
+
+/*
+ *  End of File
+ */
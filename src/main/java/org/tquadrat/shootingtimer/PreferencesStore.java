@@ -0,0 +1,380 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.apiguardian.api.API.Status.INTERNAL;
+import static org.tquadrat.foundation.lang.Objects.isNull;
+import static org.tquadrat.foundation.lang.Objects.nonNull;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.prefs.BackingStoreException;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary The backing store for
+ *  {@link MappedPreferences}:
+ *  all nodes of a preferences tree, in a single file.}</p>
+ *  <p>The file is mapped into memory and read once, when the store is
+ *  created; after that, all operations work on the in-memory copy. A flush
+ *  writes the complete tree to a temporary file that then replaces the
+ *  original one with an atomic move, so the file is never left in a
+ *  partially written state.</p>
+ *  <p>The file format is compact and binary: the magic number
+ *  {@value #MAGIC}, the format version, the number of nodes, and for each
+ *  node its absolute path, the number of entries, and the keys and values.
+ *  All strings are stored as UTF-8, preceded by their length in bytes.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = INTERNAL, since = "0.3.0" )
+final class PreferencesStore
+{
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The magic number for the file: {@value}.
+     */
+    public static final int MAGIC = 0x53545046;
+
+    /**
+     *  The version of the file format: {@value}.
+     */
+    public static final int VERSION = 1;
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The flag that indicates whether the in-memory copy was modified since
+     *  the last flush.
+     */
+    private boolean m_Dirty = false;
+
+    /**
+     *  The file.
+     */
+    private final Path m_File;
+
+    /**
+     *  The nodes, with their absolute paths as the keys.
+     */
+    private final NavigableMap<String,Map<String,String>> m_Nodes = new TreeMap<>();
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new {@code PreferencesStore} instance and reads the given
+     *  file, if it exists. A file that cannot be read is ignored, so that a
+     *  damaged file causes the default values to be used, instead of
+     *  preventing the start of the program.
+     *
+     *  @param  file    The file.
+     */
+    PreferencesStore( final Path file )
+    {
+        m_File = requireNonNullArgument( file, "file" );
+        if( Files.isRegularFile( m_File ) )
+        {
+            try
+            {
+                load();
+            }
+            catch( final IOException | BackingStoreException e )
+            {
+                m_Nodes.clear();
+            }
+        }
+        m_Nodes.computeIfAbsent( "/", $ -> new TreeMap<>() );
+    }   //  PreferencesStore()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Returns the names of the children of the given node.
+     *
+     *  @param  path    The absolute path of the node.
+     *  @return The names of the children.
+     */
+    public final synchronized String [] childrenNames( final String path )
+    {
+        final var prefix = path.endsWith( "/" ) ? path : path + "/";
+        final var names = new ArrayList<String>();
+        for( final var nodePath : m_Nodes.tailMap( prefix, false ).keySet() )
+        {
+            if( !nodePath.startsWith( prefix ) ) break;
+            final var name = nodePath.substring( prefix.length() );
+            if( name.indexOf( '/' ) < 0 ) names.add( name );
+        }
+        final var retValue = names.toArray( String []::new );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  childrenNames()
+
+    /**
+     *  Creates the given node, if it does not exist yet.
+     *
+     *  @param  path    The absolute path of the node.
+     */
+    public final synchronized void createNode( final String path )
+    {
+        if( !m_Nodes.containsKey( path ) )
+        {
+            m_Nodes.put( path, new TreeMap<>() );
+            m_Dirty = true;
+        }
+    }   //  createNode()
+
+    /**
+     *  Writes the complete tree to the file, if it was modified since the
+     *  last flush.
+     *
+     *  @throws BackingStoreException   The file cannot be written.
+     */
+    public final synchronized void flush() throws BackingStoreException
+    {
+        if( m_Dirty )
+        {
+            try
+            {
+                save();
+                m_Dirty = false;
+            }
+            catch( final IOException e )
+            {
+                throw new BackingStoreException( e );
+            }
+        }
+    }   //  flush()
+
+    /**
+     *  Returns the value for the given key from the given node.
+     *
+     *  @param  path    The absolute path of the node.
+     *  @param  key The key.
+     *  @return The value, or {@code null} if there is none.
+     */
+    public final synchronized String get( final String path, final String key )
+    {
+        final var node = m_Nodes.get( path );
+        final var retValue = isNull( node ) ? null : node.get( key );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  get()
+
+    /**
+     *  Returns the keys of the given node.
+     *
+     *  @param  path    The absolute path of the node.
+     *  @return The keys.
+     */
+    public final synchronized String [] keys( final String path )
+    {
+        final var node = m_Nodes.get( path );
+        final var retValue = isNull( node ) ? new String [0] : node.keySet().toArray( String []::new );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  keys()
+
+    /**
+     *  Reads the file.
+     *
+     *  @throws IOException The file cannot be read.
+     *  @throws BackingStoreException   The file is damaged.
+     */
+    private final void load() throws IOException, BackingStoreException
+    {
+        try( final var channel = FileChannel.open( m_File, READ ) )
+        {
+            final var buffer = channel.map( FileChannel.MapMode.READ_ONLY, 0L, channel.size() );
+            if( (buffer.getInt() != MAGIC) || (buffer.getInt() != VERSION) )
+            {
+                throw new BackingStoreException( "Unknown file format: %s".formatted( m_File ) );
+            }
+            final var nodeCount = buffer.getInt();
+            for( var n = 0; n < nodeCount; ++n )
+            {
+                final var path = readString( buffer );
+                final var entryCount = buffer.getInt();
+                final var node = new TreeMap<String,String>();
+                for( var e = 0; e < entryCount; ++e )
+                {
+                    final var key = readString( buffer );
+                    node.put( key, readString( buffer ) );
+                }
+                m_Nodes.put( path, node );
+            }
+        }
+        catch( final BufferUnderflowException | IllegalArgumentException e )
+        {
+            throw new BackingStoreException( e );
+        }
+    }   //  load()
+
+    /**
+     *  Stores the given value for the given key in the given node.
+     *
+     *  @param  path    The absolute path of the node.
+     *  @param  key The key.
+     *  @param  value   The value.
+     */
+    public final synchronized void put( final String path, final String key, final String value )
+    {
+        final var previous = m_Nodes.computeIfAbsent( path, $ -> new TreeMap<>() ).put( key, value );
+        if( !value.equals( previous ) ) m_Dirty = true;
+    }   //  put()
+
+    /**
+     *  Reads a string from the given buffer.
+     *
+     *  @param  buffer  The buffer.
+     *  @return The string.
+     *  @throws BackingStoreException   The length of the string is invalid.
+     */
+    private static final String readString( final ByteBuffer buffer ) throws BackingStoreException
+    {
+        final var length = buffer.getInt();
+        if( (length < 0) || (length > buffer.remaining()) )
+        {
+            throw new BackingStoreException( "Invalid string length: %d".formatted( length ) );
+        }
+        final var bytes = new byte [length];
+        buffer.get( bytes );
+        final var retValue = new String( bytes, UTF_8 );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  readString()
+
+    /**
+     *  Removes the value for the given key from the given node.
+     *
+     *  @param  path    The absolute path of the node.
+     *  @param  key The key.
+     */
+    public final synchronized void remove( final String path, final String key )
+    {
+        final var node = m_Nodes.get( path );
+        if( nonNull( node ) && nonNull( node.remove( key ) ) ) m_Dirty = true;
+    }   //  remove()
+
+    /**
+     *  Removes the given node; its children were already removed.
+     *
+     *  @param  path    The absolute path of the node.
+     */
+    public final synchronized void removeNode( final String path )
+    {
+        if( nonNull( m_Nodes.remove( path ) ) ) m_Dirty = true;
+    }   //  removeNode()
+
+    /**
+     *  Writes the complete tree to a temporary file, and replaces the file
+     *  with it.
+     *
+     *  @throws IOException The file cannot be written.
+     */
+    private final void save() throws IOException
+    {
+        //---* Encode the tree *-----------------------------------------------
+        final var encoded = new ArrayList<byte []>();
+        var size = 3 * Integer.BYTES;
+        for( final var node : m_Nodes.entrySet() )
+        {
+            encoded.add( node.getKey().getBytes( UTF_8 ) );
+            size += 2 * Integer.BYTES;
+            for( final var entry : node.getValue().entrySet() )
+            {
+                encoded.add( entry.getKey().getBytes( UTF_8 ) );
+                encoded.add( entry.getValue().getBytes( UTF_8 ) );
+                size += 2 * Integer.BYTES;
+            }
+        }
+        for( final var bytes : encoded ) size += bytes.length;
+
+        final var buffer = ByteBuffer.allocate( size );
+        buffer.putInt( MAGIC ).putInt( VERSION ).putInt( m_Nodes.size() );
+        final var iterator = encoded.iterator();
+        for( final var node : m_Nodes.values() )
+        {
+            writeBytes( buffer, iterator.next() );
+            buffer.putInt( node.size() );
+            for( var e = 0; e < node.size(); ++e )
+            {
+                writeBytes( buffer, iterator.next() );
+                writeBytes( buffer, iterator.next() );
+            }
+        }
+        buffer.flip();
+
+        //---* Write the temporary file and replace the original *-------------
+        final var directory = m_File.toAbsolutePath().getParent();
+        Files.createDirectories( directory );
+        final var temporaryFile = directory.resolve( m_File.getFileName() + ".tmp" );
+        try( final var channel = FileChannel.open( temporaryFile, CREATE, TRUNCATE_EXISTING, WRITE ) )
+        {
+            while( buffer.hasRemaining() ) channel.write( buffer );
+            channel.force( true );
+        }
+        Files.move( temporaryFile, m_File, ATOMIC_MOVE, REPLACE_EXISTING );
+    }   //  save()
+
+    /**
+     *  Writes the given bytes to the given buffer, preceded by their length.
+     *
+     *  @param  buffer  The buffer.
+     *  @param  bytes   The bytes.
+     */
+    private static final void writeBytes( final ByteBuffer buffer, final byte [] bytes )
+    {
+        buffer.putInt( bytes.length ).put( bytes );
+    }   //  writeBytes()
+}
+//  class PreferencesStore
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,193 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static java.lang.System.err;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary Writes the changes to a
+ *  {@link Preferences}
+ *  node to the backing store, deferred and coalesced.}</p>
+ *  <p>The values itself are held in memory by the
+ *  {@code Preferences}
+ *  implementation; this class only decides when the node will be
+ *  {@linkplain Preferences#flush() flushed}.
+ *  The first change after a flush schedules the next flush after
+ *  {@value #FLUSH_DELAY}&nbsp;ms; all changes in between are written with
+ *  that one flush. Dragging a slider will cause a single write, not one for
+ *  each intermediate value.</p>
+ *  <p>The flush itself is not executed on a thread of the scheduler, so a
+ *  slow backing store will not delay the signals. The node is flushed when
+ *  {@link #close()}
+ *  is called, and pending changes are written on the shutdown of the
+ *  JVM.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.3.0" )
+public final class PreferencesWriter implements AutoCloseable
+{
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The delay in milliseconds between the first change and the flush:
+     *  {@value}.
+     */
+    public static final long FLUSH_DELAY = 2_000L;
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The number of changes.
+     */
+    private final AtomicLong m_ChangeCount = new AtomicLong();
+
+    /**
+     *  The number of flushes.
+     */
+    private final AtomicLong m_FlushCount = new AtomicLong();
+
+    /**
+     *  The flag that indicates whether there are changes that are not yet
+     *  flushed.
+     */
+    private final AtomicBoolean m_FlushPending = new AtomicBoolean( false );
+
+    /**
+     *  The preferences node.
+     */
+    private final Preferences m_Node;
+
+    /**
+     *  The scheduler for the deferred flush.
+     */
+    private final ScheduledExecutorService m_Scheduler;
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new {@code PreferencesWriter} instance. It registers itself
+     *  as a listener with the given node, and it registers a shutdown hook
+     *  that writes the pending changes.
+     *
+     *  @param  node    The preferences node.
+     *  @param  scheduler   The scheduler for the deferred flush.
+     */
+    public PreferencesWriter( final Preferences node, final ScheduledExecutorService scheduler )
+    {
+        m_Node = requireNonNullArgument( node, "node" );
+        m_Scheduler = requireNonNullArgument( scheduler, "scheduler" );
+
+        m_Node.addPreferenceChangeListener( ignoredEvent -> changed() );
+        Runtime.getRuntime().addShutdownHook( new Thread( this::flushPending, "ShootingTimer-PreferencesWriter" ) );
+    }   //  PreferencesWriter()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Notifies this writer about a change to the node; it will be written
+     *  with the next flush.
+     */
+    public final void changed()
+    {
+        m_ChangeCount.incrementAndGet();
+        if( m_FlushPending.compareAndSet( false, true ) )
+        {
+            m_Scheduler.schedule( () -> CompletableFuture.runAsync( this::flushPending ), FLUSH_DELAY, MILLISECONDS );
+        }
+    }   //  changed()
+
+    /**
+     *  Flushes the node immediately. This is done unconditionally, as the
+     *  notifications about the latest changes may not have arrived yet.
+     */
+    @Override
+    public final void close()
+    {
+        m_FlushPending.set( true );
+        flushPending();
+    }   //  close()
+
+    /**
+     *  Flushes the node, if there are pending changes.
+     */
+    private final void flushPending()
+    {
+        if( m_FlushPending.getAndSet( false ) )
+        {
+            try
+            {
+                m_Node.flush();
+                m_FlushCount.incrementAndGet();
+            }
+            catch( final BackingStoreException e )
+            {
+                //---* We will not terminate the program … *-------------------
+                e.printStackTrace( err );
+            }
+        }
+    }   //  flushPending()
+
+    /**
+     *  Returns the number of changes since this writer was created.
+     *
+     *  @return The number of changes.
+     */
+    public final long getChangeCount() { return m_ChangeCount.get(); }
+
+    /**
+     *  Returns the number of flushes since this writer was created.
+     *
+     *  @return The number of flushes.
+     */
+    public final long getFlushCount() { return m_FlushCount.get(); }
+
+    /**
+     *  Returns the number of flushes that were avoided, compared to a flush
+     *  for each single change.
+     *
+     *  @return The number of avoided flushes.
+     */
+    public final long getFlushesAvoided() { return Math.max( m_ChangeCount.get() - m_FlushCount.get(), 0L ); }
+}
+//  class PreferencesWriter
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,770 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.lang.Objects.isNull;
+import static org.tquadrat.foundation.lang.Objects.nonNull;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+import static org.tquadrat.shootingtimer.spi.Status.STATUS_OFF;
+import static org.tquadrat.shootingtimer.spi.Status.STATUS_STARTING;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.security.MessageDigest;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.shootingtimer.spi.Status;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ *  <p>{@summary The remote control for the range officer tablets.}</p>
+ *  <p>The remote control runs an embedded HTTP server; a command is sent as
+ *  a {@code POST} request for
+ *  {@value #CONTEXT_PATH}{@code <command>?client=<id>&seq=<n>[&value=<v>]},
+ *  with the header {@code Authorization: Bearer <token>}:</p>
+ *  <dl>
+ *      <dt>{@code discipline}</dt>
+ *      <dd>Selects the
+ *          {@link Discipline}
+ *          with the name given as the value, and its first heat.</dd>
+ *      <dt>{@code heat}</dt>
+ *      <dd>Selects the heat with the index given as the value from the
+ *          program of the current discipline.</dd>
+ *      <dt>{@code start}</dt>
+ *      <dd>Starts the selected heat, like a touch on the screen.</dd>
+ *      <dt>{@code abort}</dt>
+ *      <dd>Aborts the running heat.</dd>
+ *  </dl>
+ *  <p>Each client numbers its commands with an increasing sequence number.
+ *  A command is executed only if its number is greater than that of the
+ *  previous command from the same client; a repeated number returns the
+ *  reply to the previous command without executing it again, so a client
+ *  can safely retransmit a command when it did not get the reply. A lower
+ *  number is refused as stale. In addition, the commands themselves are
+ *  idempotent: {@code start} is rejected while a heat is running, and
+ *  {@code abort} is rejected when there is none. A reply with a status code
+ *  of 500 or above reports a transient failure; it is not kept, so a
+ *  retransmitted command is executed again.</p>
+ *  <p>Only the clients that know the shared secret, the token, may send
+ *  commands; a request without the right token is refused with the status
+ *  code 401. The remote control listens only on the given address, not on
+ *  all interfaces.</p>
+ *  <p>The reply is sent when the command was executed; for {@code start}
+ *  and {@code abort}, it is sent only when the
+ *  {@link StatusMachine}
+ *  reported the resulting
+ *  {@link Status}.
+ *  The time from the arrival of the request until then is the latency of
+ *  the command; it is part of the reply and it is recorded for each
+ *  command. The budget for its 99th percentile is
+ *  {@value #LATENCY_BUDGET}&nbsp;ms.</p>
+ *  <p>The commands are executed by the
+ *  {@link CommandHandler};
+ *  the requests are served by a small pool of threads.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.3.0" )
+public final class RemoteControl implements StatusMachine.StatusListener, AutoCloseable
+{
+        /*---------------*\
+    ====** Inner Classes **====================================================
+        \*---------------*/
+    /**
+     *  The state of a client.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.3.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.3.0" )
+    private static final class Client
+    {
+            /*------------*\
+        ====** Attributes **===================================================
+            \*------------*/
+        /**
+         *  The reply to the most recent command.
+         */
+        private Reply m_Reply;
+
+        /**
+         *  The sequence number of the most recent command.
+         */
+        private long m_Sequence = Long.MIN_VALUE;
+
+            /*--------------*\
+        ====** Constructors **=================================================
+            \*--------------*/
+        /**
+         *  Creates a new {@code Client} instance.
+         */
+        public Client() { /* Just exists */ }
+    }
+    //  class Client
+
+    /**
+     *  The commands.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.3.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.3.0" )
+    public static enum Command
+    {
+            /*------------------*\
+        ====** Enum Declaration **=============================================
+            \*------------------*/
+        /**
+         *  Aborts the running heat.
+         */
+        ABORT( STATUS_OFF ),
+
+        /**
+         *  Selects a discipline.
+         */
+        DISCIPLINE( null ),
+
+        /**
+         *  Selects a heat.
+         */
+        HEAT( null ),
+
+        /**
+         *  Starts the selected heat.
+         */
+        START( STATUS_STARTING );
+
+            /*------------*\
+        ====** Attributes **===================================================
+            \*------------*/
+        /**
+         *  The status that results from the command; {@code null} if the
+         *  command does not change the status.
+         */
+        private final Status m_ResultingStatus;
+
+            /*--------------*\
+        ====** Constructors **=================================================
+            \*--------------*/
+        /**
+         *  Creates a new {@code Command} instance.
+         *
+         *  @param  resultingStatus The status that results from the command;
+         *      {@code null} if the command does not change the status.
+         */
+        private Command( final Status resultingStatus )
+        {
+            m_ResultingStatus = resultingStatus;
+        }   //  Command()
+
+            /*---------*\
+        ====** Methods **======================================================
+            \*---------*/
+        /**
+         *  Returns the name of the command, as it is used in the requests.
+         *
+         *  @return The name.
+         */
+        public final String getName() { return name().toLowerCase( Locale.ROOT ); }
+
+        /**
+         *  Returns the status that results from the command.
+         *
+         *  @return An instance of
+         *      {@link Optional}
+         *      that holds the status; it is empty if the command does not
+         *      change the status.
+         */
+        public final Optional<Status> getResultingStatus() { return Optional.ofNullable( m_ResultingStatus ); }
+    }
+    //  enum Command
+
+    /**
+     *  The executor for the commands.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.3.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.3.0" )
+    public static interface CommandHandler
+    {
+            /*---------*\
+        ====** Methods **======================================================
+            \*---------*/
+        /**
+         *  Aborts the running heat.
+         *
+         *  @return The result: {@code true} if a heat was aborted,
+         *      {@code false} if there was none.
+         */
+        public CompletableFuture<Boolean> abortHeat();
+
+        /**
+         *  Selects the given discipline, together with its first heat.
+         *
+         *  @param  discipline  The discipline.
+         *  @return The result: {@code true} if the discipline was selected,
+         *      {@code false} if that is not possible now.
+         */
+        public CompletableFuture<Boolean> selectDiscipline( final Discipline discipline );
+
+        /**
+         *  Selects the heat with the given index from the program of the
+         *  current discipline.
+         *
+         *  @param  index   The index of the heat.
+         *  @return The result: {@code true} if the heat was selected,
+         *      {@code false} if there is no such heat, or if that is not
+         *      possible now.
+         */
+        public CompletableFuture<Boolean> selectHeat( final int index );
+
+        /**
+         *  Starts the selected heat.
+         *
+         *  @return The result: {@code true} if the heat was started,
+         *      {@code false} if a heat is running already, or if this
+         *      instance may not start a heat.
+         */
+        public CompletableFuture<Boolean> startHeat();
+    }
+    //  interface CommandHandler
+
+    /**
+     *  A command that waits for the status that results from it.
+     *
+     *  @param  status  The resulting status.
+     *  @param  receiveTime The time when the request was received, as
+     *      returned by
+     *      {@link System#nanoTime()}.
+     *  @param  latency The latency; it is completed when the status was
+     *      reached.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.3.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.3.0" )
+    private static record Probe( Status status, long receiveTime, CompletableFuture<Long> latency ) {}
+
+    /**
+     *  A reply.
+     *
+     *  @param  code    The HTTP status code.
+     *  @param  body    The body.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.3.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.3.0" )
+    private static record Reply( int code, byte [] body ) {}
+
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The path for the commands: {@value}.
+     */
+    public static final String CONTEXT_PATH = "/control/";
+
+    /**
+     *  The number of threads that serve the requests: {@value}.
+     */
+    public static final int CONTROL_THREADS = 4;
+
+    /**
+     *  The budget in milliseconds for the 99th percentile of the latency
+     *  from the arrival of a command until the resulting status was reached:
+     *  {@value}.
+     */
+    public static final long LATENCY_BUDGET = 20L;
+
+    /**
+     *  The scheme for the token in the {@code Authorization} header:
+     *  {@value}.
+     */
+    public static final String AUTHORIZATION_SCHEME = "Bearer ";
+
+    /**
+     *  The name of the system property for the address the remote control
+     *  listens on: {@value}. If it is not set, the remote control listens
+     *  on the loopback address only.
+     */
+    public static final String PROPERTY_ADDRESS = "org.tquadrat.shootingtimer.controlAddress";
+
+    /**
+     *  The name of the system property that switches on
+     *  {@code TCP_NODELAY}
+     *  for the embedded HTTP servers: {@value}. Without it, Nagle's
+     *  algorithm holds back the body of a reply until the client has
+     *  acknowledged the headers, and a delayed acknowledgement adds up to
+     *  40&nbsp;ms to each command. The HTTP server reads the property only
+     *  once, so it has to be set before the first server is created.
+     */
+    public static final String PROPERTY_HTTP_NODELAY = "sun.net.httpserver.nodelay";
+
+    /**
+     *  The name of the system property for the HTTP port of the remote
+     *  control: {@value}. If it is set, the application accepts commands on
+     *  that port.
+     */
+    public static final String PROPERTY_PORT = "org.tquadrat.shootingtimer.controlPort";
+
+    /**
+     *  The name of the system property for the token that the clients have
+     *  to send with each command: {@value}. The remote control is not
+     *  started without a token.
+     */
+    public static final String PROPERTY_TOKEN = "org.tquadrat.shootingtimer.controlToken";
+
+    /**
+     *  The time in milliseconds that a request waits for the execution of
+     *  its command: {@value}.
+     */
+    public static final long RESPONSE_TIMEOUT = 1_000L;
+
+    /**
+     *  The prefix for the names of the threads: {@value}.
+     */
+    private static final String THREAD_NAME_PREFIX = "ShootingTimer-RemoteControl-";
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The clients, by their ids.
+     */
+    private final Map<String,Client> m_Clients = new ConcurrentHashMap<>();
+
+    /**
+     *  The executor for the commands.
+     */
+    private final CommandHandler m_Handler;
+
+    /**
+     *  The latencies for the commands.
+     */
+    private final Map<Command,LatencyHistogram> m_Latencies = new EnumMap<>( Command.class );
+
+    /**
+     *  The commands that wait for the status that results from them.
+     */
+    private final Queue<Probe> m_Probes = new ConcurrentLinkedQueue<>();
+
+    /**
+     *  The HTTP server.
+     */
+    private final HttpServer m_Server;
+
+    /**
+     *  The current status.
+     */
+    private volatile Status m_Status = STATUS_OFF;
+
+    /**
+     *  The threads that serve the requests.
+     */
+    private final ExecutorService m_Threads;
+
+    /**
+     *  The token that the clients have to send.
+     */
+    private final byte [] m_Token;
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new {@code RemoteControl} instance and starts the HTTP
+     *  server.
+     *
+     *  @param  address The address to listen on; a port number of 0 selects
+     *      a free port.
+     *  @param  token   The token that the clients have to send with each
+     *      command.
+     *  @param  handler The executor for the commands.
+     *  @throws IllegalArgumentException    The token is empty.
+     *  @throws IOException The HTTP server could not be started.
+     */
+    public RemoteControl( final InetSocketAddress address, final String token, final CommandHandler handler ) throws IllegalArgumentException, IOException
+    {
+        if( requireNonNullArgument( token, "token" ).isBlank() ) throw new IllegalArgumentException( "The token must not be empty" );
+        m_Token = (AUTHORIZATION_SCHEME + token).getBytes( UTF_8 );
+        m_Handler = requireNonNullArgument( handler, "handler" );
+        for( final var command : Command.values() ) m_Latencies.put( command, new LatencyHistogram() );
+
+        final var threadCounter = new AtomicInteger();
+        final ThreadFactory threadFactory = runnable ->
+        {
+            final var thread = new Thread( runnable, THREAD_NAME_PREFIX + threadCounter.incrementAndGet() );
+            thread.setDaemon( true );
+
+            //---* Done *------------------------------------------------------
+            return thread;
+        };
+        m_Threads = Executors.newFixedThreadPool( CONTROL_THREADS, threadFactory );
+
+        m_Server = HttpServer.create( requireNonNullArgument( address, "address" ), 0 );
+        m_Server.createContext( CONTEXT_PATH, this::handle );
+        m_Server.setExecutor( m_Threads );
+        m_Server.start();
+    }   //  RemoteControl()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Stops the HTTP server and its threads.
+     */
+    @Override
+    public final void close()
+    {
+        m_Server.stop( 0 );
+        m_Threads.shutdownNow();
+    }   //  close()
+
+    /**
+     *  Creates a reply.
+     *
+     *  @param  code    The HTTP status code.
+     *  @param  body    The body, a JSON object.
+     *  @return The reply.
+     */
+    private static final Reply createReply( final int code, final String body )
+    {
+        final var retValue = new Reply( code, body.getBytes( UTF_8 ) );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  createReply()
+
+    /**
+     *  Executes a command, unless the client has sent it already.
+     *
+     *  @param  clientId    The id of the client.
+     *  @param  sequence    The sequence number of the command.
+     *  @param  command The command.
+     *  @param  value   The value for the command; may be {@code null}.
+     *  @param  receiveTime The time when the request was received, as
+     *      returned by
+     *      {@link System#nanoTime()}.
+     *  @return The reply.
+     */
+    private final Reply execute( final String clientId, final long sequence, final Command command, final String value, final long receiveTime )
+    {
+        final var client = m_Clients.computeIfAbsent( clientId, id -> new Client() );
+        final Reply retValue;
+
+        //---* The commands of a client are executed one by one *--------------
+        synchronized( client )
+        {
+            if( (sequence == client.m_Sequence) && nonNull( client.m_Reply ) )
+            {
+                //---* A retransmitted command is not executed again *---------
+                retValue = client.m_Reply;
+            }
+            else if( sequence < client.m_Sequence )
+            {
+                retValue = createReply( 409, "{\"seq\":%d,\"error\":\"stale sequence number, expected more than %d\"}".formatted( sequence, client.m_Sequence ) );
+            }
+            else
+            {
+                retValue = perform( sequence, command, value, receiveTime );
+                client.m_Sequence = sequence;
+
+                //---* A transient failure is not the final reply *------------
+                client.m_Reply = retValue.code() < 500 ? retValue : null;
+            }
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  execute()
+
+    /**
+     *  Returns the latencies for the given command.
+     *
+     *  @param  command The command.
+     *  @return The latencies from the arrival of the command until it was
+     *      executed, or until the resulting status was reached.
+     */
+    public final LatencyHistogram getLatencies( final Command command ) { return m_Latencies.get( requireNonNullArgument( command, "command" ) ); }
+
+    /**
+     *  Returns the port the remote control listens on.
+     *
+     *  @return The port number.
+     */
+    public final int getPort() { return m_Server.getAddress().getPort(); }
+
+    /**
+     *  Handles a request for
+     *  {@value #CONTEXT_PATH};
+     *  this method is executed by one of the threads of the remote control.
+     *
+     *  @param  exchange    The exchange with the client.
+     *  @throws IOException The reply could not be sent.
+     */
+    private final void handle( final HttpExchange exchange ) throws IOException
+    {
+        final var receiveTime = nanoTime();
+        try( exchange )
+        {
+            Reply reply;
+            if( !isAuthorised( exchange ) )
+            {
+                exchange.getResponseHeaders().set( "WWW-Authenticate", "Bearer realm=\"shootingtimer\"" );
+                reply = createReply( 401, "{\"error\":\"unauthorised\"}" );
+            }
+            else if( "POST".equals( exchange.getRequestMethod() ) )
+            {
+                final var name = exchange.getRequestURI().getPath().substring( CONTEXT_PATH.length() );
+                final var parameters = parseQuery( exchange.getRequestURI().getRawQuery() );
+                final var clientId = parameters.get( "client" );
+                final var sequence = parameters.get( "seq" );
+                Command command = null;
+                try
+                {
+                    command = Command.valueOf( name.toUpperCase( Locale.ROOT ) );
+                }
+                catch( final IllegalArgumentException ignored ) { /* Unknown command */ }
+
+                if( isNull( command ) )
+                {
+                    reply = createReply( 404, "{\"error\":\"unknown command\"}" );
+                }
+                else if( isNull( clientId ) || isNull( sequence ) )
+                {
+                    reply = createReply( 400, "{\"error\":\"client and seq are required\"}" );
+                }
+                else
+                {
+                    try
+                    {
+                        reply = execute( clientId, Long.parseLong( sequence ), command, parameters.get( "value" ), receiveTime );
+                    }
+                    catch( final NumberFormatException e )
+                    {
+                        reply = createReply( 400, "{\"error\":\"invalid sequence number\"}" );
+                    }
+                }
+            }
+            else
+            {
+                exchange.getResponseHeaders().set( "Allow", "POST" );
+                reply = createReply( 405, "{\"error\":\"method not allowed\"}" );
+            }
+
+            //---* Send the reply *--------------------------------------------
+            exchange.getResponseHeaders().set( "Content-Type", "application/json; charset=utf-8" );
+            exchange.sendResponseHeaders( reply.code(), reply.body().length );
+            exchange.getResponseBody().write( reply.body() );
+        }
+    }   //  handle()
+
+    /**
+     *  Checks whether the request carries the right token.
+     *
+     *  @param  exchange    The exchange with the client.
+     *  @return {@code true} if the client is authorised, {@code false}
+     *      otherwise.
+     */
+    private final boolean isAuthorised( final HttpExchange exchange )
+    {
+        final var authorization = exchange.getRequestHeaders().getFirst( "Authorization" );
+
+        //---* Do not reveal how much of the token matches *-------------------
+        final var retValue = nonNull( authorization ) && MessageDigest.isEqual( m_Token, authorization.getBytes( UTF_8 ) );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  isAuthorised()
+
+    /**
+     *  Parses the query of a request.
+     *
+     *  @param  query   The raw query; may be {@code null}.
+     *  @return The parameters.
+     */
+    private static final Map<String,String> parseQuery( final String query )
+    {
+        final Map<String,String> retValue = new HashMap<>();
+        if( nonNull( query ) )
+        {
+            for( final var parameter : query.split( "&" ) )
+            {
+                final var separator = parameter.indexOf( '=' );
+                if( separator > 0 )
+                {
+                    retValue.put( URLDecoder.decode( parameter.substring( 0, separator ), UTF_8 ), URLDecoder.decode( parameter.substring( separator + 1 ), UTF_8 ) );
+                }
+            }
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  parseQuery()
+
+    /**
+     *  Executes a command and waits for its result.
+     *
+     *  @param  sequence    The sequence number of the command.
+     *  @param  command The command.
+     *  @param  value   The value for the command; may be {@code null}.
+     *  @param  receiveTime The time when the request was received, as
+     *      returned by
+     *      {@link System#nanoTime()}.
+     *  @return The reply.
+     */
+    private final Reply perform( final long sequence, final Command command, final String value, final long receiveTime )
+    {
+        Reply retValue;
+        final var probe = command.getResultingStatus()
+            .map( status -> new Probe( status, receiveTime, new CompletableFuture<>() ) )
+            .orElse( null );
+        if( nonNull( probe ) ) m_Probes.add( probe );
+        try
+        {
+            final var result = switch( command )
+            {
+                case ABORT -> m_Handler.abortHeat();
+                case DISCIPLINE -> m_Handler.selectDiscipline( Discipline.valueOf( requireNonNullArgument( value, "value" ) ) );
+                case HEAT -> m_Handler.selectHeat( Integer.parseInt( requireNonNullArgument( value, "value" ) ) );
+                case START -> m_Handler.startHeat();
+            };
+            final var timeout = receiveTime + MILLISECONDS.toNanos( RESPONSE_TIMEOUT );
+            final var isExecuted = result.get( timeout - nanoTime(), NANOSECONDS ).booleanValue();
+            var latency = nanoTime() - receiveTime;
+            if( isExecuted )
+            {
+                if( nonNull( probe ) ) latency = probe.latency().get( timeout - nanoTime(), NANOSECONDS ).longValue();
+                m_Latencies.get( command ).record( latency );
+            }
+            retValue = createReply( 200, "{\"seq\":%d,\"command\":\"%s\",\"result\":\"%s\",\"status\":\"%s\",\"latencyMicros\":%d}"
+                .formatted( sequence, command.getName(), isExecuted ? "executed" : "rejected", m_Status.name(), NANOSECONDS.toMicros( latency ) ) );
+        }
+        catch( final IllegalArgumentException | NullPointerException e )
+        {
+            retValue = createReply( 400, "{\"seq\":%d,\"error\":\"invalid value\"}".formatted( sequence ) );
+        }
+        catch( final TimeoutException e )
+        {
+            retValue = createReply( 504, "{\"seq\":%d,\"error\":\"timeout\"}".formatted( sequence ) );
+        }
+        catch( final ExecutionException e )
+        {
+            retValue = createReply( 500, "{\"seq\":%d,\"error\":\"command failed\"}".formatted( sequence ) );
+        }
+        catch( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            retValue = createReply( 503, "{\"seq\":%d,\"error\":\"interrupted\"}".formatted( sequence ) );
+        }
+        finally
+        {
+            if( nonNull( probe ) ) m_Probes.remove( probe );
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  perform()
+
+    /**
+     *  Returns a report with the latencies for all commands that were
+     *  executed so far.
+     *
+     *  @return The report.
+     */
+    public final String report()
+    {
+        final var joiner = new StringJoiner( "; " );
+        joiner.setEmptyValue( "port %d, no commands".formatted( getPort() ) );
+        for( final var command : Command.values() )
+        {
+            final var latencies = m_Latencies.get( command );
+            if( latencies.getCount() > 0 ) joiner.add( format( "%s: %s", command.getName(), latencies.summary() ) );
+        }
+        final var retValue = joiner.toString();
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  report()
+
+    /**
+     *  {@inheritDoc}
+     *  <p>Completes the commands that wait for the new status.</p>
+     */
+    @Override
+    public final void statusChanged( final Status oldStatus, final Status newStatus )
+    {
+        final var now = nanoTime();
+        m_Status = newStatus;
+        for( final var probe : m_Probes )
+        {
+            if( probe.status() == newStatus ) probe.latency().complete( Long.valueOf( now - probe.receiveTime() ) );
+        }
+    }   //  statusChanged()
+}
+//  class RemoteControl
+
+/*
+ *  End of File
+ */
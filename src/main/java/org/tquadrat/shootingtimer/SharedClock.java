@@ -0,0 +1,556 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static java.lang.Math.abs;
+import static java.lang.Math.sqrt;
+import static java.lang.String.format;
+import static java.lang.System.Logger.Level.DEBUG;
+import static java.lang.System.Logger.Level.INFO;
+import static java.lang.System.getLogger;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.lang.Objects.isNull;
+import static org.tquadrat.foundation.lang.Objects.nonNull;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+import static org.tquadrat.shootingtimer.ClockSyncResponder.MAGIC;
+import static org.tquadrat.shootingtimer.ClockSyncResponder.OFFSET_RECEIVE_TIME;
+import static org.tquadrat.shootingtimer.ClockSyncResponder.OFFSET_REQUEST_TIME;
+import static org.tquadrat.shootingtimer.ClockSyncResponder.OFFSET_RESPONSE_TIME;
+import static org.tquadrat.shootingtimer.ClockSyncResponder.PACKET_SIZE;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary An implementation of
+ *  {@link HeatClock}
+ *  that provides a timebase that is shared by several instances of the
+ *  Shooting Timer.}</p>
+ *  <p>One instance is the reference; it runs a
+ *  {@link ClockSyncResponder}
+ *  on its shared clock, and that clock has no offset to the local clock.
+ *  The other instances follow the reference: they send a request to its
+ *  responder periodically, and estimate the offset of the reference clock
+ *  from the times that are carried by the answer, together with the round
+ *  trip time. The samples pass a filter: from the last
+ *  {@value #FILTER_SIZE}
+ *  samples, the one with the shortest round trip is used, as its offset is
+ *  the least affected by the queueing delays on the network. The spread of
+ *  the offsets in the filter is reported as the jitter.</p>
+ *  <p>The offset of a sample cannot be wrong by more than half of its round
+ *  trip time. If a new sample differs from the selected one by clearly more
+ *  than the round trips and the jitter allow, the timebase of the reference
+ *  has stepped: the filter is cleared, the clock follows the new sample at
+ *  once, and the filter is filled again with the initial poll
+ *  interval.</p>
+ *  <p>The time of the shared clock is the time of the local clock plus the
+ *  current offset; the tasks are scheduled on the local clock, at the local
+ *  time that corresponds to their deadline. A follower has a single thread
+ *  for the synchronisation; each sample is emitted as a
+ *  {@link TimerEvents.ClockSyncEvent}
+ *  for the JDK Flight Recorder.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.3.0" )
+public final class SharedClock implements HeatClock, AutoCloseable
+{
+        /*---------------*\
+    ====** Inner Classes **====================================================
+        \*---------------*/
+    /**
+     *  A sample of the synchronisation.
+     *
+     *  @param  offset  The measured offset of the reference clock.
+     *  @param  roundTrip   The round trip time.
+     *  @param  time    The local time when the sample was taken.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.3.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.3.0" )
+    private static record Sample( long offset, long roundTrip, long time ) {}
+
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The number of samples in the filter: {@value}.
+     */
+    public static final int FILTER_SIZE = 8;
+
+    /**
+     *  The interval between the requests until the filter is filled for
+     *  the first time, in milliseconds: {@value}.
+     */
+    public static final long INITIAL_POLL_INTERVAL = 50L;
+
+    /**
+     *  The default interval between the requests, in milliseconds:
+     *  {@value}.
+     */
+    public static final long POLL_INTERVAL = 1_000L;
+
+    /**
+     *  The name of the system property for the address of the reference
+     *  instance, in the form {@code host:port}: {@value}. If it is set, the
+     *  application follows the clock of that instance.
+     */
+    public static final String PROPERTY_REFERENCE = "org.tquadrat.shootingtimer.clockReference";
+
+    /**
+     *  The time to wait for an answer from the reference, in milliseconds:
+     *  {@value}.
+     */
+    public static final int RESPONSE_TIMEOUT = 500;
+
+    /**
+     *  The multiple of the jitter that a new sample may differ from the
+     *  selected one, beyond the uncertainty from the round trips, before it
+     *  is taken as a step of the reference: {@value}.
+     */
+    public static final int STEP_FACTOR = 4;
+
+    /**
+     *  The difference between a new sample and the selected one that is
+     *  always tolerated, in nanoseconds; it covers the drift of the clocks
+     *  between the samples.
+     */
+    public static final long STEP_MARGIN = MILLISECONDS.toNanos( 1L );
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The flag that indicates that the clock was closed.
+     */
+    private volatile boolean m_Closed = false;
+
+    /**
+     *  The most recent samples; only accessed by the synchronisation
+     *  thread.
+     */
+    private final Sample [] m_Filter = new Sample [FILTER_SIZE];
+
+    /**
+     *  The number of samples that were added to the filter since it was
+     *  cleared last; only accessed by the synchronisation thread.
+     */
+    private long m_FilterCount = 0L;
+
+    /**
+     *  The jitter of the samples in the filter.
+     */
+    private volatile long m_Jitter = 0L;
+
+    /**
+     *  The local clock.
+     */
+    private final HeatClock m_Local;
+
+    /**
+     *  The number of requests that were not answered in time.
+     */
+    private final AtomicLong m_LostCount = new AtomicLong();
+
+    /**
+     *  The current offset of the shared clock to the local clock.
+     */
+    private volatile long m_Offset = 0L;
+
+    /**
+     *  The interval between the requests, in milliseconds.
+     */
+    private final long m_PollInterval;
+
+    /**
+     *  The address of the reference; {@code null} if this clock is the
+     *  reference.
+     */
+    private final InetSocketAddress m_Reference;
+
+    /**
+     *  The round trip times of all samples.
+     */
+    private final LatencyHistogram m_RoundTrips = new LatencyHistogram();
+
+    /**
+     *  The number of samples.
+     */
+    private final AtomicLong m_SampleCount = new AtomicLong();
+
+    /**
+     *  The local time of the most recent sample.
+     */
+    private volatile long m_SampleTime;
+
+    /**
+     *  The socket; {@code null} if this clock is the reference.
+     */
+    private final DatagramSocket m_Socket;
+
+    /**
+     *  The number of steps of the reference.
+     */
+    private final AtomicLong m_StepCount = new AtomicLong();
+
+    /**
+     *  The synchronisation thread; {@code null} if this clock is the
+     *  reference.
+     */
+    private final Thread m_Thread;
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new {@code SharedClock} instance that is the reference for
+     *  the other instances; its offset to the local clock is always 0.
+     *
+     *  @param  local   The local clock.
+     */
+    public SharedClock( final HeatClock local )
+    {
+        m_Local = requireNonNullArgument( local, "local" );
+        m_PollInterval = 0L;
+        m_Reference = null;
+        m_Socket = null;
+        m_Thread = null;
+    }   //  SharedClock()
+
+    /**
+     *  Creates a new {@code SharedClock} instance that follows the reference
+     *  at the given address, and starts the synchronisation thread.
+     *
+     *  @param  local   The local clock.
+     *  @param  reference   The address of the
+     *      {@link ClockSyncResponder}
+     *      of the reference.
+     *  @param  pollInterval    The interval between the requests, in
+     *      milliseconds.
+     *  @throws IllegalArgumentException    The poll interval is not
+     *      positive.
+     *  @throws IOException The socket could not be opened.
+     */
+    public SharedClock( final HeatClock local, final InetSocketAddress reference, final long pollInterval ) throws IllegalArgumentException, IOException
+    {
+        m_Local = requireNonNullArgument( local, "local" );
+        m_Reference = requireNonNullArgument( reference, "reference" );
+        if( pollInterval <= 0L ) throw new IllegalArgumentException( "pollInterval is not positive" );
+        m_PollInterval = pollInterval;
+        m_Socket = new DatagramSocket();
+        m_Socket.setSoTimeout( RESPONSE_TIMEOUT );
+        m_Thread = new Thread( this::synchronise, "ShootingTimer-ClockSync" );
+        m_Thread.setDaemon( true );
+        m_Thread.setPriority( Thread.MAX_PRIORITY );
+        m_Thread.start();
+    }   //  SharedClock()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Adds the given sample to the filter, and updates the offset and the
+     *  jitter. If the sample shows that the timebase of the reference has
+     *  stepped, the filter is cleared before.
+     *
+     *  @param  sample  The new sample.
+     */
+    private final void addSample( final Sample sample )
+    {
+        m_RoundTrips.record( sample.roundTrip() );
+
+        //---* Detect a step of the reference *--------------------------------
+        if( m_FilterCount > 0L )
+        {
+            final var current = selectSample();
+            final var difference = abs( sample.offset() - current.offset() );
+            if( difference > (sample.roundTrip() + current.roundTrip()) / 2L + STEP_FACTOR * m_Jitter + STEP_MARGIN )
+            {
+                m_StepCount.incrementAndGet();
+                getLogger( SharedClock.class.getName() ).log( INFO, "Reference clock stepped by %d ns".formatted( sample.offset() - current.offset() ) );
+                Arrays.fill( m_Filter, null );
+                m_FilterCount = 0L;
+            }
+        }
+        m_Filter [(int) (m_FilterCount++ % FILTER_SIZE)] = sample;
+
+        //---* Select the sample with the shortest round trip *----------------
+        final var selected = selectSample();
+
+        //---* The jitter is the RMS of the offsets to the selected one *------
+        var sum = 0.0;
+        var samples = 0;
+        for( final var candidate : m_Filter )
+        {
+            if( nonNull( candidate ) )
+            {
+                final double difference = candidate.offset() - selected.offset();
+                sum += difference * difference;
+                ++samples;
+            }
+        }
+        m_Jitter = (long) sqrt( sum / samples );
+        m_Offset = selected.offset();
+        m_SampleTime = sample.time();
+        m_SampleCount.incrementAndGet();
+        TimerEvents.ClockSyncEvent.emit( sample.offset(), sample.roundTrip(), m_Offset, m_Jitter );
+    }   //  addSample()
+
+    /**
+     *  Stops the synchronisation; the offset will not change any more after
+     *  that.
+     */
+    @Override
+    public final void close()
+    {
+        m_Closed = true;
+        if( nonNull( m_Socket ) ) m_Socket.close();
+    }   //  close()
+
+    /**
+     *  Returns the jitter of the offsets in the filter.
+     *
+     *  @return The jitter in nanoseconds.
+     */
+    public final long getJitter() { return m_Jitter; }
+
+    /**
+     *  Returns the number of requests that were not answered in time.
+     *
+     *  @return The number of lost requests.
+     */
+    public final long getLostCount() { return m_LostCount.get(); }
+
+    /**
+     *  Returns the current offset of this clock to the local clock.
+     *
+     *  @return The offset in nanoseconds.
+     */
+    public final long getOffset() { return m_Offset; }
+
+    /**
+     *  Returns the round trip times of all samples.
+     *
+     *  @return The round trip times.
+     */
+    public final LatencyHistogram getRoundTrips() { return m_RoundTrips; }
+
+    /**
+     *  Returns the number of samples.
+     *
+     *  @return The number of samples.
+     */
+    public final long getSampleCount() { return m_SampleCount.get(); }
+
+    /**
+     *  Returns the number of steps of the reference that were detected.
+     *
+     *  @return The number of steps.
+     */
+    public final long getStepCount() { return m_StepCount.get(); }
+
+    /**
+     *  Returns whether this clock is the reference.
+     *
+     *  @return {@code true} if this clock is the reference, {@code false}
+     *      if it follows another instance.
+     */
+    public final boolean isReference() { return isNull( m_Reference ); }
+
+    /**
+     *  Returns whether this clock is synchronised with the reference: the
+     *  most recent sample is not older than three poll intervals. The
+     *  reference itself is always synchronised.
+     *
+     *  @return {@code true} if the clock is synchronised, {@code false}
+     *      otherwise.
+     */
+    public final boolean isSynchronised()
+    {
+        final var retValue = isReference() || ((m_SampleCount.get() > 0L) && (m_Local.nanoTime() - m_SampleTime <= MILLISECONDS.toNanos( 3 * m_PollInterval )));
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  isSynchronised()
+
+    /**
+     *  {@inheritDoc}
+     *  <p>This is the time of the local clock plus the current offset.</p>
+     */
+    @Override
+    public final long nanoTime() { return m_Local.nanoTime() + m_Offset; }
+
+    /**
+     *  Returns a report on the quality of the synchronisation.
+     *
+     *  @return The report.
+     */
+    public final String report()
+    {
+        final var retValue = isReference()
+            ? "Reference"
+            : format( "%s, offset = %.3f ms, jitter = %.3f ms, %d samples, %d lost, %d steps, round trip: %s",
+                isSynchronised() ? "Synchronised" : "Not synchronised",
+                m_Offset / 1_000_000.0,
+                m_Jitter / 1_000_000.0,
+                m_SampleCount.get(),
+                m_LostCount.get(),
+                m_StepCount.get(),
+                m_RoundTrips.summary() );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  report()
+
+    /**
+     *  Sends a request to the reference and waits for the answer.
+     *
+     *  @param  buffer  The buffer for the messages.
+     *  @param  packet  The packet for the messages; it is backed by the
+     *      buffer.
+     *  @throws IOException The request could not be sent, or the socket was
+     *      closed.
+     */
+    private final void requestSample( final ByteBuffer buffer, final DatagramPacket packet ) throws IOException
+    {
+        final var requestTime = m_Local.nanoTime();
+        buffer.clear();
+        buffer.putInt( 0, MAGIC ).putLong( OFFSET_REQUEST_TIME, requestTime ).putLong( OFFSET_RECEIVE_TIME, 0L ).putLong( OFFSET_RESPONSE_TIME, 0L );
+        packet.setSocketAddress( m_Reference );
+        packet.setLength( PACKET_SIZE );
+        m_Socket.send( packet );
+        try
+        {
+            //---* Discard late answers to earlier requests *------------------
+            ReceiveLoop: while( true )
+            {
+                packet.setLength( PACKET_SIZE );
+                m_Socket.receive( packet );
+                final var responseTime = m_Local.nanoTime();
+                if( (packet.getLength() == PACKET_SIZE) && (buffer.getInt( 0 ) == MAGIC) && (buffer.getLong( OFFSET_REQUEST_TIME ) == requestTime) )
+                {
+                    final var receiveTime = buffer.getLong( OFFSET_RECEIVE_TIME );
+                    final var sendTime = buffer.getLong( OFFSET_RESPONSE_TIME );
+                    final var offset = ((receiveTime - requestTime) + (sendTime - responseTime)) / 2L;
+                    final var roundTrip = (responseTime - requestTime) - (sendTime - receiveTime);
+                    addSample( new Sample( offset, roundTrip, responseTime ) );
+                    break ReceiveLoop;
+                }
+            }   //  ReceiveLoop:
+        }
+        catch( final SocketTimeoutException ignored )
+        {
+            m_LostCount.incrementAndGet();
+        }
+    }   //  requestSample()
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final Future<?> schedule( final Runnable task, final long deadline )
+    {
+        return m_Local.schedule( task, toLocalTime( deadline ) );
+    }   //  schedule()
+
+    /**
+     *  Selects the sample with the shortest round trip from the filter; the
+     *  filter must not be empty.
+     *
+     *  @return The selected sample.
+     */
+    private final Sample selectSample()
+    {
+        Sample retValue = null;
+        for( final var candidate : m_Filter )
+        {
+            if( nonNull( candidate ) && (isNull( retValue ) || (candidate.roundTrip() < retValue.roundTrip())) ) retValue = candidate;
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  selectSample()
+
+    /**
+     *  The synchronisation loop; it is executed by the synchronisation thread
+     *  until the clock is closed.
+     */
+    private final void synchronise()
+    {
+        final var buffer = ByteBuffer.allocate( PACKET_SIZE );
+        final var packet = new DatagramPacket( buffer.array(), PACKET_SIZE );
+        final var logger = getLogger( SharedClock.class.getName() );
+        try
+        {
+            SyncLoop: while( !m_Closed )
+            {
+                try
+                {
+                    requestSample( buffer, packet );
+                }
+                catch( final IOException e )
+                {
+                    //---* Closing the socket causes a SocketException *-------
+                    if( m_Closed ) break SyncLoop;
+
+                    //---* The reference may just not be reachable yet *-------
+                    m_LostCount.incrementAndGet();
+                    logger.log( DEBUG, "Clock synchronisation request failed", e );
+                }
+                Thread.sleep( m_FilterCount < FILTER_SIZE ? INITIAL_POLL_INTERVAL : m_PollInterval );
+            }   //  SyncLoop:
+        }
+        catch( final InterruptedException ignored )
+        {
+            //---* Terminate the synchronisation thread *----------------------
+        }
+    }   //  synchronise()
+
+    /**
+     *  Converts the given time of this clock into the time of the local
+     *  clock.
+     *
+     *  @param  time    The time of this clock.
+     *  @return The corresponding time of the local clock.
+     */
+    public final long toLocalTime( final long time ) { return time - m_Offset; }
+}
+//  class SharedClock
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,250 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static javafx.application.Platform.runLater;
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.lang.Objects.isNull;
+import static org.tquadrat.foundation.lang.Objects.nonNull;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Consumer;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import javafx.scene.Scene;
+
+/**
+ *  <p>{@summary Measures the latencies of the light and of the sound
+ *  signal.}</p>
+ *  <p>The calibration switches a light on and off for
+ *  {@value #ROUNDS}
+ *  times, and plays a quiet
+ *  {@linkplain SignalEngine#createClick() click}
+ *  each time. For the light, the latency is the time from the request to
+ *  change it until the first frame that shows the change was rendered; the
+ *  request is issued from a background thread, in the same way as the
+ *  {@linkplain HeatEngine#addCue(long, HeatEngine.CueListener) cues}
+ *  of a heat do it. For the sound, it is the time from the request until the
+ *  first sample reaches the output, as measured by the
+ *  {@link SignalEngine}.
+ *  Latencies after that point – in the graphics driver and the display, or
+ *  in the amplifier – cannot be measured by the application.</p>
+ *  <p>The median of each latency is used as the lead time for the cue that
+ *  triggers the respective signal, so that the light and the sound reach
+ *  the shooter at the same instant.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.3.0" )
+public final class SignalCalibration
+{
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The time between two measurements in milliseconds: {@value}.
+     */
+    public static final long INTERVAL = 150L;
+
+    /**
+     *  The number of measurements: {@value}.
+     */
+    public static final int ROUNDS = 20;
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The click that is played for the measurement, or {@code null} if the
+     *  {@link SignalEngine}
+     *  is not available.
+     */
+    private final SignalEngine.Signal m_Click;
+
+    /**
+     *  The signal engine, or {@code null} if it is not available.
+     */
+    private final SignalEngine m_Engine;
+
+    /**
+     *  The periodic task for the measurements.
+     */
+    private volatile ScheduledFuture<?> m_Future;
+
+    /**
+     *  The method that switches the light on ({@code true}) or off
+     *  ({@code false}).
+     */
+    private final Consumer<Boolean> m_Light;
+
+    /**
+     *  The latencies of the light.
+     */
+    private final LatencyHistogram m_LightLatencies = new LatencyHistogram();
+
+    /**
+     *  The result.
+     */
+    private final CompletableFuture<SignalCalibration> m_Result = new CompletableFuture<>();
+
+    /**
+     *  The number of the current measurement; it is used only by the thread
+     *  that executes the measurements.
+     */
+    private int m_Round = 0;
+
+    /**
+     *  The scene that shows the light.
+     */
+    private final Scene m_Scene;
+
+    /**
+     *  The latencies of the sound.
+     */
+    private final LatencyHistogram m_SoundLatencies = new LatencyHistogram();
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new {@code SignalCalibration} instance.
+     *
+     *  @param  scene   The scene that shows the light.
+     *  @param  light   The method that switches the light on ({@code true})
+     *      or off ({@code false}); it will be called on the JavaFX
+     *      Application Thread.
+     */
+    public SignalCalibration( final Scene scene, final Consumer<Boolean> light )
+    {
+        m_Scene = requireNonNullArgument( scene, "scene" );
+        m_Light = requireNonNullArgument( light, "light" );
+        m_Engine = SignalEngine.getInstance().orElse( null );
+        m_Click = isNull( m_Engine ) ? null : m_Engine.createClick();
+    }   //  SignalCalibration()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Returns the median of the latencies of the light.
+     *
+     *  @return The latency in nanoseconds.
+     */
+    public final long getLightLatency() { return m_LightLatencies.getValueAtPercentile( 50.0 ); }
+
+    /**
+     *  Returns the latencies of the light.
+     *
+     *  @return The latencies.
+     */
+    public final LatencyHistogram getLightLatencies() { return m_LightLatencies; }
+
+    /**
+     *  Returns the median of the latencies of the sound.
+     *
+     *  @return The latency in nanoseconds; it is 0 if the
+     *      {@link SignalEngine}
+     *      is not available.
+     */
+    public final long getSoundLatency() { return m_SoundLatencies.getValueAtPercentile( 50.0 ); }
+
+    /**
+     *  Returns the latencies of the sound.
+     *
+     *  @return The latencies; no values are recorded if the
+     *      {@link SignalEngine}
+     *      is not available.
+     */
+    public final LatencyHistogram getSoundLatencies() { return m_SoundLatencies; }
+
+    /**
+     *  Executes a single measurement, or finishes the calibration after the
+     *  last one. If a measurement fails, the calibration is finished, too,
+     *  and the result is completed with the exception; otherwise the
+     *  scheduler would just drop the periodic task, and the result would
+     *  never be completed.
+     */
+    private final void measure()
+    {
+        try
+        {
+            if( m_Round < ROUNDS )
+            {
+                final var on = (m_Round++ % 2) == 0;
+                final var requestTime = nanoTime();
+                runLater( () ->
+                {
+                    m_Light.accept( Boolean.valueOf( on ) );
+                    FrameProbe.onNextFrame( m_Scene, frameTime -> m_LightLatencies.record( frameTime - requestTime ) );
+                } );
+                if( nonNull( m_Click ) ) m_Engine.play( m_Click, m_SoundLatencies );
+            }
+            else
+            {
+                m_Future.cancel( false );
+                runLater( () ->
+                {
+                    m_Light.accept( Boolean.FALSE );
+                    m_Result.complete( this );
+                } );
+            }
+        }
+        catch( final RuntimeException e )
+        {
+            m_Future.cancel( false );
+            runLater( () ->
+            {
+                m_Light.accept( Boolean.FALSE );
+                m_Result.completeExceptionally( e );
+            } );
+        }
+    }   //  measure()
+
+    /**
+     *  Starts the calibration on the given scheduler.
+     *
+     *  @param  scheduler   The scheduler.
+     *  @return The result; it will be completed with this instance when all
+     *      measurements were taken, or with the exception if a measurement
+     *      failed.
+     *  @throws IllegalStateException   The calibration was already started.
+     */
+    public final synchronized CompletableFuture<SignalCalibration> start( final ScheduledExecutorService scheduler ) throws IllegalStateException
+    {
+        if( nonNull( m_Future ) ) throw new IllegalStateException( "Calibration already started" );
+        m_Future = requireNonNullArgument( scheduler, "scheduler" ).scheduleAtFixedRate( this::measure, INTERVAL, INTERVAL, MILLISECONDS );
+
+        //---* Done *----------------------------------------------------------
+        return m_Result;
+    }   //  start()
+}
+//  class SignalCalibration
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,332 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static java.lang.String.format;
+import static java.lang.System.Logger.Level.ERROR;
+import static java.lang.System.getLogger;
+import static java.lang.System.nanoTime;
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.StringJoiner;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.shootingtimer.spi.SignalSink;
+import org.tquadrat.shootingtimer.spi.Status;
+
+/**
+ *  <p>{@summary Dispatches the
+ *  {@link Status}
+ *  transitions to the external
+ *  {@linkplain SignalSink signal sinks}.}</p>
+ *  <p>The dispatcher is registered as a listener with the
+ *  {@link StatusMachine};
+ *  it only queues the transitions, on the thread that caused them. A
+ *  dedicated thread with the highest priority takes them from the queue and
+ *  calls the sinks. For each sink, the dispatcher records the latency from
+ *  the transition until the sink returned. A sink that throws an exception
+ *  does not affect the other sinks.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.3.0" )
+public final class SignalDispatcher implements StatusMachine.StatusListener, AutoCloseable
+{
+        /*---------------*\
+    ====** Inner Classes **====================================================
+        \*---------------*/
+    /**
+     *  A sink, together with its latencies.
+     *
+     *  @param  sink    The sink.
+     *  @param  latencies   The latencies from the transition until the sink
+     *      returned.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.3.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.3.0" )
+    private static record Channel( SignalSink sink, LatencyHistogram latencies ) {}
+
+    /**
+     *  A queued transition.
+     *
+     *  @param  oldStatus   The previous status; {@code null} for the request
+     *      to stop the dispatch thread.
+     *  @param  newStatus   The new status.
+     *  @param  transitionTime  The time of the transition, as returned by
+     *      {@link System#nanoTime()}.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.3.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.3.0" )
+    private static record Transition( Status oldStatus, Status newStatus, long transitionTime ) {}
+
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The request to stop the dispatch thread.
+     */
+    private static final Transition STOP = new Transition( null, null, 0L );
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The sinks.
+     */
+    private final List<Channel> m_Channels;
+
+    /**
+     *  The dispatch thread.
+     */
+    private final Thread m_DispatchThread;
+
+    /**
+     *  The queued transitions.
+     */
+    private final BlockingQueue<Transition> m_Queue = new LinkedBlockingQueue<>();
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new {@code SignalDispatcher} instance for all available
+     *  sinks that can be found by the
+     *  {@link ServiceLoader},
+     *  and starts the dispatch thread. A sink that cannot be loaded is
+     *  skipped.
+     *
+     *  @see #loadSinks()
+     */
+    public SignalDispatcher()
+    {
+        this( loadSinks() );
+    }   //  SignalDispatcher()
+
+    /**
+     *  Creates a new {@code SignalDispatcher} instance for the given sinks,
+     *  and starts the dispatch thread.
+     *
+     *  @param  sinks   The sinks.
+     */
+    public SignalDispatcher( final List<? extends SignalSink> sinks )
+    {
+        m_Channels = requireNonNullArgument( sinks, "sinks" ).stream()
+            .map( sink -> new Channel( sink, new LatencyHistogram() ) )
+            .toList();
+        m_DispatchThread = new Thread( this::dispatch, "SignalDispatcher" );
+        m_DispatchThread.setDaemon( true );
+        m_DispatchThread.setPriority( Thread.MAX_PRIORITY );
+        m_DispatchThread.start();
+    }   //  SignalDispatcher()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Stops the dispatch thread after the transitions that are already
+     *  queued were dispatched, and closes the sinks.
+     */
+    @Override
+    public final void close()
+    {
+        m_Queue.offer( STOP );
+        try
+        {
+            m_DispatchThread.join( 1_000L );
+        }
+        catch( final InterruptedException ignored )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }   //  close()
+
+    /**
+     *  The dispatch loop; it is executed by the dispatch thread until the
+     *  dispatcher is closed.
+     */
+    private final void dispatch()
+    {
+        final var logger = getLogger( SignalDispatcher.class.getName() );
+        try
+        {
+            DispatchLoop: while( true )
+            {
+                final var transition = m_Queue.take();
+                if( transition == STOP ) break DispatchLoop;
+                for( final var channel : m_Channels )
+                {
+                    try
+                    {
+                        channel.sink().statusChanged( transition.oldStatus(), transition.newStatus(), transition.transitionTime() );
+                    }
+                    catch( final RuntimeException e )
+                    {
+                        logger.log( ERROR, "Signal sink '%s' failed".formatted( channel.sink().getName() ), e );
+                    }
+                    channel.latencies().record( nanoTime() - transition.transitionTime() );
+                }
+            }   //  DispatchLoop:
+        }
+        catch( final InterruptedException ignored )
+        {
+            //---* Terminate the dispatch thread *-----------------------------
+        }
+        finally
+        {
+            for( final var channel : m_Channels )
+            {
+                try
+                {
+                    channel.sink().close();
+                }
+                catch( final RuntimeException e )
+                {
+                    logger.log( ERROR, "Signal sink '%s' could not be closed".formatted( channel.sink().getName() ), e );
+                }
+            }
+        }
+    }   //  dispatch()
+
+    /**
+     *  Returns the latencies for the given sink.
+     *
+     *  @param  sink    The sink.
+     *  @return The latencies from the transition until the sink returned.
+     *  @throws IllegalArgumentException    The sink is not used by this
+     *      dispatcher.
+     */
+    public final LatencyHistogram getLatencies( final SignalSink sink ) throws IllegalArgumentException
+    {
+        final var retValue = m_Channels.stream()
+            .filter( channel -> channel.sink() == sink )
+            .map( Channel::latencies )
+            .findFirst()
+            .orElseThrow( () -> new IllegalArgumentException( "Unknown sink" ) );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getLatencies()
+
+    /**
+     *  Returns the sinks.
+     *
+     *  @return The sinks.
+     */
+    public final List<SignalSink> getSinks()
+    {
+        final var retValue = m_Channels.stream()
+            .map( Channel::sink )
+            .toList();
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getSinks()
+
+    /**
+     *  Loads the available sinks with the
+     *  {@link ServiceLoader}.
+     *  A provider that is not configured properly, a sink whose constructor
+     *  fails, and a sink that fails to tell whether it is available, are
+     *  logged and skipped, like a failing sink is skipped on
+     *  {@linkplain #dispatch() dispatch}.
+     *
+     *  @return The available sinks.
+     */
+    private static final List<SignalSink> loadSinks()
+    {
+        final var logger = getLogger( SignalDispatcher.class.getName() );
+        final var retValue = new ArrayList<SignalSink>();
+        final var iterator = ServiceLoader.load( SignalSink.class ).iterator();
+        LoadLoop: while( true )
+        {
+            try
+            {
+                /*
+                 * After a failure, the iterator of the service loader
+                 * proceeds with the next provider.
+                 */
+                if( !iterator.hasNext() ) break LoadLoop;
+                final var sink = iterator.next();
+                if( sink.isAvailable() ) retValue.add( sink );
+            }
+            catch( final ServiceConfigurationError | RuntimeException e )
+            {
+                logger.log( ERROR, "Signal sink could not be loaded", e );
+            }
+        }   //  LoadLoop:
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  loadSinks()
+
+    /**
+     *  Returns a report with the latencies for all sinks.
+     *
+     *  @return The report, one line per sink.
+     */
+    public final String report()
+    {
+        final var joiner = new StringJoiner( "\n" );
+        joiner.setEmptyValue( "No signal sinks" );
+        for( final var channel : m_Channels )
+        {
+            joiner.add( format( "%s: %s", channel.sink().getName(), channel.latencies().summary() ) );
+        }
+        final var retValue = joiner.toString();
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  report()
+
+    /**
+     *  {@inheritDoc}
+     *  <p>The transition is only queued for the dispatch thread.</p>
+     */
+    @Override
+    public final void statusChanged( final Status oldStatus, final Status newStatus )
+    {
+        m_Queue.offer( new Transition( oldStatus, newStatus, nanoTime() ) );
+    }   //  statusChanged()
+}
+//  class SignalDispatcher
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,536 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static java.lang.System.nanoTime;
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.lang.Objects.isNull;
+import static org.tquadrat.foundation.lang.Objects.nonNull;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary The audio engine for the signals, playing pre-decoded PCM
+ *  data.}</p>
+ *  <p>The engine keeps a single output line open for the lifetime of the
+ *  application. A dedicated mixer thread writes to that line in small
+ *  chunks of
+ *  {@value #CHUNK_FRAMES}
+ *  frames; when no signal is playing, it writes silence, so the line is
+ *  always primed and never has to be started for a signal. Signals that
+ *  overlap are mixed, and none of them is stopped.</p>
+ *  <p>The signals are kept completely in memory; playing a
+ *  signal only hands it over to the mixer thread, which adds it to the next
+ *  chunk. For each signal, the engine records the latency from the request
+ *  to the moment when its first sample will reach the output: this is the
+ *  time until the chunk with that sample was written, plus the time for the
+ *  frames that were still queued in the line at that moment.</p>
+ *  <p>The engine is available only if the platform provides an output line
+ *  for
+ *  {@link #FORMAT};
+ *  the signals have to be raw PCM data in that format, without any header.
+ *  The build creates these files from the MP3 files for the signals.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.3.0" )
+public final class SignalEngine implements AutoCloseable
+{
+        /*---------------*\
+    ====** Inner Classes **====================================================
+        \*---------------*/
+    /**
+     *  The holder for the engine; the output line will be opened when this
+     *  class is initialised.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.3.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.3.0" )
+    private static final class EngineHolder
+    {
+        /**
+         *  The engine, or {@code null} if no output line is available.
+         */
+        static final SignalEngine m_Instance = open();
+    }
+    //  class EngineHolder
+
+    /**
+     *  A signal, as PCM data in
+     *  {@link SignalEngine#FORMAT}.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.3.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.3.0" )
+    public static final class Signal implements Sound
+    {
+            /*------------*\
+        ====** Attributes **===================================================
+            \*------------*/
+        /**
+         *  The engine that plays the signal.
+         */
+        private final SignalEngine m_Engine;
+
+        /**
+         *  The samples, interleaved for the channels.
+         */
+        private final short [] m_Samples;
+
+            /*--------------*\
+        ====** Constructors **=================================================
+            \*--------------*/
+        /**
+         *  Creates a new {@code Signal} instance.
+         *
+         *  @param  engine  The engine that plays the signal.
+         *  @param  samples The samples, interleaved for the channels.
+         */
+        Signal( final SignalEngine engine, final short [] samples )
+        {
+            m_Engine = engine;
+            m_Samples = samples;
+        }   //  Signal()
+
+            /*---------*\
+        ====** Methods **======================================================
+            \*---------*/
+        /**
+         *  Returns the duration of the signal.
+         *
+         *  @return The duration in milliseconds.
+         */
+        public final long getDuration() { return (long) (m_Samples.length / CHANNELS * 1_000.0 / FORMAT.getSampleRate()); }
+
+        /**
+         *  {@inheritDoc}
+         */
+        @Override
+        public final void play() { m_Engine.play( this ); }
+    }
+    //  class Signal
+
+    /**
+     *  A signal that is currently played; it is used only by the mixer
+     *  thread.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.3.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.3.0" )
+    private static final class Voice
+    {
+            /*------------*\
+        ====** Attributes **===================================================
+            \*------------*/
+        /**
+         *  The histogram for the latency of this voice.
+         */
+        final LatencyHistogram m_Latencies;
+
+        /**
+         *  The position of the next sample.
+         */
+        int m_Position = 0;
+
+        /**
+         *  The time of the request, as returned by
+         *  {@link System#nanoTime()}.
+         */
+        final long m_RequestTime;
+
+        /**
+         *  The samples.
+         */
+        final short [] m_Samples;
+
+            /*--------------*\
+        ====** Constructors **=================================================
+            \*--------------*/
+        /**
+         *  Creates a new {@code Voice} instance.
+         *
+         *  @param  samples The samples.
+         *  @param  requestTime The time of the request, as returned by
+         *      {@link System#nanoTime()}.
+         *  @param  latencies   The histogram for the latency.
+         */
+        Voice( final short [] samples, final long requestTime, final LatencyHistogram latencies )
+        {
+            m_Samples = samples;
+            m_RequestTime = requestTime;
+            m_Latencies = latencies;
+        }   //  Voice()
+    }
+    //  class Voice
+
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The number of channels: {@value}.
+     */
+    public static final int CHANNELS = 2;
+
+    /**
+     *  The number of frames that are mixed and written at once: {@value}.
+     *  This is about 2.9&nbsp;ms.
+     */
+    public static final int CHUNK_FRAMES = 128;
+
+    /**
+     *  The duration of the
+     *  {@linkplain #createClick() click}
+     *  in frames: {@value}; this is about 5&nbsp;ms.
+     */
+    private static final int CLICK_FRAMES = 220;
+
+    /**
+     *  The audio format for the output line, and for the signals: 44.1&nbsp;kHz,
+     *  16&nbsp;bit, signed, little endian, stereo.
+     */
+    public static final AudioFormat FORMAT = new AudioFormat( 44_100.0F, 16, CHANNELS, true, false );
+
+    /**
+     *  The size of a frame in bytes: {@value}.
+     */
+    private static final int FRAME_SIZE = CHANNELS * 2;
+
+    /**
+     *  The requested size of the buffer of the output line, in frames:
+     *  {@value}. This limits the latency, but if it is too small, the line
+     *  will underrun when the mixer thread is not scheduled in time.
+     */
+    public static final int LINE_BUFFER_FRAMES = CHUNK_FRAMES * 4;
+
+    /**
+     *  The maximum number of signals that are mixed at the same time:
+     *  {@value}. If another signal is requested, the oldest signal is
+     *  dropped.
+     */
+    public static final int MAX_VOICES = 4;
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The number of frames that were written to the line.
+     */
+    private long m_FramesWritten = 0L;
+
+    /**
+     *  The latencies from the request of a signal until its first sample
+     *  reaches the output.
+     */
+    private final LatencyHistogram m_Latencies = new LatencyHistogram();
+
+    /**
+     *  The output line.
+     */
+    private final SourceDataLine m_Line;
+
+    /**
+     *  The mixer thread.
+     */
+    private final Thread m_MixerThread;
+
+    /**
+     *  The requests for signals that were not yet picked up by the mixer
+     *  thread.
+     */
+    private final Queue<Voice> m_Requests = new ConcurrentLinkedQueue<>();
+
+    /**
+     *  The flag that keeps the mixer thread running.
+     */
+    private volatile boolean m_Running = true;
+
+    /**
+     *  The signals that are currently played.
+     */
+    private final Voice [] m_Voices = new Voice [MAX_VOICES];
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new {@code SignalEngine} instance.
+     *
+     *  @param  line    The output line; it is already open.
+     */
+    private SignalEngine( final SourceDataLine line )
+    {
+        m_Line = line;
+        m_MixerThread = new Thread( this::mix, "SignalMixer" );
+        m_MixerThread.setDaemon( true );
+        m_MixerThread.setPriority( Thread.MAX_PRIORITY );
+    }   //  SignalEngine()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Picks up the pending requests; they will start with the next chunk.
+     */
+    private final void admitRequests()
+    {
+        Voice voice;
+        while( nonNull( voice = m_Requests.poll() ) )
+        {
+            //---* Find a free slot, or the oldest voice *---------------------
+            var slot = 0;
+            for( var i = 0; i < MAX_VOICES; ++i )
+            {
+                if( isNull( m_Voices [i] ) )
+                {
+                    slot = i;
+                    break;
+                }
+                if( m_Voices [i].m_RequestTime - m_Voices [slot].m_RequestTime < 0L ) slot = i;
+            }
+            m_Voices [slot] = voice;
+
+            //---* Record the latency *----------------------------------------
+            final var queuedFrames = m_FramesWritten - m_Line.getLongFramePosition();
+            final var queuedTime = (long) (queuedFrames * 1_000_000_000.0 / FORMAT.getSampleRate());
+            voice.m_Latencies.record( nanoTime() - voice.m_RequestTime + Math.max( queuedTime, 0L ) );
+        }
+    }   //  admitRequests()
+
+    /**
+     *  Stops the mixer thread and closes the output line.
+     */
+    @Override
+    public final void close()
+    {
+        m_Running = false;
+        try
+        {
+            m_MixerThread.join( 1_000L );
+        }
+        catch( final InterruptedException ignored )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }   //  close()
+
+    /**
+     *  Creates a short and quiet click; it is used to measure the latency of
+     *  the audio output without disturbing anybody.
+     *
+     *  @return The click.
+     */
+    public final Signal createClick()
+    {
+        final var samples = new short [CLICK_FRAMES * CHANNELS];
+        for( var frame = 0; frame < CLICK_FRAMES; ++frame )
+        {
+            final var value = (short) (Math.sin( 2.0 * Math.PI * 1_000.0 * frame / FORMAT.getSampleRate() ) * (Short.MAX_VALUE / 10));
+            for( var channel = 0; channel < CHANNELS; ++channel ) samples [frame * CHANNELS + channel] = value;
+        }
+        final var retValue = new Signal( this, samples );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  createClick()
+
+    /**
+     *  Returns the engine.
+     *
+     *  @return An instance of
+     *      {@link Optional}
+     *      that holds the engine; it is empty if no output line is available
+     *      on this platform.
+     */
+    public static final Optional<SignalEngine> getInstance() { return Optional.ofNullable( EngineHolder.m_Instance ); }
+
+    /**
+     *  Returns the latencies from the request of a signal until its first
+     *  sample reaches the output.
+     *
+     *  @return The latencies.
+     */
+    public final LatencyHistogram getLatencies() { return m_Latencies; }
+
+    /**
+     *  Loads the signal from the given resource. The resource has to contain
+     *  raw PCM data in
+     *  {@link #FORMAT},
+     *  as it is created by the build; it is read at once, and no decoding is
+     *  required.
+     *
+     *  @param  name    The name of the resource, relative to this class.
+     *  @return An instance of
+     *      {@link Optional}
+     *      that holds the signal; empty if the resource does not exist, or if
+     *      it cannot be read.
+     */
+    public final Optional<Signal> loadSignal( final String name )
+    {
+        Optional<Signal> retValue = Optional.empty();
+        final var url = SignalEngine.class.getResource( requireNonNullArgument( name, "name" ) );
+        if( nonNull( url ) )
+        {
+            try( final var inputStream = url.openStream() )
+            {
+                final var bytes = inputStream.readAllBytes();
+                final var samples = new short [bytes.length / FRAME_SIZE * CHANNELS];
+                for( var i = 0; i < samples.length; ++i )
+                {
+                    samples [i] = (short) ((bytes [2 * i] & 0xFF) | (bytes [2 * i + 1] << 8));
+                }
+                retValue = Optional.of( new Signal( this, samples ) );
+            }
+            catch( final IOException ignored )
+            {
+                retValue = Optional.empty();
+            }
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  loadSignal()
+
+    /**
+     *  The mixer loop; it is executed by the mixer thread until the engine is
+     *  closed. Writing to the line blocks until there is room for the next
+     *  chunk, and this paces the loop.
+     */
+    private final void mix()
+    {
+        final var mixBuffer = new int [CHUNK_FRAMES * CHANNELS];
+        final var outputBuffer = new byte [CHUNK_FRAMES * FRAME_SIZE];
+        m_Line.start();
+        try
+        {
+            while( m_Running )
+            {
+                admitRequests();
+
+                //---* Mix the active voices *---------------------------------
+                Arrays.fill( mixBuffer, 0 );
+                for( var i = 0; i < MAX_VOICES; ++i )
+                {
+                    final var voice = m_Voices [i];
+                    if( nonNull( voice ) )
+                    {
+                        final var count = Math.min( mixBuffer.length, voice.m_Samples.length - voice.m_Position );
+                        for( var s = 0; s < count; ++s ) mixBuffer [s] += voice.m_Samples [voice.m_Position + s];
+                        voice.m_Position += count;
+                        if( voice.m_Position >= voice.m_Samples.length ) m_Voices [i] = null;
+                    }
+                }
+
+                //---* Clip and convert the mix *------------------------------
+                for( var s = 0; s < mixBuffer.length; ++s )
+                {
+                    final var sample = Math.max( Short.MIN_VALUE, Math.min( Short.MAX_VALUE, mixBuffer [s] ) );
+                    outputBuffer [2 * s] = (byte) sample;
+                    outputBuffer [2 * s + 1] = (byte) (sample >> 8);
+                }
+                m_Line.write( outputBuffer, 0, outputBuffer.length );
+                m_FramesWritten += CHUNK_FRAMES;
+            }
+        }
+        finally
+        {
+            m_Line.stop();
+            m_Line.close();
+        }
+    }   //  mix()
+
+    /**
+     *  Opens the output line and starts the mixer thread.
+     *
+     *  @return The engine, or {@code null} if no output line is available.
+     */
+    private static final SignalEngine open()
+    {
+        SignalEngine retValue = null;
+        try
+        {
+            final var line = AudioSystem.getSourceDataLine( FORMAT );
+            line.open( FORMAT, LINE_BUFFER_FRAMES * FRAME_SIZE );
+            retValue = new SignalEngine( line );
+            retValue.m_MixerThread.start();
+        }
+        catch( final LineUnavailableException | IllegalArgumentException | SecurityException ignored )
+        {
+            retValue = null;
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  open()
+
+    /**
+     *  Plays the given signal; the method returns immediately.
+     *
+     *  @param  signal  The signal.
+     */
+    public final void play( final Signal signal )
+    {
+        play( signal, m_Latencies );
+    }   //  play()
+
+    /**
+     *  Plays the given signal, and records the latency into the given
+     *  histogram instead of the one of this engine; the method returns
+     *  immediately.
+     *
+     *  @param  signal  The signal.
+     *  @param  latencies   The histogram for the latency.
+     */
+    public final void play( final Signal signal, final LatencyHistogram latencies )
+    {
+        m_Requests.offer( new Voice( requireNonNullArgument( signal, "signal" ).m_Samples, nanoTime(), requireNonNullArgument( latencies, "latencies" ) ) );
+    }   //  play()
+}
+//  class SignalEngine
+
+/*
+ *  End of File
+ */
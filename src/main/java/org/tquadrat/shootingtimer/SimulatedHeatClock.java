@@ -0,0 +1,234 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static org.apiguardian.api.API.Status.INTERNAL;
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.lang.Objects.nonNull;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.foundation.lang.AutoLock;
+
+/**
+ *  <p>{@summary An implementation of
+ *  {@link HeatClock}
+ *  with a simulated time.}</p>
+ *  <p>The time of this clock does not pass by itself; it is moved forward by
+ *  calls to
+ *  {@link #advanceTo(long)}
+ *  or
+ *  {@link #runUntilIdle()},
+ *  and the scheduled tasks are executed by the thread that makes that call,
+ *  in the order of their deadlines. This allows to execute a whole program
+ *  of a discipline within a few milliseconds, without any JavaFX toolkit and
+ *  without any additional thread.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.3.0" )
+public final class SimulatedHeatClock implements HeatClock
+{
+        /*---------------*\
+    ====** Inner Classes **====================================================
+        \*---------------*/
+    /**
+     *  A scheduled task.
+     *
+     *  @param  deadline    The deadline for the task.
+     *  @param  sequence    The sequence number; tasks with the same deadline
+     *      are executed in the order they were scheduled.
+     *  @param  task    The task.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.3.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = INTERNAL, since = "0.3.0" )
+    private static record Entry( long deadline, long sequence, FutureTask<?> task ) {}
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The guard for the task queue and the current time.
+     */
+    private final AutoLock m_Guard = AutoLock.of( new ReentrantLock( false ) );
+
+    /**
+     *  The current time.
+     */
+    private long m_Now;
+
+    /**
+     *  The scheduled tasks.
+     */
+    private final PriorityQueue<Entry> m_Queue = new PriorityQueue<>( Comparator.comparingLong( Entry::deadline ).thenComparingLong( Entry::sequence ) );
+
+    /**
+     *  The sequence number for the next task.
+     */
+    private long m_Sequence = 0L;
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new {@code SimulatedHeatClock} instance, starting at time
+     *  0.
+     */
+    public SimulatedHeatClock() { this( 0L ); }
+
+    /**
+     *  Creates a new {@code SimulatedHeatClock} instance.
+     *
+     *  @param  startTime   The initial time of the clock in nanoseconds.
+     */
+    public SimulatedHeatClock( final long startTime ) { m_Now = startTime; }
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Moves the time of this clock forward to the given time, and executes
+     *  all tasks with a deadline up to that time; tasks that are scheduled by
+     *  these tasks will be executed as well, if their deadlines are not after
+     *  the given time.
+     *
+     *  @param  time    The new time of the clock; if it is before the current
+     *      time, only the overdue tasks will be executed.
+     *  @return The number of executed tasks.
+     */
+    public final int advanceTo( final long time )
+    {
+        final var retValue = executeTasks( time, false );
+        try( var ignored = m_Guard.lock() )
+        {
+            if( time - m_Now > 0L ) m_Now = time;
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  advanceTo()
+
+    /**
+     *  Executes the scheduled tasks in the order of their deadlines.
+     *
+     *  @param  time    The time up to that the tasks will be executed.
+     *  @param  all {@code true} if all tasks should be executed, regardless
+     *      of the given time.
+     *  @return The number of executed tasks.
+     */
+    private final int executeTasks( final long time, final boolean all )
+    {
+        var retValue = 0;
+        Entry entry;
+        while( nonNull( entry = pollDue( time, all ) ) )
+        {
+            //---* Execute the task outside of the lock *----------------------
+            entry.task().run();
+            ++retValue;
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  executeTasks()
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final long nanoTime()
+    {
+        try( var ignored = m_Guard.lock() )
+        {
+            return m_Now;
+        }
+    }   //  nanoTime()
+
+    /**
+     *  Removes the next task with a deadline not after the given time from
+     *  the queue, and moves the clock to its deadline, unless that is in the
+     *  past.
+     *
+     *  @param  time    The time.
+     *  @param  all {@code true} if the next task should be returned,
+     *      regardless of the given time.
+     *  @return The entry for the task, or {@code null} if there is no such
+     *      task.
+     */
+    private final Entry pollDue( final long time, final boolean all )
+    {
+        Entry retValue = null;
+        try( var ignored = m_Guard.lock() )
+        {
+            final var next = m_Queue.peek();
+            if( nonNull( next ) && (all || (next.deadline() - time <= 0L)) )
+            {
+                retValue = m_Queue.poll();
+                if( retValue.deadline() - m_Now > 0L ) m_Now = retValue.deadline();
+            }
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  pollDue()
+
+    /**
+     *  Executes all scheduled tasks, including those that are scheduled by
+     *  the executed tasks, until the queue is empty. The time of the clock is
+     *  moved to the deadline of the last executed task.
+     *
+     *  @return The number of executed tasks.
+     */
+    public final int runUntilIdle() { return executeTasks( 0L, true ); }
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final Future<?> schedule( final Runnable task, final long deadline )
+    {
+        final var retValue = new FutureTask<Void>( requireNonNullArgument( task, "task" ), null );
+        try( var ignored = m_Guard.lock() )
+        {
+            m_Queue.add( new Entry( deadline, m_Sequence++, retValue ) );
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  schedule()
+}
+//  class SimulatedHeatClock
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,202 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static java.lang.System.getProperty;
+import static org.apiguardian.api.API.Status.INTERNAL;
+import static org.tquadrat.foundation.lang.CommonConstants.PROPERTY_CPUARCHITECTURE;
+import static org.tquadrat.foundation.lang.Objects.isNull;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.foundation.annotation.UtilityClass;
+import org.tquadrat.foundation.exception.PrivateConstructorForStaticClassCalledError;
+import javafx.scene.media.AudioClip;
+
+/**
+ *  <p>{@summary Loads the sounds for the Shooting Timer in the
+ *  background.}</p>
+ *  <p>Loading a sound takes a noticeable amount of time; therefore the
+ *  sounds are requested early during the startup, and they are loaded on a
+ *  background thread while the user interface is built. Each sound is
+ *  loaded only once.</p>
+ *  <p>If the
+ *  {@link SignalEngine}
+ *  is available, and the build has created a file with the raw PCM data for
+ *  a sound next to its MP3 file, that file is read, and the sound will be
+ *  played by the engine; this works on the Raspberry&nbsp;Pi, too. Otherwise
+ *  the MP3 file is decoded, and the sound will be played as a JavaFX
+ *  {@link AudioClip},
+ *  if the platform supports this.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@UtilityClass
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = INTERNAL, since = "0.3.0" )
+public final class SoundLibrary
+{
+        /*------------------------*\
+    ====** Static Initialisations **===========================================
+        \*------------------------*/
+    /**
+     *  The sounds, with the names of their resources as the keys.
+     */
+    private static final Map<String,CompletableFuture<Optional<Sound>>> m_Sounds = new ConcurrentHashMap<>();
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  No instance allowed for this class.
+     */
+    private SoundLibrary() { throw new PrivateConstructorForStaticClassCalledError( SoundLibrary.class ); }
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Loads the sound from the given resource; the PCM data for the
+     *  {@link SignalEngine}
+     *  is preferred over the
+     *  {@link AudioClip}.
+     *
+     *  @param  name    The name of the resource, relative to this class.
+     *  @return An instance of
+     *      {@link Optional}
+     *      that holds the sound; empty if the resource does not exist, or if
+     *      sound is not supported on the current platform.
+     */
+    private static final Optional<Sound> decode( final String name )
+    {
+        var retValue = SignalEngine.getInstance()
+            .flatMap( engine -> engine.loadSignal( toPCMResourceName( name ) ) )
+            .map( Sound.class::cast );
+        if( retValue.isEmpty() && isSoundSupported() ) retValue = decodeAudioClip( name );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  decode()
+
+    /**
+     *  Decodes the sound from the given resource to an
+     *  {@link AudioClip},
+     *  and warms it up by playing and stopping it once.
+     *
+     *  @param  name    The name of the resource, relative to this class.
+     *  @return An instance of
+     *      {@link Optional}
+     *      that holds the sound; empty if the resource does not exist.
+     */
+    private static final Optional<Sound> decodeAudioClip( final String name )
+    {
+        final Optional<Sound> retValue;
+        final var url = SoundLibrary.class.getResource( name );
+        if( isNull( url ) )
+        {
+            retValue = Optional.empty();
+        }
+        else
+        {
+            final var audioClip = new AudioClip( url.toExternalForm() );
+            audioClip.play();
+            audioClip.stop();
+            retValue = Optional.of( audioClip::play );
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  decodeAudioClip()
+
+    /**
+     *  Returns whether JavaFX supports sound on the current platform.
+     *
+     *  @return {@code true} if sound is supported, {@code false} if not.
+     */
+    public static final boolean isSoundSupported()
+    {
+        /*
+         * Currently (as for 2017-08-19) JavaFX has issues to play media on
+         * the Raspberry PI 3, due to a problem with libjfxmedia.so.
+         * Therefore, we do now allow audio/sound on a Raspberry PI.
+         */
+        final var retValue = !"arm".equalsIgnoreCase( getProperty( PROPERTY_CPUARCHITECTURE ) );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  isSoundSupported()
+
+    /**
+     *  Returns the sound from the given resource; the first call for a
+     *  resource starts the loading in the background.
+     *
+     *  @param  name    The name of the resource, relative to this class.
+     *  @return The future for the sound; the
+     *      {@link Optional}
+     *      is empty if the resource does not exist, or if sound is not
+     *      supported on the current platform.
+     */
+    public static final CompletableFuture<Optional<Sound>> load( final String name )
+    {
+        requireNonNullArgument( name, "name" );
+        final var retValue = m_Sounds.computeIfAbsent( name, n -> CompletableFuture.supplyAsync( () -> decode( n ) ) );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  load()
+
+    /**
+     *  Starts to load the sounds from the given resources.
+     *
+     *  @param  names   The names of the resources, relative to this class.
+     */
+    public static final void preload( final String... names )
+    {
+        for( final var name : names ) load( name );
+    }   //  preload()
+
+    /**
+     *  Returns the name of the resource with the PCM data for the sound from
+     *  the given resource.
+     *
+     *  @param  name    The name of the resource.
+     *  @return The name of the PCM file.
+     */
+    private static final String toPCMResourceName( final String name )
+    {
+        final var pos = name.lastIndexOf( '.' );
+        final var retValue = (pos < 0 ? name : name.substring( 0, pos )) + ".pcm";
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  toPCMResourceName()
+}
+//  class SoundLibrary
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,1060 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static java.lang.String.format;
+import static java.lang.System.Logger.Level.ERROR;
+import static java.lang.System.getLogger;
+import static java.lang.System.nanoTime;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.lang.Objects.nonNull;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+import static org.tquadrat.shootingtimer.spi.Status.STATUS_OFF;
+import static org.tquadrat.shootingtimer.spi.Status.STATUS_PROLOG;
+import static org.tquadrat.shootingtimer.spi.Status.STATUS_SHOOTING;
+import static org.tquadrat.shootingtimer.spi.Status.STATUS_STARTING;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.shootingtimer.spi.Status;
+
+/**
+ *  <p>{@summary Streams the status of the heats as
+ *  <a href="https://html.spec.whatwg.org/multipage/server-sent-events.html">Server-Sent Events</a>
+ *  to spectator screens and to the scoring office.}</p>
+ *  <p>The feed runs a minimal HTTP server on a socket of its own; a client
+ *  subscribes with a {@code GET} request for
+ *  {@value #CONTEXT_PATH}.
+ *  The stream is not chunked, it ends when the connection is closed; so a
+ *  client can be dropped by just closing its socket, without writing
+ *  anything to it.
+ *  It receives two kinds of events:</p>
+ *  <dl>
+ *      <dt>{@code state}</dt>
+ *      <dd>The current
+ *          {@link Status}
+ *          and heat count, for example
+ *          {@code {"status":"STATUS_SHOOTING","heat":2}}; it is sent when
+ *          either of them changes, and once to each new subscriber.</dd>
+ *      <dt>{@code time}</dt>
+ *      <dd>The remaining time of the current phase in milliseconds, for
+ *          example {@code {"remaining":41300}}; it is sent every
+ *          {@value TimeUpdateService#UPDATE_PERIOD}&nbsp;ms while a timed
+ *          phase is running.</dd>
+ *  </dl>
+ *  <p>The feed is registered as a listener with the
+ *  {@link StatusMachine},
+ *  and it is notified of each new phase through
+ *  {@link #phaseStarted(HeatSchedule.Phase, long)};
+ *  both only queue a task, on the thread that called them. A dedicated
+ *  thread with normal priority takes the tasks from the queue, generates
+ *  the time ticks, and encodes each event exactly once; the resulting bytes
+ *  are shared by all subscribers.</p>
+ *  <p>The bytes are written to the clients by a small pool of writer
+ *  threads, so a slow client never delays the timing or the other clients.
+ *  A subscriber holds the pending {@code state} events in a queue, but only
+ *  the latest {@code time} event: a tick that could not be written before
+ *  the next one arrives is dropped. A client that falls behind by more than
+ *  {@value #MAX_BACKLOG}
+ *  {@code state} events, or that blocks a write for longer than
+ *  {@value #STALL_TIMEOUT}&nbsp;ms, is disconnected; the browsers will
+ *  reconnect by themselves. Closing the socket makes a write that is
+ *  blocked on it fail at once, so a dead client cannot hold a writer thread
+ *  for longer than the stall timeout.</p>
+ *  <p>The acceptor thread only accepts the connections; the requests are
+ *  read by a pool of
+ *  {@value #HANDSHAKE_THREADS}
+ *  handshake threads. A request must be complete within
+ *  {@value #REQUEST_TIMEOUT}&nbsp;ms after the connection was accepted, so
+ *  a client that is slow to send its request does not delay the others for
+ *  long. When all handshake threads are busy, up to
+ *  {@value #MAX_PENDING_HANDSHAKES}
+ *  connections wait for them; a further connection is closed at once.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.3.0" )
+public final class SpectatorFeed implements StatusMachine.StatusListener, AutoCloseable
+{
+        /*---------------*\
+    ====** Inner Classes **====================================================
+        \*---------------*/
+    /**
+     *  An encoded event.
+     *
+     *  @param  data    The bytes of the event, as they are written to the
+     *      clients.
+     *  @param  time    The time when the event was created, as returned by
+     *      {@link System#nanoTime()}.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.3.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.3.0" )
+    private static record Event( byte [] data, long time ) {}
+
+    /**
+     *  A client that subscribed to the feed.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.3.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.3.0" )
+    private final class Subscriber
+    {
+            /*------------*\
+        ====** Attributes **===================================================
+            \*------------*/
+        /**
+         *  The number of pending {@code state} events.
+         */
+        private final AtomicInteger m_Backlog = new AtomicInteger();
+
+        /**
+         *  The stream for the events.
+         */
+        private final OutputStream m_Body;
+
+        /**
+         *  The flag that indicates that the subscriber was disconnected.
+         */
+        private final AtomicBoolean m_Closed = new AtomicBoolean( false );
+
+        /**
+         *  The pending {@code state} events.
+         */
+        private final Queue<Event> m_Events = new ConcurrentLinkedQueue<>();
+
+        /**
+         *  The flag that indicates that a writer thread is busy with this
+         *  subscriber, or will be soon.
+         */
+        private final AtomicBoolean m_Scheduled = new AtomicBoolean( false );
+
+        /**
+         *  The connection to the client.
+         */
+        private final Socket m_Socket;
+
+        /**
+         *  The latest {@code time} event that was not yet written.
+         */
+        private final AtomicReference<Event> m_Tick = new AtomicReference<>();
+
+        /**
+         *  The time when the current write started, as returned by
+         *  {@link System#nanoTime()};
+         *  0 if no write is in progress.
+         */
+        private volatile long m_WriteStart = 0L;
+
+            /*--------------*\
+        ====** Constructors **=================================================
+            \*--------------*/
+        /**
+         *  Creates a new {@code Subscriber} instance.
+         *
+         *  @param  socket  The connection to the client; the response
+         *      headers were already sent.
+         *  @throws IOException The stream for the events could not be
+         *      opened.
+         */
+        public Subscriber( final Socket socket ) throws IOException
+        {
+            m_Socket = socket;
+            m_Body = new BufferedOutputStream( socket.getOutputStream() );
+        }   //  Subscriber()
+
+            /*---------*\
+        ====** Methods **======================================================
+            \*---------*/
+        /**
+         *  Discards the pending {@code time} event, as it does not belong to
+         *  the current phase anymore.
+         */
+        public final void clearTick() { m_Tick.set( null ); }
+
+        /**
+         *  Disconnects the client.
+         */
+        public final void disconnect()
+        {
+            if( m_Closed.compareAndSet( false, true ) )
+            {
+                m_Subscribers.remove( this );
+                m_DisconnectCount.incrementAndGet();
+
+                /*
+                 * Closing the socket writes nothing, so it does not block
+                 * even if the client does not read anymore; a writer thread
+                 * that is blocked on the socket fails at once and is free
+                 * for the other subscribers again.
+                 */
+                closeQuietly( m_Socket );
+            }
+        }   //  disconnect()
+
+        /**
+         *  Checks whether there are events that were not yet written.
+         *
+         *  @return {@code true} if there are pending events, {@code false}
+         *      otherwise.
+         */
+        private final boolean hasPendingEvents() { return !m_Events.isEmpty() || nonNull( m_Tick.get() ); }
+
+        /**
+         *  Checks whether the current write is blocked for longer than
+         *  {@value #STALL_TIMEOUT}&nbsp;ms.
+         *
+         *  @param  now The current time, as returned by
+         *      {@link System#nanoTime()}.
+         *  @return {@code true} if the write is stalled, {@code false}
+         *      otherwise.
+         */
+        public final boolean isStalled( final long now )
+        {
+            final var writeStart = m_WriteStart;
+            final var retValue = (writeStart != 0L) && (now - writeStart > MILLISECONDS.toNanos( STALL_TIMEOUT ));
+
+            //---* Done *------------------------------------------------------
+            return retValue;
+        }   //  isStalled()
+
+        /**
+         *  Queues a {@code state} event.
+         *
+         *  @param  event   The event.
+         */
+        public final void offerEvent( final Event event )
+        {
+            if( m_Backlog.incrementAndGet() > MAX_BACKLOG )
+            {
+                disconnect();
+            }
+            else
+            {
+                m_Events.add( event );
+                schedule();
+            }
+        }   //  offerEvent()
+
+        /**
+         *  Replaces the pending {@code time} event.
+         *
+         *  @param  event   The event.
+         */
+        public final void offerTick( final Event event )
+        {
+            if( nonNull( m_Tick.getAndSet( event ) ) ) m_DroppedTickCount.incrementAndGet();
+            schedule();
+        }   //  offerTick()
+
+        /**
+         *  Hands the subscriber to a writer thread, unless one is busy with
+         *  it already.
+         */
+        private final void schedule()
+        {
+            if( !m_Closed.get() && m_Scheduled.compareAndSet( false, true ) )
+            {
+                try
+                {
+                    m_Writers.execute( this::write );
+                }
+                catch( final RejectedExecutionException e )
+                {
+                    disconnect();
+                }
+            }
+        }   //  schedule()
+
+        /**
+         *  Writes the pending events to the client; this method is executed
+         *  by one of the writer threads.
+         */
+        private final void write()
+        {
+            try
+            {
+                do
+                {
+                    m_WriteStart = nanoTime();
+                    Event event;
+                    while( nonNull( event = m_Events.poll() ) )
+                    {
+                        m_Backlog.decrementAndGet();
+                        m_Body.write( event.data() );
+                        m_DeliveryLatencies.record( nanoTime() - event.time() );
+                    }
+                    event = m_Tick.getAndSet( null );
+                    if( nonNull( event ) )
+                    {
+                        m_Body.write( event.data() );
+                        m_DeliveryLatencies.record( nanoTime() - event.time() );
+                    }
+                    m_Body.flush();
+                    m_WriteStart = 0L;
+                    m_Scheduled.set( false );
+                }
+                while( hasPendingEvents() && m_Scheduled.compareAndSet( false, true ) );
+            }
+            catch( final IOException e )
+            {
+                disconnect();
+            }
+        }   //  write()
+    }
+    //  class Subscriber
+
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The path for the subscriptions: {@value}.
+     */
+    public static final String CONTEXT_PATH = "/events";
+
+    /**
+     *  The maximum number of handshake threads: {@value}.
+     */
+    public static final int HANDSHAKE_THREADS = 8;
+
+    /**
+     *  The time in milliseconds after which an idle handshake thread is
+     *  terminated: {@value}.
+     */
+    private static final long HANDSHAKE_THREAD_IDLE_TIME = 60_000L;
+
+    /**
+     *  The response headers for a subscription.
+     */
+    private static final byte [] HEADERS_EVENT_STREAM = """
+        HTTP/1.1 200 OK\r
+        Content-Type: text/event-stream; charset=utf-8\r
+        Cache-Control: no-cache\r
+        Access-Control-Allow-Origin: *\r
+        Connection: close\r
+        \r
+        """.getBytes( ISO_8859_1 );
+
+    /**
+     *  The response for a request with another method than {@code GET}.
+     */
+    private static final byte [] HEADERS_METHOD_NOT_ALLOWED = """
+        HTTP/1.1 405 Method Not Allowed\r
+        Allow: GET\r
+        Content-Length: 0\r
+        Connection: close\r
+        \r
+        """.getBytes( ISO_8859_1 );
+
+    /**
+     *  The response for a request for another path than
+     *  {@value #CONTEXT_PATH}.
+     */
+    private static final byte [] HEADERS_NOT_FOUND = """
+        HTTP/1.1 404 Not Found\r
+        Content-Length: 0\r
+        Connection: close\r
+        \r
+        """.getBytes( ISO_8859_1 );
+
+    /**
+     *  The comment that keeps idle connections open.
+     */
+    private static final byte [] KEEPALIVE = ":\n\n".getBytes( UTF_8 );
+
+    /**
+     *  The time in milliseconds after which the comment
+     *  {@link #KEEPALIVE}
+     *  is sent when there were no other events: {@value}.
+     */
+    public static final long KEEPALIVE_INTERVAL = 15_000L;
+
+    /**
+     *  The maximum number of {@code state} events that may be pending for a
+     *  subscriber before it is disconnected: {@value}.
+     */
+    public static final int MAX_BACKLOG = 64;
+
+    /**
+     *  The maximum number of connections that wait for a handshake thread:
+     *  {@value}.
+     */
+    public static final int MAX_PENDING_HANDSHAKES = 64;
+
+    /**
+     *  The maximum size in bytes of the request line and the request headers
+     *  together: {@value}.
+     */
+    public static final int MAX_REQUEST_SIZE = 8_192;
+
+    /**
+     *  The name of the system property for the HTTP port of the feed:
+     *  {@value}. If it is set, the application streams the status of the
+     *  heats on that port.
+     */
+    public static final String PROPERTY_PORT = "org.tquadrat.shootingtimer.spectatorPort";
+
+    /**
+     *  The time in milliseconds that a client may take to send its request:
+     *  {@value}.
+     */
+    public static final int REQUEST_TIMEOUT = 2_000;
+
+    /**
+     *  The first event for each subscriber; it sets the delay for the
+     *  reconnection to one second.
+     */
+    private static final byte [] RETRY = "retry: 1000\n\n".getBytes( UTF_8 );
+
+    /**
+     *  The size in bytes of the send buffer for each client: {@value}. It
+     *  holds a few seconds of events, but it limits how much a client that
+     *  does not read anymore can swallow before its writes block.
+     */
+    public static final int SEND_BUFFER_SIZE = 16_384;
+
+    /**
+     *  The time in milliseconds that a single write to a client may block
+     *  before the client is disconnected: {@value}.
+     */
+    public static final long STALL_TIMEOUT = 5_000L;
+
+    /**
+     *  The request to stop the thread of the feed.
+     */
+    private static final Runnable STOP = () -> {};
+
+    /**
+     *  The name of the thread of the feed: {@value}.
+     */
+    private static final String THREAD_NAME = "ShootingTimer-SpectatorFeed";
+
+    /**
+     *  The number of writer threads: {@value}.
+     */
+    public static final int WRITER_THREADS = 4;
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The thread that accepts the connections.
+     */
+    private final Thread m_Acceptor;
+
+    /**
+     *  The deadline of the current phase, as returned by
+     *  {@link System#nanoTime()};
+     *  only valid if
+     *  {@link #m_IsTimed}
+     *  is {@code true}.
+     */
+    private long m_Deadline;
+
+    /**
+     *  The latencies from the creation of an event until it was written to
+     *  a client.
+     */
+    private final LatencyHistogram m_DeliveryLatencies = new LatencyHistogram();
+
+    /**
+     *  The number of disconnected clients.
+     */
+    private final AtomicLong m_DisconnectCount = new AtomicLong();
+
+    /**
+     *  The number of {@code time} events that were dropped because a
+     *  client was too slow.
+     */
+    private final AtomicLong m_DroppedTickCount = new AtomicLong();
+
+    /**
+     *  The handshake threads, that read the requests.
+     */
+    private final ExecutorService m_Handshakes;
+
+    /**
+     *  The current heat count.
+     */
+    private int m_HeatCount = 0;
+
+    /**
+     *  The flag that indicates that a timed phase is running.
+     */
+    private boolean m_IsTimed = false;
+
+    /**
+     *  The time for the next
+     *  {@link #KEEPALIVE}
+     *  comment, as returned by
+     *  {@link System#nanoTime()}.
+     */
+    private long m_NextKeepalive;
+
+    /**
+     *  The time for the next {@code time} event, as returned by
+     *  {@link System#nanoTime()}.
+     */
+    private long m_NextTick;
+
+    /**
+     *  The queued tasks for the thread of the feed.
+     */
+    private final BlockingQueue<Runnable> m_Queue = new LinkedBlockingQueue<>();
+
+    /**
+     *  The socket of the HTTP server.
+     */
+    private final ServerSocket m_Server;
+
+    /**
+     *  The current {@code state} event.
+     */
+    private Event m_State;
+
+    /**
+     *  The current status.
+     */
+    private Status m_Status = STATUS_OFF;
+
+    /**
+     *  The subscribers.
+     */
+    private final List<Subscriber> m_Subscribers = new CopyOnWriteArrayList<>();
+
+    /**
+     *  The thread of the feed.
+     */
+    private final Thread m_Thread;
+
+    /**
+     *  The most recent {@code time} event, while a timed phase is running;
+     *  {@code null} otherwise.
+     */
+    private Event m_Tick;
+
+    /**
+     *  The writer threads.
+     */
+    private final ExecutorService m_Writers;
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new {@code SpectatorFeed} instance, and starts the HTTP
+     *  server and the threads.
+     *
+     *  @param  address The address to listen on; a port number of 0 selects
+     *      a free port.
+     *  @throws IOException The HTTP server could not be started.
+     */
+    public SpectatorFeed( final InetSocketAddress address ) throws IOException
+    {
+        m_State = encodeState();
+        m_NextKeepalive = nanoTime() + MILLISECONDS.toNanos( KEEPALIVE_INTERVAL );
+
+        m_Writers = Executors.newFixedThreadPool( WRITER_THREADS, createThreadFactory( THREAD_NAME + "-Writer-" ) );
+        final var handshakes = new ThreadPoolExecutor( HANDSHAKE_THREADS, HANDSHAKE_THREADS, HANDSHAKE_THREAD_IDLE_TIME, MILLISECONDS, new ArrayBlockingQueue<>( MAX_PENDING_HANDSHAKES ), createThreadFactory( THREAD_NAME + "-Handshake-" ) );
+        handshakes.allowCoreThreadTimeOut( true );
+        m_Handshakes = handshakes;
+
+        m_Server = new ServerSocket();
+        m_Server.bind( requireNonNullArgument( address, "address" ) );
+        m_Acceptor = new Thread( this::accept, THREAD_NAME + "-Acceptor" );
+        m_Acceptor.setDaemon( true );
+        m_Acceptor.start();
+
+        m_Thread = new Thread( this::broadcast, THREAD_NAME );
+        m_Thread.setDaemon( true );
+        m_Thread.start();
+
+        //---* Link the call sites now, not on the timing thread *-------------
+        queuePhase( STATUS_OFF, 0, false, 0L );
+        statusChanged( STATUS_OFF, STATUS_OFF );
+    }   //  SpectatorFeed()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  The loop that accepts the connections and hands them to the
+     *  handshake threads; it is executed by the acceptor thread until the
+     *  feed is closed. It never reads from a client.
+     */
+    private final void accept()
+    {
+        final var logger = getLogger( SpectatorFeed.class.getName() );
+        AcceptLoop: while( !m_Server.isClosed() )
+        {
+            final Socket socket;
+            try
+            {
+                socket = m_Server.accept();
+            }
+            catch( final IOException e )
+            {
+                if( !m_Server.isClosed() ) logger.log( ERROR, "Spectator feed could not accept a connection", e );
+                continue AcceptLoop;
+            }
+            final var deadline = nanoTime() + MILLISECONDS.toNanos( REQUEST_TIMEOUT );
+            try
+            {
+                m_Handshakes.execute( () ->
+                {
+                    try
+                    {
+                        subscribe( socket, deadline );
+                    }
+                    catch( final IOException e )
+                    {
+                        closeQuietly( socket );
+                    }
+                } );
+            }
+            catch( final RejectedExecutionException e )
+            {
+                //---* Too many pending connections, or the feed is closed *---
+                closeQuietly( socket );
+            }
+        }   //  AcceptLoop:
+    }   //  accept()
+
+    /**
+     *  Applies a new phase; this method is executed by the thread of the
+     *  feed.
+     *
+     *  @param  status  The status of the phase.
+     *  @param  repetition  The repetition the phase belongs to; 0 if it
+     *      does not belong to a repetition.
+     *  @param  isTimed {@code true} if the remaining time of the phase is
+     *      displayed, {@code false} otherwise.
+     *  @param  deadline    The end of the phase, as returned by
+     *      {@link System#nanoTime()}.
+     */
+    private final void applyPhase( final Status status, final int repetition, final boolean isTimed, final long deadline )
+    {
+        if( repetition > 0 ) m_HeatCount = repetition;
+        m_IsTimed = isTimed;
+        m_Deadline = deadline;
+        m_NextTick = nanoTime();
+        applyStatus( status, true );
+    }   //  applyPhase()
+
+    /**
+     *  Applies a new status; this method is executed by the thread of the
+     *  feed.
+     *
+     *  @param  status  The new status.
+     *  @param  force   {@code true} if the {@code state} event is sent even
+     *      if the status did not change, {@code false} otherwise.
+     */
+    private final void applyStatus( final Status status, final boolean force )
+    {
+        if( force || (status != m_Status) )
+        {
+            m_Status = status;
+            if( status == STATUS_STARTING ) m_HeatCount = 0;
+            if( (status != STATUS_PROLOG) && (status != STATUS_SHOOTING) ) m_IsTimed = false;
+            if( !m_IsTimed ) m_Tick = null;
+            m_State = encodeState();
+            for( final var subscriber : m_Subscribers )
+            {
+                if( !m_IsTimed ) subscriber.clearTick();
+                subscriber.offerEvent( m_State );
+            }
+            m_NextKeepalive = m_State.time() + MILLISECONDS.toNanos( KEEPALIVE_INTERVAL );
+        }
+    }   //  applyStatus()
+
+    /**
+     *  The loop that creates the events and hands them to the subscribers;
+     *  it is executed by the thread of the feed until the feed is closed.
+     */
+    private final void broadcast()
+    {
+        final var logger = getLogger( SpectatorFeed.class.getName() );
+        try
+        {
+            BroadcastLoop: while( true )
+            {
+                var wakeUp = m_NextKeepalive;
+                if( m_IsTimed && (m_NextTick - wakeUp < 0L) ) wakeUp = m_NextTick;
+                final var task = m_Queue.poll( Math.max( 0L, wakeUp - nanoTime() ), NANOSECONDS );
+                if( task == STOP ) break BroadcastLoop;
+                try
+                {
+                    if( nonNull( task ) ) task.run();
+
+                    final var now = nanoTime();
+                    if( m_IsTimed && (now - m_NextTick >= 0L) ) tick( now );
+                    if( now - m_NextKeepalive >= 0L )
+                    {
+                        final var keepalive = new Event( KEEPALIVE, now );
+                        for( final var subscriber : m_Subscribers ) subscriber.offerTick( keepalive );
+                        m_NextKeepalive = now + MILLISECONDS.toNanos( KEEPALIVE_INTERVAL );
+                    }
+                    for( final var subscriber : m_Subscribers )
+                    {
+                        if( subscriber.isStalled( now ) ) subscriber.disconnect();
+                    }
+                }
+                catch( final RuntimeException e )
+                {
+                    logger.log( ERROR, "Spectator feed failed", e );
+                }
+            }   //  BroadcastLoop:
+        }
+        catch( final InterruptedException ignored )
+        {
+            //---* Terminate the thread *--------------------------------------
+        }
+    }   //  broadcast()
+
+    /**
+     *  Stops the feed, the HTTP server and the threads, and disconnects all
+     *  clients.
+     */
+    @Override
+    public final void close()
+    {
+        m_Queue.offer( STOP );
+        try
+        {
+            m_Thread.join( 1_000L );
+        }
+        catch( final InterruptedException ignored )
+        {
+            Thread.currentThread().interrupt();
+        }
+        closeQuietly( m_Server );
+        for( final var subscriber : m_Subscribers ) subscriber.disconnect();
+        m_Handshakes.shutdownNow();
+        m_Writers.shutdownNow();
+    }   //  close()
+
+    /**
+     *  Closes the given socket, ignoring any error.
+     *
+     *  @param  socket  The socket.
+     */
+    private static final void closeQuietly( final Closeable socket )
+    {
+        try
+        {
+            socket.close();
+        }
+        catch( final IOException ignored )
+        {
+            //---* Nothing to do, the socket is gone anyway *------------------
+        }
+    }   //  closeQuietly()
+
+    /**
+     *  Creates a factory for daemon threads with the given name prefix; the
+     *  threads are numbered.
+     *
+     *  @param  prefix  The prefix for the thread names.
+     *  @return The thread factory.
+     */
+    private static final ThreadFactory createThreadFactory( final String prefix )
+    {
+        final var threadCounter = new AtomicInteger();
+        final ThreadFactory retValue = runnable ->
+        {
+            final var thread = new Thread( runnable, prefix + threadCounter.incrementAndGet() );
+            thread.setDaemon( true );
+
+            //---* Done *------------------------------------------------------
+            return thread;
+        };
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  createThreadFactory()
+
+    /**
+     *  Encodes the current status and heat count as a {@code state} event.
+     *
+     *  @return The event.
+     */
+    private final Event encodeState()
+    {
+        final var data = "event: state\ndata: {\"status\":\"%s\",\"heat\":%d}\n\n".formatted( m_Status.name(), m_HeatCount );
+        final var retValue = new Event( data.getBytes( UTF_8 ), nanoTime() );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  encodeState()
+
+    /**
+     *  Returns the latencies from the creation of an event until it was
+     *  written to a client.
+     *
+     *  @return The latencies.
+     */
+    public final LatencyHistogram getDeliveryLatencies() { return m_DeliveryLatencies; }
+
+    /**
+     *  Returns the number of clients that were disconnected, either by
+     *  themselves or because they were too slow.
+     *
+     *  @return The number of disconnected clients.
+     */
+    public final long getDisconnectCount() { return m_DisconnectCount.get(); }
+
+    /**
+     *  Returns the number of {@code time} events that were dropped because a
+     *  client was too slow.
+     *
+     *  @return The number of dropped events.
+     */
+    public final long getDroppedTickCount() { return m_DroppedTickCount.get(); }
+
+    /**
+     *  Returns the port the feed listens on.
+     *
+     *  @return The port number.
+     */
+    public final int getPort() { return m_Server.getLocalPort(); }
+
+    /**
+     *  Returns the number of the current subscribers.
+     *
+     *  @return The number of subscribers.
+     */
+    public final int getSubscriberCount() { return m_Subscribers.size(); }
+
+    /**
+     *  Notifies the feed that a new phase of the current heat was entered.
+     *  The phase is only queued for the thread of the feed.
+     *
+     *  @param  phase   The phase.
+     *  @param  deadline    The end of the phase, as returned by
+     *      {@link System#nanoTime()}.
+     */
+    public final void phaseStarted( final HeatSchedule.Phase phase, final long deadline )
+    {
+        queuePhase( phase.getStatus(), phase.getRepetition(), phase.isTimed(), deadline );
+    }   //  phaseStarted()
+
+    /**
+     *  Queues a new phase for the thread of the feed.
+     *
+     *  @param  status  The status of the phase.
+     *  @param  repetition  The repetition the phase belongs to; 0 if it
+     *      does not belong to a repetition.
+     *  @param  isTimed {@code true} if the remaining time of the phase is
+     *      displayed, {@code false} otherwise.
+     *  @param  deadline    The end of the phase, as returned by
+     *      {@link System#nanoTime()}.
+     */
+    private final void queuePhase( final Status status, final int repetition, final boolean isTimed, final long deadline )
+    {
+        m_Queue.offer( () -> applyPhase( status, repetition, isTimed, deadline ) );
+    }   //  queuePhase()
+
+    /**
+     *  Reads the request line and the request headers from the given
+     *  stream; the headers are not evaluated.
+     *
+     *  @param  inputStream The stream.
+     *  @param  deadline    The time until the request must be complete, as
+     *      returned by
+     *      {@link System#nanoTime()}.
+     *  @return The request line.
+     *  @throws IOException The request is incomplete, too large, or took
+     *      too long.
+     */
+    private static final String readRequest( final InputStream inputStream, final long deadline ) throws IOException
+    {
+        final var buffer = new ByteArrayOutputStream();
+        var lineLength = 0;
+        ReadLoop: while( true )
+        {
+            final var c = inputStream.read();
+            if( c < 0 ) throw new IOException( "Incomplete request" );
+            if( (buffer.size() >= MAX_REQUEST_SIZE) || (nanoTime() - deadline > 0L) ) throw new IOException( "Request too large or too slow" );
+            buffer.write( c );
+            if( c == '\n' )
+            {
+                if( lineLength == 0 ) break ReadLoop;
+                lineLength = 0;
+            }
+            else if( c != '\r' )
+            {
+                ++lineLength;
+            }
+        }   //  ReadLoop:
+        final var request = buffer.toString( ISO_8859_1 );
+        final var retValue = request.substring( 0, request.indexOf( '\n' ) ).strip();
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  readRequest()
+
+    /**
+     *  Returns a report with the number of subscribers, the dropped and the
+     *  disconnected ones, and the delivery latencies.
+     *
+     *  @return The report.
+     */
+    public final String report()
+    {
+        final var retValue = format( "port %d, %d subscribers, %d ticks dropped, %d disconnected, delivery %s",
+            getPort(), getSubscriberCount(), getDroppedTickCount(), getDisconnectCount(), m_DeliveryLatencies.summary() );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  report()
+
+    /**
+     *  {@inheritDoc}
+     *  <p>The transition is only queued for the thread of the feed.</p>
+     */
+    @Override
+    public final void statusChanged( final Status oldStatus, final Status newStatus )
+    {
+        m_Queue.offer( () -> applyStatus( newStatus, false ) );
+    }   //  statusChanged()
+
+    /**
+     *  Handles a request for
+     *  {@value #CONTEXT_PATH};
+     *  this method is executed by a handshake thread.
+     *
+     *  @param  socket  The connection to the client.
+     *  @param  deadline    The time until the request must be complete, as
+     *      returned by
+     *      {@link System#nanoTime()}.
+     *  @throws IOException The request could not be read, or the response
+     *      could not be sent.
+     */
+    private final void subscribe( final Socket socket, final long deadline ) throws IOException
+    {
+        //---* The time waiting for a handshake thread counts, too *-----------
+        socket.setSoTimeout( (int) Math.max( 1L, NANOSECONDS.toMillis( deadline - nanoTime() ) ) );
+        socket.setTcpNoDelay( true );
+        socket.setSendBufferSize( SEND_BUFFER_SIZE );
+        final var requestLine = readRequest( new BufferedInputStream( socket.getInputStream() ), deadline ).split( " " );
+        if( requestLine.length != 3 ) throw new IOException( "Malformed request" );
+
+        final var outputStream = socket.getOutputStream();
+        if( !"GET".equals( requestLine [0] ) )
+        {
+            outputStream.write( HEADERS_METHOD_NOT_ALLOWED );
+            closeQuietly( socket );
+        }
+        else if( !requestLine [1].startsWith( CONTEXT_PATH ) )
+        {
+            outputStream.write( HEADERS_NOT_FOUND );
+            closeQuietly( socket );
+        }
+        else
+        {
+            outputStream.write( HEADERS_EVENT_STREAM );
+            outputStream.flush();
+
+            //---* The subscriber is added by the thread of the feed *---------
+            final var subscriber = new Subscriber( socket );
+            m_Queue.offer( () -> subscribed( subscriber ) );
+        }
+    }   //  subscribe()
+
+    /**
+     *  Adds a new subscriber and sends the current state to it; this method
+     *  is executed by the thread of the feed, so the subscriber cannot miss
+     *  an event.
+     *
+     *  @param  subscriber  The new subscriber.
+     */
+    private final void subscribed( final Subscriber subscriber )
+    {
+        m_Subscribers.add( subscriber );
+        final var now = nanoTime();
+        subscriber.offerEvent( new Event( RETRY, now ) );
+        subscriber.offerEvent( new Event( m_State.data(), now ) );
+        if( nonNull( m_Tick ) ) subscriber.offerTick( new Event( m_Tick.data(), now ) );
+    }   //  subscribed()
+
+    /**
+     *  Creates a {@code time} event and hands it to the subscribers; this
+     *  method is executed by the thread of the feed.
+     *
+     *  @param  now The current time, as returned by
+     *      {@link System#nanoTime()}.
+     */
+    private final void tick( final long now )
+    {
+        final var remaining = now - m_Deadline < 0L ? NANOSECONDS.toMillis( m_Deadline - now ) : 0L;
+        m_Tick = new Event( "event: time\ndata: {\"remaining\":%d}\n\n".formatted( remaining ).getBytes( UTF_8 ), now );
+        for( final var subscriber : m_Subscribers ) subscriber.offerTick( m_Tick );
+        m_NextTick += MILLISECONDS.toNanos( TimeUpdateService.UPDATE_PERIOD );
+        if( m_NextTick - now < 0L ) m_NextTick = now + MILLISECONDS.toNanos( TimeUpdateService.UPDATE_PERIOD );
+        m_NextKeepalive = now + MILLISECONDS.toNanos( KEEPALIVE_INTERVAL );
+        if( remaining == 0L ) m_IsTimed = false;
+    }   //  tick()
+}
+//  class SpectatorFeed
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,281 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+import static org.tquadrat.shootingtimer.spi.Status.STATUS_OFF;
+import static org.tquadrat.shootingtimer.spi.Status.STATUS_PROLOG;
+import static org.tquadrat.shootingtimer.spi.Status.STATUS_SHOOTING;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.shootingtimer.spi.Status;
+
+/**
+ *  <p>{@summary The state machine for the
+ *  {@link Status}
+ *  of the Shooting Timer.}</p>
+ *  <p>A transition is a single compare-and-set operation on the current
+ *  status, checked against a transition table that is computed when the
+ *  class is loaded; no lock is taken. Transitions that are not in the table
+ *  are rejected: this means in particular that a late phase change of a heat
+ *  that was already aborted cannot switch the lights on again.</p>
+ *  <p>The listeners are notified after the transition took place, on the
+ *  thread that caused it and outside of any lock; a slow listener will never
+ *  delay the next transition. As a consequence, the notifications for
+ *  transitions that are caused by different threads may overtake each
+ *  other; a listener that needs the latest state can compare the new status
+ *  from the notification with
+ *  {@link #getStatus()}.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.3.0" )
+public final class StatusMachine
+{
+        /*---------------*\
+    ====** Inner Classes **====================================================
+        \*---------------*/
+    /**
+     *  The listener for status transitions.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.3.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.3.0" )
+    @FunctionalInterface
+    public static interface StatusListener
+    {
+            /*---------*\
+        ====** Methods **======================================================
+            \*---------*/
+        /**
+         *  Called after a status transition took place.
+         *
+         *  @param  oldStatus   The previous status.
+         *  @param  newStatus   The new status.
+         */
+        public void statusChanged( final Status oldStatus, final Status newStatus );
+    }
+    //  interface StatusListener
+
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The number of status values.
+     */
+    private static final int STATUS_COUNT = Status.values().length;
+
+        /*------------------------*\
+    ====** Static Initialisations **===========================================
+        \*------------------------*/
+    /**
+     *  The next status for the regular sequence, indexed by the ordinal of
+     *  the current status.
+     */
+    private static final Status [] m_NextStatus;
+
+    /**
+     *  The transition table, indexed by
+     *  {@code from.ordinal() * STATUS_COUNT + to.ordinal()}.
+     */
+    private static final boolean [] m_Transitions;
+
+    static
+    {
+        m_NextStatus = new Status [STATUS_COUNT];
+        m_Transitions = new boolean [STATUS_COUNT * STATUS_COUNT];
+        for( final var status : Status.values() )
+        {
+            //---* The regular sequence *--------------------------------------
+            m_NextStatus [status.ordinal()] = Status.nextStatus( status );
+            m_Transitions [indexFor( status, Status.nextStatus( status ) )] = true;
+
+            //---* A reset is always possible *--------------------------------
+            m_Transitions [indexFor( status, STATUS_OFF )] = true;
+        }
+
+        //---* The next repetition of a heat *---------------------------------
+        m_Transitions [indexFor( STATUS_SHOOTING, STATUS_PROLOG )] = true;
+    }
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The current status.
+     */
+    private final AtomicReference<Status> m_Current = new AtomicReference<>( STATUS_OFF );
+
+    /**
+     *  The listeners.
+     */
+    private final List<StatusListener> m_Listeners = new CopyOnWriteArrayList<>();
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new {@code StatusMachine} instance; the initial status is
+     *  {@link Status#STATUS_OFF}.
+     */
+    public StatusMachine() { /* Just exists */ }
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Adds a listener for the status transitions.
+     *
+     *  @param  listener    The listener.
+     */
+    public final void addListener( final StatusListener listener )
+    {
+        m_Listeners.add( requireNonNullArgument( listener, "listener" ) );
+    }   //  addListener()
+
+    /**
+     *  Returns the current status.
+     *
+     *  @return The current status.
+     */
+    public final Status getStatus() { return m_Current.get(); }
+
+    /**
+     *  Returns the index into the transition table for the given transition.
+     *
+     *  @param  from    The status before the transition.
+     *  @param  to  The status after the transition.
+     *  @return The index.
+     */
+    private static final int indexFor( final Status from, final Status to )
+    {
+        return from.ordinal() * STATUS_COUNT + to.ordinal();
+    }   //  indexFor()
+
+    /**
+     *  Checks whether the transition between the given status values is
+     *  allowed.
+     *
+     *  @param  from    The status before the transition.
+     *  @param  to  The status after the transition.
+     *  @return {@code true} if the transition is allowed, {@code false}
+     *      otherwise.
+     */
+    public static final boolean isValidTransition( final Status from, final Status to )
+    {
+        return m_Transitions [indexFor( requireNonNullArgument( from, "from" ), requireNonNullArgument( to, "to" ) )];
+    }   //  isValidTransition()
+
+    /**
+     *  Notifies the listeners about a transition.
+     *
+     *  @param  oldStatus   The previous status.
+     *  @param  newStatus   The new status.
+     */
+    private final void notifyListeners( final Status oldStatus, final Status newStatus )
+    {
+        for( final var listener : m_Listeners ) listener.statusChanged( oldStatus, newStatus );
+    }   //  notifyListeners()
+
+    /**
+     *  Proceeds to the next status in the regular sequence.
+     *
+     *  @return The new status.
+     */
+    public final Status proceed()
+    {
+        Status oldStatus;
+        Status newStatus;
+        do
+        {
+            oldStatus = m_Current.get();
+            newStatus = m_NextStatus [oldStatus.ordinal()];
+        }
+        while( !m_Current.compareAndSet( oldStatus, newStatus ) );
+        notifyListeners( oldStatus, newStatus );
+
+        //---* Done *----------------------------------------------------------
+        return newStatus;
+    }   //  proceed()
+
+    /**
+     *  Removes the given listener.
+     *
+     *  @param  listener    The listener.
+     */
+    public final void removeListener( final StatusListener listener )
+    {
+        m_Listeners.remove( listener );
+    }   //  removeListener()
+
+    /**
+     *  Resets the status to
+     *  {@link Status#STATUS_OFF}.
+     *
+     *  @return {@code true} if the status was changed, {@code false} if it
+     *      was already
+     *      {@link Status#STATUS_OFF}.
+     */
+    public final boolean reset() { return transitionTo( STATUS_OFF ); }
+
+    /**
+     *  Changes the status to the given value, if the transition from the
+     *  current status is allowed.
+     *
+     *  @param  newStatus   The new status.
+     *  @return {@code true} if the status was changed, {@code false} if the
+     *      status already has the given value, or if the transition is not
+     *      allowed.
+     */
+    public final boolean transitionTo( final Status newStatus )
+    {
+        requireNonNullArgument( newStatus, "newStatus" );
+        var retValue = false;
+        Status oldStatus;
+        do
+        {
+            oldStatus = m_Current.get();
+            if( (oldStatus == newStatus) || !m_Transitions [indexFor( oldStatus, newStatus )] ) break;
+            retValue = m_Current.compareAndSet( oldStatus, newStatus );
+        }
+        while( !retValue );
+        if( retValue ) notifyListeners( oldStatus, newStatus );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  transitionTo()
+}
+//  class StatusMachine
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,92 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  An implementation of
+ *  {@link HeatClock}
+ *  that is based on
+ *  {@link System#nanoTime()}
+ *  and that executes the tasks on the given scheduler.
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.3.0" )
+public final class SystemHeatClock implements HeatClock
+{
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The scheduler that executes the tasks.
+     */
+    private final ScheduledExecutorService m_Scheduler;
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new {@code SystemHeatClock} instance.
+     *
+     *  @param  scheduler   The scheduler that executes the tasks.
+     */
+    public SystemHeatClock( final ScheduledExecutorService scheduler )
+    {
+        m_Scheduler = requireNonNullArgument( scheduler, "scheduler" );
+    }   //  SystemHeatClock()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final long nanoTime() { return System.nanoTime(); }
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final Future<?> schedule( final Runnable task, final long deadline )
+    {
+        final var retValue = m_Scheduler.schedule( requireNonNullArgument( task, "task" ), deadline - System.nanoTime(), NANOSECONDS );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  schedule()
+}
+//  class SystemHeatClock
+
+/*
+ *  End of File
+ */
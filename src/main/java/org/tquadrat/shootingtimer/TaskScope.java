@@ -0,0 +1,203 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.lang.Objects.isNull;
+import static org.tquadrat.foundation.lang.Objects.nonNull;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.foundation.lang.AutoLock;
+
+/**
+ *  <p>{@summary A scope for tasks that belong together and that have to be
+ *  cancelled together.}</p>
+ *  <p>The scope keeps the handles for the scheduled tasks and the actions
+ *  that stop other activities (like the updates for the time display) that
+ *  were started in it, together with its child scopes. When the scope is
+ *  closed, all of them are cancelled or executed, in the reverse order of
+ *  their registration; a task or action that is registered with a scope
+ *  that is already closed will be cancelled or executed immediately. This
+ *  guarantees that nothing that was started for a heat or a phase will
+ *  survive its end, regardless of the order in which the threads
+ *  involved are executed.</p>
+ *  <p>The scope does not own any thread; closing it is cheap and does not
+ *  block, except for the execution of the registered actions.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.3.0" )
+public final class TaskScope implements AutoCloseable
+{
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The actions that will be executed when the scope is closed.
+     */
+    private final List<Runnable> m_CloseActions = new ArrayList<>();
+
+    /**
+     *  The flag that indicates whether the scope was closed.
+     */
+    private boolean m_Closed = false;
+
+    /**
+     *  The guard for the close actions.
+     */
+    private final AutoLock m_Guard = AutoLock.of( new ReentrantLock( false ) );
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new {@code TaskScope} instance.
+     */
+    public TaskScope() { /* Just exists */ }
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Closes the scope: all registered tasks will be cancelled, all child
+     *  scopes will be closed, and all registered actions will be executed.
+     *  Calling this method on a scope that is already closed has no effect.
+     */
+    @Override
+    public final void close()
+    {
+        final List<Runnable> closeActions;
+        try( var ignored = m_Guard.lock() )
+        {
+            if( m_Closed )
+            {
+                closeActions = List.of();
+            }
+            else
+            {
+                m_Closed = true;
+                closeActions = new ArrayList<>( m_CloseActions );
+                m_CloseActions.clear();
+            }
+        }
+
+        //---* Execute the actions outside of the lock *-----------------------
+        RuntimeException exception = null;
+        for( var i = closeActions.size() - 1; i >= 0; --i )
+        {
+            try
+            {
+                closeActions.get( i ).run();
+            }
+            catch( final RuntimeException e )
+            {
+                if( isNull( exception ) )
+                {
+                    exception = e;
+                }
+                else
+                {
+                    exception.addSuppressed( e );
+                }
+            }
+        }
+        if( nonNull( exception ) ) throw exception;
+    }   //  close()
+
+    /**
+     *  Registers the given scheduled task with this scope; it will be
+     *  cancelled when the scope is closed.
+     *
+     *  @param  <F> The type of the task handle.
+     *  @param  task    The handle for the task.
+     *  @return The handle for the task.
+     */
+    public final <F extends Future<?>> F fork( final F task )
+    {
+        requireNonNullArgument( task, "task" );
+        onClose( () -> task.cancel( false ) );
+
+        //---* Done *----------------------------------------------------------
+        return task;
+    }   //  fork()
+
+    /**
+     *  Returns whether this scope was already closed.
+     *
+     *  @return {@code true} if the scope is closed, {@code false} if it is
+     *      still open.
+     */
+    public final boolean isClosed()
+    {
+        try( var ignored = m_Guard.lock() )
+        {
+            return m_Closed;
+        }
+    }   //  isClosed()
+
+    /**
+     *  Registers an action that will be executed when the scope is closed;
+     *  if the scope is already closed, the action will be executed
+     *  immediately.
+     *
+     *  @param  action  The action.
+     */
+    public final void onClose( final Runnable action )
+    {
+        requireNonNullArgument( action, "action" );
+        final boolean closed;
+        try( var ignored = m_Guard.lock() )
+        {
+            closed = m_Closed;
+            if( !closed ) m_CloseActions.add( action );
+        }
+        if( closed ) action.run();
+    }   //  onClose()
+
+    /**
+     *  Opens a child scope; it will be closed together with this scope, but
+     *  it can be closed earlier as well.
+     *
+     *  @return The new child scope; it is already closed if this scope is
+     *      closed.
+     */
+    public final TaskScope openChild()
+    {
+        final var retValue = new TaskScope();
+        onClose( retValue::close );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  openChild()
+}
+//  class TaskScope
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,104 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static org.apiguardian.api.API.Status.INTERNAL;
+import static org.tquadrat.foundation.lang.Objects.isNull;
+import static org.tquadrat.foundation.i18n.I18nUtil.loadResourceBundle;
+import static org.tquadrat.shootingtimer.Main.BASE_BUNDLE_NAME;
+import static org.tquadrat.shootingtimer.Main.MSG_CannotLoadTextResources;
+
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.foundation.annotation.UtilityClass;
+import org.tquadrat.foundation.exception.PrivateConstructorForStaticClassCalledError;
+
+/**
+ *  <p>{@summary Provides the resource bundle with the texts and messages for
+ *  the Shooting Timer.}</p>
+ *  <p>The bundle is loaded only once, on the first request, and then shared
+ *  by all classes that need it.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@UtilityClass
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = INTERNAL, since = "0.3.0" )
+public final class TextResources
+{
+        /*---------------*\
+    ====** Inner Classes **====================================================
+        \*---------------*/
+    /**
+     *  The holder for the resource bundle; the bundle will be loaded when
+     *  this class is initialised.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.3.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = INTERNAL, since = "0.3.0" )
+    private static final class BundleHolder
+    {
+        /**
+         *  The resource bundle, or {@code null} if it could not be loaded.
+         */
+        static final ResourceBundle m_ResourceBundle = loadResourceBundle( BASE_BUNDLE_NAME ).orElse( null );
+    }
+    //  class BundleHolder
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  No instance allowed for this class.
+     */
+    private TextResources() { throw new PrivateConstructorForStaticClassCalledError( TextResources.class ); }
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Returns the resource bundle with the texts and messages.
+     *
+     *  @return The resource bundle.
+     *  @throws MissingResourceException    The resource bundle cannot be
+     *      loaded.
+     */
+    public static final ResourceBundle getResourceBundle() throws MissingResourceException
+    {
+        final var retValue = BundleHolder.m_ResourceBundle;
+        if( isNull( retValue ) ) throw new MissingResourceException( MSG_CannotLoadTextResources, BASE_BUNDLE_NAME, null );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getResourceBundle()
+}
+//  class TextResources
+
+/*
+ *  End of File
+ */
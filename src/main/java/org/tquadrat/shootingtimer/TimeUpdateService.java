@@ -17,21 +17,31 @@
 
 package org.tquadrat.shootingtimer;
 
-import static java.lang.System.currentTimeMillis;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static javafx.application.Platform.runLater;
-import static org.apiguardian.api.API.Status.INTERNAL;
 import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.lang.Objects.isNull;
+import static org.tquadrat.foundation.lang.Objects.nonNull;
 import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
 
+import java.util.concurrent.Future;
+
 import org.apiguardian.api.API;
 import org.tquadrat.foundation.annotation.ClassVersion;
-import javafx.concurrent.ScheduledService;
-import javafx.concurrent.Task;
 import javafx.scene.control.TextField;
-import javafx.util.Duration;
 
 /**
- *  The service that will update the time display.
+ *  <p>{@summary The service that will update the time display.}</p>
+ *  <p>The updates are executed on the shared
+ *  {@linkplain TimerScheduler#getClock() clock};
+ *  each tick schedules the next one for a fixed deadline, so the ticks do
+ *  not drift. The service does not create any threads by itself.</p>
+ *  <p>The texts are provided by the
+ *  {@link CountdownFormatter},
+ *  and the display will be updated only when the text has changed, so a tick
+ *  does not allocate any memory.</p>
  *
  *  @version $Id: TimeUpdateService.java 106 2022-01-19 15:53:24Z tquadrat $
  *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
@@ -40,70 +50,57 @@ import javafx.util.Duration;
  */
 @ClassVersion( sourceVersion = "$Id: TimeUpdateService.java 106 2022-01-19 15:53:24Z tquadrat $" )
 @API( status = STABLE, since = "0.1.0" )
-public class TimeUpdateService extends ScheduledService<Void>
+public class TimeUpdateService
 {
-        /*---------------*\
-    ====** Inner Classes **====================================================
-        \*---------------*/
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
     /**
-     *  The task that will update the time display.
-     *
-     *  @version $Id: TimeUpdateService.java 106 2022-01-19 15:53:24Z tquadrat $
-     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
-     *  @UMLGraph.link
-     *  @since 0.1.0
-     */
-    @ClassVersion( sourceVersion = "$Id: TimeUpdateService.java 106 2022-01-19 15:53:24Z tquadrat $" )
-    @API( status = INTERNAL, since = "0.1.0" )
-    private class TimeUpdateTask extends Task<Void>
-    {
-            /*--------------*\
-        ====** Constructors **=================================================
-            \*--------------*/
-        /**
-         *  Creates a new {@code TimeUpdateTask} instance.
-         */
-        public TimeUpdateTask() { /* Just exists */ }
-
-            /*---------*\
-        ====** Methods **======================================================
-            \*---------*/
-        /**
-         *  {@inheritDoc}
-         */
-        @Override
-        public final Void call()
-        {
-            final var currentTime = currentTimeMillis();
-            final var remainingTime = currentTime < m_EndTime ? m_EndTime - currentTime : 0L;
-            if( m_ShowMinutes )
-            {
-                runLater( () ->
-                    {
-                        final var minutes = remainingTime / 60_000;
-                        final var seconds = (remainingTime / 1000) % 60;
-                        m_TimeDisplay.setText( "%d:%02d".formatted( minutes, seconds ) );
-                    } );
-            }
-            else
-            {
-                runLater( () -> m_TimeDisplay.setText( "%3.1f".formatted( remainingTime / 1000.0 ) ) );
-            }
-            if( (remainingTime <= 0L) || m_Stop ) cancel();
-
-            //---* Done *------------------------------------------------------
-            return null;
-        }   //  call()
-    }
-    //  class TimeUpdateTask
+     *  The update period in milliseconds: {@value}.
+     */
+    public static final long UPDATE_PERIOD = 100L;
+
+    /**
+     *  The source for the
+     *  {@link TimerEvents.DisplayTickEvent}:
+     *  {@value}.
+     */
+    private static final String TICK_SOURCE = "scheduler";
 
         /*------------*\
     ====** Attributes **=======================================================
         \*------------*/
     /**
-     *  The end time.
+     *  The deadline, as a value compatible to
+     *  {@link System#nanoTime()}.
+     */
+    private final long m_Deadline;
+
+    /**
+     *  The text that was handed over to the display most recently.
      */
-    private final long m_EndTime;
+    private String m_DisplayedText;
+
+    /**
+     *  The clock that executes the ticks.
+     */
+    private HeatClock m_Clock;
+
+    /**
+     *  The task for the next tick.
+     */
+    private Future<?> m_Future;
+
+    /**
+     *  The intended time for the next tick, as a value compatible to
+     *  {@link System#nanoTime()}.
+     */
+    private long m_NextTick;
+
+    /**
+     *  The text that should be displayed next.
+     */
+    private volatile String m_PendingText;
 
     /**
      *  Flag that indicates if either minutes or seconds should be
@@ -114,43 +111,116 @@ public class TimeUpdateService extends ScheduledService<Void>
     /**
      *  The flag that stops the service.
      */
-    private boolean m_Stop = false;
+    private volatile boolean m_Stop = false;
 
     /**
      *  The reference for the node that displays the time.
      */
     private final TextField m_TimeDisplay;
 
+    /**
+     *  The task that updates the display; it is created only once to avoid an
+     *  allocation on each tick.
+     */
+    private final Runnable m_UpdateDisplay = this::updateDisplay;
+
+    /**
+     *  The task for a tick; it is created only once to avoid an allocation
+     *  on each tick.
+     */
+    private final Runnable m_UpdateTime = this::updateTime;
+
         /*--------------*\
     ====** Constructors **=====================================================
         \*--------------*/
     /**
      *  Creates a new {@code TimeUpdateService} instance.
      *
-     *  @param  endTime The end time.
+     *  @param  deadline    The deadline, as a value compatible to
+     *      {@link System#nanoTime()}.
      *  @param  timeDisplay The reference for the node that displays the time.
      */
-    public TimeUpdateService( final long endTime, final TextField timeDisplay )
+    public TimeUpdateService( final long deadline, final TextField timeDisplay )
     {
-        m_EndTime = endTime;
+        m_Deadline = deadline;
         m_TimeDisplay = requireNonNullArgument( timeDisplay, "timeDisplay" );
-        m_ShowMinutes = endTime - currentTimeMillis() > 350_000;
-        setPeriod( new Duration( 100 ) );
+        final var duration = NANOSECONDS.toMillis( deadline - nanoTime() );
+        m_ShowMinutes = duration > CountdownRenderer.MINUTES_LIMIT;
+        if( m_ShowMinutes ) CountdownFormatter.prepare( duration );
     }   //  TimeUpdateService()
 
         /*---------*\
     ====** Methods **==========================================================
         \*---------*/
+    /**
+     *  Schedules the next tick.
+     */
+    private final synchronized void scheduleNextTick()
+    {
+        if( !m_Stop )
+        {
+            m_NextTick += MILLISECONDS.toNanos( UPDATE_PERIOD );
+            m_Future = m_Clock.schedule( m_UpdateTime, m_NextTick );
+        }
+    }   //  scheduleNextTick()
+
+    /**
+     *  Starts the service on the given clock.
+     *
+     *  @param  clock   The clock.
+     */
+    public final synchronized void start( final HeatClock clock )
+    {
+        if( !m_Stop && isNull( m_Future ) )
+        {
+            m_Clock = requireNonNullArgument( clock, "clock" );
+            m_NextTick = m_Clock.nanoTime();
+            m_Future = m_Clock.schedule( m_UpdateTime, m_NextTick );
+        }
+    }   //  start()
+
     /**
      *  Stops the service.
      */
-    public final void stop() { m_Stop = true; }
+    public final synchronized void stop()
+    {
+        m_Stop = true;
+        if( nonNull( m_Future ) ) m_Future.cancel( false );
+    }   //  stop()
+
+    /**
+     *  Updates the display with the pending text; this method is executed on
+     *  the JavaFX Application thread.
+     */
+    private final void updateDisplay() { m_TimeDisplay.setText( m_PendingText ); }
 
     /**
-     *  {@inheritDoc}
+     *  Updates the time display.
      */
-    @Override
-    protected final Task<Void> createTask() { return new TimeUpdateTask(); }
+    private final void updateTime()
+    {
+        final var currentTime = nanoTime();
+        final var remainingTime = currentTime - m_Deadline < 0L ? NANOSECONDS.toMillis( m_Deadline - currentTime ) : 0L;
+        final var text = m_ShowMinutes ? CountdownFormatter.formatMinutes( remainingTime ) : CountdownFormatter.formatTenths( remainingTime );
+        TimerEvents.DisplayTickEvent.emit( TICK_SOURCE, m_NextTick, remainingTime );
+
+        //---* Update the display only if the text has changed *---------------
+        //noinspection StringEquality
+        if( text != m_DisplayedText )
+        {
+            m_DisplayedText = text;
+            m_PendingText = text;
+            runLater( m_UpdateDisplay );
+        }
+        if( (remainingTime <= 0L) || m_Stop )
+        {
+            stop();
+        }
+        else
+        {
+            scheduleNextTick();
+        }
+    }   //  updateTime()
 }
 //  class TimeUpdateService
 
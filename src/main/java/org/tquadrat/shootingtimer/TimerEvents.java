@@ -0,0 +1,430 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static java.lang.System.nanoTime;
+import static org.apiguardian.api.API.Status.STABLE;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.foundation.annotation.UtilityClass;
+import org.tquadrat.foundation.exception.PrivateConstructorForStaticClassCalledError;
+import org.tquadrat.shootingtimer.spi.Status;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ *  <p>{@summary The events for the JDK Flight Recorder that are emitted by
+ *  the Shooting Timer.}</p>
+ *  <p>All events belong to the category &quot;Shooting Timer&quot;, and
+ *  none of them records a stack trace. The events are created and filled only
+ *  if they are enabled for the current recording; if no recording is running,
+ *  emitting an event costs a single check, and the JIT removes the
+ *  allocation of the event object.</p>
+ *  <p>A recording is started with the command line option
+ *  {@code -XX:StartFlightRecording}
+ *  or with {@code jcmd <pid> JFR.start}; the events can be found under the
+ *  names {@code org.tquadrat.shootingtimer.*}.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@UtilityClass
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.3.0" )
+public final class TimerEvents
+{
+        /*---------------*\
+    ====** Inner Classes **====================================================
+        \*---------------*/
+    /**
+     *  The event for a sample of the clock synchronisation.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.3.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.3.0" )
+    @Name( "org.tquadrat.shootingtimer.ClockSync" )
+    @Label( "Clock Sync" )
+    @Category( "Shooting Timer" )
+    @Description( "A sample of the clock synchronisation, with the resulting offset to the reference clock" )
+    @StackTrace( false )
+    public static final class ClockSyncEvent extends Event
+    {
+            /*------------*\
+        ====** Attributes **===================================================
+            \*------------*/
+        /**
+         *  The jitter of the samples in the filter.
+         */
+        @Label( "Jitter" )
+        @Timespan( Timespan.NANOSECONDS )
+        private long jitter;
+
+        /**
+         *  The offset that is used after this sample.
+         */
+        @Label( "Offset" )
+        @Description( "The offset of the reference clock to the local clock that is used after this sample" )
+        @Timespan( Timespan.NANOSECONDS )
+        private long offset;
+
+        /**
+         *  The round trip time of this sample.
+         */
+        @Label( "Round Trip" )
+        @Timespan( Timespan.NANOSECONDS )
+        private long roundTrip;
+
+        /**
+         *  The offset that was measured with this sample.
+         */
+        @Label( "Sample Offset" )
+        @Timespan( Timespan.NANOSECONDS )
+        private long sampleOffset;
+
+            /*---------*\
+        ====** Methods **======================================================
+            \*---------*/
+        /**
+         *  Emits an event for a sample of the clock synchronisation.
+         *
+         *  @param  sampleOffset    The offset that was measured with the
+         *      sample.
+         *  @param  roundTrip   The round trip time of the sample.
+         *  @param  offset  The offset that is used after the sample.
+         *  @param  jitter  The jitter of the samples in the filter.
+         */
+        public static final void emit( final long sampleOffset, final long roundTrip, final long offset, final long jitter )
+        {
+            final var event = new ClockSyncEvent();
+            if( event.shouldCommit() )
+            {
+                event.jitter = jitter;
+                event.offset = offset;
+                event.roundTrip = roundTrip;
+                event.sampleOffset = sampleOffset;
+                event.commit();
+            }
+        }   //  emit()
+    }
+    //  class ClockSyncEvent
+
+    /**
+     *  The event for a tick of the time display.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.3.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.3.0" )
+    @Name( "org.tquadrat.shootingtimer.DisplayTick" )
+    @Label( "Display Tick" )
+    @Category( "Shooting Timer" )
+    @Description( "An update of the time display, with its lateness" )
+    @StackTrace( false )
+    public static final class DisplayTickEvent extends Event
+    {
+            /*------------*\
+        ====** Attributes **===================================================
+            \*------------*/
+        /**
+         *  The time between the intended and the actual time of the tick.
+         */
+        @Label( "Lateness" )
+        @Timespan( Timespan.NANOSECONDS )
+        private long lateness;
+
+        /**
+         *  The remaining time that was displayed.
+         */
+        @Label( "Remaining Time" )
+        @Timespan( Timespan.MILLISECONDS )
+        private long remainingTime;
+
+        /**
+         *  The source of the tick.
+         */
+        @Label( "Source" )
+        @Description( "'pulse' for the JavaFX pulse, 'scheduler' for the periodic task" )
+        private String source;
+
+            /*---------*\
+        ====** Methods **======================================================
+            \*---------*/
+        /**
+         *  Emits an event for a tick of the time display.
+         *
+         *  @param  source  The source of the tick.
+         *  @param  intendedTime    The intended time for the tick, as a value
+         *      compatible to
+         *      {@link System#nanoTime()}.
+         *  @param  remainingTime   The remaining time that was displayed, in
+         *      milliseconds.
+         */
+        public static final void emit( final String source, final long intendedTime, final long remainingTime )
+        {
+            final var event = new DisplayTickEvent();
+            if( event.shouldCommit() )
+            {
+                event.lateness = nanoTime() - intendedTime;
+                event.remainingTime = remainingTime;
+                event.source = source;
+                event.commit();
+            }
+        }   //  emit()
+    }
+    //  class DisplayTickEvent
+
+    /**
+     *  <p>{@summary The event for the execution of a heat.}</p>
+     *  <p>The event is started when the heat begins, and committed when it
+     *  ends; its duration is that of the heat.</p>
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.3.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.3.0" )
+    @Name( "org.tquadrat.shootingtimer.Heat" )
+    @Label( "Heat" )
+    @Category( "Shooting Timer" )
+    @Description( "The execution of a heat, from its start to its end or its abort" )
+    @StackTrace( false )
+    public static final class HeatEvent extends Event
+    {
+            /*------------*\
+        ====** Attributes **===================================================
+            \*------------*/
+        /**
+         *  The flag that indicates whether the heat was aborted.
+         */
+        @Label( "Aborted" )
+        private boolean aborted;
+
+        /**
+         *  The name of the discipline.
+         */
+        @Label( "Discipline" )
+        private String discipline;
+
+        /**
+         *  The name of the heat.
+         */
+        @Label( "Heat" )
+        private String heat;
+
+            /*---------*\
+        ====** Methods **======================================================
+            \*---------*/
+        /**
+         *  Ends the event and commits it.
+         *
+         *  @param  aborted {@code true} if the heat was aborted,
+         *      {@code false} if it was completed.
+         */
+        public final void end( final boolean aborted )
+        {
+            if( shouldCommit() )
+            {
+                this.aborted = aborted;
+                commit();
+            }
+        }   //  end()
+
+        /**
+         *  Starts an event for a heat.
+         *
+         *  @param  discipline  The discipline.
+         *  @param  heat    The heat.
+         *  @return The event; it has to be
+         *      {@linkplain #end(boolean) ended}
+         *      when the heat ends.
+         */
+        public static final HeatEvent start( final Discipline discipline, final Heat heat )
+        {
+            final var retValue = new HeatEvent();
+            if( retValue.isEnabled() )
+            {
+                retValue.discipline = discipline.name();
+                retValue.heat = heat.getName();
+                retValue.begin();
+            }
+
+            //---* Done *------------------------------------------------------
+            return retValue;
+        }   //  start()
+    }
+    //  class HeatEvent
+
+    /**
+     *  The event for the request to play a sound.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.3.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.3.0" )
+    @Name( "org.tquadrat.shootingtimer.SoundPlayback" )
+    @Label( "Sound Playback" )
+    @Category( "Shooting Timer" )
+    @Description( "A request to play a sound" )
+    @StackTrace( false )
+    public static final class SoundPlaybackEvent extends Event
+    {
+            /*------------*\
+        ====** Attributes **===================================================
+            \*------------*/
+        /**
+         *  The name of the sound.
+         */
+        @Label( "Sound" )
+        private String sound;
+
+            /*---------*\
+        ====** Methods **======================================================
+            \*---------*/
+        /**
+         *  Emits an event for the request to play the given sound.
+         *
+         *  @param  sound   The name of the sound.
+         */
+        public static final void emit( final String sound )
+        {
+            final var event = new SoundPlaybackEvent();
+            if( event.shouldCommit() )
+            {
+                event.sound = sound;
+                event.commit();
+            }
+        }   //  emit()
+    }
+    //  class SoundPlaybackEvent
+
+    /**
+     *  The event for a
+     *  {@link Status}
+     *  transition of a heat.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.3.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.3.0" )
+    @Name( "org.tquadrat.shootingtimer.StatusTransition" )
+    @Label( "Status Transition" )
+    @Category( "Shooting Timer" )
+    @Description( "A status transition of a heat, with its intended and its actual time" )
+    @StackTrace( false )
+    public static final class StatusTransitionEvent extends Event
+    {
+            /*------------*\
+        ====** Attributes **===================================================
+            \*------------*/
+        /**
+         *  The actual time of the transition.
+         */
+        @Label( "Actual Time" )
+        @Description( "The actual time of the transition, as a value of the heat clock in nanoseconds" )
+        private long actualTime;
+
+        /**
+         *  The status before the transition.
+         */
+        @Label( "From" )
+        private String from;
+
+        /**
+         *  The intended time of the transition.
+         */
+        @Label( "Intended Time" )
+        @Description( "The deadline for the transition, as a value of the heat clock in nanoseconds" )
+        private long intendedTime;
+
+        /**
+         *  The time between the intended and the actual time of the
+         *  transition.
+         */
+        @Label( "Lateness" )
+        @Timespan( Timespan.NANOSECONDS )
+        private long lateness;
+
+        /**
+         *  The status after the transition.
+         */
+        @Label( "To" )
+        private String to;
+
+            /*---------*\
+        ====** Methods **======================================================
+            \*---------*/
+        /**
+         *  Emits an event for a status transition.
+         *
+         *  @param  from    The status before the transition.
+         *  @param  to  The status after the transition.
+         *  @param  intendedTime    The deadline for the transition.
+         *  @param  actualTime  The actual time of the transition.
+         */
+        public static final void emit( final Status from, final Status to, final long intendedTime, final long actualTime )
+        {
+            final var event = new StatusTransitionEvent();
+            if( event.shouldCommit() )
+            {
+                event.actualTime = actualTime;
+                event.from = from.name();
+                event.intendedTime = intendedTime;
+                event.lateness = actualTime - intendedTime;
+                event.to = to.name();
+                event.commit();
+            }
+        }   //  emit()
+    }
+    //  class StatusTransitionEvent
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  No instance allowed for this class.
+     */
+    private TimerEvents() { throw new PrivateConstructorForStaticClassCalledError( TimerEvents.class ); }
+}
+//  class TimerEvents
+
+/*
+ *  End of File
+ */
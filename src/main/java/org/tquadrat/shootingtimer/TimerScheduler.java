@@ -0,0 +1,180 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.apiguardian.api.API.Status.INTERNAL;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.foundation.annotation.UtilityClass;
+import org.tquadrat.foundation.exception.PrivateConstructorForStaticClassCalledError;
+
+/**
+ *  <p>{@summary Provides the one and only scheduler and the clocks that are
+ *  used by the Shooting Timer application.}</p>
+ *  <p>The
+ *  {@linkplain #getClock() clock}
+ *  for the heat of the application and for its display ticks runs on the
+ *  scheduler, that also executes everything else, like the writing of the
+ *  preferences. With a single heat, there are only a few deadlines at any
+ *  time, and the scheduler keeps each of them exactly.</p>
+ *  <p>The
+ *  {@link TimerWheel}
+ *  is meant for the many deadlines of the heats in the
+ *  {@linkplain LaneManager lanes};
+ *  it trades the precision of a deadline, that is rounded up to the next
+ *  tick, for the cheap insertion and cancellation of a large number of
+ *  them.</p>
+ *  <p>The scheduler and the wheel have a fixed number of threads that are
+ *  started together with the application, so no thread will be created or
+ *  destroyed when a heat is started, or when a signal is given.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@UtilityClass
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = INTERNAL, since = "0.3.0" )
+public final class TimerScheduler
+{
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The number of threads for the scheduler: {@value}.
+     */
+    public static final int SCHEDULER_THREADS = 2;
+
+    /**
+     *  The name prefix for the scheduler threads: {@value}.
+     */
+    public static final String THREAD_NAME_PREFIX = "ShootingTimer-Scheduler-";
+
+    /**
+     *  The number of buckets for the timer wheel: {@value}. With the
+     *  {@linkplain #WHEEL_TICK tick duration}
+     *  of one millisecond, a round of the wheel takes a little more than half
+     *  a second.
+     */
+    public static final int WHEEL_BUCKETS = 512;
+
+    /**
+     *  The duration of a tick of the timer wheel, in nanoseconds.
+     */
+    public static final long WHEEL_TICK = MILLISECONDS.toNanos( 1L );
+
+        /*------------------------*\
+    ====** Static Initialisations **===========================================
+        \*------------------------*/
+    /**
+     *  The clock for the heat engine of the application.
+     */
+    private static final HeatClock m_Clock;
+
+    /**
+     *  The scheduler.
+     */
+    private static final ScheduledThreadPoolExecutor m_Scheduler;
+
+    /**
+     *  The timer wheel.
+     */
+    private static final TimerWheel m_Wheel;
+
+    static
+    {
+        final var threadCounter = new AtomicInteger();
+        final ThreadFactory threadFactory = runnable ->
+        {
+            final var thread = new Thread( runnable, THREAD_NAME_PREFIX + threadCounter.incrementAndGet() );
+            thread.setDaemon( true );
+            thread.setPriority( Thread.MAX_PRIORITY );
+
+            //---* Done *------------------------------------------------------
+            return thread;
+        };
+        m_Scheduler = new ScheduledThreadPoolExecutor( SCHEDULER_THREADS, threadFactory );
+        m_Scheduler.setRemoveOnCancelPolicy( true );
+        m_Scheduler.setContinueExistingPeriodicTasksAfterShutdownPolicy( false );
+        m_Scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy( false );
+
+        //---* Start the threads now, not with the first heat *----------------
+        m_Scheduler.prestartAllCoreThreads();
+
+        m_Clock = new SystemHeatClock( m_Scheduler );
+        m_Wheel = new TimerWheel( WHEEL_TICK, WHEEL_BUCKETS );
+    }
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  No instance allowed for this class.
+     */
+    private TimerScheduler() { throw new PrivateConstructorForStaticClassCalledError( TimerScheduler.class ); }
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Returns the clock for the heat engine of the application and for its
+     *  display ticks; it executes the tasks on the
+     *  {@linkplain #getScheduler() scheduler}.
+     *
+     *  @return The clock.
+     */
+    public static final HeatClock getClock() { return m_Clock; }
+
+    /**
+     *  Returns the scheduler.
+     *
+     *  @return The scheduler.
+     */
+    public static final ScheduledExecutorService getScheduler() { return m_Scheduler; }
+
+    /**
+     *  Returns the timer wheel for the heats of the
+     *  {@linkplain LaneManager lanes}.
+     *
+     *  @return The timer wheel.
+     */
+    public static final TimerWheel getWheel() { return m_Wheel; }
+
+    /**
+     *  Shuts down the scheduler and the timer wheel; pending tasks will be
+     *  discarded.
+     */
+    public static final void shutdown()
+    {
+        m_Scheduler.shutdownNow();
+        m_Wheel.close();
+    }   //  shutdown()
+}
+//  class TimerScheduler
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,495 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static java.lang.Math.floorDiv;
+import static java.lang.Math.max;
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.lang.Objects.isNull;
+import static org.tquadrat.foundation.lang.Objects.nonNull;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary An implementation of
+ *  {@link HeatClock}
+ *  that keeps the scheduled tasks in a hashed timer wheel.}</p>
+ *  <p>The wheel is an array of buckets, and each bucket covers one tick of
+ *  the wheel. A task is put into the bucket for the tick that contains its
+ *  deadline, together with the number of full rounds the wheel has to turn
+ *  before the task is due; so inserting and cancelling a task take constant
+ *  time, regardless of the number of pending tasks. A single driver thread
+ *  advances the wheel tick by tick and executes the due tasks itself; the
+ *  tasks therefore should return quickly. A task is never executed before
+ *  its deadline, and at most one tick after it, plus the wake-up latency of
+ *  the driver thread.</p>
+ *  <p>New and cancelled tasks are handed over to the driver thread through
+ *  lock-free queues; only the driver thread touches the buckets. While no
+ *  task is pending, the driver thread is parked and does not consume any
+ *  CPU.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.3.0" )
+public final class TimerWheel implements HeatClock, AutoCloseable
+{
+        /*---------------*\
+    ====** Inner Classes **====================================================
+        \*---------------*/
+    /**
+     *  A bucket of the wheel: a doubly linked list of the tasks that are due
+     *  in the same tick, possibly in different rounds.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.3.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.3.0" )
+    private static final class Bucket
+    {
+            /*------------*\
+        ====** Attributes **===================================================
+            \*------------*/
+        /**
+         *  The first task in the bucket.
+         */
+        private Timeout m_Head;
+
+        /**
+         *  The last task in the bucket.
+         */
+        private Timeout m_Tail;
+
+            /*--------------*\
+        ====** Constructors **=================================================
+            \*--------------*/
+        /**
+         *  Creates a new {@code Bucket} instance.
+         */
+        public Bucket() { /* Just exists */ }
+
+            /*---------*\
+        ====** Methods **======================================================
+            \*---------*/
+        /**
+         *  Appends the given task to this bucket.
+         *
+         *  @param  timeout The task.
+         */
+        public final void add( final Timeout timeout )
+        {
+            timeout.m_Bucket = this;
+            timeout.m_Previous = m_Tail;
+            timeout.m_Next = null;
+            if( isNull( m_Tail ) )
+            {
+                m_Head = timeout;
+            }
+            else
+            {
+                m_Tail.m_Next = timeout;
+            }
+            m_Tail = timeout;
+        }   //  add()
+
+        /**
+         *  Removes the given task from this bucket.
+         *
+         *  @param  timeout The task.
+         *  @return The task that followed the removed one.
+         */
+        public final Timeout remove( final Timeout timeout )
+        {
+            final var retValue = timeout.m_Next;
+            if( isNull( timeout.m_Previous ) )
+            {
+                m_Head = retValue;
+            }
+            else
+            {
+                timeout.m_Previous.m_Next = retValue;
+            }
+            if( isNull( retValue ) )
+            {
+                m_Tail = timeout.m_Previous;
+            }
+            else
+            {
+                retValue.m_Previous = timeout.m_Previous;
+            }
+            timeout.m_Bucket = null;
+            timeout.m_Previous = null;
+            timeout.m_Next = null;
+
+            //---* Done *------------------------------------------------------
+            return retValue;
+        }   //  remove()
+    }
+    //  class Bucket
+
+    /**
+     *  A scheduled task.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.3.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.3.0" )
+    private static final class Timeout extends FutureTask<Void>
+    {
+            /*------------*\
+        ====** Attributes **===================================================
+            \*------------*/
+        /**
+         *  The bucket that holds this task; {@code null} if the task was not
+         *  yet put into a bucket, or was already removed from it.
+         */
+        private Bucket m_Bucket;
+
+        /**
+         *  The deadline.
+         */
+        private final long m_Deadline;
+
+        /**
+         *  The next task in the bucket.
+         */
+        private Timeout m_Next;
+
+        /**
+         *  The previous task in the bucket.
+         */
+        private Timeout m_Previous;
+
+        /**
+         *  The number of rounds the wheel has to turn before this task is
+         *  due.
+         */
+        private long m_Rounds;
+
+        /**
+         *  The wheel.
+         */
+        private final TimerWheel m_Wheel;
+
+            /*--------------*\
+        ====** Constructors **=================================================
+            \*--------------*/
+        /**
+         *  Creates a new {@code Timeout} instance.
+         *
+         *  @param  wheel   The wheel.
+         *  @param  task    The task.
+         *  @param  deadline    The deadline.
+         */
+        public Timeout( final TimerWheel wheel, final Runnable task, final long deadline )
+        {
+            super( task, null );
+            m_Wheel = wheel;
+            m_Deadline = deadline;
+        }   //  Timeout()
+
+            /*---------*\
+        ====** Methods **======================================================
+            \*---------*/
+        /**
+         *  {@inheritDoc}
+         *  <p>A cancelled task is handed over to the driver thread, that will
+         *  remove it from its bucket.</p>
+         */
+        @Override
+        public final boolean cancel( final boolean mayInterruptIfRunning )
+        {
+            final var retValue = super.cancel( mayInterruptIfRunning );
+            if( retValue ) m_Wheel.m_CancelledTimeouts.add( this );
+
+            //---* Done *------------------------------------------------------
+            return retValue;
+        }   //  cancel()
+    }
+    //  class Timeout
+
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The name of the driver thread: {@value}.
+     */
+    public static final String THREAD_NAME = "ShootingTimer-TimerWheel";
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The buckets.
+     */
+    private final Bucket [] m_Buckets;
+
+    /**
+     *  The cancelled tasks that have to be removed from their buckets.
+     */
+    private final Queue<Timeout> m_CancelledTimeouts = new ConcurrentLinkedQueue<>();
+
+    /**
+     *  The flag that indicates that the wheel was closed.
+     */
+    private volatile boolean m_Closed = false;
+
+    /**
+     *  The driver thread.
+     */
+    private final Thread m_Driver;
+
+    /**
+     *  The mask for the bucket index.
+     */
+    private final long m_Mask;
+
+    /**
+     *  The new tasks that have to be put into their buckets.
+     */
+    private final Queue<Timeout> m_NewTimeouts = new ConcurrentLinkedQueue<>();
+
+    /**
+     *  The number of pending tasks.
+     */
+    private final AtomicInteger m_PendingCount = new AtomicInteger();
+
+    /**
+     *  The start time of the wheel.
+     */
+    private final long m_StartTime;
+
+    /**
+     *  The current tick; it is only accessed by the driver thread.
+     */
+    private long m_Tick = 0L;
+
+    /**
+     *  The duration of a tick in nanoseconds.
+     */
+    private final long m_TickDuration;
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new {@code TimerWheel} instance and starts its driver
+     *  thread.
+     *
+     *  @param  tickDuration    The duration of a tick in nanoseconds; this is
+     *      the resolution of the wheel.
+     *  @param  bucketCount The number of buckets; it will be rounded up to the
+     *      next power of two. One round of the wheel takes
+     *      {@code tickDuration * bucketCount} nanoseconds.
+     *  @throws IllegalArgumentException    The tick duration or the number of
+     *      buckets is not positive.
+     */
+    public TimerWheel( final long tickDuration, final int bucketCount ) throws IllegalArgumentException
+    {
+        if( tickDuration <= 0L ) throw new IllegalArgumentException( "tickDuration is not positive" );
+        if( bucketCount <= 0 || bucketCount > (1 << 30) ) throw new IllegalArgumentException( "bucketCount is out of range" );
+        m_TickDuration = tickDuration;
+        final var size = Integer.highestOneBit( bucketCount ) == bucketCount ? bucketCount : Integer.highestOneBit( bucketCount ) << 1;
+        m_Buckets = new Bucket [size];
+        for( var i = 0; i < size; ++i ) m_Buckets [i] = new Bucket();
+        m_Mask = size - 1;
+
+        m_StartTime = System.nanoTime();
+        m_Driver = new Thread( this::drive, THREAD_NAME );
+        m_Driver.setDaemon( true );
+        m_Driver.setPriority( Thread.MAX_PRIORITY );
+        m_Driver.start();
+    }   //  TimerWheel()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Stops the driver thread; the pending tasks will be discarded.
+     */
+    @Override
+    public final void close()
+    {
+        m_Closed = true;
+        LockSupport.unpark( m_Driver );
+    }   //  close()
+
+    /**
+     *  The loop of the driver thread.
+     */
+    private final void drive()
+    {
+        DriveLoop: while( !m_Closed )
+        {
+            if( m_PendingCount.get() == 0 )
+            {
+                //---* Wait for a task; skip the ticks that passed meanwhile *-
+                LockSupport.park( this );
+                m_Tick = max( m_Tick, floorDiv( System.nanoTime() - m_StartTime, m_TickDuration ) );
+                continue DriveLoop;
+            }
+
+            //---* Wait for the end of the current tick *----------------------
+            final var tickEnd = m_StartTime + (m_Tick + 1) * m_TickDuration;
+            long waitTime;
+            while( ((waitTime = tickEnd - System.nanoTime()) > 0L) && !m_Closed )
+            {
+                LockSupport.parkNanos( this, waitTime );
+            }
+
+            transferNewTimeouts();
+            removeCancelledTimeouts();
+            expireTimeouts( m_Buckets [(int) (m_Tick & m_Mask)] );
+            ++m_Tick;
+        }   //  DriveLoop:
+    }   //  drive()
+
+    /**
+     *  Executes the tasks from the given bucket that are due in the current
+     *  round, and counts down the rounds for the others.
+     *
+     *  @param  bucket  The bucket for the current tick.
+     */
+    private final void expireTimeouts( final Bucket bucket )
+    {
+        var timeout = bucket.m_Head;
+        while( nonNull( timeout ) )
+        {
+            if( timeout.isCancelled() )
+            {
+                timeout = unlink( timeout );
+            }
+            else if( timeout.m_Rounds <= 0L )
+            {
+                final var current = timeout;
+                timeout = unlink( current );
+                current.run();
+            }
+            else
+            {
+                --timeout.m_Rounds;
+                timeout = timeout.m_Next;
+            }
+        }
+    }   //  expireTimeouts()
+
+    /**
+     *  Returns the number of pending tasks.
+     *
+     *  @return The number of tasks that were neither executed nor removed
+     *      after they were cancelled.
+     */
+    public final int getPendingCount() { return m_PendingCount.get(); }
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final long nanoTime() { return System.nanoTime(); }
+
+    /**
+     *  Removes the cancelled tasks from their buckets.
+     */
+    private final void removeCancelledTimeouts()
+    {
+        Timeout timeout;
+        while( nonNull( timeout = m_CancelledTimeouts.poll() ) )
+        {
+            //---* Not yet transferred, or already unlinked *------------------
+            if( nonNull( timeout.m_Bucket ) ) unlink( timeout );
+        }
+    }   //  removeCancelledTimeouts()
+
+    /**
+     *  {@inheritDoc}
+     *
+     *  @throws RejectedExecutionException  The wheel was already closed.
+     */
+    @Override
+    public final Future<?> schedule( final Runnable task, final long deadline ) throws RejectedExecutionException
+    {
+        if( m_Closed ) throw new RejectedExecutionException( "The timer wheel was closed" );
+        final var retValue = new Timeout( this, requireNonNullArgument( task, "task" ), deadline );
+        m_NewTimeouts.add( retValue );
+        if( m_PendingCount.getAndIncrement() == 0 ) LockSupport.unpark( m_Driver );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  schedule()
+
+    /**
+     *  Puts the new tasks into their buckets.
+     */
+    private final void transferNewTimeouts()
+    {
+        Timeout timeout;
+        while( nonNull( timeout = m_NewTimeouts.poll() ) )
+        {
+            if( timeout.isCancelled() )
+            {
+                m_PendingCount.decrementAndGet();
+            }
+            else
+            {
+                final var tick = floorDiv( timeout.m_Deadline - m_StartTime, m_TickDuration );
+                timeout.m_Rounds = max( 0L, (tick - m_Tick) / m_Buckets.length );
+                m_Buckets [(int) (max( tick, m_Tick ) & m_Mask)].add( timeout );
+            }
+        }
+    }   //  transferNewTimeouts()
+
+    /**
+     *  Removes the given task from its bucket; it is no longer pending after
+     *  that.
+     *
+     *  @param  timeout The task.
+     *  @return The task that followed the removed one in the bucket.
+     */
+    private final Timeout unlink( final Timeout timeout )
+    {
+        final var retValue = timeout.m_Bucket.remove( timeout );
+        m_PendingCount.decrementAndGet();
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  unlink()
+}
+//  class TimerWheel
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,133 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.apiguardian.api.API.Status.INTERNAL;
+
+import java.util.concurrent.ExecutionException;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.foundation.annotation.UtilityClass;
+import org.tquadrat.foundation.exception.PrivateConstructorForStaticClassCalledError;
+
+/**
+ *  <p>{@summary The training run for the class data sharing archive.}</p>
+ *  <p>When the application is started with the system property
+ *  {@value Main#PROPERTY_STARTUP_PROBE}
+ *  set to
+ *  {@value Main#STARTUP_PROBE_TRAINING},
+ *  it executes the complete program of each
+ *  {@link Discipline}
+ *  with a
+ *  {@link SimulatedHeatClock}
+ *  after the first frame was rendered, and terminates then. This loads all
+ *  classes that are needed for a heat – the engine, the status machine, the
+ *  countdown formatting and the texts – so that they end up in the archive
+ *  that is written when the JVM exits.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@UtilityClass
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = INTERNAL, since = "0.3.0" )
+public final class TrainingRun
+{
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The part of each phase that is rendered by the training run, in
+     *  milliseconds: {@value}. Some phases last for hours, so the countdown
+     *  texts are generated only for their last minute.
+     */
+    private static final long COUNTDOWN_WINDOW = 60_000L;
+
+    /**
+     *  The duration for the preparation of a heat in the training run, in
+     *  milliseconds: {@value}.
+     */
+    private static final long PREPARATION_TIME = 5_000L;
+
+    /**
+     *  The time between the shots in the training run, in milliseconds:
+     *  {@value}.
+     */
+    private static final long SHOT_INTERVAL = 10_000L;
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  No instance allowed for this class.
+     */
+    private TrainingRun() { throw new PrivateConstructorForStaticClassCalledError( TrainingRun.class ); }
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Executes the programs of all disciplines.
+     *
+     *  @return The lateness of the transitions from the training run.
+     *  @throws ExecutionException  A heat failed.
+     *  @throws InterruptedException    The training run was interrupted.
+     */
+    public static final TransitionLatencies execute() throws ExecutionException, InterruptedException
+    {
+        final var retValue = new TransitionLatencies();
+        final var clock = new SimulatedHeatClock();
+        final var statusMachine = new StatusMachine();
+        final var texts = new StringBuilder();
+        for( final var discipline : Discipline.values() )
+        {
+            for( final var heat : discipline.getProgram() )
+            {
+                final var engine = new HeatEngine( new HeatSchedule( heat, PREPARATION_TIME, SHOT_INTERVAL ), clock, (phase,deadline,scope) ->
+                {
+                    statusMachine.transitionTo( phase.getStatus() );
+                    final var duration = Math.min( NANOSECONDS.toMillis( phase.getEndOffset() - phase.getStartOffset() ), COUNTDOWN_WINDOW );
+                    CountdownFormatter.prepare( duration );
+                    scope.onClose( () -> texts.setLength( 0 ) );
+                    for( var remaining = duration; remaining >= 0L; remaining -= 10L )
+                    {
+                        texts.append( CountdownFormatter.formatMinutes( remaining ) )
+                            .append( CountdownFormatter.formatTenths( remaining ) )
+                            .append( CountdownFormatter.formatHundredths( remaining ) );
+                    }
+                }, retValue );
+                final var result = engine.start();
+                clock.runUntilIdle();
+                result.get();
+                statusMachine.reset();
+            }
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  execute()
+}
+//  class TrainingRun
+
+/*
+ *  End of File
+ */
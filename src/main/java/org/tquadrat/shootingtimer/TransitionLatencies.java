@@ -0,0 +1,161 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static java.lang.String.format;
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.lang.Objects.isNull;
+import static org.tquadrat.foundation.lang.Objects.nonNull;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.shootingtimer.spi.Status;
+
+/**
+ *  <p>{@summary Collects the lateness of the
+ *  {@link Status}
+ *  transitions, with a separate
+ *  {@link LatencyHistogram}
+ *  for each kind of transition.}</p>
+ *  <p>The lateness is the difference between the time when a transition was
+ *  actually executed and its deadline. The histograms are created on demand,
+ *  with the first recorded value for a transition; after that, recording a
+ *  value does not allocate any memory.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.3.0" )
+public final class TransitionLatencies
+{
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The number of status values.
+     */
+    private static final int STATUS_COUNT = Status.values().length;
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The histograms, indexed by
+     *  {@code from.ordinal() * STATUS_COUNT + to.ordinal()}.
+     */
+    private final AtomicReferenceArray<LatencyHistogram> m_Histograms = new AtomicReferenceArray<>( STATUS_COUNT * STATUS_COUNT );
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new {@code TransitionLatencies} instance.
+     */
+    public TransitionLatencies() { /* Just exists */ }
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Returns the histogram for the given transition.
+     *
+     *  @param  from    The status before the transition.
+     *  @param  to  The status after the transition.
+     *  @return An instance of
+     *      {@link Optional}
+     *      that holds the histogram; it is empty if no value was recorded for
+     *      the given transition yet.
+     */
+    public final Optional<LatencyHistogram> getHistogram( final Status from, final Status to )
+    {
+        final var retValue = Optional.ofNullable( m_Histograms.get( indexFor( from, to ) ) );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getHistogram()
+
+    /**
+     *  Returns the index for the given transition.
+     *
+     *  @param  from    The status before the transition.
+     *  @param  to  The status after the transition.
+     *  @return The index.
+     */
+    private static final int indexFor( final Status from, final Status to )
+    {
+        return requireNonNullArgument( from, "from" ).ordinal() * STATUS_COUNT + requireNonNullArgument( to, "to" ).ordinal();
+    }   //  indexFor()
+
+    /**
+     *  Records the lateness for the given transition.
+     *
+     *  @param  from    The status before the transition.
+     *  @param  to  The status after the transition.
+     *  @param  lateness    The lateness in nanoseconds.
+     */
+    public final void record( final Status from, final Status to, final long lateness )
+    {
+        final var index = indexFor( from, to );
+        var histogram = m_Histograms.get( index );
+        if( isNull( histogram ) )
+        {
+            m_Histograms.compareAndSet( index, null, new LatencyHistogram() );
+            histogram = m_Histograms.get( index );
+        }
+        histogram.record( lateness );
+    }   //  record()
+
+    /**
+     *  Returns a report with the 50th and 99th percentile and the maximum for
+     *  all transitions that were recorded so far.
+     *
+     *  @return The report, one line per transition.
+     */
+    public final String report()
+    {
+        final var joiner = new StringJoiner( "\n" );
+        for( final var from : Status.values() )
+        {
+            for( final var to : Status.values() )
+            {
+                final var histogram = m_Histograms.get( indexFor( from, to ) );
+                if( nonNull( histogram ) )
+                {
+                    joiner.add( format( "%s → %s: %s", from, to, histogram.summary() ) );
+                }
+            }
+        }
+        final var retValue = joiner.toString();
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  report()
+}
+//  class TransitionLatencies
+
+/*
+ *  End of File
+ */
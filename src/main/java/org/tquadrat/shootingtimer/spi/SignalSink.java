@@ -0,0 +1,90 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer.spi;
+
+import static org.apiguardian.api.API.Status.STABLE;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary The service provider interface for external signal outputs,
+ *  like turning target motors or range lamps.}</p>
+ *  <p>The implementations are found with the
+ *  {@link java.util.ServiceLoader};
+ *  they have to be declared with a {@code provides} clause in the
+ *  module-info of their module, or in
+ *  {@code META-INF/services/org.tquadrat.shootingtimer.spi.SignalSink}
+ *  when they are on the class path, and they need a public no-argument
+ *  constructor.</p>
+ *  <p>All sinks are called by the signal dispatcher of the Shooting Timer
+ *  on a single, dedicated thread with a high priority, one after the other;
+ *  they are never called on the JavaFX Application Thread, so they are not
+ *  delayed by the rendering of the user interface. A sink should therefore
+ *  return quickly: the time that it takes delays the sinks after it.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.3.0" )
+public interface SignalSink
+{
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Releases the resources of this sink; it will not be called any more
+     *  after that. The default implementation does nothing.
+     */
+    public default void close() { /* Does nothing */ }
+
+    /**
+     *  Returns the name of this sink; it is used for the metrics.
+     *
+     *  @return The name.
+     */
+    public String getName();
+
+    /**
+     *  Returns whether this sink is available; only available sinks are
+     *  used. A sink for a hardware device can return {@code false} if that
+     *  device is not present. The default implementation returns
+     *  {@code true}.
+     *
+     *  @return {@code true} if the sink is available, {@code false} if not.
+     */
+    public default boolean isAvailable() { return true; }
+
+    /**
+     *  Called after a status transition took place.
+     *
+     *  @param  oldStatus   The previous status.
+     *  @param  newStatus   The new status.
+     *  @param  transitionTime  The time of the transition, as returned by
+     *      {@link System#nanoTime()}.
+     */
+    public void statusChanged( final Status oldStatus, final Status newStatus, final long transitionTime );
+}
+//  interface SignalSink
+
+/*
+ *  End of File
+ */
@@ -15,18 +15,17 @@
  * under the License.
  */
 
-package org.tquadrat.shootingtimer;
+package org.tquadrat.shootingtimer.spi;
 
-import static org.tquadrat.foundation.i18n.I18nUtil.loadResourceBundle;
 import static org.tquadrat.foundation.i18n.I18nUtil.retrieveText;
-import static org.tquadrat.shootingtimer.Main.BASE_BUNDLE_NAME;
-import static org.tquadrat.shootingtimer.Main.MSG_CannotLoadTextResources;
 
 import java.util.MissingResourceException;
 import java.util.ResourceBundle;
 
+import org.tquadrat.foundation.exception.UnsupportedEnumError;
 import org.tquadrat.foundation.i18n.Text;
 import org.tquadrat.foundation.i18n.Translation;
+import org.tquadrat.shootingtimer.TextResources;
 
 /**
  *  The system status.
@@ -134,9 +133,8 @@ public enum Status
     {
         try
         {
-            //---* Load the resource bundle with the texts *-------------------
-            m_ResourceBundle = loadResourceBundle( BASE_BUNDLE_NAME )
-                .orElseThrow( () -> new MissingResourceException( MSG_CannotLoadTextResources, BASE_BUNDLE_NAME, null ) );
+            //---* Retrieve the shared resource bundle with the texts *--------
+            m_ResourceBundle = TextResources.getResourceBundle();
         }
         catch( final MissingResourceException e )
         {
@@ -147,6 +145,35 @@ public enum Status
         /*---------*\
     ====** Methods **==========================================================
         \*---------*/
+    /**
+     *  Returns the status that follows the given one in the regular
+     *  sequence.
+     *
+     *  @param  currentStatus   The current status; may be {@code null}.
+     *  @return The next status.
+     */
+    @SuppressWarnings( "UnnecessaryDefault" )
+    public static final Status nextStatus( final Status currentStatus )
+    {
+        /*
+         * We do not rely on the sequence the enum values of Status are defined
+         * in; instead, we do it the verbose way.
+         */
+        final var retValue = switch( currentStatus )
+        {
+            case null, STATUS_OFF -> STATUS_STARTING;
+            case STATUS_STARTING -> STATUS_BEFORE;
+            case STATUS_BEFORE -> STATUS_PROLOG;
+            case STATUS_PROLOG -> STATUS_SHOOTING;
+            case STATUS_SHOOTING -> STATUS_AFTER;
+            case STATUS_AFTER -> STATUS_OFF;
+            default -> throw new UnsupportedEnumError( currentStatus );
+        };
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  nextStatus()
+
     /**
      *  {@inheritDoc}
      *
@@ -0,0 +1,161 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static java.lang.Boolean.getBoolean;
+import static java.lang.System.nanoTime;
+import static org.apiguardian.api.API.Status.STABLE;
+
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.shootingtimer.spi.SignalSink;
+import org.tquadrat.shootingtimer.spi.Status;
+
+/**
+ *  <p>{@summary A simulated
+ *  {@link SignalSink}
+ *  that keeps the transitions it received.}</p>
+ *  <p>The sink is used by the tests: it does not drive any hardware, but it
+ *  allows to check which transitions reach the sinks, and when. It is
+ *  available only if the system property
+ *  {@value #PROPERTY_LOOPBACK}
+ *  is set to {@code true}. At most
+ *  {@value #CAPACITY}
+ *  transitions are kept; further transitions are dropped until some are
+ *  {@linkplain #poll(long, TimeUnit) taken}.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.3.0" )
+public final class LoopbackSignalSink implements SignalSink
+{
+        /*---------------*\
+    ====** Inner Classes **====================================================
+        \*---------------*/
+    /**
+     *  A received transition.
+     *
+     *  @param  oldStatus   The previous status.
+     *  @param  newStatus   The new status.
+     *  @param  transitionTime  The time of the transition, as returned by
+     *      {@link System#nanoTime()}.
+     *  @param  receiveTime The time when the sink received the transition,
+     *      as returned by
+     *      {@link System#nanoTime()}.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.3.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.3.0" )
+    public static record Received( Status oldStatus, Status newStatus, long transitionTime, long receiveTime ) {}
+
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The maximum number of kept transitions: {@value}.
+     */
+    public static final int CAPACITY = 1024;
+
+    /**
+     *  The name of the system property that makes this sink available:
+     *  {@value}.
+     */
+    public static final String PROPERTY_LOOPBACK = "org.tquadrat.shootingtimer.loopbackSink";
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The received transitions.
+     */
+    private final BlockingQueue<Received> m_Received = new LinkedBlockingQueue<>( CAPACITY );
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new {@code LoopbackSignalSink} instance.
+     */
+    public LoopbackSignalSink() { /* Just exists */ }
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final String getName() { return "Loopback"; }
+
+    /**
+     *  {@inheritDoc}
+     *  <p>This sink is available if the system property
+     *  {@value #PROPERTY_LOOPBACK}
+     *  is set to {@code true}.</p>
+     */
+    @Override
+    public final boolean isAvailable() { return getBoolean( PROPERTY_LOOPBACK ); }
+
+    /**
+     *  Takes the next received transition, waiting up to the given time if
+     *  necessary.
+     *
+     *  @param  timeout The maximum time to wait.
+     *  @param  unit    The unit for the timeout.
+     *  @return An instance of
+     *      {@link Optional}
+     *      that holds the transition; empty if none was received within the
+     *      given time.
+     *  @throws InterruptedException    The current thread was interrupted
+     *      while waiting.
+     */
+    public final Optional<Received> poll( final long timeout, final TimeUnit unit ) throws InterruptedException
+    {
+        final var retValue = Optional.ofNullable( m_Received.poll( timeout, unit ) );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  poll()
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final void statusChanged( final Status oldStatus, final Status newStatus, final long transitionTime )
+    {
+        m_Received.offer( new Received( oldStatus, newStatus, transitionTime, nanoTime() ) );
+    }   //  statusChanged()
+}
+//  class LoopbackSignalSink
+
+/*
+ *  End of File
+ */
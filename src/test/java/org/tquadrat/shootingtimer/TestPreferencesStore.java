@@ -0,0 +1,163 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  Tests for the file format of the
+ *  {@link PreferencesStore}.
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@DisplayName( "org.tquadrat.shootingtimer.TestPreferencesStore" )
+public class TestPreferencesStore
+{
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The folder for the files.
+     */
+    @TempDir
+    Path m_Folder;
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Writes a file with the given content after the header and a node
+     *  count of 1.
+     *
+     *  @param  file    The file.
+     *  @param  stringLength    The length that is written for the path of
+     *      the node.
+     *  @throws Exception   Something went wrong unexpectedly.
+     */
+    private static final void writeDamagedFile( final Path file, final int stringLength ) throws Exception
+    {
+        final var buffer = ByteBuffer.allocate( 4 * Integer.BYTES + 8 );
+        buffer.putInt( PreferencesStore.MAGIC ).putInt( PreferencesStore.VERSION ).putInt( 1 ).putInt( stringLength );
+        buffer.put( "/shooter".getBytes() );
+        Files.write( file, buffer.array() );
+    }   //  writeDamagedFile()
+
+    /**
+     *  A file with an invalid string length is ignored, instead of
+     *  preventing the start of the program.
+     *
+     *  @throws Exception   Something went wrong unexpectedly.
+     */
+    @Test
+    final void testInvalidStringLength() throws Exception
+    {
+        for( final var length : new int [] {-1, Integer.MIN_VALUE, Integer.MAX_VALUE, 9} )
+        {
+            final var file = m_Folder.resolve( "damaged%d.prefs".formatted( length ) );
+            writeDamagedFile( file, length );
+            final var store = new PreferencesStore( file );
+            assertEquals( 0, store.childrenNames( "/" ).length, "length %d".formatted( length ) );
+        }
+    }   //  testInvalidStringLength()
+
+    /**
+     *  The values that were flushed are read back by a new store.
+     *
+     *  @throws Exception   Something went wrong unexpectedly.
+     */
+    @Test
+    final void testRoundTrip() throws Exception
+    {
+        final var file = m_Folder.resolve( "shootingtimer.prefs" );
+        final var store = new PreferencesStore( file );
+        store.createNode( "/org" );
+        store.createNode( "/org/tquadrat" );
+        store.put( "/org/tquadrat", "discipline", "DISCIPLINE_2_17" );
+        store.put( "/org/tquadrat", "heat", "3" );
+        store.put( "/org/tquadrat", "name", "Schießstand Süd" );
+        store.put( "/", "empty", "" );
+        store.flush();
+        assertTrue( Files.isRegularFile( file ) );
+
+        final var candidate = new PreferencesStore( file );
+        assertArrayEquals( new String [] {"org"}, candidate.childrenNames( "/" ) );
+        assertArrayEquals( new String [] {"tquadrat"}, candidate.childrenNames( "/org" ) );
+        assertArrayEquals( new String [] {"discipline", "heat", "name"}, candidate.keys( "/org/tquadrat" ) );
+        assertEquals( "DISCIPLINE_2_17", candidate.get( "/org/tquadrat", "discipline" ) );
+        assertEquals( "Schießstand Süd", candidate.get( "/org/tquadrat", "name" ) );
+        assertEquals( "", candidate.get( "/", "empty" ) );
+        assertNull( candidate.get( "/org/tquadrat", "missing" ) );
+    }   //  testRoundTrip()
+
+    /**
+     *  A truncated file is ignored.
+     *
+     *  @throws Exception   Something went wrong unexpectedly.
+     */
+    @Test
+    final void testTruncatedFile() throws Exception
+    {
+        final var file = m_Folder.resolve( "shootingtimer.prefs" );
+        final var store = new PreferencesStore( file );
+        store.put( "/", "heat", "3" );
+        store.flush();
+        final var content = Files.readAllBytes( file );
+        for( var length = 0; length < content.length; ++length )
+        {
+            final var truncated = m_Folder.resolve( "truncated%d.prefs".formatted( length ) );
+            Files.write( truncated, Arrays.copyOf( content, length ) );
+            assertNull( new PreferencesStore( truncated ).get( "/", "heat" ), "length %d".formatted( length ) );
+        }
+    }   //  testTruncatedFile()
+
+    /**
+     *  A file with an unknown format is ignored.
+     *
+     *  @throws Exception   Something went wrong unexpectedly.
+     */
+    @Test
+    final void testUnknownFormat() throws Exception
+    {
+        final var file = m_Folder.resolve( "unknown.prefs" );
+        Files.writeString( file, "[shootingtimer]\nheat=3\n" );
+        final var store = new PreferencesStore( file );
+        assertNull( store.get( "/", "heat" ) );
+        assertEquals( 0, store.keys( "/" ).length );
+    }   //  testUnknownFormat()
+}
+//  class TestPreferencesStore
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,377 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.tquadrat.foundation.lang.Objects.nonNull;
+import static org.tquadrat.shootingtimer.spi.Status.STATUS_OFF;
+
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary Tests for the
+ *  {@link RemoteControl}.}</p>
+ *  <p>The commands are sent over HTTP, and they start and abort real heats
+ *  through a
+ *  {@link HeatSession}
+ *  and a
+ *  {@link HeatReplicator}
+ *  that is the leader; only the JavaFX Application Thread is replaced by a
+ *  single thread.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@DisplayName( "org.tquadrat.shootingtimer.TestRemoteControl" )
+public class TestRemoteControl
+{
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The id of the client: {@value}.
+     */
+    private static final String CLIENT_ID = "tablet";
+
+    /**
+     *  The number of heats that are started and aborted for the latency
+     *  measurement: {@value}.
+     */
+    private static final int HEAT_COUNT = 300;
+
+    /**
+     *  The token for the remote control: {@value}.
+     */
+    private static final String TOKEN = "test-token";
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The stand-in for the JavaFX Application Thread.
+     */
+    private ExecutorService m_ApplicationThread;
+
+    /**
+     *  The shared clock.
+     */
+    private SharedClock m_Clock;
+
+    /**
+     *  The socket of the peer that receives the replicated heats.
+     */
+    private DatagramSocket m_Peer;
+
+    /**
+     *  The remote control.
+     */
+    private RemoteControl m_RemoteControl;
+
+    /**
+     *  The replication of the heats.
+     */
+    private HeatReplicator m_Replicator;
+
+    /**
+     *  The session that executes the heats.
+     */
+    private HeatSession m_Session;
+
+    /**
+     *  The status machine.
+     */
+    private StatusMachine m_StatusMachine;
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Executes the given command on the stand-in for the JavaFX Application
+     *  Thread.
+     *
+     *  @param  command The command.
+     *  @return The result of the command.
+     */
+    private final CompletableFuture<Boolean> runOnApplicationThread( final BooleanSupplier command )
+    {
+        final var retValue = CompletableFuture.supplyAsync( command::getAsBoolean, m_ApplicationThread );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  runOnApplicationThread()
+
+    /**
+     *  Sends a command to the remote control.
+     *
+     *  @param  port    The port of the remote control.
+     *  @param  token   The token; may be {@code null}.
+     *  @param  command The command.
+     *  @param  sequence    The sequence number.
+     *  @return The HTTP status code and the body of the reply, separated by
+     *      a blank.
+     *  @throws IOException The command could not be sent.
+     */
+    private static final String send( final int port, final String token, final RemoteControl.Command command, final long sequence ) throws IOException
+    {
+        final var url = new URL( "http://127.0.0.1:%d%s%s?client=%s&seq=%d".formatted( port, RemoteControl.CONTEXT_PATH, command.getName(), CLIENT_ID, sequence ) );
+        final var connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod( "POST" );
+        if( nonNull( token ) ) connection.setRequestProperty( "Authorization", RemoteControl.AUTHORIZATION_SCHEME + token );
+        final var code = connection.getResponseCode();
+        final String retValue;
+        try( final var body = code < 400 ? connection.getInputStream() : connection.getErrorStream() )
+        {
+            retValue = "%d %s".formatted( code, new String( body.readAllBytes(), UTF_8 ) );
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  send()
+
+    /**
+     *  Sets up the remote control, with the same path from a command to the
+     *  heat as in the application.
+     *
+     *  @throws Exception   Something went wrong unexpectedly.
+     */
+    @BeforeEach
+    final void setup() throws Exception
+    {
+        System.setProperty( RemoteControl.PROPERTY_HTTP_NODELAY, "true" );
+        m_ApplicationThread = Executors.newSingleThreadExecutor();
+        m_StatusMachine = new StatusMachine();
+        m_Clock = new SharedClock( new SystemHeatClock( TimerScheduler.getScheduler() ) );
+        m_Peer = new DatagramSocket( new InetSocketAddress( InetAddress.getLoopbackAddress(), 0 ) );
+        m_Replicator = new HeatReplicator( 1, m_Clock, new InetSocketAddress( InetAddress.getLoopbackAddress(), 0 ), List.of( (InetSocketAddress) m_Peer.getLocalSocketAddress() ), TimerScheduler.getScheduler(), new HeatReplicator.ReplicationListener()
+        {
+            @Override
+            public final void heatAborted( final HeatTimeline timeline ) { /* Not replicated here */ }
+
+            @Override
+            public final void heatStarted( final HeatTimeline timeline ) { /* Not replicated here */ }
+
+            @Override
+            public final void leaderChanged( final int leaderId, final boolean isLeader ) { /* Not relevant here */ }
+
+            @Override
+            public final void synchronisationChanged( final boolean isSynchronised ) { /* Not relevant here */ }
+        } );
+        m_Session = new HeatSession( m_StatusMachine, m_Clock, m_Replicator, new TransitionLatencies(), new HeatSession.HeatSetup()
+        {
+            @Override
+            public final void addCues( final HeatEngine engine ) { /* No signals */ }
+
+            @Override
+            public final HeatEngine.PhaseListener createPhaseListener() { return (phase,deadline,scope) -> m_StatusMachine.transitionTo( phase.getStatus() ); }
+        } );
+        final var program = Discipline.TIEBREAK.getProgram();
+        m_RemoteControl = new RemoteControl( new InetSocketAddress( InetAddress.getLoopbackAddress(), 0 ), TOKEN, new RemoteControl.CommandHandler()
+        {
+            @Override
+            public final CompletableFuture<Boolean> abortHeat() { return runOnApplicationThread( () -> m_Session.isRunning() && m_Session.abort() ); }
+
+            @Override
+            public final CompletableFuture<Boolean> selectDiscipline( final Discipline discipline ) { return runOnApplicationThread( () -> !m_Session.isRunning() ); }
+
+            @Override
+            public final CompletableFuture<Boolean> selectHeat( final int index ) { return runOnApplicationThread( () -> !m_Session.isRunning() && (index >= 0) && (index < program.length) ); }
+
+            @Override
+            public final CompletableFuture<Boolean> startHeat() { return runOnApplicationThread( () -> m_Session.start( Discipline.TIEBREAK, program [0], 10_000L, 1_000L ) ); }
+        } );
+        m_StatusMachine.addListener( m_RemoteControl );
+
+        //---* Wait until the replicator took the leadership *-----------------
+        final var timeout = System.nanoTime() + MILLISECONDS.toNanos( 5 * HeatReplicator.LEADER_TIMEOUT );
+        while( !m_Session.mayStart() && (System.nanoTime() < timeout) ) Thread.sleep( 50L );
+        assertTrue( m_Session.mayStart() );
+    }   //  setup()
+
+    /**
+     *  Stops the remote control.
+     */
+    @AfterEach
+    final void tearDown()
+    {
+        m_RemoteControl.close();
+        m_Session.abort();
+        m_Replicator.close();
+        m_Peer.close();
+        m_Clock.close();
+        m_ApplicationThread.shutdownNow();
+    }   //  tearDown()
+
+    /**
+     *  While the session is blocked, a {@code start} command is rejected;
+     *  after the session was released, it is executed.
+     *
+     *  @throws Exception   Something went wrong unexpectedly.
+     */
+    @Test
+    final void testBlocked() throws Exception
+    {
+        final var port = m_RemoteControl.getPort();
+        m_Session.setBlocked( true );
+        assertFalse( m_Session.mayStart() );
+        final var rejected = send( port, TOKEN, RemoteControl.Command.START, 1L );
+        assertTrue( rejected.startsWith( "200 " ) && rejected.contains( "\"result\":\"rejected\"" ), rejected );
+        assertFalse( m_Session.isRunning() );
+        assertEquals( STATUS_OFF, m_StatusMachine.getStatus() );
+
+        m_Session.setBlocked( false );
+        assertTrue( m_Session.mayStart() );
+        final var executed = send( port, TOKEN, RemoteControl.Command.START, 2L );
+        assertTrue( executed.startsWith( "200 " ) && executed.contains( "\"result\":\"executed\"" ), executed );
+        assertTrue( m_Session.isRunning() );
+    }   //  testBlocked()
+
+    /**
+     *  The 99th percentile of the latency of {@code start} and
+     *  {@code abort} does not exceed the budget.
+     *
+     *  @throws Exception   Something went wrong unexpectedly.
+     */
+    @Test
+    final void testLatencyBudget() throws Exception
+    {
+        final var port = m_RemoteControl.getPort();
+        var sequence = 0L;
+        for( var i = 0; i < HEAT_COUNT; ++i )
+        {
+            final var start = send( port, TOKEN, RemoteControl.Command.START, ++sequence );
+            assertTrue( start.startsWith( "200 " ) && start.contains( "\"result\":\"executed\"" ), start );
+            final var abort = send( port, TOKEN, RemoteControl.Command.ABORT, ++sequence );
+            assertTrue( abort.startsWith( "200 " ) && abort.contains( "\"result\":\"executed\"" ), abort );
+        }
+
+        final var budget = MILLISECONDS.toNanos( RemoteControl.LATENCY_BUDGET );
+        for( final var command : new RemoteControl.Command [] {RemoteControl.Command.START, RemoteControl.Command.ABORT} )
+        {
+            final var latencies = m_RemoteControl.getLatencies( command );
+            assertEquals( HEAT_COUNT, latencies.getCount() );
+            final var p99 = latencies.getValueAtPercentile( 99.0 );
+            assertTrue( p99 <= budget, "p99 latency for '%s' is %d µs, the budget is %d ms".formatted( command.getName(), p99 / 1_000L, RemoteControl.LATENCY_BUDGET ) );
+        }
+    }   //  testLatencyBudget()
+
+    /**
+     *  A retransmitted command is not executed again.
+     *
+     *  @throws Exception   Something went wrong unexpectedly.
+     */
+    @Test
+    final void testRetransmission() throws Exception
+    {
+        final var port = m_RemoteControl.getPort();
+        final var reply = send( port, TOKEN, RemoteControl.Command.START, 1L );
+        assertEquals( reply, send( port, TOKEN, RemoteControl.Command.START, 1L ) );
+        assertTrue( m_Session.isRunning() );
+        assertEquals( 1L, m_RemoteControl.getLatencies( RemoteControl.Command.START ).getCount() );
+        assertTrue( send( port, TOKEN, RemoteControl.Command.START, 0L ).startsWith( "409 " ) );
+    }   //  testRetransmission()
+
+    /**
+     *  A reply for a transient failure is not kept; the retransmitted
+     *  command is executed again.
+     *
+     *  @throws Exception   Something went wrong unexpectedly.
+     */
+    @Test
+    final void testTransientFailure() throws Exception
+    {
+        final var calls = new AtomicInteger();
+        try( final var remoteControl = new RemoteControl( new InetSocketAddress( InetAddress.getLoopbackAddress(), 0 ), TOKEN, new RemoteControl.CommandHandler()
+        {
+            @Override
+            public final CompletableFuture<Boolean> abortHeat() { return CompletableFuture.completedFuture( Boolean.FALSE ); }
+
+            @Override
+            public final CompletableFuture<Boolean> selectDiscipline( final Discipline discipline ) { return CompletableFuture.completedFuture( Boolean.FALSE ); }
+
+            @Override
+            public final CompletableFuture<Boolean> selectHeat( final int index ) { return CompletableFuture.completedFuture( Boolean.FALSE ); }
+
+            @Override
+            public final CompletableFuture<Boolean> startHeat()
+            {
+                return calls.incrementAndGet() == 1
+                    ? CompletableFuture.failedFuture( new IllegalStateException( "Transient failure" ) )
+                    : CompletableFuture.completedFuture( Boolean.FALSE );
+            }
+        } ) )
+        {
+            final var port = remoteControl.getPort();
+            assertTrue( send( port, TOKEN, RemoteControl.Command.START, 1L ).startsWith( "500 " ) );
+            final var reply = send( port, TOKEN, RemoteControl.Command.START, 1L );
+            assertTrue( reply.startsWith( "200 " ) && reply.contains( "\"result\":\"rejected\"" ), reply );
+            assertEquals( 2, calls.get() );
+
+            //---* The final reply is kept *-----------------------------------
+            assertEquals( reply, send( port, TOKEN, RemoteControl.Command.START, 1L ) );
+            assertEquals( 2, calls.get() );
+        }
+    }   //  testTransientFailure()
+
+    /**
+     *  A command without the right token is refused.
+     *
+     *  @throws Exception   Something went wrong unexpectedly.
+     */
+    @Test
+    final void testUnauthorised() throws Exception
+    {
+        final var port = m_RemoteControl.getPort();
+        assertTrue( send( port, null, RemoteControl.Command.START, 1L ).startsWith( "401 " ) );
+        assertTrue( send( port, "wrong", RemoteControl.Command.START, 2L ).startsWith( "401 " ) );
+        assertTrue( send( port, TOKEN + "x", RemoteControl.Command.START, 3L ).startsWith( "401 " ) );
+        assertFalse( m_Session.isRunning() );
+        assertEquals( STATUS_OFF, m_StatusMachine.getStatus() );
+
+        //---* The refused commands did not use up the sequence numbers *------
+        assertTrue( send( port, TOKEN, RemoteControl.Command.START, 1L ).startsWith( "200 " ) );
+        assertTrue( m_Session.isRunning() );
+    }   //  testUnauthorised()
+}
+//  class TestRemoteControl
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,216 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  Tests for the
+ *  {@link SharedClock},
+ *  following a
+ *  {@link ClockSyncResponder}
+ *  on the loopback address.
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@DisplayName( "org.tquadrat.shootingtimer.TestSharedClock" )
+public class TestSharedClock
+{
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The offset of the reference clock to the local clock, in nanoseconds.
+     */
+    private static final long OFFSET = SECONDS.toNanos( 3_600L ) + 123_456_789L;
+
+    /**
+     *  The interval between the requests, in milliseconds: {@value}.
+     */
+    private static final long POLL_INTERVAL = 50L;
+
+    /**
+     *  The step of the reference clock, in nanoseconds.
+     */
+    private static final long STEP = SECONDS.toNanos( 1L );
+
+    /**
+     *  The largest error of the offset, and the largest jitter, that are
+     *  accepted on the loopback address, in nanoseconds.
+     */
+    private static final long TOLERANCE = MILLISECONDS.toNanos( 2L );
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Creates the address of the given responder on the loopback address.
+     *
+     *  @param  responder   The responder.
+     *  @return The address.
+     */
+    private static final InetSocketAddress addressOf( final ClockSyncResponder responder )
+    {
+        final var retValue = new InetSocketAddress( InetAddress.getLoopbackAddress(), responder.getPort() );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  addressOf()
+
+    /**
+     *  Waits until the given clock has taken enough samples to fill its
+     *  filter.
+     *
+     *  @param  clock   The clock.
+     *  @throws InterruptedException    The wait was interrupted.
+     */
+    private static final void awaitFilter( final SharedClock clock ) throws InterruptedException
+    {
+        final var timeout = System.nanoTime() + SECONDS.toNanos( 10L );
+        while( (clock.getSampleCount() < SharedClock.FILTER_SIZE) && (System.nanoTime() < timeout) ) Thread.sleep( 10L );
+        assertTrue( clock.getSampleCount() >= SharedClock.FILTER_SIZE, "Only %d samples".formatted( clock.getSampleCount() ) );
+    }   //  awaitFilter()
+
+    /**
+     *  With a reference that runs ahead of the local clock by a known
+     *  offset, the shared clock converges to that offset, and the jitter
+     *  stays small.
+     *
+     *  @throws Exception   Something went wrong unexpectedly.
+     */
+    @Test
+    final void testConvergence() throws Exception
+    {
+        final var local = new SystemHeatClock( TimerScheduler.getScheduler() );
+        final var reference = new HeatClock()
+        {
+            @Override
+            public final long nanoTime() { return local.nanoTime() + OFFSET; }
+
+            @Override
+            public final Future<?> schedule( final Runnable task, final long deadline ) { return local.schedule( task, deadline - OFFSET ); }
+        };
+        try( final var responder = new ClockSyncResponder( reference, new InetSocketAddress( InetAddress.getLoopbackAddress(), 0 ) );
+             final var clock = new SharedClock( local, addressOf( responder ), POLL_INTERVAL ) )
+        {
+            assertFalse( clock.isReference() );
+            awaitFilter( clock );
+
+            assertTrue( clock.isSynchronised() );
+            assertTrue( Math.abs( clock.getOffset() - OFFSET ) < TOLERANCE, "Offset error is %d ns".formatted( clock.getOffset() - OFFSET ) );
+            assertTrue( clock.getJitter() < TOLERANCE, "Jitter is %d ns".formatted( clock.getJitter() ) );
+            assertTrue( Math.abs( clock.nanoTime() - reference.nanoTime() ) < TOLERANCE );
+        }
+    }   //  testConvergence()
+
+    /**
+     *  When the timebase of the reference steps, the shared clock follows
+     *  with the next sample, instead of keeping the old offset until the
+     *  samples from before the step have left the filter.
+     *
+     *  @throws Exception   Something went wrong unexpectedly.
+     */
+    @Test
+    final void testStep() throws Exception
+    {
+        final var local = new SystemHeatClock( TimerScheduler.getScheduler() );
+        final var offset = new AtomicLong( OFFSET );
+        final var reference = new HeatClock()
+        {
+            @Override
+            public final long nanoTime() { return local.nanoTime() + offset.get(); }
+
+            @Override
+            public final Future<?> schedule( final Runnable task, final long deadline ) { return local.schedule( task, deadline - offset.get() ); }
+        };
+        try( final var responder = new ClockSyncResponder( reference, new InetSocketAddress( InetAddress.getLoopbackAddress(), 0 ) );
+             final var clock = new SharedClock( local, addressOf( responder ), POLL_INTERVAL ) )
+        {
+            awaitFilter( clock );
+            assertEquals( 0L, clock.getStepCount() );
+
+            //---* The step is detected with the next sample *-----------------
+            offset.addAndGet( STEP );
+            final var sampleCount = clock.getSampleCount();
+            final var timeout = System.nanoTime() + SECONDS.toNanos( 10L );
+            while( (clock.getSampleCount() <= sampleCount) && (System.nanoTime() < timeout) ) Thread.sleep( 10L );
+            assertTrue( clock.getSampleCount() > sampleCount );
+            assertEquals( 1L, clock.getStepCount() );
+            assertTrue( clock.isSynchronised() );
+            assertTrue( Math.abs( clock.getOffset() - OFFSET - STEP ) < TOLERANCE, "Offset error is %d ns".formatted( clock.getOffset() - OFFSET - STEP ) );
+            assertTrue( Math.abs( clock.nanoTime() - reference.nanoTime() ) < TOLERANCE );
+        }
+    }   //  testStep()
+
+    /**
+     *  With simulated clocks, that do not move while a request is on its
+     *  way, the offset is exact from the first sample on, and there is no
+     *  jitter; the tasks are scheduled on the local clock at the local time
+     *  for their deadline.
+     *
+     *  @throws Exception   Something went wrong unexpectedly.
+     */
+    @Test
+    final void testSimulatedClocks() throws Exception
+    {
+        final var localStart = SECONDS.toNanos( 10L );
+        final var local = new SimulatedHeatClock( localStart );
+        final var reference = new SimulatedHeatClock( localStart + OFFSET );
+        try( final var responder = new ClockSyncResponder( reference, new InetSocketAddress( InetAddress.getLoopbackAddress(), 0 ) );
+             final var clock = new SharedClock( local, addressOf( responder ), POLL_INTERVAL ) )
+        {
+            awaitFilter( clock );
+
+            assertTrue( clock.isSynchronised() );
+            assertEquals( OFFSET, clock.getOffset() );
+            assertEquals( 0L, clock.getJitter() );
+            assertEquals( reference.nanoTime(), clock.nanoTime() );
+            assertEquals( localStart, clock.toLocalTime( reference.nanoTime() ) );
+
+            //---* A deadline on the shared clock is due at the local time *---
+            final var isExecuted = new AtomicBoolean( false );
+            clock.schedule( () -> isExecuted.set( true ), reference.nanoTime() + SECONDS.toNanos( 1L ) );
+            local.advanceTo( localStart + SECONDS.toNanos( 1L ) - 1L );
+            assertFalse( isExecuted.get() );
+            local.advanceTo( localStart + SECONDS.toNanos( 1L ) );
+            assertTrue( isExecuted.get() );
+        }
+    }   //  testSimulatedClocks()
+}
+//  class TestSharedClock
+
+/*
+ *  End of File
+ */
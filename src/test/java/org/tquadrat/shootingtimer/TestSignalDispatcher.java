@@ -0,0 +1,94 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.tquadrat.shootingtimer.spi.Status.STATUS_BEFORE;
+import static org.tquadrat.shootingtimer.spi.Status.STATUS_OFF;
+import static org.tquadrat.shootingtimer.spi.Status.STATUS_STARTING;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.shootingtimer.spi.SignalSink;
+import org.tquadrat.shootingtimer.spi.Status;
+
+/**
+ *  Tests for the
+ *  {@link SignalDispatcher},
+ *  with the
+ *  {@link LoopbackSignalSink}.
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@DisplayName( "org.tquadrat.shootingtimer.TestSignalDispatcher" )
+public class TestSignalDispatcher
+{
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  The transitions reach the sink in their order, even when another
+     *  sink fails.
+     *
+     *  @throws Exception   Something went wrong unexpectedly.
+     */
+    @Test
+    final void testDispatch() throws Exception
+    {
+        final var failingSink = new SignalSink()
+        {
+            @Override
+            public final String getName() { return "Failing"; }
+
+            @Override
+            public final void statusChanged( final Status oldStatus, final Status newStatus, final long transitionTime ) { throw new IllegalStateException( "Broken device" ); }
+        };
+        final var sink = new LoopbackSignalSink();
+        final var statusMachine = new StatusMachine();
+        try( final var dispatcher = new SignalDispatcher( List.of( failingSink, sink ) ) )
+        {
+            statusMachine.addListener( dispatcher );
+            statusMachine.proceed();
+            statusMachine.proceed();
+            statusMachine.reset();
+
+            final var expected = new Status [][] { {STATUS_OFF, STATUS_STARTING}, {STATUS_STARTING, STATUS_BEFORE}, {STATUS_BEFORE, STATUS_OFF} };
+            for( final var transition : expected )
+            {
+                final var received = sink.poll( 5, SECONDS ).orElseThrow();
+                assertEquals( transition [0], received.oldStatus() );
+                assertEquals( transition [1], received.newStatus() );
+                assertTrue( received.transitionTime() <= received.receiveTime() );
+            }
+            assertEquals( 3L, dispatcher.getLatencies( sink ).getCount() );
+        }
+    }   //  testDispatch()
+}
+//  class TestSignalDispatcher
+
+/*
+ *  End of File
+ */
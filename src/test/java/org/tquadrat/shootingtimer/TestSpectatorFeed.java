@@ -0,0 +1,224 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.tquadrat.shootingtimer.spi.Status.STATUS_AFTER;
+import static org.tquadrat.shootingtimer.spi.Status.STATUS_BEFORE;
+import static org.tquadrat.shootingtimer.spi.Status.STATUS_OFF;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  Tests for the
+ *  {@link SpectatorFeed}.
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@DisplayName( "org.tquadrat.shootingtimer.TestSpectatorFeed" )
+public class TestSpectatorFeed
+{
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The number of clients that subscribe, but never read: {@value}; they
+     *  are more than there are writer threads.
+     */
+    private static final int DEAD_CLIENTS = SpectatorFeed.WRITER_THREADS + 2;
+
+    /**
+     *  The maximum number of transitions that are sent before the dead
+     *  clients must have been disconnected: {@value}.
+     */
+    private static final int MAX_TRANSITIONS = 200_000;
+
+    /**
+     *  The time in seconds to wait for a condition: {@value}.
+     */
+    private static final long TIMEOUT = 4L * SpectatorFeed.STALL_TIMEOUT / 1_000L;
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Waits until the given condition is met.
+     *
+     *  @param  condition   The condition.
+     *  @return {@code true} if the condition was met, {@code false} if the
+     *      wait timed out.
+     *  @throws InterruptedException    The wait was interrupted.
+     */
+    private static final boolean await( final BooleanSupplier condition ) throws InterruptedException
+    {
+        final var timeout = System.nanoTime() + SECONDS.toNanos( TIMEOUT );
+        while( !condition.getAsBoolean() && (System.nanoTime() < timeout) ) Thread.yield();
+        final var retValue = condition.getAsBoolean();
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  await()
+
+    /**
+     *  Opens a connection to the feed and subscribes to it.
+     *
+     *  @param  port    The port of the feed.
+     *  @param  receiveBufferSize   The size of the receive buffer for the
+     *      connection.
+     *  @return The connection.
+     *  @throws IOException The connection could not be opened.
+     */
+    private static final Socket subscribe( final int port, final int receiveBufferSize ) throws IOException
+    {
+        final var retValue = new Socket();
+        retValue.setReceiveBufferSize( receiveBufferSize );
+        retValue.connect( new InetSocketAddress( InetAddress.getLoopbackAddress(), port ) );
+        retValue.getOutputStream().write( "GET %s HTTP/1.1\r\nHost: localhost\r\nAccept: text/event-stream\r\n\r\n".formatted( SpectatorFeed.CONTEXT_PATH ).getBytes( UTF_8 ) );
+        retValue.getOutputStream().flush();
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  subscribe()
+
+    /**
+     *  Clients that subscribed but do not read anymore are disconnected, and
+     *  the writer threads that were blocked on them are free again; a live
+     *  client receives all events meanwhile.
+     *
+     *  @throws Exception   Something went wrong unexpectedly.
+     */
+    @Test
+    final void testDeadClients() throws Exception
+    {
+        final var deadClients = new ArrayList<Socket>();
+        try( final var feed = new SpectatorFeed( new InetSocketAddress( InetAddress.getLoopbackAddress(), 0 ) );
+             final var liveClient = subscribe( feed.getPort(), 65_536 ) )
+        {
+            //---* The live client counts the state events *-------------------
+            final var stateCount = new AtomicInteger();
+            final var lastState = new StringBuilder();
+            final var reader = new Thread( () ->
+            {
+                try( final var input = new BufferedReader( new InputStreamReader( liveClient.getInputStream(), UTF_8 ) ) )
+                {
+                    String line;
+                    while( (line = input.readLine()) != null )
+                    {
+                        if( line.startsWith( "data: {\"status\"" ) )
+                        {
+                            synchronized( lastState )
+                            {
+                                lastState.setLength( 0 );
+                                lastState.append( line );
+                            }
+                            stateCount.incrementAndGet();
+                        }
+                    }
+                }
+                catch( final IOException ignored ) { /* The test is over */ }
+            }, "LiveClient" );
+            reader.setDaemon( true );
+            reader.start();
+            assertTrue( await( () -> stateCount.get() == 1 ), "The live client did not get the initial state" );
+
+            for( var i = 0; i < DEAD_CLIENTS; ++i ) deadClients.add( subscribe( feed.getPort(), 1_024 ) );
+            assertTrue( await( () -> feed.getSubscriberCount() == DEAD_CLIENTS + 1 ), "Not all clients subscribed" );
+
+            /*
+             * The transitions are sent until all the dead clients were
+             * disconnected; the sender waits for the live client, so that
+             * only the dead clients fall behind. Once all the writers are
+             * blocked on dead clients, no further event is sent until the
+             * stall timeout; after that, the live client catches up only if
+             * the writers were really freed.
+             */
+            var sent = 1;
+            for( var i = 0; (i < MAX_TRANSITIONS) && (feed.getDisconnectCount() < DEAD_CLIENTS); ++i )
+            {
+                feed.statusChanged( STATUS_OFF, (i % 2) == 0 ? STATUS_BEFORE : STATUS_OFF );
+                final var expected = ++sent;
+                if( (i % 32) == 31 ) assertTrue( await( () -> stateCount.get() == expected ), "The live client is blocked by the dead clients" );
+            }
+            assertEquals( (long) DEAD_CLIENTS, feed.getDisconnectCount() );
+            assertEquals( 1, feed.getSubscriberCount() );
+
+            //---* The writers are free for the live client *------------------
+            feed.statusChanged( STATUS_OFF, STATUS_AFTER );
+            assertTrue( await( () -> { synchronized( lastState ) { return lastState.toString().contains( STATUS_AFTER.name() ); } } ), "The live client did not get the last state" );
+        }
+        finally
+        {
+            for( final var client : deadClients ) client.close();
+        }
+    }   //  testDeadClients()
+
+    /**
+     *  Clients that connect, but do not send their request, do not delay the
+     *  subscription of another client.
+     *
+     *  @throws Exception   Something went wrong unexpectedly.
+     */
+    @Test
+    final void testSilentClients() throws Exception
+    {
+        final var silentClients = new ArrayList<Socket>();
+        try( final var feed = new SpectatorFeed( new InetSocketAddress( InetAddress.getLoopbackAddress(), 0 ) ) )
+        {
+            for( var i = 0; i < SpectatorFeed.HANDSHAKE_THREADS - 1; ++i )
+            {
+                silentClients.add( new Socket( InetAddress.getLoopbackAddress(), feed.getPort() ) );
+            }
+
+            //---* The subscription completes well before the request timeout *
+            final var timeout = System.nanoTime() + MILLISECONDS.toNanos( SpectatorFeed.REQUEST_TIMEOUT / 2 );
+            try( final var client = subscribe( feed.getPort(), 65_536 ) )
+            {
+                while( (feed.getSubscriberCount() == 0) && (System.nanoTime() < timeout) ) Thread.sleep( 10L );
+                assertEquals( 1, feed.getSubscriberCount(), "The subscription was delayed by the silent clients" );
+            }
+        }
+        finally
+        {
+            for( final var client : silentClients ) client.close();
+        }
+    }   //  testSilentClients()
+}
+//  class TestSpectatorFeed
+
+/*
+ *  End of File
+ */
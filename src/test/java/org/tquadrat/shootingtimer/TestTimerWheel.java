@@ -0,0 +1,184 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.shootingtimer;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  Tests for the
+ *  {@link TimerWheel}.
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @since 0.3.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@DisplayName( "org.tquadrat.shootingtimer.TestTimerWheel" )
+public class TestTimerWheel
+{
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The number of buckets for the wheels in the tests: {@value}; it is
+     *  small, so the deadlines span several rounds.
+     */
+    private static final int BUCKETS = 16;
+
+    /**
+     *  The number of tasks: {@value}.
+     */
+    private static final int TASK_COUNT = 200;
+
+    /**
+     *  The duration of a tick, in nanoseconds.
+     */
+    private static final long TICK = MILLISECONDS.toNanos( 1L );
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Schedules the tasks, with deadlines up to several rounds of the wheel
+     *  ahead, each in the middle of a tick.
+     *
+     *  @param  wheel   The wheel.
+     *  @param  runTimes    Receives the time when each task was executed.
+     *  @param  latch   Counted down by each task.
+     *  @return The deadlines of the tasks.
+     */
+    private static final long [] schedule( final TimerWheel wheel, final AtomicLongArray runTimes, final CountDownLatch latch )
+    {
+        final var retValue = new long [TASK_COUNT];
+        final var start = wheel.nanoTime();
+        for( var i = 0; i < TASK_COUNT; ++i )
+        {
+            final var index = i;
+            retValue [i] = start + (i % (4 * BUCKETS)) * TICK + TICK / 2;
+            wheel.schedule( () ->
+            {
+                runTimes.set( index, System.nanoTime() );
+                latch.countDown();
+            }, retValue [i] );
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  schedule()
+
+    /**
+     *  Cancelled tasks are not executed, and they are removed from the
+     *  wheel; the others are executed on time.
+     *
+     *  @throws Exception   Something went wrong unexpectedly.
+     */
+    @Test
+    final void testCancel() throws Exception
+    {
+        try( final var wheel = new TimerWheel( TICK, BUCKETS ) )
+        {
+            final var runTimes = new AtomicLongArray( TASK_COUNT );
+            final var latch = new CountDownLatch( TASK_COUNT / 2 );
+            final var futures = new ArrayList<Future<?>>();
+            final var start = wheel.nanoTime();
+            for( var i = 0; i < TASK_COUNT; ++i )
+            {
+                final var index = i;
+                futures.add( wheel.schedule( () ->
+                {
+                    runTimes.set( index, System.nanoTime() );
+                    latch.countDown();
+                }, start + MILLISECONDS.toNanos( 200L ) + (i % (4 * BUCKETS)) * TICK ) );
+            }
+
+            //---* Cancel half of the tasks after they were put into buckets *-
+            Thread.sleep( 10L );
+            for( var i = 0; i < TASK_COUNT; i += 2 ) assertTrue( futures.get( i ).cancel( false ), "Task %d already executed".formatted( i ) );
+
+            assertTrue( latch.await( 10, SECONDS ) );
+
+            //---* Let the deadlines of the cancelled tasks pass, too *--------
+            Thread.sleep( 10L );
+            for( var i = 0; i < TASK_COUNT; ++i )
+            {
+                assertEquals( (i % 2) != 0, runTimes.get( i ) != 0L, "Task %d".formatted( i ) );
+                assertEquals( (i % 2) == 0, futures.get( i ).isCancelled() );
+            }
+            assertEquals( 0, wheel.getPendingCount() );
+        }
+    }   //  testCancel()
+
+    /**
+     *  A closed wheel rejects new tasks.
+     *
+     *  @throws Exception   Something went wrong unexpectedly.
+     */
+    @Test
+    final void testClose() throws Exception
+    {
+        final var wheel = new TimerWheel( TICK, BUCKETS );
+        wheel.close();
+        assertThrows( RejectedExecutionException.class, () -> wheel.schedule( () -> {}, wheel.nanoTime() ) );
+    }   //  testClose()
+
+    /**
+     *  The tasks are executed not before their deadlines, and not later than
+     *  a tick after them, apart from the scheduling of the threads.
+     *
+     *  @throws Exception   Something went wrong unexpectedly.
+     */
+    @Test
+    final void testSchedule() throws Exception
+    {
+        try( final var wheel = new TimerWheel( TICK, BUCKETS ) )
+        {
+            final var runTimes = new AtomicLongArray( TASK_COUNT );
+            final var latch = new CountDownLatch( TASK_COUNT );
+            final var deadlines = schedule( wheel, runTimes, latch );
+
+            assertTrue( latch.await( 10, SECONDS ) );
+            for( var i = 0; i < TASK_COUNT; ++i )
+            {
+                final var lateness = runTimes.get( i ) - deadlines [i];
+                assertFalse( lateness < 0L, "Task %d is early by %d ns".formatted( i, -lateness ) );
+                assertTrue( lateness < TICK + MILLISECONDS.toNanos( 50L ), "Task %d is late by %d ns".formatted( i, lateness ) );
+            }
+            assertEquals( 0, wheel.getPendingCount() );
+        }
+    }   //  testSchedule()
+}
+//  class TestTimerWheel
+
+/*
+ *  End of File
+ */